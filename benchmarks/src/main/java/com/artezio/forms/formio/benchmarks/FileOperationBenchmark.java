@@ -0,0 +1,67 @@
+package com.artezio.forms.formio.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes of the file operation executor over the data of a form as they are made by the client calls, and the
+ * lookup of file fields in the plan of the form every pass makes for every field of the data.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileOperationBenchmark {
+
+    @Benchmark
+    public JsonNode convertToFormioFile(FormState state) {
+        return state.formioClient.fileOperations(state.formPlan)
+                .convertToFormioFile()
+                .execute(state.currentVariables);
+    }
+
+    /**
+     * The pass of {@code getFormWithData}.
+     */
+    @Benchmark
+    public JsonNode addDownloadUrlPrefix(FormState state) {
+        return state.formioClient.fileOperations(state.formPlan)
+                .convertToFormioFile()
+                .addDownloadUrlPrefix(state.fileStorage)
+                .execute(state.currentVariables);
+    }
+
+    /**
+     * The pass of {@code dryValidationAndCleanup} cutting data urls out of the submitted data.
+     */
+    @Benchmark
+    public JsonNode extractFormioDataInUrl(FormState state) {
+        ObjectNode dataInUrlBuffer = JsonNodeFactory.instance.objectNode();
+        return state.formioClient.fileOperations(state.formPlan)
+                .convertToFormioFile()
+                .extractFormioDataInUrl(dataInUrlBuffer)
+                .execute(state.submittedVariables);
+    }
+
+    @Benchmark
+    public boolean isFileField_FileField(FormState state) {
+        return state.formPlan.isFileField(state.fileFieldKey);
+    }
+
+    @Benchmark
+    public boolean isFileField_TextField(FormState state) {
+        return state.formPlan.isFileField(state.textFieldKey);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.artezio.forms.formio.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a validation command into the standard input of a NodeJs process, with the form referenced by its
+ * hash and with the form definition sent along for a process the form is not registered in.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormIoCommandBenchmark {
+
+    private static final String OPERATION = "validate";
+    private static final String CUSTOM_COMPONENTS_DIR = "/tmp/formio/synthetic";
+
+    @Benchmark
+    public void writeCommand(FormState state) throws IOException {
+        state.formioClient.getFormIoCommand(OPERATION, state.formHash, null, state.submittedVariables,
+                CUSTOM_COMPONENTS_DIR).writeTo(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void writeCommandWithForm(FormState state) throws IOException {
+        state.formioClient.getFormIoCommand(OPERATION, state.formHash, state.formDefinition, state.submittedVariables,
+                CUSTOM_COMPONENTS_DIR).writeTo(OutputStream.nullOutputStream());
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.artezio.forms.formio.benchmarks;
+
+import com.artezio.forms.formio.FormioClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting a form, which every client call does before anything else: {@link #getFormByKey(FormState)} copies it from
+ * the cache of expanded forms, {@link #loadForm(FormState)} invalidates the cache first, so it reads the form, expands
+ * its subforms, hashes it and compiles its plan. Expanding changes the form it is given, so
+ * {@link #expandSubforms(FormState)} works on a copy whose cost is measured by {@link #copyStoredForm(FormState)}.
+ * {@link #compileFormPlan(FormState)} measures the compilation of the plan alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormLoadingBenchmark {
+
+    @Benchmark
+    public JsonNode getFormByKey(FormState state) {
+        return state.formioClient.getFormByKey(SyntheticForm.FORM_KEY, state.resourceLoader);
+    }
+
+    @Benchmark
+    public JsonNode loadForm(FormState state) {
+        FormioClient.invalidateForms(state.groupId);
+        return state.formioClient.getFormByKey(SyntheticForm.FORM_KEY, state.resourceLoader);
+    }
+
+    @Benchmark
+    public JsonNode expandSubforms(FormState state) {
+        return state.formioClient.expandSubforms(state.storedForm.deepCopy(), state.resourceLoader);
+    }
+
+    @Benchmark
+    public JsonNode copyStoredForm(FormState state) {
+        return state.storedForm.deepCopy();
+    }
+
+    @Benchmark
+    public FormioClientInternals.FormPlan compileFormPlan(FormState state) {
+        return state.formioClient.compileFormPlan(state.formDefinition);
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.artezio.forms.formio.benchmarks;
+
+import com.artezio.forms.formio.FormioClient;
+import com.artezio.forms.storages.FileStorage;
+import com.artezio.forms.storages.FileStorageEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+
+/**
+ * A synthetic form with its data, prepared the way {@link FormioClient} prepares them before the step a benchmark
+ * measures. The size of the form is set by the parameters of {@link SyntheticForm}, e.g. {@code -p depth=4 -p rows=2}.
+ */
+@State(Scope.Benchmark)
+public class FormState {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    @Param({"1", "3"})
+    public int depth;
+
+    @Param({"0", "4"})
+    public int subforms;
+
+    @Param({"5"})
+    public int rows;
+
+    @Param({"2"})
+    public int fileFields;
+
+    public String groupId;
+    public InMemoryResourceLoader resourceLoader;
+    public FormioClientInternals formioClient;
+    public FileStorage fileStorage;
+
+    /** The root form as it is stored, subforms not expanded */
+    public ObjectNode storedForm;
+    /** The root form with subforms expanded */
+    public JsonNode formDefinition;
+    public String formDefinitionJson;
+    public String formHash;
+    public FormioClientInternals.FormPlan formPlan;
+
+    /** Current data as it is stored, i.e. before grid rows are wrapped */
+    public ObjectNode currentVariables;
+    /** Current data as it is sent to the browser */
+    public ObjectNode wrappedCurrentVariables;
+    /** Data submitted by the browser */
+    public ObjectNode submittedVariables;
+
+    public String fileFieldKey;
+    public String textFieldKey;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticForm syntheticForm = new SyntheticForm(depth, subforms, rows, fileFields);
+        Map<String, byte[]> resources = syntheticForm.createResources();
+        groupId = String.format("synthetic-%d-%d-%d-%d", depth, subforms, rows, fileFields);
+        resourceLoader = new InMemoryResourceLoader(groupId, resources);
+        formioClient = new FormioClientInternals(new FormioClient(new FormioFileConverter(), resourceLoader));
+        fileStorage = new DownloadUrlFileStorage();
+
+        storedForm = syntheticForm.createForm();
+        formDefinition = formioClient.getFormByKey(SyntheticForm.FORM_KEY, resourceLoader);
+        formDefinitionJson = JSON_MAPPER.writeValueAsString(formDefinition);
+        formHash = Integer.toHexString(formDefinitionJson.hashCode());
+        formPlan = formioClient.compileFormPlan(formDefinition);
+
+        currentVariables = syntheticForm.createData("current");
+        wrappedCurrentVariables = (ObjectNode) formioClient.wrapGridData(currentVariables, formPlan);
+        submittedVariables = (ObjectNode) formioClient.wrapGridData(syntheticForm.createData("submitted"), formPlan);
+
+        fileFieldKey = fileFields > 0 ? syntheticForm.getFileFieldKeys().get(0) : syntheticForm.getTextFieldKey();
+        textFieldKey = syntheticForm.getTextFieldKey();
+    }
+
+    private static class DownloadUrlFileStorage implements FileStorage {
+        @Override
+        public void store(FileStorageEntity fileStorageEntity) {
+        }
+
+        @Override
+        public FileStorageEntity retrieve(String id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getDownloadUrlPrefix() {
+            return "https://files.example.com/download";
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.artezio.forms.formio.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging the submitted data with the current data of disabled fields before validation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormVariablesBenchmark {
+
+    @Benchmark
+    public JsonNode getFormVariables(FormState state) {
+        return state.formioClient.getFormVariables(state.formPlan, state.submittedVariables,
+                state.wrappedCurrentVariables);
+    }
+
+}
@@ -0,0 +1,234 @@
+package com.artezio.forms.formio.benchmarks;
+
+import com.artezio.forms.formio.FormioClient;
+import com.artezio.forms.formio.nodejs.NodeJsCommand;
+import com.artezio.forms.resources.ResourceLoader;
+import com.artezio.forms.storages.FileStorage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Calls the methods of {@link FormioClient} which are not part of its API, so the benchmarks measure the steps of
+ * the client calls one by one. The methods are looked up once through method handles; a failed lookup means the
+ * benchmarks have to follow a change of the client.
+ */
+public class FormioClientInternals {
+
+    private static final MethodHandles.Lookup LOOKUP;
+    private static final Class<?> FILE_OPERATION_EXECUTOR_CLASS;
+    private static final Class<?> FORM_PLAN_CLASS;
+    private static final Class<?> COMPONENT_CLASS;
+    private static final MethodHandle GET_FORM_BY_KEY;
+    private static final MethodHandle EXPAND_SUBFORMS;
+    private static final MethodHandle WRAP_GRID_DATA;
+    private static final MethodHandle UNWRAP_GRID_DATA;
+    private static final MethodHandle GET_FORM_VARIABLES;
+    private static final MethodHandle COMPILE_FORM_PLAN;
+    private static final MethodHandle GET_ROOT;
+    private static final MethodHandle IS_FILE_FIELD;
+    private static final MethodHandle GET_FORM_IO_COMMAND;
+    private static final MethodHandle NEW_FILE_OPERATION_EXECUTOR;
+    private static final MethodHandle CONVERT_TO_FORMIO_FILE;
+    private static final MethodHandle ADD_DOWNLOAD_URL_PREFIX;
+    private static final MethodHandle EXTRACT_FORMIO_DATA_IN_URL;
+    private static final MethodHandle EXECUTE;
+
+    static {
+        try {
+            LOOKUP = MethodHandles.privateLookupIn(FormioClient.class, MethodHandles.lookup());
+            FILE_OPERATION_EXECUTOR_CLASS = LOOKUP.findClass(FormioClient.class.getName() + "$FileOperationExecutor");
+            FORM_PLAN_CLASS = LOOKUP.findClass(FormioClient.class.getPackageName() + ".FormPlan");
+            COMPONENT_CLASS = LOOKUP.findClass(FORM_PLAN_CLASS.getName() + "$Component");
+            MethodType fileOperation = methodType(FILE_OPERATION_EXECUTOR_CLASS);
+            GET_FORM_BY_KEY = findVirtual("getFormByKey", methodType(JsonNode.class, String.class, ResourceLoader.class));
+            EXPAND_SUBFORMS = findVirtual("expandSubforms", methodType(JsonNode.class, JsonNode.class, ResourceLoader.class));
+            WRAP_GRID_DATA = findVirtual("wrapGridData", methodType(JsonNode.class, JsonNode.class, COMPONENT_CLASS));
+            UNWRAP_GRID_DATA = findVirtual("unwrapGridData", methodType(JsonNode.class, JsonNode.class, COMPONENT_CLASS));
+            GET_FORM_VARIABLES = findVirtual("getFormVariables",
+                    methodType(JsonNode.class, FORM_PLAN_CLASS, JsonNode.class, JsonNode.class));
+            COMPILE_FORM_PLAN = LOOKUP.findStatic(FORM_PLAN_CLASS, "compile", methodType(FORM_PLAN_CLASS, JsonNode.class));
+            GET_ROOT = LOOKUP.findVirtual(FORM_PLAN_CLASS, "getRoot", methodType(COMPONENT_CLASS));
+            IS_FILE_FIELD = LOOKUP.findVirtual(FORM_PLAN_CLASS, "isFileField", methodType(boolean.class, String.class));
+            GET_FORM_IO_COMMAND = findVirtual("getFormIoCommand",
+                    methodType(NodeJsCommand.class, String.class, String.class, JsonNode.class, JsonNode.class, String.class));
+            NEW_FILE_OPERATION_EXECUTOR = LOOKUP.findConstructor(FILE_OPERATION_EXECUTOR_CLASS,
+                    methodType(void.class, FormioClient.class, FORM_PLAN_CLASS));
+            CONVERT_TO_FORMIO_FILE = LOOKUP.findVirtual(FILE_OPERATION_EXECUTOR_CLASS, "convertToFormioFile", fileOperation);
+            ADD_DOWNLOAD_URL_PREFIX = LOOKUP.findVirtual(FILE_OPERATION_EXECUTOR_CLASS, "addDownloadUrlPrefix",
+                    fileOperation.appendParameterTypes(FileStorage.class));
+            EXTRACT_FORMIO_DATA_IN_URL = LOOKUP.findVirtual(FILE_OPERATION_EXECUTOR_CLASS, "extractFormioDataInUrl",
+                    fileOperation.appendParameterTypes(ObjectNode.class));
+            EXECUTE = LOOKUP.findVirtual(FILE_OPERATION_EXECUTOR_CLASS, "execute",
+                    methodType(ObjectNode.class, JsonNode.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final FormioClient formioClient;
+
+    public FormioClientInternals(FormioClient formioClient) {
+        this.formioClient = formioClient;
+    }
+
+    public JsonNode getFormByKey(String formKey, ResourceLoader resourceLoader) {
+        try {
+            return (JsonNode) GET_FORM_BY_KEY.invoke(formioClient, formKey, resourceLoader);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public JsonNode expandSubforms(JsonNode form, ResourceLoader resourceLoader) {
+        try {
+            return (JsonNode) EXPAND_SUBFORMS.invoke(formioClient, form, resourceLoader);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return Plan of the form which the data transforms of the client run off
+     */
+    public FormPlan compileFormPlan(JsonNode formDefinition) {
+        try {
+            Object formPlan = COMPILE_FORM_PLAN.invoke(formDefinition);
+            return new FormPlan(formPlan, GET_ROOT.invoke(formPlan));
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public JsonNode wrapGridData(JsonNode data, FormPlan formPlan) {
+        try {
+            return (JsonNode) WRAP_GRID_DATA.invoke(formioClient, data, formPlan.root);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public JsonNode unwrapGridData(JsonNode data, FormPlan formPlan) {
+        try {
+            return (JsonNode) UNWRAP_GRID_DATA.invoke(formioClient, data, formPlan.root);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public JsonNode getFormVariables(FormPlan formPlan, ObjectNode submittedVariables, ObjectNode currentVariables) {
+        try {
+            return (JsonNode) GET_FORM_VARIABLES.invoke(formioClient, formPlan.plan, submittedVariables, currentVariables);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public NodeJsCommand getFormIoCommand(String operation, String formHash, JsonNode formDefinition, JsonNode data,
+                                          String customComponentsDir) {
+        try {
+            return (NodeJsCommand) GET_FORM_IO_COMMAND.invoke(formioClient, operation, formHash, formDefinition, data,
+                    customComponentsDir);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return File operations of a form which are applied to the data by {@link FileOperations#execute(JsonNode)}
+     */
+    public FileOperations fileOperations(FormPlan formPlan) {
+        try {
+            return new FileOperations(NEW_FILE_OPERATION_EXECUTOR.invoke(formioClient, formPlan.plan));
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static MethodHandle findVirtual(String name, MethodType type) throws ReflectiveOperationException {
+        return LOOKUP.findVirtual(FormioClient.class, name, type);
+    }
+
+    private static RuntimeException rethrow(Throwable error) {
+        if (error instanceof RuntimeException) {
+            return (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        return new RuntimeException(error);
+    }
+
+    /**
+     * Plan of a form compiled by the client.
+     */
+    public static class FormPlan {
+        private final Object plan;
+        private final Object root;
+
+        private FormPlan(Object plan, Object root) {
+            this.plan = plan;
+            this.root = root;
+        }
+
+        public boolean isFileField(String variableName) {
+            try {
+                return (boolean) IS_FILE_FIELD.invoke(plan, variableName);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+    /**
+     * Passes of the file operation executor of {@link FormioClient} over the data of a form.
+     */
+    public static class FileOperations {
+        private final Object executor;
+
+        private FileOperations(Object executor) {
+            this.executor = executor;
+        }
+
+        public FileOperations convertToFormioFile() {
+            try {
+                CONVERT_TO_FORMIO_FILE.invoke(executor);
+                return this;
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        public FileOperations addDownloadUrlPrefix(FileStorage fileStorage) {
+            try {
+                ADD_DOWNLOAD_URL_PREFIX.invoke(executor, fileStorage);
+                return this;
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        public FileOperations extractFormioDataInUrl(ObjectNode dataInUrlBuffer) {
+            try {
+                EXTRACT_FORMIO_DATA_IN_URL.invoke(executor, dataInUrlBuffer);
+                return this;
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        public ObjectNode execute(JsonNode variables) {
+            try {
+                return (ObjectNode) EXECUTE.invoke(executor, variables);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.artezio.forms.formio.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wrapping the rows of data grids before data is sent to the browser and unwrapping them in the validated data.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridDataBenchmark {
+
+    @Benchmark
+    public JsonNode wrapGridData(FormState state) {
+        return state.formioClient.wrapGridData(state.currentVariables, state.formPlan);
+    }
+
+    @Benchmark
+    public JsonNode unwrapGridData(FormState state) {
+        return state.formioClient.unwrapGridData(state.wrappedCurrentVariables, state.formPlan);
+    }
+
+}
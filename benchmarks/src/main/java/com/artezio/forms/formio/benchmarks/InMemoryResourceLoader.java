@@ -0,0 +1,43 @@
+package com.artezio.forms.formio.benchmarks;
+
+import com.artezio.forms.resources.ResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves resources from memory, so reading a form does not measure the file system.
+ */
+public class InMemoryResourceLoader implements ResourceLoader {
+
+    private final String groupId;
+    private final Map<String, byte[]> resources;
+
+    public InMemoryResourceLoader(String groupId, Map<String, byte[]> resources) {
+        this.groupId = groupId;
+        this.resources = resources;
+    }
+
+    @Override
+    public InputStream getResource(String resourceKey) {
+        byte[] resource = resources.get(resourceKey);
+        if (resource == null) {
+            throw new IllegalArgumentException("Resource is not found: " + resourceKey);
+        }
+        return new ByteArrayInputStream(resource);
+    }
+
+    @Override
+    public List<String> listResourceNames() {
+        return new ArrayList<>(resources.keySet());
+    }
+
+    @Override
+    public String getGroupId() {
+        return groupId;
+    }
+
+}
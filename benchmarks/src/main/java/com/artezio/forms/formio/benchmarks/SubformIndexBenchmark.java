@@ -0,0 +1,82 @@
+package com.artezio.forms.formio.benchmarks;
+
+import com.artezio.forms.formio.FormioClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the index of subforms of a group with many forms, which the first expansion of a subform of the group
+ * waits for. The id of every form follows its components, so the index has to skip them.
+ * {@link #parseResources(IndexState, Blackhole)} parses every resource into a tree one after another as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubformIndexBenchmark {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    @State(Scope.Benchmark)
+    public static class IndexState {
+
+        @Param({"1000"})
+        public int forms;
+
+        @Param({"2"})
+        public int depth;
+
+        public InMemoryResourceLoader resourceLoader;
+
+        @Setup
+        public void setUp() throws Exception {
+            ObjectNode form = new SyntheticForm(depth, 0, 1, 1).createForm();
+            form.remove("_id");
+            Map<String, byte[]> resources = new LinkedHashMap<>();
+            for (int index = 0; index < forms; index++) {
+                resources.put(String.format("forms/form%d.json", index),
+                        JSON_MAPPER.writeValueAsBytes(form.deepCopy().put("_id", "form" + index)));
+            }
+            resourceLoader = new InMemoryResourceLoader(String.format("index-%d-%d", forms, depth), resources);
+        }
+    }
+
+    @Benchmark
+    public Set<String> buildIndex(IndexState state) {
+        FormioClient.invalidateForms(state.resourceLoader.getGroupId());
+        return FormioClient.refreshSubformIndex(state.resourceLoader, Collections.emptySet());
+    }
+
+    @Benchmark
+    public void parseResources(IndexState state, Blackhole blackhole) throws IOException {
+        for (String resourceName : state.resourceLoader.listResourceNames()) {
+            try (InputStream resource = state.resourceLoader.getResource(resourceName)) {
+                JsonNode form = JSON_MAPPER.readTree(resource);
+                blackhole.consume(form.get("_id"));
+            }
+        }
+    }
+
+}
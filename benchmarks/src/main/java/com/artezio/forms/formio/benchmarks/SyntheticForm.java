@@ -0,0 +1,255 @@
+package com.artezio.forms.formio.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generator of a form and its data whose size is controlled by four parameters:
+ * <ul>
+ *     <li>depth - number of levels of nested data grids, every level is the row of the grid of the level above;</li>
+ *     <li>subforms - number of subforms referenced by the root form, each of them having the levels of the root form;</li>
+ *     <li>rows - number of rows of every data grid;</li>
+ *     <li>fileFields - number of file fields on every level.</li>
+ * </ul>
+ * Every level also has text fields inside a panel, a disabled text field and a grid of text values without row
+ * wrappers, so layout components, read only fields and both kinds of grids are covered. The data of a form grows
+ * as rows<sup>depth</sup>, so keep the depth low when the number of rows is high.
+ */
+public class SyntheticForm {
+
+    public static final String FORM_KEY = "forms/synthetic.json";
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final int TEXT_FIELDS = 4;
+    private static final String FILE_CONTENT = Base64.getEncoder()
+            .encodeToString("synthetic file content".getBytes(StandardCharsets.UTF_8));
+
+    private final int depth;
+    private final int subforms;
+    private final int rows;
+    private final int fileFields;
+
+    public SyntheticForm(int depth, int subforms, int rows, int fileFields) {
+        this.depth = depth;
+        this.subforms = subforms;
+        this.rows = rows;
+        this.fileFields = fileFields;
+    }
+
+    /**
+     * @return Form definitions by resource name: the root form under {@link #FORM_KEY} and its subforms
+     */
+    public Map<String, byte[]> createResources() {
+        Map<String, byte[]> resources = new LinkedHashMap<>();
+        resources.put(FORM_KEY, toBytes(createForm()));
+        for (int subform = 0; subform < subforms; subform++) {
+            resources.put(getSubformKey(subform), toBytes(createSubform(subform)));
+        }
+        return resources;
+    }
+
+    /**
+     * @return The root form as it is stored, with subforms referenced but not expanded
+     */
+    public ObjectNode createForm() {
+        ObjectNode form = createFormHeader("root");
+        ArrayNode components = createLevelComponents(1);
+        for (int subform = 0; subform < subforms; subform++) {
+            components.add(createSubformReference(subform));
+        }
+        components.add(JSON_MAPPER.createObjectNode()
+                .put("type", "button")
+                .put("key", "submit")
+                .put("action", "submit"));
+        form.set("components", components);
+        return form;
+    }
+
+    /**
+     * @param version Distinguishes the values of data created for the same form, e.g. the current and the submitted data
+     * @return Data of the expanded form as it is stored, files given as data urls and rows of the grids without
+     * row wrapping not wrapped
+     */
+    public ObjectNode createData(String version) {
+        ObjectNode data = createLevelData(1, version);
+        for (int subform = 0; subform < subforms; subform++) {
+            data.set(getSubformComponentKey(subform), createLevelData(1, version));
+        }
+        data.put("submit", true);
+        return data;
+    }
+
+    /**
+     * @return Keys of all file fields of the form
+     */
+    public List<String> getFileFieldKeys() {
+        List<String> keys = new ArrayList<>();
+        for (int level = 1; level <= depth; level++) {
+            for (int field = 0; field < fileFields; field++) {
+                keys.add(getFileFieldKey(level, field));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return Key of a field which is not a file field
+     */
+    public String getTextFieldKey() {
+        return getTextFieldKey(1, 0);
+    }
+
+    private ObjectNode createSubform(int subform) {
+        ObjectNode form = createFormHeader(getSubformId(subform));
+        form.set("components", createLevelComponents(1));
+        return form;
+    }
+
+    private ObjectNode createFormHeader(String id) {
+        ObjectNode form = JSON_MAPPER.createObjectNode()
+                .put("_id", id)
+                .put("type", "form")
+                .put("display", "form")
+                .put("title", "Synthetic form " + id);
+        form.putArray("tags").add("common");
+        return form;
+    }
+
+    private ArrayNode createLevelComponents(int level) {
+        ArrayNode components = JSON_MAPPER.createArrayNode();
+        ObjectNode panel = createComponent("panel", "panel" + level);
+        ArrayNode panelComponents = panel.putArray("components");
+        for (int field = 0; field < TEXT_FIELDS; field++) {
+            panelComponents.add(createTextField(getTextFieldKey(level, field)));
+        }
+        components.add(panel);
+        components.add(createTextField(getDisabledFieldKey(level)).put("disabled", true));
+        for (int field = 0; field < fileFields; field++) {
+            components.add(createComponent("file", getFileFieldKey(level, field)).put("storage", "base64"));
+        }
+        ObjectNode list = createComponent("datagrid", getListKey(level));
+        list.putObject("properties").put("noRowWrapping", true);
+        list.putArray("components").add(createTextField("item" + level));
+        components.add(list);
+        if (level < depth) {
+            ObjectNode grid = createComponent("datagrid", getGridKey(level));
+            grid.set("components", createLevelComponents(level + 1));
+            components.add(grid);
+        }
+        return components;
+    }
+
+    private ObjectNode createSubformReference(int subform) {
+        return createComponent("form", getSubformComponentKey(subform))
+                .put("form", getSubformId(subform))
+                .put("reference", true)
+                .put("src", "")
+                .put("path", "")
+                .put("project", "")
+                .put("unique", false);
+    }
+
+    private ObjectNode createTextField(String key) {
+        return createComponent("textfield", key)
+                .put("inputType", "text")
+                .put("placeholder", "");
+    }
+
+    private ObjectNode createComponent(String type, String key) {
+        ObjectNode component = JSON_MAPPER.createObjectNode()
+                .put("type", type)
+                .put("key", key)
+                .put("label", key)
+                .put("input", !"panel".equals(type))
+                .put("tableView", true)
+                .put("persistent", true);
+        component.putObject("validate").put("required", false);
+        component.putObject("conditional").put("show", "").putNull("when").put("eq", "");
+        return component;
+    }
+
+    private ObjectNode createLevelData(int level, String version) {
+        ObjectNode data = JSON_MAPPER.createObjectNode();
+        for (int field = 0; field < TEXT_FIELDS; field++) {
+            String key = getTextFieldKey(level, field);
+            data.put(key, String.format("%s %s", key, version));
+        }
+        data.put(getDisabledFieldKey(level), "read only " + version);
+        for (int field = 0; field < fileFields; field++) {
+            data.set(getFileFieldKey(level, field), createFiles(getFileFieldKey(level, field)));
+        }
+        ArrayNode list = data.putArray(getListKey(level));
+        for (int row = 0; row < rows; row++) {
+            list.add(String.format("item %d %s", row, version));
+        }
+        if (level < depth) {
+            ArrayNode grid = data.putArray(getGridKey(level));
+            for (int row = 0; row < rows; row++) {
+                grid.add(createLevelData(level + 1, version));
+            }
+        }
+        return data;
+    }
+
+    private ArrayNode createFiles(String fieldKey) {
+        ArrayNode files = JSON_MAPPER.createArrayNode();
+        files.addObject()
+                .put("name", fieldKey + ".txt")
+                .put("originalName", fieldKey + ".txt")
+                .put("type", "text/plain")
+                .put("size", FILE_CONTENT.length())
+                .put("storage", "base64")
+                .put("url", "data:text/plain;base64," + FILE_CONTENT);
+        return files;
+    }
+
+    private static String getTextFieldKey(int level, int field) {
+        return String.format("text%d_%d", level, field);
+    }
+
+    private static String getDisabledFieldKey(int level) {
+        return "disabled" + level;
+    }
+
+    private static String getFileFieldKey(int level, int field) {
+        return String.format("file%d_%d", level, field);
+    }
+
+    private static String getListKey(int level) {
+        return "list" + level;
+    }
+
+    private static String getGridKey(int level) {
+        return "grid" + level;
+    }
+
+    private static String getSubformId(int subform) {
+        return "subform" + subform;
+    }
+
+    private static String getSubformComponentKey(int subform) {
+        return "subform" + subform;
+    }
+
+    private static String getSubformKey(int subform) {
+        return String.format("forms/subform%d.json", subform);
+    }
+
+    private static byte[] toBytes(JsonNode json) {
+        try {
+            return JSON_MAPPER.writeValueAsBytes(json);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
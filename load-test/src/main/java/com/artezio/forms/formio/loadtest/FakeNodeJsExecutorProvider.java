@@ -0,0 +1,46 @@
+package com.artezio.forms.formio.loadtest;
+
+import com.artezio.forms.formio.nodejs.NodeJsExecutor;
+import com.artezio.forms.formio.scripts.ScriptExecutor;
+import com.artezio.forms.formio.scripts.ScriptExecutorProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Runs a stand-in for the Formio script in the pool of NodeJs processes instead of the script it is given. The
+ * stand-in answers every command with the data it has got, after spending FAKE_NODE_CPU_MILLIS on the CPU and
+ * waiting FAKE_NODE_LATENCY_MILLIS, so the pool, the stdio protocol and the Java side of the client calls are loaded
+ * without the cost of Formio.
+ */
+public class FakeNodeJsExecutorProvider implements ScriptExecutorProvider {
+
+    public static final String NAME = "fake-nodejs";
+
+    private static final String FAKE_NODE_SCRIPT_PATH = "fake-node.js";
+    private static final long FAKE_NODE_LATENCY_MILLIS = Long.parseLong(System.getProperty("FAKE_NODE_LATENCY_MILLIS", "5"));
+    private static final long FAKE_NODE_CPU_MILLIS = Long.parseLong(System.getProperty("FAKE_NODE_CPU_MILLIS", "0"));
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ScriptExecutor create(String script) {
+        String config = String.format("global.FAKE_NODE_CONFIG = { latencyMillis: %d, cpuMillis: %d };%n",
+                FAKE_NODE_LATENCY_MILLIS, FAKE_NODE_CPU_MILLIS);
+        return new NodeJsExecutor(config + loadScript());
+    }
+
+    private static String loadScript() {
+        try (InputStream resource = FakeNodeJsExecutorProvider.class.getClassLoader()
+                .getResourceAsStream(FAKE_NODE_SCRIPT_PATH)) {
+            return new String(resource.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not load script: '" + FAKE_NODE_SCRIPT_PATH + "'", e);
+        }
+    }
+
+}
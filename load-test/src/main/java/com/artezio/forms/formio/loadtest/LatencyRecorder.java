@@ -0,0 +1,51 @@
+package com.artezio.forms.formio.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the calls made by one thread, kept in full so percentiles are exact.
+ */
+class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+
+    void record(long latencyNanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+    }
+
+    void recordError() {
+        errors++;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return Latencies recorded by all recorders, sorted
+     */
+    static long[] merge(Iterable<LatencyRecorder> recorders) {
+        long[] merged = new long[0];
+        for (LatencyRecorder recorder : recorders) {
+            int offset = merged.length;
+            merged = Arrays.copyOf(merged, offset + recorder.count);
+            System.arraycopy(recorder.latencies, 0, merged, offset, recorder.count);
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(percentile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+}
@@ -0,0 +1,278 @@
+package com.artezio.forms.formio.loadtest;
+
+import com.artezio.forms.formio.FormioClient;
+import com.artezio.forms.formio.benchmarks.FormioFileConverter;
+import com.artezio.forms.formio.benchmarks.InMemoryResourceLoader;
+import com.artezio.forms.formio.benchmarks.SyntheticForm;
+import com.artezio.forms.formio.scripts.QueueStats;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads {@link FormioClient} with getFormWithData and dryValidationAndCleanup calls made from many threads. Not a
+ * test: run it by hand with the script executor provider as the argument, e.g.
+ * <pre>
+ * java -DLOAD_TEST_THREADS=32 -jar target/load-test.jar nodejs
+ * java -DFAKE_NODE_LATENCY_MILLIS=20 -jar target/load-test.jar fake-nodejs
+ * </pre>
+ * {@code nodejs} runs the bundled Formio script, {@code fake-nodejs} (default) a stand-in answering without Formio
+ * after a configured delay, see {@link FakeNodeJsExecutorProvider}. Comparing both tells the overhead of the Java
+ * side and the pool from the cost of Formio. Every validation is sent to the script executor, as JVM_VALIDATION_ENABLED
+ * is false unless it is set.
+ *
+ * Every thread calls the operations of LOAD_TEST_OPERATIONS in turns on a form built by {@link SyntheticForm}. Calls
+ * made during the first LOAD_TEST_WARM_UP_SECS are not recorded. The report gives the throughput and latency
+ * percentiles per operation, the JVM CPU time per call, the time requests have waited for a NodeJs process and the
+ * resident memory of the child processes, which is read from /proc and therefore only available on Linux.
+ */
+public class LoadTest {
+
+    private static final int THREADS = Integer.parseInt(System.getProperty("LOAD_TEST_THREADS", "16"));
+    private static final int WARM_UP_SECS = Integer.parseInt(System.getProperty("LOAD_TEST_WARM_UP_SECS", "10"));
+    private static final int DURATION_SECS = Integer.parseInt(System.getProperty("LOAD_TEST_DURATION_SECS", "30"));
+    private static final List<String> OPERATIONS = Arrays.asList(System
+            .getProperty("LOAD_TEST_OPERATIONS", "getFormWithData,dryValidationAndCleanup").split(","));
+    private static final int FORM_DEPTH = Integer.parseInt(System.getProperty("LOAD_TEST_FORM_DEPTH", "2"));
+    private static final int FORM_SUBFORMS = Integer.parseInt(System.getProperty("LOAD_TEST_FORM_SUBFORMS", "2"));
+    private static final int FORM_ROWS = Integer.parseInt(System.getProperty("LOAD_TEST_FORM_ROWS", "5"));
+    private static final int FORM_FILE_FIELDS = Integer.parseInt(System.getProperty("LOAD_TEST_FORM_FILE_FIELDS", "1"));
+    private static final long RSS_SAMPLING_MILLIS = 500;
+    private static final String GROUP_ID = "load-test";
+
+    private final String scriptExecutorName;
+    private final InMemoryResourceLoader resourceLoader;
+    private final ObjectNode currentVariables;
+    private final ObjectNode submittedVariables;
+    private final FormioClient formioClient;
+
+    public static void main(String[] args) throws Exception {
+        String scriptExecutorName = args.length > 0 ? args[0] : FakeNodeJsExecutorProvider.NAME;
+        // FormioClient reads it when it is loaded
+        System.setProperty("SCRIPT_EXECUTOR", scriptExecutorName);
+        new LoadTest(scriptExecutorName).run();
+        FormioClient.shutdown();
+        System.exit(0);
+    }
+
+    private LoadTest(String scriptExecutorName) {
+        SyntheticForm syntheticForm = new SyntheticForm(FORM_DEPTH, FORM_SUBFORMS, FORM_ROWS, FORM_FILE_FIELDS);
+        this.scriptExecutorName = scriptExecutorName;
+        this.resourceLoader = new InMemoryResourceLoader(GROUP_ID, syntheticForm.createResources());
+        this.currentVariables = syntheticForm.createData("current");
+        this.submittedVariables = syntheticForm.createData("submitted");
+        this.formioClient = new FormioClient(new FormioFileConverter(), resourceLoader);
+    }
+
+    private void run() throws Exception {
+        // Starts the script executor, which gets ready during the warm-up
+        formioClient.isReady();
+        List<Map<String, LatencyRecorder>> recorders = new ArrayList<>();
+        AtomicBoolean recording = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        CountDownLatch finished = new CountDownLatch(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            Map<String, LatencyRecorder> threadRecorders = new LinkedHashMap<>();
+            OPERATIONS.forEach(operation -> threadRecorders.put(operation, new LatencyRecorder()));
+            recorders.add(threadRecorders);
+            int firstOperation = thread;
+            Thread worker = new Thread(() -> {
+                try {
+                    callOperations(firstOperation, threadRecorders, recording, stopped);
+                } finally {
+                    finished.countDown();
+                }
+            }, "load-test-" + thread);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        TimeUnit.SECONDS.sleep(WARM_UP_SECS);
+        QueueStats queueStatsBefore = formioClient.getQueueStats();
+        long cpuTimeBefore = getProcessCpuTime();
+        RssSampler rssSampler = new RssSampler();
+        recording.set(true);
+        long startedAt = System.nanoTime();
+        TimeUnit.SECONDS.sleep(DURATION_SECS);
+        recording.set(false);
+        long elapsedNanos = System.nanoTime() - startedAt;
+        rssSampler.stop();
+        long cpuTime = getProcessCpuTime() - cpuTimeBefore;
+        QueueStats queueStatsAfter = formioClient.getQueueStats();
+        stopped.set(true);
+        finished.await();
+
+        report(recorders, elapsedNanos, cpuTime, queueStatsBefore, queueStatsAfter, rssSampler);
+    }
+
+    private void callOperations(int firstOperation, Map<String, LatencyRecorder> recorders, AtomicBoolean recording,
+                                AtomicBoolean stopped) {
+        boolean errorReported = false;
+        for (int call = firstOperation; !stopped.get(); call++) {
+            String operation = OPERATIONS.get(call % OPERATIONS.size());
+            // Validation cuts files out of the submitted data, so every call gets its own copy like a new request
+            ObjectNode submittedVariables = this.submittedVariables.deepCopy();
+            boolean recorded = recording.get();
+            long startedAt = System.nanoTime();
+            try {
+                call(operation, submittedVariables);
+                if (recorded) {
+                    recorders.get(operation).record(System.nanoTime() - startedAt);
+                }
+            } catch (RuntimeException e) {
+                if (recorded) {
+                    recorders.get(operation).recordError();
+                }
+                if (!errorReported) {
+                    System.err.printf("%s failed:%n", operation);
+                    e.printStackTrace();
+                    errorReported = true;
+                }
+            }
+        }
+    }
+
+    private void call(String operation, ObjectNode submittedVariables) {
+        switch (operation) {
+            case "getFormWithData":
+                formioClient.getFormWithData(SyntheticForm.FORM_KEY, currentVariables, resourceLoader);
+                break;
+            case "dryValidationAndCleanup":
+                formioClient.dryValidationAndCleanup(SyntheticForm.FORM_KEY, submittedVariables, currentVariables,
+                        resourceLoader);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    private void report(List<Map<String, LatencyRecorder>> recorders, long elapsedNanos, long cpuTime,
+                        QueueStats queueStatsBefore, QueueStats queueStatsAfter, RssSampler rssSampler) {
+        double elapsedSecs = elapsedNanos / 1e9;
+        System.out.printf("%s: %d threads, %d s after %d s of warm-up%n", scriptExecutorName, THREADS, DURATION_SECS,
+                WARM_UP_SECS);
+        System.out.printf("  form:               depth %d, subforms %d, rows %d, file fields %d%n",
+                FORM_DEPTH, FORM_SUBFORMS, FORM_ROWS, FORM_FILE_FIELDS);
+        long totalCalls = 0;
+        for (String operation : OPERATIONS) {
+            List<LatencyRecorder> operationRecorders = recorders.stream()
+                    .map(threadRecorders -> threadRecorders.get(operation))
+                    .collect(Collectors.toList());
+            long[] latencies = LatencyRecorder.merge(operationRecorders);
+            long errors = operationRecorders.stream().mapToLong(LatencyRecorder::getErrors).sum();
+            totalCalls += latencies.length + errors;
+            System.out.printf("  %s:%n", operation);
+            System.out.printf("    throughput:       %.1f calls/s, %d errors%n", latencies.length / elapsedSecs, errors);
+            System.out.printf("    latency p50/p99/p999/max: %.3f / %.3f / %.3f / %.3f ms%n",
+                    LatencyRecorder.percentileMillis(latencies, 0.5), LatencyRecorder.percentileMillis(latencies, 0.99),
+                    LatencyRecorder.percentileMillis(latencies, 0.999), LatencyRecorder.percentileMillis(latencies, 1));
+        }
+        System.out.printf("  JVM CPU:            %.1f us per call%n",
+                totalCalls > 0 ? cpuTime / 1000.0 / totalCalls : 0);
+        long servedRequests = queueStatsAfter.getServedRequests() - queueStatsBefore.getServedRequests();
+        long waitMillis = queueStatsAfter.getTotalWaitMillis() - queueStatsBefore.getTotalWaitMillis();
+        System.out.printf("  pool wait:          mean %.3f ms, %d rejected%n",
+                servedRequests > 0 ? (double) waitMillis / servedRequests : 0,
+                queueStatsAfter.getRejectedRequests() - queueStatsBefore.getRejectedRequests());
+        reportQueueMetrics();
+        System.out.printf("  child processes:    %d, RSS mean/max %d / %d MB%n", rssSampler.processes,
+                rssSampler.getMeanRss() / (1024 * 1024), rssSampler.maxRss / (1024 * 1024));
+    }
+
+    /**
+     * The percentiles of the wait are only published as metrics, which also cover the warm-up.
+     */
+    private void reportQueueMetrics() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            String domain = System.getProperty("FORMIO_METRICS_JMX_DOMAIN", "com.artezio.forms.formio");
+            Set<ObjectName> queues = mBeanServer.queryNames(new ObjectName(String.format("%s:type=Queue,group=%s,*",
+                    domain, ObjectName.quote(GROUP_ID))), null);
+            for (ObjectName queue : queues) {
+                System.out.printf("  pool wait p99/max:  %.3f / %.3f ms (warm-up included)%n",
+                        mBeanServer.getAttribute(queue, "BorrowWaitMillis99thPercentile"),
+                        mBeanServer.getAttribute(queue, "MaxBorrowWaitMillis"));
+            }
+        } catch (JMException e) {
+            System.err.printf("Could not read queue metrics: %s%n", e);
+        }
+    }
+
+    private static long getProcessCpuTime() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getProcessCpuTime();
+    }
+
+    /**
+     * Samples the resident memory of all processes started by the JVM.
+     */
+    private static class RssSampler {
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-test-rss-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private long samples;
+        private long totalRss;
+        private long maxRss;
+        private int processes;
+
+        private RssSampler() {
+            scheduler.scheduleAtFixedRate(this::sample, 0, RSS_SAMPLING_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void sample() {
+            List<Long> pids = ProcessHandle.current().descendants()
+                    .map(ProcessHandle::pid)
+                    .collect(Collectors.toList());
+            long rss = pids.stream().mapToLong(RssSampler::getRss).sum();
+            samples++;
+            totalRss += rss;
+            maxRss = Math.max(maxRss, rss);
+            processes = pids.size();
+        }
+
+        private synchronized long getMeanRss() {
+            return samples > 0 ? totalRss / samples : 0;
+        }
+
+        private void stop() throws InterruptedException {
+            scheduler.shutdown();
+            scheduler.awaitTermination(RSS_SAMPLING_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        private static long getRss(long pid) {
+            Path status = Paths.get("/proc", Long.toString(pid), "status");
+            try (Stream<String> lines = Files.lines(status)) {
+                return lines.filter(line -> line.startsWith("VmRSS:"))
+                        .map(line -> line.replaceAll("\\D", ""))
+                        .mapToLong(kilobytes -> Long.parseLong(kilobytes) * 1024)
+                        .sum();
+            } catch (IOException e) {
+                // The process has exited or /proc is not available
+                return 0;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+// Stand-in for the Formio script: speaks the frame protocol of the NodeJs executor but answers every command without
+// Formio, after spending FAKE_NODE_CONFIG.cpuMillis on the CPU and waiting FAKE_NODE_CONFIG.latencyMillis.
+const process = require('process');
+
+const HEADER_LENGTH = 8;
+const MAX_FRAME_PAYLOAD_LENGTH = 65536;
+const FORM_NOT_REGISTERED_ERROR = 'FORM_NOT_REGISTERED';
+const config = global.FAKE_NODE_CONFIG || {};
+const latencyMillis = config.latencyMillis || 0;
+const cpuMillis = config.cpuMillis || 0;
+
+const registeredForms = new Set();
+const messageChunks = new Map();
+let buffered = Buffer.alloc(0);
+
+function encodeFrame(requestId, payload) {
+    const header = Buffer.alloc(HEADER_LENGTH);
+    header.writeInt32BE(requestId, 0);
+    header.writeInt32BE(payload.length, 4);
+    return Buffer.concat([header, payload]);
+}
+
+function encodeFrames(requestId, data) {
+    const payload = Buffer.from(data, 'utf8');
+    const frames = [];
+    for (let offset = 0; offset < payload.length; offset += MAX_FRAME_PAYLOAD_LENGTH) {
+        frames.push(encodeFrame(requestId, payload.slice(offset, offset + MAX_FRAME_PAYLOAD_LENGTH)));
+    }
+    frames.push(encodeFrame(requestId, Buffer.alloc(0)));
+    return Buffer.concat(frames);
+}
+
+function respond(requestId, data, error) {
+    process.stdout.write(encodeFrames(requestId, data));
+    process.stderr.write(encodeFrames(requestId, error));
+}
+
+function onFrame(requestId, payload) {
+    if (payload.length > 0) {
+        if (!messageChunks.has(requestId)) {
+            messageChunks.set(requestId, []);
+        }
+        messageChunks.get(requestId).push(payload);
+        return;
+    }
+    const chunks = messageChunks.get(requestId) || [];
+    messageChunks.delete(requestId);
+    execute(requestId, Buffer.concat(chunks).toString('utf8'));
+}
+
+function execute(requestId, message) {
+    let command;
+    try {
+        command = JSON.parse(message);
+    } catch (err) {
+        respond(requestId, '', err.toString());
+        return;
+    }
+    switch (command.operation) {
+        case 'ping':
+            respond(requestId, 'OK', '');
+            return;
+        case 'stats': {
+            const { rss, heapTotal, heapUsed, external } = process.memoryUsage();
+            respond(requestId, JSON.stringify({
+                formInstanceCache: { hits: 0, misses: 0, size: 0 },
+                memory: { rss, heapTotal, heapUsed, external }
+            }), '');
+            return;
+        }
+        case 'registerForm':
+            registeredForms.add(command.formHash);
+            respond(requestId, command.formHash, '');
+            return;
+    }
+    if (command.formHash !== undefined) {
+        if (command.form !== undefined) {
+            registeredForms.add(command.formHash);
+        } else if (!registeredForms.has(command.formHash)) {
+            respond(requestId, '', FORM_NOT_REGISTERED_ERROR);
+            return;
+        }
+    }
+    const result = command.batch !== undefined
+        ? JSON.stringify(command.batch.map(data => ({ result: { data } })))
+        : JSON.stringify(command.operation === 'cleanup' ? command.data : { data: command.data });
+    const busyUntil = Date.now() + cpuMillis;
+    while (Date.now() < busyUntil) {
+    }
+    setTimeout(() => respond(requestId, result, ''), latencyMillis);
+}
+
+process.stdin.on('data', chunk => {
+    buffered = buffered.length > 0 ? Buffer.concat([buffered, chunk]) : chunk;
+    while (buffered.length >= HEADER_LENGTH) {
+        const requestId = buffered.readInt32BE(0);
+        const length = buffered.readInt32BE(4);
+        if (buffered.length < HEADER_LENGTH + length) {
+            break;
+        }
+        const payload = buffered.slice(HEADER_LENGTH, HEADER_LENGTH + length);
+        buffered = buffered.slice(HEADER_LENGTH + length);
+        onFrame(requestId, payload);
+    }
+});
@@ -0,0 +1,183 @@
+package com.artezio.forms;
+
+import com.artezio.forms.resources.ResourceLoader;
+import com.artezio.forms.storages.FileStorage;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link FormClient}. Every method returns immediately with a {@link CompletableFuture}
+ * which is completed with the same result the corresponding {@link FormClient} method returns, or completed
+ * exceptionally with the exception it throws. No thread is blocked while a form script is being executed.
+ * Cancelling a returned future releases the resources reserved for the call: a call waiting for a script process is
+ * removed from the queue and the result of a running script is dropped.
+ */
+public interface AsyncFormClient {
+
+    /**
+     * Asynchronous version of {@link FormClient#getFormWithData(String, ObjectNode)}.
+     *
+     * @param formKey The id of the form
+     * @param currentVariables The variables in a system
+     * @return Future of the json string with the form definition and data for the form
+     */
+    CompletableFuture<String> getFormWithDataAsync(String formKey, ObjectNode currentVariables);
+
+    /**
+     * Asynchronous version of {@link FormClient#getFormWithData(String, ObjectNode, FileStorage)}.
+     *
+     * @param formKey The id of the form
+     * @param currentVariables The variables in a system
+     * @param fileStorage Implementation of {@link FileStorage}
+     * @return Future of the json string with the form definition and data for the form
+     */
+    CompletableFuture<String> getFormWithDataAsync(String formKey, ObjectNode currentVariables, FileStorage fileStorage);
+
+    /**
+     * Asynchronous version of {@link FormClient#getFormWithData(String, ObjectNode, ResourceLoader)}.
+     *
+     * @param formKey The id of the form
+     * @param currentVariables The variables in a system
+     * @param resourceLoader Implementation of {@link ResourceLoader}
+     * @return Future of the json string with the form definition and data for the form
+     */
+    CompletableFuture<String> getFormWithDataAsync(String formKey, ObjectNode currentVariables, ResourceLoader resourceLoader);
+
+    /**
+     * Asynchronous version of {@link FormClient#getFormWithData(String, ObjectNode, ResourceLoader, FileStorage)}.
+     *
+     * @param formKey The id of the form
+     * @param currentVariables The variables in a system
+     * @param resourceLoader Implementation of {@link ResourceLoader}
+     * @param fileStorage Implementation of {@link FileStorage}
+     * @return Future of the json string with the form definition and data for the form
+     */
+    CompletableFuture<String> getFormWithDataAsync(String formKey, ObjectNode currentVariables, ResourceLoader resourceLoader,
+                                                   FileStorage fileStorage);
+
+    /**
+     * Asynchronous version of {@link FormClient#dryValidationAndCleanup(String, ObjectNode, ObjectNode)}.
+     *
+     * @param formKey The id of the form
+     * @param submittedVariables The variables submitted from the form
+     * @param currentVariables The variables in a system
+     * @return Future of the json string with the validated variables
+     */
+    CompletableFuture<String> dryValidationAndCleanupAsync(String formKey, ObjectNode submittedVariables, ObjectNode currentVariables);
+
+    /**
+     * Asynchronous version of {@link FormClient#dryValidationAndCleanup(String, ObjectNode, ObjectNode, FileStorage)}.
+     *
+     * @param formKey The id of the form
+     * @param submittedVariables The variables submitted from the form
+     * @param currentVariables The variables in a system
+     * @param fileStorage Implementation of {@link FileStorage}
+     * @return Future of the json string with the validated variables
+     */
+    CompletableFuture<String> dryValidationAndCleanupAsync(String formKey, ObjectNode submittedVariables, ObjectNode currentVariables,
+                                                           FileStorage fileStorage);
+
+    /**
+     * Asynchronous version of {@link FormClient#dryValidationAndCleanup(String, ObjectNode, ObjectNode, ResourceLoader)}.
+     *
+     * @param formKey The id of the form
+     * @param submittedVariables The variables submitted from the form
+     * @param currentVariables The variables in a system
+     * @param resourceLoader Implementation of {@link ResourceLoader}
+     * @return Future of the json string with the validated variables
+     */
+    CompletableFuture<String> dryValidationAndCleanupAsync(String formKey, ObjectNode submittedVariables, ObjectNode currentVariables,
+                                                           ResourceLoader resourceLoader);
+
+    /**
+     * Asynchronous version of
+     * {@link FormClient#dryValidationAndCleanup(String, ObjectNode, ObjectNode, ResourceLoader, FileStorage)}.
+     *
+     * @param formKey The id of the form
+     * @param submittedVariables The variables submitted from the form
+     * @param currentVariables The variables in a system
+     * @param resourceLoader Implementation of {@link ResourceLoader}
+     * @param fileStorage Implementation of {@link FileStorage}
+     * @return Future of the json string with the validated variables
+     */
+    CompletableFuture<String> dryValidationAndCleanupAsync(String formKey, ObjectNode submittedVariables, ObjectNode currentVariables,
+                                                           ResourceLoader resourceLoader, FileStorage fileStorage);
+
+    /**
+     * Asynchronous version of {@link FormClient#dryValidationAndCleanupBatch(String, List)}.
+     *
+     * @param formKey The id of the form
+     * @param submissions Submitted and current variables of each submission
+     * @return Future of the validation results in the order of the submissions
+     */
+    CompletableFuture<List<ValidationResult>> dryValidationAndCleanupBatchAsync(String formKey, List<SubmissionVariables> submissions);
+
+    /**
+     * Asynchronous version of
+     * {@link FormClient#dryValidationAndCleanupBatch(String, List, ResourceLoader, FileStorage)}.
+     *
+     * @param formKey The id of the form
+     * @param submissions Submitted and current variables of each submission
+     * @param resourceLoader Implementation of {@link ResourceLoader}
+     * @param fileStorage Implementation of {@link FileStorage}
+     * @return Future of the validation results in the order of the submissions
+     */
+    CompletableFuture<List<ValidationResult>> dryValidationAndCleanupBatchAsync(String formKey, List<SubmissionVariables> submissions,
+                                                                                ResourceLoader resourceLoader, FileStorage fileStorage);
+
+    /**
+     * Asynchronous version of {@link FormClient#shouldProcessSubmission(String, String)}.
+     *
+     * @param formKey The id of the form
+     * @param submissionState A submission state due to which the decision is made
+     * @return Future of the boolean indicating whether submitted data should be processed or not
+     */
+    CompletableFuture<Boolean> shouldProcessSubmissionAsync(String formKey, String submissionState);
+
+    /**
+     * Asynchronous version of {@link FormClient#shouldProcessSubmission(String, String, ResourceLoader)}.
+     *
+     * @param formKey The id of the form
+     * @param submissionState A submission state due to which the decision is made
+     * @param resourceLoader Implementation of {@link ResourceLoader}
+     * @return Future of the boolean indicating whether submitted data should be processed or not
+     */
+    CompletableFuture<Boolean> shouldProcessSubmissionAsync(String formKey, String submissionState, ResourceLoader resourceLoader);
+
+    /**
+     * Asynchronous version of {@link FormClient#getRootFormFieldNames(String)}.
+     *
+     * @param formKey The id of the form
+     * @return Future of the list of root fields of the form
+     */
+    CompletableFuture<List<String>> getRootFormFieldNamesAsync(String formKey);
+
+    /**
+     * Asynchronous version of {@link FormClient#getRootFormFieldNames(String, ResourceLoader)}.
+     *
+     * @param formKey The id of the form
+     * @param resourceLoader Implementation of {@link ResourceLoader}
+     * @return Future of the list of root fields of the form
+     */
+    CompletableFuture<List<String>> getRootFormFieldNamesAsync(String formKey, ResourceLoader resourceLoader);
+
+    /**
+     * Asynchronous version of {@link FormClient#getFormFieldPaths(String)}.
+     *
+     * @param formKey The id of the form
+     * @return Future of the list of all form field names
+     */
+    CompletableFuture<List<String>> getFormFieldPathsAsync(String formKey);
+
+    /**
+     * Asynchronous version of {@link FormClient#getFormFieldPaths(String, ResourceLoader)}.
+     *
+     * @param formKey The id of the form
+     * @param resourceLoader Implementation of {@link ResourceLoader}
+     * @return Future of the list of all form field names
+     */
+    CompletableFuture<List<String>> getFormFieldPathsAsync(String formKey, ResourceLoader resourceLoader);
+
+}
@@ -4,7 +4,9 @@ import com.artezio.forms.resources.ResourceLoader;
 import com.artezio.forms.storages.FileStorage;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 public interface FormClient {
 
@@ -106,6 +108,56 @@ public interface FormClient {
      */
     String dryValidationAndCleanup(String formKey, ObjectNode submittedVariables, ObjectNode currentVariables, ResourceLoader resourceLoader, FileStorage fileStorage);
 
+    /**
+     * Validate a batch of submissions against a form loaded by formKey. The form is loaded once and all the submissions
+     * are validated in a single script call, so per-submission overhead is reduced to the validation itself.
+     * An invalid submission does not fail the batch: its error is returned in the corresponding result.
+     * The default implementation validates the submissions one by one with
+     * {@link #dryValidationAndCleanup(String, ObjectNode, ObjectNode)}.
+     *
+     * @param formKey The id of the form
+     * @param submissions Submitted and current variables of each submission
+     * @return Validation results in the order of the submissions
+     */
+    default List<ValidationResult> dryValidationAndCleanupBatch(String formKey, List<SubmissionVariables> submissions) {
+        return validateEach(submissions, submission -> dryValidationAndCleanup(formKey,
+                submission.getSubmittedVariables(), submission.getCurrentVariables()));
+    }
+
+    /**
+     * Validate a batch of submissions against a form loaded by formKey. The form is loaded once and all the submissions
+     * are validated in a single script call, so per-submission overhead is reduced to the validation itself.
+     * An invalid submission does not fail the batch: its error is returned in the corresponding result.
+     * {@link FileStorage} is used to store files separately in an external storage. {@link ResourceLoader} is used to
+     * make resource (e.g. forms, scripts etc.) loading approach more dynamic. The default implementation validates the
+     * submissions one by one with
+     * {@link #dryValidationAndCleanup(String, ObjectNode, ObjectNode, ResourceLoader, FileStorage)}.
+     *
+     * @param formKey The id of the form
+     * @param submissions Submitted and current variables of each submission
+     * @param resourceLoader Implementation of {@link ResourceLoader}
+     * @param fileStorage Implementation of {@link FileStorage}
+     * @return Validation results in the order of the submissions
+     */
+    default List<ValidationResult> dryValidationAndCleanupBatch(String formKey, List<SubmissionVariables> submissions,
+                                                                ResourceLoader resourceLoader, FileStorage fileStorage) {
+        return validateEach(submissions, submission -> dryValidationAndCleanup(formKey,
+                submission.getSubmittedVariables(), submission.getCurrentVariables(), resourceLoader, fileStorage));
+    }
+
+    private static List<ValidationResult> validateEach(List<SubmissionVariables> submissions,
+                                                       Function<SubmissionVariables, String> validation) {
+        List<ValidationResult> validationResults = new ArrayList<>(submissions.size());
+        for (SubmissionVariables submission : submissions) {
+            try {
+                validationResults.add(ValidationResult.valid(validation.apply(submission)));
+            } catch (RuntimeException e) {
+                validationResults.add(ValidationResult.invalid(e));
+            }
+        }
+        return validationResults;
+    }
+
     /**
      * Define whether submitted data should go through the whole submission lifecycle.
      *
@@ -0,0 +1,26 @@
+package com.artezio.forms;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Variables submitted from a form together with the variables which are in a system at the moment of submission.
+ */
+public class SubmissionVariables {
+
+    private final ObjectNode submittedVariables;
+    private final ObjectNode currentVariables;
+
+    public SubmissionVariables(ObjectNode submittedVariables, ObjectNode currentVariables) {
+        this.submittedVariables = submittedVariables;
+        this.currentVariables = currentVariables;
+    }
+
+    public ObjectNode getSubmittedVariables() {
+        return submittedVariables;
+    }
+
+    public ObjectNode getCurrentVariables() {
+        return currentVariables;
+    }
+
+}
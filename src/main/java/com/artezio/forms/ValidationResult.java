@@ -0,0 +1,43 @@
+package com.artezio.forms;
+
+/**
+ * Result of validating one submission of a batch: either the json string with the validated variables or the error
+ * the submission has failed with.
+ */
+public class ValidationResult {
+
+    private final String validatedVariables;
+    private final RuntimeException error;
+
+    private ValidationResult(String validatedVariables, RuntimeException error) {
+        this.validatedVariables = validatedVariables;
+        this.error = error;
+    }
+
+    public static ValidationResult valid(String validatedVariables) {
+        return new ValidationResult(validatedVariables, null);
+    }
+
+    public static ValidationResult invalid(RuntimeException error) {
+        return new ValidationResult(null, error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    /**
+     * @return Json string with the validated variables or null if the submission is invalid
+     */
+    public String getValidatedVariables() {
+        return validatedVariables;
+    }
+
+    /**
+     * @return The error the submission has failed with or null if the submission is valid
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+}
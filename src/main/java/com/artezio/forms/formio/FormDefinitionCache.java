@@ -0,0 +1,128 @@
+package com.artezio.forms.formio;
+
+import com.artezio.forms.formio.metrics.CacheMetrics;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of expanded form definitions by resource group and form key. The cached definitions are shared by
+ * all callers and must not be modified; a caller which has to change a definition copies the part it changes.
+ *
+ * @param <T> Type of the cached forms, e.g. a definition together with what is derived from it
+ * <p>
+ * Every group has a version which is increased when the forms of the group are invalidated. A definition is cached
+ * with the version of its group read before it was loaded, so a definition loaded while the group is invalidated is
+ * not served afterwards. When the cache is full the least recently used definition is evicted.
+ */
+class FormDefinitionCache<T> {
+
+    private final int maxSize;
+    private final Map<FormId, CachedForm<T>> forms = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> groupVersions = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * @param maxSize Maximum number of cached definitions, nothing is cached if it is 0
+     */
+    FormDefinitionCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    T get(String groupId, String formKey, Supplier<T> loader, CacheMetrics cacheMetrics) {
+        FormId formId = new FormId(groupId, formKey);
+        long version = getVersion(groupId);
+        CachedForm<T> cachedForm = forms.get(formId);
+        if (cachedForm != null && cachedForm.version == version) {
+            cachedForm.lastUsed = clock.incrementAndGet();
+            cacheMetrics.recordHit();
+            return cachedForm.form;
+        }
+        cacheMetrics.recordMiss();
+        T form = loader.get();
+        if (maxSize > 0) {
+            CachedForm<T> loadedForm = new CachedForm<>(form, version, clock.incrementAndGet());
+            forms.merge(formId, loadedForm, (previousForm, newForm) -> newForm.version >= previousForm.version
+                    ? newForm
+                    : previousForm);
+            evictLeastRecentlyUsed();
+        }
+        return form;
+    }
+
+    /**
+     * Increase the version of the group and drop its cached definitions.
+     */
+    void invalidate(String groupId) {
+        groupVersions.computeIfAbsent(groupId, key -> new AtomicLong()).incrementAndGet();
+        forms.keySet().removeIf(formId -> formId.groupId.equals(groupId));
+    }
+
+    void invalidateAll() {
+        groupVersions.values().forEach(AtomicLong::incrementAndGet);
+        forms.clear();
+    }
+
+    long getVersion(String groupId) {
+        return groupVersions.computeIfAbsent(groupId, key -> new AtomicLong()).get();
+    }
+
+    int size() {
+        return forms.size();
+    }
+
+    /**
+     * Evictions only follow loads, which are rare compared to lookups, so lookups merely stamp the definition
+     * instead of keeping an ordered structure up to date.
+     */
+    private void evictLeastRecentlyUsed() {
+        while (forms.size() > maxSize) {
+            forms.entrySet().stream()
+                    .min((entry, otherEntry) -> Long.compare(entry.getValue().lastUsed, otherEntry.getValue().lastUsed))
+                    .ifPresent(entry -> forms.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private static class CachedForm<T> {
+        private final T form;
+        private final long version;
+        private volatile long lastUsed;
+
+        private CachedForm(T form, long version, long lastUsed) {
+            this.form = form;
+            this.version = version;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private static class FormId {
+        private final String groupId;
+        private final String formKey;
+
+        private FormId(String groupId, String formKey) {
+            this.groupId = groupId;
+            this.formKey = formKey;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof FormId)) {
+                return false;
+            }
+            FormId formId = (FormId) other;
+            return groupId.equals(formId.groupId) && formKey.equals(formId.formKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, formKey);
+        }
+    }
+
+}
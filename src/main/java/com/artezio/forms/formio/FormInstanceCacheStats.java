@@ -0,0 +1,47 @@
+package com.artezio.forms.formio;
+
+/**
+ * Statistics of the cache of built Formio form instances kept by one NodeJs process.
+ */
+public class FormInstanceCacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final int size;
+
+    public FormInstanceCacheStats(long hits, long misses, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.size = size;
+    }
+
+    /**
+     * @return Number of validations served by a cached form instance
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Number of validations which had to build a new form instance
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Number of idle form instances in the cache
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return Share of validations served by a cached form instance, 0 if there were no validations
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+}
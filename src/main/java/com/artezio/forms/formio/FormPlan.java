@@ -0,0 +1,426 @@
+package com.artezio.forms.formio;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Model of the component tree of an expanded form which the data transforms of {@link FormioClient} run off, so the
+ * definition is searched once when the form is loaded instead of on every request. The plan holds the input keys and
+ * field paths, the classification of components as containers, arrays and layouts, the disabled flags, the file
+ * fields, the rules of grid row wrapping, the actions of the save-state buttons and the schema the data is cleaned up
+ * by. A plan is not changed after it has been compiled and is shared by all requests of the form.
+ */
+class FormPlan {
+
+    private static final Set<String> CONTAINER_COMPONENT_TYPES = Set.of("form", "container", "survey");
+    private static final Set<String> ARRAY_COMPONENT_TYPES = Set.of("datagrid", "editgrid");
+    private static final Set<String> LAYOUT_COMPONENT_TYPES = Set.of("well", "columns", "fieldset", "panel", "table", "tabs");
+    private static final Set<String> FLATTENED_LAYOUT_COMPONENT_TYPES = Set.of("well", "table", "columns", "fieldset", "panel");
+    private static final Set<String> FLATTENED_PANEL_COMPONENT_TYPES = Set.of("well", "fieldset", "panel");
+    private static final Set<String> CLEANUP_ARRAY_COMPONENT_TYPES = Set.of("datagrid");
+    private static final String GRID_NO_ROW_WRAPPING_PROPERTY = "noRowWrapping";
+
+    private final Component root;
+    private final List<String> rootFieldNames;
+    private final List<String> fieldPaths;
+    private final Set<String> fileFieldKeys;
+    private final Map<String, Boolean> submissionProcessingDecisions;
+    private final ObjectNode cleanupSchema;
+
+    private FormPlan(Component root, List<String> rootFieldNames, List<String> fieldPaths, Set<String> fileFieldKeys,
+                     Map<String, Boolean> submissionProcessingDecisions, ObjectNode cleanupSchema) {
+        this.root = root;
+        this.rootFieldNames = Collections.unmodifiableList(rootFieldNames);
+        this.fieldPaths = Collections.unmodifiableList(fieldPaths);
+        this.fileFieldKeys = Collections.unmodifiableSet(fileFieldKeys);
+        this.submissionProcessingDecisions = Collections.unmodifiableMap(submissionProcessingDecisions);
+        this.cleanupSchema = cleanupSchema;
+    }
+
+    /**
+     * @param formDefinition Expanded form definition, it is only read
+     */
+    static FormPlan compile(JsonNode formDefinition) {
+        Component root = new Compiler().compile(formDefinition);
+        List<String> rootFieldNames = new ArrayList<>();
+        List<String> fieldPaths = new ArrayList<>();
+        for (Component component : root.children) {
+            if (component.isInputField()) {
+                rootFieldNames.add(component.key);
+                addFieldPaths(component, "", fieldPaths);
+            }
+        }
+        Set<String> fileFieldKeys = new HashSet<>();
+        Map<String, Boolean> submissionProcessingDecisions = new HashMap<>();
+        scanDescendants(formDefinition, fileFieldKeys, submissionProcessingDecisions);
+        ObjectNode cleanupSchema = JsonNodeFactory.instance.objectNode();
+        makeSchema(formDefinition, cleanupSchema);
+        return new FormPlan(root, rootFieldNames, fieldPaths, fileFieldKeys, submissionProcessingDecisions,
+                cleanupSchema);
+    }
+
+    /**
+     * @return Component of the form itself
+     */
+    Component getRoot() {
+        return root;
+    }
+
+    /**
+     * @return Keys of the input components on the top level of the form, layout components aside
+     */
+    List<String> getRootFieldNames() {
+        return rootFieldNames;
+    }
+
+    /**
+     * @return Dot separated paths of the input components of the form, the components of containers and data grids
+     * included
+     */
+    List<String> getFieldPaths() {
+        return fieldPaths;
+    }
+
+    /**
+     * @return true if a file component with the key is anywhere in the form. Files are recognized by the name of the
+     * variable, whichever container or grid it is in.
+     */
+    boolean isFileField(String variableName) {
+        return fileFieldKeys.contains(variableName);
+    }
+
+    /**
+     * @return The isSubmissionProcessed property of the first button saving the state, true if there is no such button
+     * or it has no such property
+     */
+    boolean shouldProcessSubmission(String submissionState) {
+        return submissionProcessingDecisions.getOrDefault(submissionState, true);
+    }
+
+    /**
+     * @return Schema of the data of the form made by the port of makeSchema from cleanUpSubmission.js. It is shared
+     * and must not be modified.
+     */
+    ObjectNode getCleanupSchema() {
+        return cleanupSchema;
+    }
+
+    private static void addFieldPaths(Component component, String pathPrefix, List<String> fieldPaths) {
+        String path = pathPrefix + component.key;
+        fieldPaths.add(path);
+        if (!component.isContainer() && !component.isArray()) {
+            return;
+        }
+        for (Component child : component.children) {
+            if (child.isInputField()) {
+                addFieldPaths(child, path + ".", fieldPaths);
+            }
+        }
+    }
+
+    /**
+     * Collect the file fields and the save-state buttons wherever they are in the definition, like the JSON path
+     * searches {@code $..[?(@.type == 'file')]} and {@code $..components[?(@.action == 'saveState')]} do. Of two
+     * buttons saving the same state the first one in the document wins.
+     */
+    private static void scanDescendants(JsonNode node, Set<String> fileFieldKeys,
+                                        Map<String, Boolean> submissionProcessingDecisions) {
+        node.fields().forEachRemaining(field -> {
+            if ("components".equals(field.getKey()) && field.getValue().isArray()) {
+                field.getValue().forEach(component -> {
+                    if ("saveState".equals(component.path("action").textValue()) && component.path("state").isTextual()) {
+                        submissionProcessingDecisions.putIfAbsent(component.get("state").textValue(),
+                                component.at("/properties/isSubmissionProcessed").asBoolean(true));
+                    }
+                });
+            }
+        });
+        node.forEach(child -> {
+            if ("file".equals(child.path("type").textValue()) && child.path("key").isTextual()) {
+                fileFieldKeys.add(child.get("key").textValue());
+            }
+            if (child.isContainerNode()) {
+                scanDescendants(child, fileFieldKeys, submissionProcessingDecisions);
+            }
+        });
+    }
+
+    /**
+     * Java port of makeSchema from cleanUpSubmission.js. The schema maps keys of input components to true, keys of
+     * tree components to the schema of their children and keys of data grids to an array with the schema of a row.
+     * The port keeps the JavaScript semantics, including its truthiness rules, so both produce the same schema.
+     */
+    private static void makeSchema(JsonNode component, ObjectNode schema) {
+        if (component.isArray()) {
+            component.forEach(subComponent -> makeSchema(subComponent, schema));
+        } else if (component.isObject()) {
+            JsonNode components = component.get("components");
+            if (isTruthy(component.get("tree")) && components != null && components.isArray()) {
+                ObjectNode childSchema = JsonNodeFactory.instance.objectNode();
+                String key = toPropertyKey(component.get("key"));
+                if (CLEANUP_ARRAY_COMPONENT_TYPES.contains(component.path("type").asText())) {
+                    schema.putArray(key).add(childSchema);
+                } else {
+                    schema.set(key, childSchema);
+                }
+                components.forEach(childComponent -> makeSchema(childComponent, childSchema));
+            } else if (isTruthy(component.get("input"))) {
+                schema.put(toPropertyKey(component.get("key")), true);
+            } else {
+                component.forEach(property -> {
+                    if (property.isContainerNode()) {
+                        makeSchema(property, schema);
+                    }
+                });
+            }
+        }
+    }
+
+    private static boolean isTruthy(JsonNode value) {
+        if (value == null || value.isNull() || value.isMissingNode()) {
+            return false;
+        }
+        if (value.isBoolean()) {
+            return value.asBoolean();
+        }
+        if (value.isNumber()) {
+            return value.asDouble() != 0 && !Double.isNaN(value.asDouble());
+        }
+        if (value.isTextual()) {
+            return !value.asText().isEmpty();
+        }
+        return true;
+    }
+
+    private static String toPropertyKey(JsonNode key) {
+        if (key == null || key.isMissingNode()) {
+            return "undefined";
+        }
+        return key.isTextual() ? key.asText() : key.toString();
+    }
+
+    private static String getType(JsonNode component) {
+        return component.path("type").asText();
+    }
+
+    /**
+     * A component of the form. Its children are the components one level below it, those of its layout components
+     * included; the components of nested layouts are only found among its fields.
+     */
+    static class Component {
+        private final String key;
+        private final String type;
+        private final boolean disabled;
+        private final boolean input;
+        private final boolean withChildComponents;
+        private final List<Component> children;
+        private final Map<String, Component> childrenByKey;
+        private final List<Component> fields;
+        private final boolean gridUnwrapped;
+        private final String rowWrapperKey;
+        private final boolean singleColumnUnwrapped;
+
+        private Component(JsonNode definition, List<Component> children, List<Component> fields) {
+            this.key = definition.path("key").asText();
+            this.type = getType(definition);
+            this.disabled = definition.path("disabled").asBoolean();
+            this.input = definition.path("input").asBoolean();
+            this.withChildComponents = definition.has("components");
+            this.children = Collections.unmodifiableList(children);
+            Map<String, Component> childrenByKey = new HashMap<>();
+            children.forEach(child -> childrenByKey.putIfAbsent(child.key, child));
+            this.childrenByKey = Collections.unmodifiableMap(childrenByKey);
+            this.fields = Collections.unmodifiableList(fields);
+            boolean noRowWrapping = definition.path("properties").path(GRID_NO_ROW_WRAPPING_PROPERTY).asBoolean();
+            this.gridUnwrapped = isArray() && noRowWrapping;
+            this.rowWrapperKey = definition.at("/components/0/key").asText();
+            this.singleColumnUnwrapped = noRowWrapping && definition.path("components").isArray()
+                    && definition.get("components").size() == 1;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        /**
+         * @return true for forms, containers and surveys, whose data is an object
+         */
+        boolean isContainer() {
+            return CONTAINER_COMPONENT_TYPES.contains(type);
+        }
+
+        /**
+         * @return true for data grids and edit grids, whose data is an array of rows
+         */
+        boolean isArray() {
+            return ARRAY_COMPONENT_TYPES.contains(type);
+        }
+
+        boolean isDisabled() {
+            return disabled;
+        }
+
+        /**
+         * @return true if the definition has components, the data of a component without them is never wrapped or
+         * unwrapped
+         */
+        boolean hasChildComponents() {
+            return withChildComponents;
+        }
+
+        List<Component> getChildren() {
+            return children;
+        }
+
+        /**
+         * @return The first child with the key, null if there is none
+         */
+        Component getChild(String key) {
+            return childrenByKey.get(key);
+        }
+
+        /**
+         * @return Components holding the variables of this component, i.e. its children with a key with the components
+         * of layouts at any depth in place of the layouts
+         */
+        List<Component> getFields() {
+            return fields;
+        }
+
+        /**
+         * @return true for a data grid with the noRowWrapping property, whose rows are values instead of objects in the
+         * data of the process
+         */
+        boolean isGridUnwrapped() {
+            return gridUnwrapped;
+        }
+
+        /**
+         * @return Key of the first component of the grid, a row value is wrapped into an object with this key
+         */
+        String getRowWrapperKey() {
+            return rowWrapperKey;
+        }
+
+        /**
+         * @return true if the noRowWrapping property is set and the grid has a single component, so the validated rows
+         * are replaced by their only value
+         */
+        boolean isSingleColumnUnwrapped() {
+            return singleColumnUnwrapped;
+        }
+
+        private boolean isInputField() {
+            return input && StringUtils.isNotBlank(key);
+        }
+    }
+
+    /**
+     * Compiles every component of a definition once, even if it is reached both as a child and as a field.
+     */
+    private static class Compiler {
+        private final Map<JsonNode, Component> components = new IdentityHashMap<>();
+
+        private Component compile(JsonNode definition) {
+            Component component = components.get(definition);
+            if (component == null) {
+                List<JsonNode> childDefinitions = listChildComponents(definition);
+                List<Component> children = new ArrayList<>(childDefinitions.size());
+                List<Component> fields = new ArrayList<>();
+                for (JsonNode childDefinition : childDefinitions) {
+                    children.add(compile(childDefinition));
+                    if (StringUtils.isNotBlank(childDefinition.path("key").asText())) {
+                        addFields(childDefinition, fields);
+                    }
+                }
+                component = new Component(definition, children, fields);
+                components.put(definition, component);
+            }
+            return component;
+        }
+
+        private void addFields(JsonNode definition, List<Component> fields) {
+            if (!LAYOUT_COMPONENT_TYPES.contains(getType(definition))) {
+                if (definition.has("key")) {
+                    fields.add(compile(definition));
+                }
+                return;
+            }
+            for (JsonNode child : listLayoutChildren(definition)) {
+                addFields(child, fields);
+            }
+        }
+
+        /**
+         * Components of the definition and of its layout components, which are not part of the data. Only the
+         * layouts on the first level are looked into; components without a key are left out.
+         */
+        private List<JsonNode> listChildComponents(JsonNode definition) {
+            List<JsonNode> components = elements(definition.get("components"));
+            List<JsonNode> childComponents = new ArrayList<>();
+            for (JsonNode component : components) {
+                if (!FLATTENED_LAYOUT_COMPONENT_TYPES.contains(getType(component))) {
+                    childComponents.add(component);
+                }
+            }
+            for (JsonNode component : components) {
+                if (FLATTENED_PANEL_COMPONENT_TYPES.contains(getType(component))) {
+                    childComponents.addAll(elements(component.get("components")));
+                }
+            }
+            for (JsonNode component : components) {
+                if ("columns".equals(getType(component))) {
+                    elements(component.get("columns"))
+                            .forEach(column -> childComponents.addAll(elements(column.get("components"))));
+                }
+            }
+            for (JsonNode component : components) {
+                if ("table".equals(getType(component))) {
+                    elements(component.get("rows")).forEach(row -> elements(row)
+                            .forEach(cell -> childComponents.addAll(elements(cell.get("components")))));
+                }
+            }
+            childComponents.removeIf(component -> !component.has("key"));
+            return childComponents;
+        }
+
+        private List<JsonNode> listLayoutChildren(JsonNode layout) {
+            List<JsonNode> children = new ArrayList<>();
+            switch (getType(layout)) {
+                case "table":
+                    elements(layout.get("rows")).forEach(row -> elements(row)
+                            .forEach(cell -> children.addAll(elements(cell.get("components")))));
+                    break;
+                case "columns":
+                    elements(layout.get("columns")).forEach(column -> children.addAll(elements(column.get("components"))));
+                    break;
+                case "tabs":
+                    elements(layout.get("components")).forEach(tab -> children.addAll(elements(tab.get("components"))));
+                    break;
+                default:
+                    children.addAll(elements(layout.get("components")));
+            }
+            return children;
+        }
+
+        private List<JsonNode> elements(JsonNode node) {
+            List<JsonNode> elements = new ArrayList<>();
+            if (node != null) {
+                node.forEach(elements::add);
+            }
+            return elements;
+        }
+    }
+
+}
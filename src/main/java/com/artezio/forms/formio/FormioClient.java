@@ -1,11 +1,25 @@
 package com.artezio.forms.formio;
 
+import com.artezio.forms.AsyncFormClient;
 import com.artezio.forms.FormClient;
+import com.artezio.forms.SubmissionVariables;
+import com.artezio.forms.ValidationResult;
 import com.artezio.forms.converters.FileConverter;
+import com.artezio.forms.formio.exceptions.FormNotFoundException;
 import com.artezio.forms.formio.exceptions.FormValidationException;
-import com.artezio.forms.formio.nodejs.NodeJsExecutor;
+import com.artezio.forms.formio.exceptions.NodeJsException;
+import com.artezio.forms.formio.exceptions.ScriptExecutionException;
+import com.artezio.forms.formio.metrics.CacheMetrics;
+import com.artezio.forms.formio.metrics.FormioMetrics;
+import com.artezio.forms.formio.metrics.OperationMetrics;
+import com.artezio.forms.formio.nodejs.NodeJsCommand;
+import com.artezio.forms.formio.nodejs.NodeJsExecutorProvider;
+import com.artezio.forms.formio.scripts.QueueStats;
+import com.artezio.forms.formio.scripts.ScriptExecutor;
+import com.artezio.forms.formio.scripts.ScriptExecutorProvider;
 import com.artezio.forms.resources.ResourceLoader;
 import com.artezio.forms.storages.FileStorage;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -13,52 +27,70 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
-import com.jayway.jsonpath.*;
-import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
-import net.minidev.json.JSONArray;
-import org.apache.commons.collections4.map.LRUMap;
-import org.apache.commons.lang3.StringUtils;
 
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Destroyed;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 import java.util.stream.*;
 
-import static java.lang.Boolean.TRUE;
 import static java.util.Arrays.asList;
 
 @Named
-public class FormioClient implements FormClient {
+public class FormioClient implements FormClient, AsyncFormClient {
     
-    private static final Map<String, JSONArray> FILE_FIELDS_CACHE = new ConcurrentHashMap<>();
-    private static final Map<String, Boolean> SUBMISSION_PROCESSING_DECISIONS_CACHE = new ConcurrentHashMap<>();
     private static final Map<String, String> FORM_RESOURCES_DIR_CACHE = new ConcurrentHashMap<>();
-    private static final Map<String, Map<String, String>> RESOURCE_GROUP_FORM_KEYS = new ConcurrentHashMap<>();
+
+    private static final String FORM_DEFINITIONS_CACHE_NAME = "formDefinitions";
+    private static final String FORM_RESOURCES_DIR_CACHE_NAME = "formResourcesDir";
+    private static final String SUBFORM_INDEX_NAME = "resourceGroupFormKeys";
     
+    private static final String GET_FORM_WITH_DATA_TIMELINE_NAME = "getFormWithData";
+    private static final String DRY_VALIDATION_AND_CLEANUP_TIMELINE_NAME = "dryValidationAndCleanup";
+    private static final String DRY_VALIDATION_AND_CLEANUP_BATCH_TIMELINE_NAME = "dryValidationAndCleanupBatch";
+
     private static final String VALIDATION_OPERATION_NAME = "validate";
-    private static final String CLEANUP_OPERATION_NAME = "cleanup";
-    private static final String GRID_NO_ROW_WRAPPING_PROPERTY = "noRowWrapping";
+    private static final String BATCH_VALIDATION_METRICS_NAME = "validateBatch";
+    private static final Set<String> IDEMPOTENT_OPERATION_NAMES = Set.of(VALIDATION_OPERATION_NAME, "cleanup");
+    private static final String FORM_NOT_REGISTERED_ERROR = "FORM_NOT_REGISTERED";
+    private static final String STATS_COMMAND = "{\"operation\":\"stats\"}";
+    private static final Set<String> OBJECT_PROTOTYPE_PROPERTIES = Set.of("constructor", "hasOwnProperty",
+            "isPrototypeOf", "propertyIsEnumerable", "toLocaleString", "toString", "valueOf", "__proto__",
+            "__defineGetter__", "__defineSetter__", "__lookupGetter__", "__lookupSetter__");
+    private static final Set<String> ARRAY_PROTOTYPE_PROPERTIES = Set.of("length", "at", "concat", "copyWithin",
+            "entries", "every", "fill", "filter", "find", "findIndex", "findLast", "findLastIndex", "flat", "flatMap",
+            "forEach", "includes", "indexOf", "join", "keys", "lastIndexOf", "map", "pop", "push", "reduce",
+            "reduceRight", "reverse", "shift", "slice", "some", "sort", "splice", "toReversed", "toSorted", "toSpliced",
+            "unshift", "values", "with");
     private static final String NODEJS_FORMIO_SCRIPT_PATH = "formio-scripts/formio.js";
     
     private static final ObjectMapper JSON_MAPPER = new ObjectMapper()
             .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
             .setDefaultMergeable(false);
-    private static final ParseContext JAYWAY_PARSER = JsonPath.using(Configuration.builder()
-            .jsonProvider(new JacksonJsonNodeJsonProvider())
-            .build());
     private static final Path FORMIO_TEMP_DIR;
     
     static {
@@ -72,8 +104,26 @@ public class FormioClient implements FormClient {
         }
     }
     
-    private static final int NODEJS_EXECUTOR_POOL_SIZE = Integer.parseInt(System.getProperty("NODEJS_EXECUTOR_POOL_SIZE", "100"));
-    private static final Map<String, NodeJsExecutor> NODEJS_EXECUTORS = Collections.synchronizedMap(new LRUMap<>(NODEJS_EXECUTOR_POOL_SIZE));
+    /**
+     * Experimental: forms using only declarative validation rules are validated by {@link FormioValidator} instead of
+     * NodeJs. Off by default; the compatibility cases shared with validateSubmission.js cover the supported rules.
+     */
+    private static final boolean JVM_VALIDATION_ENABLED = Boolean.parseBoolean(System.getProperty("JVM_VALIDATION_ENABLED", "false"));
+    private static final int FORM_DEFINITION_CACHE_MAX_SIZE = Integer
+            .parseInt(System.getProperty("FORM_DEFINITION_CACHE_MAX_SIZE", "1000"));
+    private static final long SUBFORM_INDEX_REFRESH_INTERVAL_MILLIS = Long
+            .parseLong(System.getProperty("SUBFORM_INDEX_REFRESH_INTERVAL_MILLIS", "1000"));
+    private static final int VALIDATION_BATCH_CHUNK_SIZE = Integer
+            .parseInt(System.getProperty("VALIDATION_BATCH_CHUNK_SIZE", "100"));
+    private static final int RESOURCE_GROUP_CACHE_MAX_SIZE = Integer
+            .parseInt(System.getProperty("RESOURCE_GROUP_CACHE_MAX_SIZE", "100"));
+    private static final FormDefinitionCache<LoadedForm> FORM_DEFINITIONS = new FormDefinitionCache<>(FORM_DEFINITION_CACHE_MAX_SIZE);
+    private static final GroupCache<SubformIndex> SUBFORM_INDEXES = new GroupCache<>(RESOURCE_GROUP_CACHE_MAX_SIZE);
+
+    private static final GroupCache<ScriptExecutor> SCRIPT_EXECUTORS = new GroupCache<>(RESOURCE_GROUP_CACHE_MAX_SIZE);
+    private static ScriptExecutor sharedScriptExecutor;
+    private static final ScriptExecutorProvider SCRIPT_EXECUTOR_PROVIDER = ScriptExecutorProvider
+            .getProvider(System.getProperty("SCRIPT_EXECUTOR", NodeJsExecutorProvider.NAME));
     
     private static final String NODEJS_FORMIO_SCRIPT;
     
@@ -87,11 +137,24 @@ public class FormioClient implements FormClient {
 
     private FileConverter fileConverter;
     private ResourceLoader defaultResourceLoader;
+    private Executor asyncExecutor;
+    private final List<RequestTimelineListener> requestTimelineListeners = new CopyOnWriteArrayList<>();
 
     @Inject
     public FormioClient(FileConverter fileConverter, ResourceLoader defaultResourceLoader) {
+        this(fileConverter, defaultResourceLoader, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param fileConverter Implementation of {@link FileConverter}
+     * @param defaultResourceLoader Implementation of {@link ResourceLoader} used when no resource loader is passed
+     * @param asyncExecutor Executor running the Java parts of the asynchronous calls, e.g. loading forms and
+     *                      transforming data before and after a NodeJs script is executed
+     */
+    public FormioClient(FileConverter fileConverter, ResourceLoader defaultResourceLoader, Executor asyncExecutor) {
         this.fileConverter = fileConverter;
         this.defaultResourceLoader = defaultResourceLoader;
+        this.asyncExecutor = asyncExecutor;
     }
 
     @Override
@@ -111,17 +174,68 @@ public class FormioClient implements FormClient {
 
     @Override
     public String getFormWithData(String formKey, ObjectNode currentVariables, ResourceLoader resourceLoader, FileStorage fileStorage) {
+        RequestTimer timer = startTimer(GET_FORM_WITH_DATA_TIMELINE_NAME, resourceLoader, formKey);
         try {
-            JsonNode formDefinition = getFormByKey(formKey, resourceLoader);
-            JsonNode cleanData = cleanUnusedData(formDefinition.toString(), currentVariables, resourceLoader, fileStorage);
-            JsonNode data = wrapGridData(cleanData, formDefinition);
-            ((ObjectNode) formDefinition).set("data", data);
-            return formDefinition.toString();
+            LoadedForm form = getForm(formKey, resourceLoader, timer);
+            JsonNode cleanData = cleanUnusedData(form.plan, currentVariables, fileStorage, timer);
+            long wrappingStartedAt = timer.now();
+            JsonNode data = wrapGridData(cleanData, form.plan.getRoot());
+            timer.record(RequestPhase.GRID_WRAPPING, wrappingStartedAt);
+            long serializationStartedAt = timer.now();
+            String formWithData = toFormWithData(form, data);
+            timer.record(RequestPhase.RESPONSE_SERIALIZATION, serializationStartedAt);
+            timer.complete(null);
+            return formWithData;
         } catch (Exception e) {
-            throw new RuntimeException("Failed to get form: '" + formKey + "'", e);
+            RuntimeException error = new RuntimeException("Failed to get form: '" + formKey + "'", e);
+            timer.complete(error);
+            throw error;
         }
     }
 
+    /**
+     * The serialized definition is cached, so the data is appended to it instead of serializing the whole form again.
+     * The result is the same as serializing the definition with the data set as its last field.
+     */
+    private String toFormWithData(LoadedForm form, JsonNode data) {
+        if (form.definition.has("data")) {
+            // The cached definition is shared, so only its root is copied to replace its data
+            ObjectNode formDefinitionWithData = JSON_MAPPER.createObjectNode();
+            formDefinitionWithData.setAll((ObjectNode) form.definition);
+            formDefinitionWithData.set("data", data);
+            return formDefinitionWithData.toString();
+        }
+        String dataJson = data.toString();
+        StringBuilder formWithData = new StringBuilder(form.json.length() + dataJson.length() + 8)
+                .append(form.json, 0, form.json.length() - 1);
+        if (form.definition.size() > 0) {
+            formWithData.append(',');
+        }
+        return formWithData.append("\"data\":").append(dataJson).append('}').toString();
+    }
+
+    @Override
+    public CompletableFuture<String> getFormWithDataAsync(String formKey, ObjectNode currentVariables) {
+        return getFormWithDataAsync(formKey, currentVariables, defaultResourceLoader, new FormioBase64FileStorage());
+    }
+
+    @Override
+    public CompletableFuture<String> getFormWithDataAsync(String formKey, ObjectNode currentVariables, ResourceLoader resourceLoader) {
+        return getFormWithDataAsync(formKey, currentVariables, resourceLoader, new FormioBase64FileStorage());
+    }
+
+    @Override
+    public CompletableFuture<String> getFormWithDataAsync(String formKey, ObjectNode currentVariables, FileStorage fileStorage) {
+        return getFormWithDataAsync(formKey, currentVariables, defaultResourceLoader, fileStorage);
+    }
+
+    @Override
+    public CompletableFuture<String> getFormWithDataAsync(String formKey, ObjectNode currentVariables, ResourceLoader resourceLoader,
+                                                          FileStorage fileStorage) {
+        return CompletableFuture.supplyAsync(() -> getFormWithData(formKey, currentVariables, resourceLoader, fileStorage),
+                asyncExecutor);
+    }
+
     @Override
     public boolean shouldProcessSubmission(String formKey, String submissionState) {
         return shouldProcessSubmission(formKey, submissionState, defaultResourceLoader);
@@ -129,11 +243,17 @@ public class FormioClient implements FormClient {
 
     @Override
     public boolean shouldProcessSubmission(String formKey, String submissionState, ResourceLoader resourceLoader) {
-        JsonNode formDefinition = getFormByKey(formKey, resourceLoader);
-        String cacheKey = String.format("%s-%s", formDefinition.toString(), submissionState);
-        return SUBMISSION_PROCESSING_DECISIONS_CACHE.computeIfAbsent(
-                cacheKey,
-                key -> shouldProcessSubmission(formDefinition, submissionState));
+        return getForm(formKey, resourceLoader, RequestTimer.DISABLED).plan.shouldProcessSubmission(submissionState);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> shouldProcessSubmissionAsync(String formKey, String submissionState) {
+        return shouldProcessSubmissionAsync(formKey, submissionState, defaultResourceLoader);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> shouldProcessSubmissionAsync(String formKey, String submissionState, ResourceLoader resourceLoader) {
+        return CompletableFuture.supplyAsync(() -> shouldProcessSubmission(formKey, submissionState, resourceLoader), asyncExecutor);
     }
 
     @Override
@@ -155,29 +275,261 @@ public class FormioClient implements FormClient {
     @Override
     public String dryValidationAndCleanup(String formKey, ObjectNode submittedVariables, ObjectNode currentVariables,
                                           ResourceLoader resourceLoader, FileStorage fileStorage) {
+        RequestTimer timer = startTimer(DRY_VALIDATION_AND_CLEANUP_TIMELINE_NAME, resourceLoader, formKey);
         try {
-            JsonNode formDefinition = getFormByKey(formKey, resourceLoader);
-            String formDefinitionJson = formDefinition.toString();
-            String formResourcesDirPath = getFormResourcesDirPath(formDefinitionJson, resourceLoader);
-            ObjectNode dataInUrlBuffer = JSON_MAPPER.createObjectNode();
-            FileOperationExecutor fileOperationExecutor = new FileOperationExecutor(formDefinitionJson);
-            currentVariables = fileOperationExecutor
-                    .convertToFormioFile()
-                    .execute(currentVariables);
-            ObjectNode formVariables = (ObjectNode) getFormVariables(formDefinition, submittedVariables, currentVariables);
-            formVariables = fileOperationExecutor
-                    .extractFormioDataInUrl(dataInUrlBuffer)
-                    .execute(formVariables);
-            String formIoValidateCommand = getFormIoCommand(VALIDATION_OPERATION_NAME, formDefinitionJson, formVariables.toString(), formResourcesDirPath);
-            String formIoValidateResult = executeNodeJS(resourceLoader, formIoValidateCommand);
-            JsonNode validationResult = getDataFromScriptExecutionResult(formIoValidateResult, formDefinition);
-            return fileOperationExecutor
-                    .addFormioDataInUrl(dataInUrlBuffer)
-                    .convertFromFormioFile()
-                    .storeFile(fileStorage)
-                    .execute(validationResult).toString();
+            NodeJsCall<String> validationCall = prepareDryValidationAndCleanup(formKey, submittedVariables, currentVariables,
+                    resourceLoader, fileStorage, timer);
+            String validationResult = execute(resourceLoader, validationCall);
+            timer.complete(null);
+            return validationResult;
+        } catch (Exception ex) {
+            FormValidationException error = new FormValidationException(ex);
+            timer.complete(error);
+            throw error;
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> dryValidationAndCleanupAsync(String formKey, ObjectNode submittedVariables,
+                                                                  ObjectNode currentVariables) {
+        return dryValidationAndCleanupAsync(formKey, submittedVariables, currentVariables, defaultResourceLoader,
+                new FormioBase64FileStorage());
+    }
+
+    @Override
+    public CompletableFuture<String> dryValidationAndCleanupAsync(String formKey, ObjectNode submittedVariables,
+                                                                  ObjectNode currentVariables, FileStorage fileStorage) {
+        return dryValidationAndCleanupAsync(formKey, submittedVariables, currentVariables, defaultResourceLoader, fileStorage);
+    }
+
+    @Override
+    public CompletableFuture<String> dryValidationAndCleanupAsync(String formKey, ObjectNode submittedVariables,
+                                                                  ObjectNode currentVariables, ResourceLoader resourceLoader) {
+        return dryValidationAndCleanupAsync(formKey, submittedVariables, currentVariables, resourceLoader,
+                new FormioBase64FileStorage());
+    }
+
+    @Override
+    public CompletableFuture<String> dryValidationAndCleanupAsync(String formKey, ObjectNode submittedVariables,
+                                                                  ObjectNode currentVariables, ResourceLoader resourceLoader,
+                                                                  FileStorage fileStorage) {
+        RequestTimer timer = startTimer(DRY_VALIDATION_AND_CLEANUP_TIMELINE_NAME, resourceLoader, formKey);
+        return executeNodeJSAsync(resourceLoader, timer,
+                () -> prepareDryValidationAndCleanup(formKey, submittedVariables, currentVariables, resourceLoader,
+                        fileStorage, timer),
+                FormValidationException::new);
+    }
+
+    private NodeJsCall<String> prepareDryValidationAndCleanup(String formKey, ObjectNode submittedVariables,
+                                                              ObjectNode currentVariables, ResourceLoader resourceLoader,
+                                                              FileStorage fileStorage, RequestTimer timer) {
+        LoadedForm form = getForm(formKey, resourceLoader, timer);
+        String groupId = getGroupId(resourceLoader);
+        SubmissionValidation validation = new SubmissionValidation(form.plan, submittedVariables, currentVariables, timer);
+        FileStorage timedFileStorage = timer.track(fileStorage);
+        ObjectNode cleanData = getJvmValidatableData(form, validation, timer);
+        if (cleanData != null) {
+            return NodeJsCall.inJvm(() -> validation.complete(validateInJvm(form, cleanData, timer),
+                    timedFileStorage));
+        }
+        long resourcesStartedAt = timer.now();
+        String formResourcesDirPath = getFormResourcesDirPath(form.json, resourceLoader, formKey);
+        timer.record(RequestPhase.FORM_RESOURCES, resourcesStartedAt);
+        NodeJsCommand formIoValidateCommand = getFormIoCommand(VALIDATION_OPERATION_NAME, form.fingerprint, null,
+                validation.formVariables, formResourcesDirPath);
+        NodeJsCommand formIoValidateCommandWithForm = getFormIoCommand(VALIDATION_OPERATION_NAME, form.fingerprint,
+                form.definition, validation.formVariables, formResourcesDirPath);
+        return new NodeJsCall<>(FormioMetrics.operation(VALIDATION_OPERATION_NAME, groupId, formKey), timer,
+                formIoValidateCommand, formIoValidateCommandWithForm, formIoValidateResult ->
+                validation.complete(parseScriptOutput(formIoValidateResult, timer), timedFileStorage));
+    }
+
+    @Override
+    public List<ValidationResult> dryValidationAndCleanupBatch(String formKey, List<SubmissionVariables> submissions) {
+        return dryValidationAndCleanupBatch(formKey, submissions, defaultResourceLoader, new FormioBase64FileStorage());
+    }
+
+    @Override
+    public List<ValidationResult> dryValidationAndCleanupBatch(String formKey, List<SubmissionVariables> submissions,
+                                                               ResourceLoader resourceLoader, FileStorage fileStorage) {
+        RequestTimer timer = startTimer(DRY_VALIDATION_AND_CLEANUP_BATCH_TIMELINE_NAME, resourceLoader, formKey);
+        try {
+            List<ValidationResult> validationResults = new ArrayList<>(submissions.size());
+            for (List<SubmissionVariables> chunk : getBatchChunks(submissions)) {
+                NodeJsCall<List<ValidationResult>> validationCall = prepareDryValidationAndCleanupBatch(formKey, chunk,
+                        resourceLoader, fileStorage, timer);
+                validationResults.addAll(execute(resourceLoader, validationCall));
+            }
+            timer.complete(null);
+            return validationResults;
         } catch (Exception ex) {
-            throw new FormValidationException(ex);
+            FormValidationException error = new FormValidationException(ex);
+            timer.complete(error);
+            throw error;
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<ValidationResult>> dryValidationAndCleanupBatchAsync(String formKey,
+                                                                                       List<SubmissionVariables> submissions) {
+        return dryValidationAndCleanupBatchAsync(formKey, submissions, defaultResourceLoader, new FormioBase64FileStorage());
+    }
+
+    @Override
+    public CompletableFuture<List<ValidationResult>> dryValidationAndCleanupBatchAsync(String formKey,
+                                                                                       List<SubmissionVariables> submissions,
+                                                                                       ResourceLoader resourceLoader,
+                                                                                       FileStorage fileStorage) {
+        RequestTimer timer = startTimer(DRY_VALIDATION_AND_CLEANUP_BATCH_TIMELINE_NAME, resourceLoader, formKey);
+        CompletableFuture<List<ValidationResult>> result = new CompletableFuture<>();
+        result.whenComplete((value, error) -> timer.complete(error));
+        executeBatchChunksAsync(formKey, getBatchChunks(submissions), 0, new ArrayList<>(submissions.size()),
+                resourceLoader, fileStorage, timer, result);
+        return result;
+    }
+
+    /**
+     * A batch is validated in chunks of at most VALIDATION_BATCH_CHUNK_SIZE submissions, each sent to NodeJs as its
+     * own command, so a large batch neither has to complete within the timeout of a single request nor holds a
+     * process for the whole batch.
+     */
+    private List<List<SubmissionVariables>> getBatchChunks(List<SubmissionVariables> submissions) {
+        List<List<SubmissionVariables>> chunks = new ArrayList<>();
+        for (int start = 0; start < submissions.size(); start += VALIDATION_BATCH_CHUNK_SIZE) {
+            chunks.add(submissions.subList(start, Math.min(start + VALIDATION_BATCH_CHUNK_SIZE, submissions.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Validate the chunks of a batch one after another, starting with the given one. Cancelling the result cancels
+     * the chunk being validated and the chunks after it are not sent.
+     */
+    private void executeBatchChunksAsync(String formKey, List<List<SubmissionVariables>> chunks, int chunkIndex,
+                                         List<ValidationResult> validationResults, ResourceLoader resourceLoader,
+                                         FileStorage fileStorage, RequestTimer timer,
+                                         CompletableFuture<List<ValidationResult>> result) {
+        if (chunkIndex == chunks.size()) {
+            result.complete(validationResults);
+            return;
+        }
+        CompletableFuture<List<ValidationResult>> chunkResult = executeNodeJSAsync(resourceLoader,
+                () -> prepareDryValidationAndCleanupBatch(formKey, chunks.get(chunkIndex), resourceLoader, fileStorage,
+                        timer),
+                FormValidationException::new);
+        result.whenComplete((value, error) -> chunkResult.cancel(false));
+        chunkResult.whenComplete((chunkValidationResults, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            validationResults.addAll(chunkValidationResults);
+            executeBatchChunksAsync(formKey, chunks, chunkIndex + 1, validationResults, resourceLoader, fileStorage,
+                    timer, result);
+        });
+    }
+
+    private NodeJsCall<List<ValidationResult>> prepareDryValidationAndCleanupBatch(String formKey,
+                                                                                   List<SubmissionVariables> submissions,
+                                                                                   ResourceLoader resourceLoader,
+                                                                                   FileStorage fileStorage,
+                                                                                   RequestTimer timer) {
+        LoadedForm form = getForm(formKey, resourceLoader, timer);
+        String groupId = getGroupId(resourceLoader);
+        List<SubmissionValidation> validations = submissions.stream()
+                .map(submission -> new SubmissionValidation(form.plan, submission.getSubmittedVariables(),
+                        submission.getCurrentVariables(), timer))
+                .collect(Collectors.toList());
+        FileStorage timedFileStorage = timer.track(fileStorage);
+        List<ObjectNode> cleanBatch = validations.stream()
+                .map(validation -> getJvmValidatableData(form, validation, timer))
+                .collect(Collectors.toList());
+        if (!cleanBatch.contains(null)) {
+            return NodeJsCall.inJvm(() -> IntStream.range(0, validations.size())
+                    .mapToObj(index -> validateInJvm(validations.get(index), form, cleanBatch.get(index),
+                            timedFileStorage, timer))
+                    .collect(Collectors.toList()));
+        }
+        long resourcesStartedAt = timer.now();
+        String formResourcesDirPath = getFormResourcesDirPath(form.json, resourceLoader, formKey);
+        timer.record(RequestPhase.FORM_RESOURCES, resourcesStartedAt);
+        List<JsonNode> batch = validations.stream()
+                .map(validation -> validation.formVariables)
+                .collect(Collectors.toList());
+        NodeJsCommand formIoValidateCommand = getFormIoBatchCommand(VALIDATION_OPERATION_NAME, form.fingerprint, null,
+                batch, formResourcesDirPath);
+        NodeJsCommand formIoValidateCommandWithForm = getFormIoBatchCommand(VALIDATION_OPERATION_NAME, form.fingerprint,
+                form.definition, batch, formResourcesDirPath);
+        return new NodeJsCall<>(FormioMetrics.operation(BATCH_VALIDATION_METRICS_NAME, groupId, formKey), timer,
+                formIoValidateCommand, formIoValidateCommandWithForm, formIoValidateResult -> {
+            JsonNode batchResults = parseScriptOutput(formIoValidateResult, timer);
+            List<ValidationResult> validationResults = new ArrayList<>(validations.size());
+            for (int index = 0; index < validations.size(); index++) {
+                validationResults.add(toValidationResult(validations.get(index), batchResults.get(index), timedFileStorage));
+            }
+            return validationResults;
+        });
+    }
+
+    /**
+     * Decide whether a submission is validated in the JVM by {@link FormioValidator} instead of NodeJs. The static
+     * analysis of the form is kept with the loaded form, the submission data is checked every time.
+     *
+     * @return The submission data cleaned up like the validate command of NodeJs does it, if it is validated in the
+     * JVM, null otherwise
+     */
+    private ObjectNode getJvmValidatableData(LoadedForm form, SubmissionValidation validation, RequestTimer timer) {
+        if (!JVM_VALIDATION_ENABLED) {
+            return null;
+        }
+        long decisionStartedAt = timer.now();
+        try {
+            FormioValidator validator = form.getValidator();
+            if (!validator.isValidatable()) {
+                return null;
+            }
+            ObjectNode cleanData = validation.formVariables.deepCopy();
+            stripUnknown(cleanData, form.plan.getCleanupSchema());
+            return validator.isValidatable(cleanData) ? cleanData : null;
+        } finally {
+            timer.record(RequestPhase.JVM_VALIDATION, decisionStartedAt);
+        }
+    }
+
+    private JsonNode validateInJvm(LoadedForm form, ObjectNode cleanData, RequestTimer timer) {
+        long validationStartedAt = timer.now();
+        try {
+            return form.getValidator().validate(cleanData);
+        } finally {
+            timer.record(RequestPhase.JVM_VALIDATION, validationStartedAt);
+        }
+    }
+
+    private ValidationResult validateInJvm(SubmissionValidation validation, LoadedForm form, ObjectNode cleanData,
+                                           FileStorage fileStorage, RequestTimer timer) {
+        try {
+            return ValidationResult.valid(validation.complete(validateInJvm(form, cleanData, timer), fileStorage));
+        } catch (Exception ex) {
+            return ValidationResult.invalid(new FormValidationException(ex));
+        }
+    }
+
+    private JsonNode parseScriptOutput(String scriptOutput, RequestTimer timer) throws IOException {
+        long parsingStartedAt = timer.now();
+        JsonNode result = JSON_MAPPER.readTree(scriptOutput);
+        timer.record(RequestPhase.RESULT_PARSING, parsingStartedAt);
+        return result;
+    }
+
+    private ValidationResult toValidationResult(SubmissionValidation validation, JsonNode batchResult, FileStorage fileStorage) {
+        try {
+            if (batchResult.has("error")) {
+                JsonNode error = batchResult.get("error");
+                throw new NodeJsException(error.isTextual() ? error.asText() : error.toString());
+            }
+            return ValidationResult.valid(validation.complete(batchResult.get("result"), fileStorage));
+        } catch (Exception ex) {
+            return ValidationResult.invalid(new FormValidationException(ex));
         }
     }
 
@@ -188,13 +540,17 @@ public class FormioClient implements FormClient {
 
     @Override
     public List<String> getRootFormFieldNames(String formKey, ResourceLoader resourceLoader) {
-        JsonNode formDefinition = getFormByKey(formKey, resourceLoader);
-        return Optional.of(listChildComponents(formDefinition)).stream()
-                .flatMap(Collection::stream)
-                .filter(component -> component.path("input").asBoolean())
-                .filter(component -> StringUtils.isNotBlank(component.path("key").asText()))
-                .map(component -> component.get("key").asText())
-                .collect(Collectors.toList());
+        return new ArrayList<>(getForm(formKey, resourceLoader, RequestTimer.DISABLED).plan.getRootFieldNames());
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getRootFormFieldNamesAsync(String formKey) {
+        return getRootFormFieldNamesAsync(formKey, defaultResourceLoader);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getRootFormFieldNamesAsync(String formKey, ResourceLoader resourceLoader) {
+        return CompletableFuture.supplyAsync(() -> getRootFormFieldNames(formKey, resourceLoader), asyncExecutor);
     }
 
     @Override
@@ -204,46 +560,156 @@ public class FormioClient implements FormClient {
 
     @Override
     public List<String> getFormFieldPaths(String formKey, ResourceLoader resourceLoader) {
-        JsonNode formDefinition = getFormByKey(formKey, resourceLoader);
-        return Optional.of(listChildComponents(formDefinition)).stream()
-                .flatMap(Collection::stream)
-                .filter(component -> component.path("input").asBoolean())
-                .filter(component -> StringUtils.isNotBlank(component.path("key").asText()))
-                .map(this::getComponentTreeNames)
-                .flatMap(Collection::stream)
+        return new ArrayList<>(getForm(formKey, resourceLoader, RequestTimer.DISABLED).plan.getFieldPaths());
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getFormFieldPathsAsync(String formKey) {
+        return getFormFieldPathsAsync(formKey, defaultResourceLoader);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getFormFieldPathsAsync(String formKey, ResourceLoader resourceLoader) {
+        return CompletableFuture.supplyAsync(() -> getFormFieldPaths(formKey, resourceLoader), asyncExecutor);
+    }
+
+    private JsonNode cleanUnusedData(FormPlan formPlan, ObjectNode currentVariables, FileStorage fileStorage,
+                                     RequestTimer timer) {
+        long conversionStartedAt = timer.now();
+        FileOperationExecutor fileOperationExecutor = new FileOperationExecutor(formPlan);
+        ObjectNode data = fileOperationExecutor
+                .convertToFormioFile()
+                .addDownloadUrlPrefix(fileStorage)
+                .execute(currentVariables);
+        timer.record(RequestPhase.FILE_CONVERSION, conversionStartedAt);
+        long cleanupStartedAt = timer.now();
+        stripUnknown(data, formPlan.getCleanupSchema());
+        timer.record(RequestPhase.DATA_CLEANUP, cleanupStartedAt);
+        return data;
+    }
+
+    /**
+     * Java port of stripUnknown from cleanUpSubmission.js, which removes data not described by the schema in place.
+     * Quirks of the original are kept on purpose: only the first remaining row of an array is stripped, and keys
+     * which JavaScript finds on the prototype of a schema object (e.g. "constructor") are treated as known.
+     */
+    private void stripUnknown(JsonNode data, JsonNode schema) {
+        if (!data.isContainerNode() || schema == null || !schema.isContainerNode()) {
+            return;
+        }
+        if (data.isArray()) {
+            ArrayNode rows = (ArrayNode) data;
+            List<JsonNode> matchedRows = schema.isArray()
+                    ? toStream(rows)
+                            .filter(JsonNode::isContainerNode)
+                            .filter(row -> matchesSchemaRow(row, schema))
+                            .collect(Collectors.toList())
+                    : Collections.emptyList();
+            rows.removeAll();
+            rows.addAll(matchedRows);
+            for (int index = 0; index < matchedRows.size(); index++) {
+                stripUnknown(matchedRows.get(index), schema.get(index));
+            }
+        } else {
+            Iterator<Entry<String, JsonNode>> fields = data.fields();
+            while (fields.hasNext()) {
+                Entry<String, JsonNode> field = fields.next();
+                if (!isInSchema(field.getKey(), schema)) {
+                    fields.remove();
+                    continue;
+                }
+                JsonNode fieldSchema = schema.isArray()
+                        ? (isArrayIndex(field.getKey()) ? schema.get(Integer.parseInt(field.getKey())) : null)
+                        : schema.get(field.getKey());
+                if (fieldSchema != null && fieldSchema.isContainerNode()) {
+                    if (!field.getValue().isContainerNode()) {
+                        fields.remove();
+                    } else {
+                        stripUnknown(field.getValue(), fieldSchema);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean matchesSchemaRow(JsonNode row, JsonNode schema) {
+        List<String> rowKeys = getPropertyKeys(row);
+        return toStream(schema).anyMatch(schemaRow -> getPropertyKeys(schemaRow).containsAll(rowKeys));
+    }
+
+    private List<String> getPropertyKeys(JsonNode node) {
+        if (node.isObject()) {
+            List<String> keys = new ArrayList<>();
+            node.fieldNames().forEachRemaining(keys::add);
+            return keys;
+        }
+        return IntStream.range(0, node.isArray() ? node.size() : 0)
+                .mapToObj(String::valueOf)
                 .collect(Collectors.toList());
     }
 
-    private List<String> getComponentTreeNames(JsonNode component) {
-        List<String> result = new ArrayList<>();
-        String componentName = component.path("key").asText();
-        result.add(componentName);
-        if (!isContainerComponent(component) && !isArrayComponent(component))
-            return result;
-        Optional.of(listChildComponents(component)).stream()
-                .flatMap(Collection::stream)
-                .filter(childComponent -> childComponent.path("input").asBoolean())
-                .filter(childComponent -> StringUtils.isNotBlank(childComponent.path("key").asText()))
-                .map(this::getComponentTreeNames)
-                .flatMap(Collection::stream)
-                .forEach(childComponent -> result.add(String.format("%s.%s", componentName, childComponent)));
-        return result;
+    private boolean isInSchema(String key, JsonNode schema) {
+        if (OBJECT_PROTOTYPE_PROPERTIES.contains(key)) {
+            return true;
+        }
+        if (schema.isArray()) {
+            return ARRAY_PROTOTYPE_PROPERTIES.contains(key)
+                    || isArrayIndex(key) && Integer.parseInt(key) < schema.size();
+        }
+        return schema.has(key);
+    }
+
+    private boolean isArrayIndex(String key) {
+        return key.matches("0|[1-9]\\d{0,8}");
     }
 
-    private JsonNode getDataFromScriptExecutionResult(String scriptExecutionResult, JsonNode formDefinition) throws IOException {
-        JsonNode json = JSON_MAPPER.readTree(scriptExecutionResult);
+    private JsonNode getDataFromScriptExecutionResult(JsonNode json, FormPlan formPlan) {
         json = json.has("data")
                 ? json.get("data")
                 : JSON_MAPPER.createObjectNode();
-        return unwrapGridData(json, formDefinition);
+        return unwrapGridData(json, formPlan.getRoot());
     }
 
+    /**
+     * @return A copy of the cached expanded form definition, which the caller is free to modify
+     */
     private JsonNode getFormByKey(String formKey, ResourceLoader resourceLoader) {
+        return getForm(formKey, resourceLoader, RequestTimer.DISABLED).definition.deepCopy();
+    }
+
+    /**
+     * @return The expanded form with its plan, which are cached and shared by all callers
+     */
+    private LoadedForm getForm(String formKey, ResourceLoader resourceLoader, RequestTimer timer) {
+        String groupId = getGroupId(resourceLoader);
+        return FORM_DEFINITIONS.get(groupId, formKey, () -> loadForm(formKey, resourceLoader, timer),
+                FormioMetrics.cache(FORM_DEFINITIONS_CACHE_NAME, groupId, formKey));
+    }
+
+    /**
+     * Read and expand a form, then serialize and hash it and compile its plan. The plan is kept with the form in the
+     * bounded cache of form definitions, so it is evicted and invalidated together with the form.
+     */
+    private LoadedForm loadForm(String formKey, ResourceLoader resourceLoader, RequestTimer timer) {
+        long loadingStartedAt = timer.now();
+        JsonNode formDefinition;
         try(InputStream resource = resourceLoader.getResource(formKey)) {
-            return expandSubforms(JSON_MAPPER.readTree(resource), resourceLoader);
+            formDefinition = JSON_MAPPER.readTree(resource);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        timer.record(RequestPhase.FORM_LOADING, loadingStartedAt);
+        long expansionStartedAt = timer.now();
+        JsonNode expandedFormDefinition = expandSubforms(formDefinition, resourceLoader);
+        timer.record(RequestPhase.SUBFORM_EXPANSION, expansionStartedAt);
+        long hashingStartedAt = timer.now();
+        String formDefinitionJson = expandedFormDefinition.toString();
+        String formHash = getFormHash(formDefinitionJson);
+        timer.record(RequestPhase.FORM_HASHING, hashingStartedAt);
+        long compilationStartedAt = timer.now();
+        FormPlan formPlan = FormPlan.compile(expandedFormDefinition);
+        timer.record(RequestPhase.FORM_COMPILATION, compilationStartedAt);
+        return new LoadedForm(expandedFormDefinition, formDefinitionJson, formHash, formPlan);
     }
     
     private JsonNode getSubform(String formId, ResourceLoader resourceLoader) {
@@ -251,58 +717,414 @@ public class FormioClient implements FormClient {
         return getFormByKey(formKey, resourceLoader);
     }
 
+    /**
+     * Find the key of a subform in the index of its group. A form which is not in the index may have been added since
+     * the index was built, so the resources which have not been read yet are read before giving up, unless the index
+     * has been refreshed less than {@code SUBFORM_INDEX_REFRESH_INTERVAL_MILLIS} ago.
+     *
+     * @throws FormNotFoundException if there is no form with the id among the resources of the group
+     */
     private String getFormKey(String formId, ResourceLoader resourceLoader) {
-        String groupId = resourceLoader.getGroupId() == null? "" : resourceLoader.getGroupId();
-        Map<String, String> formKeys = RESOURCE_GROUP_FORM_KEYS.computeIfAbsent(groupId,
-                key -> getFormKeys(resourceLoader));
-        return formKeys.get(formId);
+        String groupId = getGroupId(resourceLoader);
+        CacheMetrics cacheMetrics = FormioMetrics.cache(SUBFORM_INDEX_NAME, groupId, null);
+        SubformIndex subformIndex = getSubformIndex(groupId);
+        String formKey = subformIndex.getFormKey(formId);
+        if (formKey != null) {
+            cacheMetrics.recordHit();
+            return formKey;
+        }
+        cacheMetrics.recordMiss();
+        formKey = subformIndex.getFormKey(formId, resourceLoader, SUBFORM_INDEX_REFRESH_INTERVAL_MILLIS);
+        if (formKey == null) {
+            throw new FormNotFoundException(String.format("Subform '%s' not found", formId));
+        }
+        return formKey;
+    }
+
+    private static SubformIndex getSubformIndex(String groupId) {
+        return SUBFORM_INDEXES.get(groupId, key -> new SubformIndex());
+    }
+
+    /**
+     * Bring the index of subforms of the group of a resource loader up to date after its resources have changed.
+     * Resources added since the index was built and the changed resources are read, resources which are not listed
+     * any more are dropped from the index. Unlike {@link #invalidateForms(String)} it does not read the unchanged
+     * resources again. If anything has changed, the cached form definitions of the group are invalidated.
+     *
+     * @param resourceLoader Implementation of {@link ResourceLoader} listing the current resources of the group
+     * @param changedResourceNames Names of the resources which have been modified
+     * @return Names of the resources of the group which are left out of the index, because they could not be read,
+     * are not valid JSON or are forms without an id
+     */
+    public static Set<String> refreshSubformIndex(ResourceLoader resourceLoader, Collection<String> changedResourceNames) {
+        String groupId = getGroupId(resourceLoader);
+        SubformIndex subformIndex = getSubformIndex(groupId);
+        boolean formsChanged = subformIndex.refresh(resourceLoader, new HashSet<>(changedResourceNames));
+        if (formsChanged || !changedResourceNames.isEmpty()) {
+            FORM_DEFINITIONS.invalidate(groupId);
+        }
+        return subformIndex.getMalformedResourceNames();
+    }
+
+
+    /**
+     * Drop the cached form definitions and the index of subforms of a resource group, e.g. after its forms have been
+     * changed. Definitions being loaded while they are invalidated are not cached, so the next call of every form of
+     * the group reads it again.
+     *
+     * @param groupId Group of the resource loaders, null for the loaders without a group
+     */
+    public static void invalidateForms(String groupId) {
+        String formsGroupId = groupId == null ? "" : groupId;
+        FORM_DEFINITIONS.invalidate(formsGroupId);
+        SUBFORM_INDEXES.remove(formsGroupId);
+    }
+
+    /**
+     * Drop the cached form definitions of all resource groups and the plans compiled from them.
+     */
+    public static void invalidateForms() {
+        FORM_DEFINITIONS.invalidateAll();
+        SUBFORM_INDEXES.clear();
+    }
+
+    /**
+     * Check whether NodeJs processes for the default resource loader are started and ready to serve requests. The
+     * first call starts the processes if they are not started yet.
+     *
+     * @return true if the warm spare NodeJs processes are running
+     */
+    public boolean isReady() {
+        return isReady(defaultResourceLoader);
+    }
+
+    /**
+     * Check whether NodeJs processes for the resource group of the resource loader are started and ready to serve
+     * requests. The first call starts the processes if they are not started yet.
+     *
+     * @param resourceLoader Implementation of {@link ResourceLoader}
+     * @return true if the warm spare NodeJs processes are running
+     */
+    public boolean isReady(ResourceLoader resourceLoader) {
+        return getScriptExecutor(resourceLoader).isReady();
+    }
+
+    /**
+     * Collect statistics of the form instance caches of the NodeJs processes serving the default resource loader.
+     *
+     * @return Statistics of each running NodeJs process
+     */
+    public List<FormInstanceCacheStats> getFormInstanceCacheStats() {
+        return getFormInstanceCacheStats(defaultResourceLoader);
+    }
+
+    /**
+     * Collect statistics of the form instance caches of the NodeJs processes serving the resource group of the
+     * resource loader. Each process caches built form instances by form hash and reuses them for validations of
+     * the same form.
+     *
+     * @param resourceLoader Implementation of {@link ResourceLoader}
+     * @return Statistics of each running NodeJs process
+     */
+    public List<FormInstanceCacheStats> getFormInstanceCacheStats(ResourceLoader resourceLoader) {
+        NodeJsCommand statsCommand = outputStream -> outputStream.write(STATS_COMMAND.getBytes(StandardCharsets.UTF_8));
+        return getScriptExecutor(resourceLoader).executeInEachContext(statsCommand).stream()
+                .map(this::toFormInstanceCacheStats)
+                .collect(Collectors.toList());
     }
 
-    private Map<String, String> getFormKeys(ResourceLoader resourceLoader) {
-        Map<String, String> result = new ConcurrentHashMap<>();
-        List<String> jsonResourceNames = resourceLoader.listResourceNames().stream()
-                .filter(resourceName -> resourceName.endsWith(".json"))
-                .collect(Collectors.toList());
-    
-        jsonResourceNames.forEach(jsonResourceName -> {
-            try(InputStream resource = resourceLoader.getResource(jsonResourceName)) {
-                JsonNode jsonResource = JSON_MAPPER.readTree(resource);
-                if (hasTypeOf(jsonResource, "form"))
-                    result.put(jsonResource.get("_id").asText(), jsonResourceName);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+    /**
+     * Statistics of the requests waiting for a free NodeJs process. All resource groups share the processes, so the
+     * statistics cover requests of all groups. The number of waiting requests and the wait of the oldest one show
+     * when load should be shed or the service scaled out before requests start failing with
+     * {@link com.artezio.forms.formio.exceptions.NodeJsPoolSaturatedException}.
+     *
+     * @return Statistics of the queue of the script executor
+     */
+    public QueueStats getQueueStats() {
+        return getScriptExecutor(defaultResourceLoader).getQueueStats();
+    }
+
+    private FormInstanceCacheStats toFormInstanceCacheStats(String processStats) {
+        try {
+            JsonNode formInstanceCacheStats = JSON_MAPPER.readTree(processStats).path("formInstanceCache");
+            return new FormInstanceCacheStats(
+                    formInstanceCacheStats.path("hits").asLong(),
+                    formInstanceCacheStats.path("misses").asLong(),
+                    formInstanceCacheStats.path("size").asInt());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Register a listener receiving the timeline of every call of this client to getFormWithData,
+     * dryValidationAndCleanup and dryValidationAndCleanupBatch, their asynchronous variants included. No timings are
+     * taken while no listener is registered.
+     *
+     * @param listener Listener called when a call has returned or failed
+     */
+    public void addRequestTimelineListener(RequestTimelineListener listener) {
+        requestTimelineListeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeRequestTimelineListener(RequestTimelineListener listener) {
+        requestTimelineListeners.remove(listener);
+    }
+
+    private RequestTimer startTimer(String operation, ResourceLoader resourceLoader, String formKey) {
+        return RequestTimer.start(operation, getGroupId(resourceLoader), formKey, requestTimelineListeners);
+    }
+
+    /**
+     * Execute a call referencing the form by its hash. If the NodeJs process has not registered the form yet or has
+     * evicted it, the call is repeated with the form definition, which registers the form in the process.
+     */
+    private <T> T execute(ResourceLoader resourceLoader, NodeJsCall<T> call) throws Exception {
+        if (call.jvmExecution != null) {
+            return call.jvmExecution.call();
+        }
+        return call.complete(executeNodeJS(resourceLoader, call));
+    }
+
+    private String executeNodeJS(ResourceLoader resourceLoader, NodeJsCall<?> call) throws Exception {
+        try {
+            return executeNodeJS(resourceLoader, call.command, call.metrics, call.timer);
+        } catch (ScriptExecutionException e) {
+            if (!isFormNotRegistered(e)) {
+                throw e;
+            }
+            return executeNodeJS(resourceLoader, call.commandWithForm, call.metrics, call.timer);
+        }
+    }
+
+    private String executeNodeJS(ResourceLoader resourceLoader, NodeJsCommand command, OperationMetrics metrics,
+                                 RequestTimer timer) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            timer.scriptExecutorCalled();
+            String scriptOutput = getScriptExecutor(resourceLoader).execute(command);
+            timer.scriptCompleted(scriptOutput);
+            metrics.recordSuccess(startedAt, scriptOutput);
+            return scriptOutput;
+        } catch (Exception e) {
+            recordFailure(metrics, startedAt, e);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<String> executeNodeJSAsync(ScriptExecutor scriptExecutor, NodeJsCommand command,
+                                                         OperationMetrics metrics, RequestTimer timer) {
+        long startedAt = System.nanoTime();
+        timer.scriptExecutorCalled();
+        CompletableFuture<String> scriptResult = scriptExecutor.executeAsync(command);
+        scriptResult.whenComplete((scriptOutput, error) -> {
+            if (error == null) {
+                timer.scriptCompleted(scriptOutput);
+                metrics.recordSuccess(startedAt, scriptOutput);
+            } else {
+                recordFailure(metrics, startedAt, error);
+            }
+        });
+        return scriptResult;
+    }
+
+    private void recordFailure(OperationMetrics metrics, long startedAt, Throwable error) {
+        if (isFormNotRegistered(error)) {
+            metrics.recordFormNotRegistered(startedAt);
+        } else {
+            metrics.recordFailure(startedAt);
+        }
+    }
+
+    private CompletableFuture<String> executeNodeJSAsync(ResourceLoader resourceLoader, NodeJsCall<?> call) {
+        ScriptExecutor scriptExecutor = getScriptExecutor(resourceLoader);
+        CompletableFuture<String> result = new CompletableFuture<>();
+        CompletableFuture<String> scriptResult = executeNodeJSAsync(scriptExecutor, call.command, call.metrics,
+                call.timer);
+        result.whenComplete((value, error) -> scriptResult.cancel(false));
+        scriptResult.whenComplete((scriptOutput, error) -> {
+            if (error == null) {
+                result.complete(scriptOutput);
+            } else if (!isFormNotRegistered(error)) {
+                result.completeExceptionally(error);
+            } else {
+                CompletableFuture<String> scriptResultWithForm = executeNodeJSAsync(scriptExecutor, call.commandWithForm,
+                        call.metrics, call.timer);
+                result.whenComplete((value, retryError) -> scriptResultWithForm.cancel(false));
+                scriptResultWithForm.whenComplete((retryOutput, retryError) -> {
+                    if (retryError != null) {
+                        result.completeExceptionally(retryError);
+                    } else {
+                        result.complete(retryOutput);
+                    }
+                });
             }
-            
         });
         return result;
     }
 
+    private boolean isFormNotRegistered(Throwable error) {
+        return error instanceof ScriptExecutionException && FORM_NOT_REGISTERED_ERROR.equals(error.getMessage());
+    }
 
-    private JsonNode cleanUnusedData(String formDefinition, ObjectNode currentVariables, ResourceLoader resourceLoader,
-                                     FileStorage fileStorage) throws Exception {
-        FileOperationExecutor fileOperationExecutor = new FileOperationExecutor(formDefinition);
-        currentVariables = fileOperationExecutor
-                .convertToFormioFile()
-                .addDownloadUrlPrefix(fileStorage)
-                .execute(currentVariables);
-        String formResourcesDirPath = getFormResourcesDirPath(formDefinition, resourceLoader);
-        String formIoCleanupCommand = getFormIoCommand(CLEANUP_OPERATION_NAME, formDefinition, currentVariables.toString(), formResourcesDirPath);
-        String formIoCleanupResult = executeNodeJS(resourceLoader, formIoCleanupCommand);
-        return JSON_MAPPER.readTree(formIoCleanupResult);
+    private static String getFormHash(String formDefinitionJson) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(formDefinitionJson.getBytes(StandardCharsets.UTF_8));
+            return String.format("%064x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private <T> CompletableFuture<T> executeNodeJSAsync(ResourceLoader resourceLoader, RequestTimer timer,
+                                                        Callable<NodeJsCall<T>> preparation,
+                                                        Function<Exception, RuntimeException> errorWrapper) {
+        CompletableFuture<T> result = executeNodeJSAsync(resourceLoader, preparation, errorWrapper);
+        result.whenComplete((value, error) -> timer.complete(error));
+        return result;
+    }
+
+    /**
+     * Prepare a NodeJs call in the async executor, execute it without blocking any thread while the script is running
+     * and complete the call in the async executor again. Cancelling the returned future cancels the script execution.
+     */
+    private <T> CompletableFuture<T> executeNodeJSAsync(ResourceLoader resourceLoader,
+                                                        Callable<NodeJsCall<T>> preparation,
+                                                        Function<Exception, RuntimeException> errorWrapper) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture.runAsync(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                NodeJsCall<T> call = preparation.call();
+                if (call.jvmExecution != null) {
+                    result.complete(call.jvmExecution.call());
+                    return;
+                }
+                CompletableFuture<String> scriptResult = executeNodeJSAsync(resourceLoader, call);
+                result.whenComplete((value, error) -> scriptResult.cancel(false));
+                scriptResult.whenCompleteAsync((scriptOutput, error) -> {
+                    try {
+                        if (error != null) {
+                            throw error instanceof Exception ? (Exception) error : new ExecutionException(error);
+                        }
+                        result.complete(call.complete(scriptOutput));
+                    } catch (Exception e) {
+                        result.completeExceptionally(errorWrapper.apply(e));
+                    }
+                }, asyncExecutor);
+            } catch (Exception e) {
+                result.completeExceptionally(errorWrapper.apply(e));
+            }
+        }, asyncExecutor);
+        return result;
+    }
+
+    /**
+     * All resource groups share one pool of script contexts, so the number of NodeJs processes is limited for the
+     * whole JVM. Custom components are switched in a context whenever it gets a command of another group, once the
+     * commands of the previous group running in the context have completed. The executors of the groups only
+     * schedule commands in the shared pool, so one dropped from the cache is not closed.
+     */
+    private ScriptExecutor getScriptExecutor(ResourceLoader resourceLoader) {
+        return SCRIPT_EXECUTORS.get(getGroupId(resourceLoader), key -> getSharedScriptExecutor().forGroup(key));
+    }
+
+    private static String getGroupId(ResourceLoader resourceLoader) {
+        return resourceLoader.getGroupId() == null ? "" : resourceLoader.getGroupId();
+    }
+
+    /**
+     * Creates the shared executor on first use, so no script context is started before it is needed.
+     */
+    private static synchronized ScriptExecutor getSharedScriptExecutor() {
+        if (sharedScriptExecutor == null) {
+            sharedScriptExecutor = SCRIPT_EXECUTOR_PROVIDER.create(NODEJS_FORMIO_SCRIPT);
+        }
+        return sharedScriptExecutor;
+    }
+
+    /**
+     * Let the requests already sent to the script executor complete and stop all its NodeJs processes or script
+     * contexts. Called by CDI containers when the application is undeployed; applications which do not use CDI have
+     * to call it themselves before the class loader of the library is discarded. The metrics are unregistered from
+     * JMX as well. A request made afterwards starts a new executor.
+     */
+    public static void shutdown() {
+        ScriptExecutor scriptExecutor;
+        synchronized (FormioClient.class) {
+            scriptExecutor = sharedScriptExecutor;
+            sharedScriptExecutor = null;
+            SCRIPT_EXECUTORS.clear();
+        }
+        if (scriptExecutor != null) {
+            scriptExecutor.close();
+        }
+        FormioMetrics.unregisterAll();
+    }
+
+    static void onApplicationDestroyed(@Observes @Destroyed(ApplicationScoped.class) Object event) {
+        shutdown();
+    }
+
+    /**
+     * Build a command which is serialized by a {@link JsonGenerator} straight into the standard input of a NodeJs
+     * process, so neither the command nor its parts are turned into intermediate strings. The form is referenced by
+     * its hash; the form definition is only written if it is passed, in which case NodeJs registers it under the hash.
+     */
+    NodeJsCommand getFormIoCommand(String operation, String formHash, JsonNode formDefinition, JsonNode data,
+                                   String customComponentsDir) {
+        return asIdempotent(operation, outputStream -> {
+            try (JsonGenerator generator = JSON_MAPPER.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                writeForm(generator, formHash, formDefinition);
+                generator.writeFieldName("data");
+                JSON_MAPPER.writeTree(generator, data);
+                generator.writeStringField("operation", operation);
+                generator.writeStringField("resourcePath", toSafePath(customComponentsDir));
+                generator.writeEndObject();
+            }
+        });
     }
 
-    private String executeNodeJS(ResourceLoader resourceLoader, String command) throws Exception {
-        return NODEJS_EXECUTORS.computeIfAbsent(resourceLoader.getGroupId(), key -> new NodeJsExecutor(NODEJS_FORMIO_SCRIPT)).execute(command);
+    /**
+     * Build a command which applies an operation to every data item of a batch using the same form. Like
+     * {@link #getFormIoCommand(String, String, JsonNode, JsonNode, String)} it is serialized straight into the standard
+     * input.
+     */
+    NodeJsCommand getFormIoBatchCommand(String operation, String formHash, JsonNode formDefinition,
+                                        List<? extends JsonNode> batch, String customComponentsDir) {
+        return asIdempotent(operation, outputStream -> {
+            try (JsonGenerator generator = JSON_MAPPER.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                writeForm(generator, formHash, formDefinition);
+                generator.writeArrayFieldStart("batch");
+                for (JsonNode data : batch) {
+                    JSON_MAPPER.writeTree(generator, data);
+                }
+                generator.writeEndArray();
+                generator.writeStringField("operation", operation);
+                generator.writeStringField("resourcePath", toSafePath(customComponentsDir));
+                generator.writeEndObject();
+            }
+        });
     }
 
-    String getFormIoCommand(String operation, String formDefinition, String data, String customComponentsDir)
-            throws IOException {
-        ObjectNode command = JSON_MAPPER.createObjectNode();
-        command.set("form", JSON_MAPPER.readTree(formDefinition));
-        command.set("data", JSON_MAPPER.readTree(data));
-        command.put("operation", operation);
-        command.put("resourcePath", toSafePath(customComponentsDir));
-        return command.toString();
+    /**
+     * Validation and cleanup have no side effects, so a script executor may retry them when its context fails.
+     */
+    private NodeJsCommand asIdempotent(String operation, NodeJsCommand command) {
+        return IDEMPOTENT_OPERATION_NAMES.contains(operation) ? NodeJsCommand.idempotent(command) : command;
+    }
+
+    private void writeForm(JsonGenerator generator, String formHash, JsonNode formDefinition) throws IOException {
+        generator.writeStringField("formHash", formHash);
+        if (formDefinition != null) {
+            generator.writeFieldName("form");
+            JSON_MAPPER.writeTree(generator, formDefinition);
+        }
     }
 
     private String toSafePath(String customComponentsDir) {
@@ -341,7 +1163,7 @@ public class FormioClient implements FormClient {
     private JsonNode convertToContainer(JsonNode formDefinition, ResourceLoader resourceLoader) {
         String formId = formDefinition.get("form").asText(); 
         JsonNode container = convertToContainer(formDefinition);
-        JsonNode components = getSubform(formId, resourceLoader).get("components").deepCopy();
+        JsonNode components = getSubform(formId, resourceLoader).get("components");
         ((ObjectNode) container).put("type", "container");
         ((ObjectNode) container).put("tree", true);
         ((ObjectNode) container).replace("components", components);
@@ -356,67 +1178,51 @@ public class FormioClient implements FormClient {
                 .collect(Collectors.toMap(Entry::getKey, Entry::getValue)));
     }
 
-    private boolean shouldProcessSubmission(JsonNode form, String submissionState) {
-        Filter saveStateComponentsFilter = Filter.filter((Criteria.where("action").eq("saveState").and("state").eq(submissionState)));
-        return toStream(JAYWAY_PARSER.parse(form).read("$..components[?]", saveStateComponentsFilter))
-                .map(component -> component.at("/properties/isSubmissionProcessed").asBoolean(true))
-                .findFirst()
-                .orElse(true);
+    /**
+     * Wrap the rows of data grids without row wrapping in the data by a form definition. The plan of the definition
+     * is compiled on every call, the client itself wraps the data by the cached plan of the form.
+     */
+    protected JsonNode wrapGridData(JsonNode data, JsonNode definition) {
+        return wrapGridData(data, FormPlan.compile(definition).getRoot());
     }
 
-    protected JsonNode wrapGridData(JsonNode data, JsonNode definition) {
+    /**
+     * Copy the data, wrapping every row value of a grid without row wrapping into an object keyed by the first
+     * component of the grid. Values not described by the components are copied as they are.
+     */
+    private JsonNode wrapGridData(JsonNode data, FormPlan.Component component) {
         if (data.isObject()) {
-            return wrapGridDataInObject(data, definition);
+            return wrapGridDataInObject(data, component);
         }
         if (data.isArray()) {
-            return wrapGridDataInArray((ArrayNode) data, definition);
+            return wrapGridDataInArray(data, component);
         }
         return data;
     }
 
-    private JsonNode wrapGridDataInObject(JsonNode data, JsonNode definition) {
-        ObjectNode dataWithWrappedChildren = data.deepCopy();
-        if (hasChildComponents(definition)) {
-            List<JsonNode> childComponents = listChildComponents(definition);
-            for (JsonNode child : childComponents) {
-                String key = child.get("key").asText();
-                if (dataWithWrappedChildren.has(key)) {
-                    dataWithWrappedChildren.set(key, wrapGridData(dataWithWrappedChildren.get(key), child));
-                }
-            }
-        }
+    private JsonNode wrapGridDataInObject(JsonNode data, FormPlan.Component component) {
+        ObjectNode dataWithWrappedChildren = JSON_MAPPER.createObjectNode();
+        data.fields().forEachRemaining(field -> {
+            FormPlan.Component child = component.hasChildComponents() ? component.getChild(field.getKey()) : null;
+            dataWithWrappedChildren.set(field.getKey(), child != null
+                    ? wrapGridData(field.getValue(), child)
+                    : field.getValue().deepCopy());
+        });
         return dataWithWrappedChildren;
     }
 
-    private JsonNode wrapGridDataInArray(ArrayNode data, JsonNode definition) {
-        ArrayNode wrappedData = data.deepCopy();
-        if (isGridUnwrapped(definition)) {
-            String wrapperName = definition.at("/components/0/key").asText();
-            for (int index = 0; index < data.size(); index++) {
-                JsonNode arrayElement = data.get(index);
-                ObjectNode wrapper = JsonNodeFactory.instance.objectNode();
-                wrapper.set(wrapperName, arrayElement);
-                wrappedData.set(index, wrapper);
+    private JsonNode wrapGridDataInArray(JsonNode data, FormPlan.Component component) {
+        ArrayNode wrappedData = JSON_MAPPER.createArrayNode();
+        for (JsonNode arrayElement : data) {
+            JsonNode row = arrayElement;
+            if (component.isGridUnwrapped()) {
+                row = JSON_MAPPER.createObjectNode().set(component.getRowWrapperKey(), arrayElement);
             }
-        }
-        for (int index = 0; index < data.size(); index++) {
-            JsonNode wrappedElement = wrapGridData(wrappedData.get(index), definition);
-            wrappedData.set(index, wrappedElement);
+            wrappedData.add(wrapGridData(row, component));
         }
         return wrappedData;
     }
 
-    private boolean isGridUnwrapped(JsonNode definition) {
-        JsonNode noRowWrappingProperty = definition.at(String.format("/properties/%s", GRID_NO_ROW_WRAPPING_PROPERTY));
-        return isArrayComponent(definition)
-                && !noRowWrappingProperty.isMissingNode()
-                && TRUE.equals(noRowWrappingProperty.asBoolean());
-    }
-
-    private boolean hasChildComponents(JsonNode definition) {
-        return !definition.at("/components").isMissingNode();
-    }
-
     private JsonNode getChildComponents(JsonNode component) {
         if (hasTypeOf(component, "columns"))
             return component.get("columns");
@@ -425,85 +1231,58 @@ public class FormioClient implements FormClient {
         return component.get("components");
     }
 
-    private List<JsonNode> listChildComponents(JsonNode definition) {
-        final Set<String> layoutComponentTypes = new HashSet<>(asList("well", "table", "columns", "fieldset", "panel"));
-        final Set<String> containerComponentTypes = new HashSet<>(asList("well", "fieldset", "panel"));
-        List<JsonNode> nodes = new ArrayList<>();
-        toStream(definition.get("components"))
-                .filter(component -> !layoutComponentTypes.contains(component.get("type").asText()))
-                .forEach(nodes::add);
-        toStream(definition.get("components"))
-                .filter(component -> containerComponentTypes.contains(component.get("type").asText()))
-                .flatMap(component -> toStream(component.get("components")))
-                .forEach(nodes::add);
-        toStream(definition.get("components"))
-                .filter(component -> "columns".equals(component.get("type").asText()))
-                .flatMap(component -> toStream(component.get("columns")))
-                .flatMap(component -> toStream(component.get("components")))
-                .forEach(nodes::add);
-        toStream(definition.get("components"))
-                .filter(component -> "table".equals(component.get("type").asText()))
-                .flatMap(component -> toStream(component.get("rows")))
-                .flatMap(this::toStream)
-                .flatMap(component -> toStream(component.get("components")))
-                .forEach(nodes::add);
-        return nodes;
-    }
-
-    private JsonNode unwrapGridData(JsonNode data, JsonNode definition) {
-        if (hasChildComponents(definition)) {
-            List<JsonNode> childComponents = listChildComponents(definition);
+    /**
+     * Keep only the data of the components, unwrapping the rows of grids without row wrapping which have a single
+     * component back into values.
+     */
+    private JsonNode unwrapGridData(JsonNode data, FormPlan.Component component) {
+        if (component.hasChildComponents()) {
             if (data.isObject()) {
-                return unwrapGridDataFromObject(data, childComponents);
+                return unwrapGridDataFromObject(data, component.getChildren());
             }
             if (data.isArray()) {
-                return unwrapGridDataFromArray(data, childComponents);
+                return unwrapGridDataFromArray(data, component.getChildren());
             }
         }
         return data;
     }
 
-    private JsonNode unwrapGridDataFromObject(JsonNode data, List<JsonNode> childComponents) {
+    private JsonNode unwrapGridDataFromObject(JsonNode data, List<FormPlan.Component> childComponents) {
         ObjectNode unwrappedData = JsonNodeFactory.instance.objectNode();
-        for (JsonNode childDefinition : childComponents) {
-            String key = childDefinition.get("key").asText();
-            if (data.has(key)) {
-                unwrappedData.set(key, unwrapGridData(data, childDefinition, key));
+        for (FormPlan.Component child : childComponents) {
+            if (data.has(child.getKey())) {
+                unwrappedData.set(child.getKey(), unwrapChildData(data, child));
             }
         }
         return unwrappedData;
     }
 
-    private JsonNode unwrapGridDataFromArray(JsonNode data, List<JsonNode> childComponents) {
-        ArrayNode unwrappedArray = data.deepCopy();
-        for (int index = 0; index < data.size(); index++) {
+    private JsonNode unwrapGridDataFromArray(JsonNode data, List<FormPlan.Component> childComponents) {
+        ArrayNode unwrappedArray = JsonNodeFactory.instance.arrayNode();
+        for (JsonNode arrayElement : data) {
             ObjectNode currentNode = JsonNodeFactory.instance.objectNode();
-            for (JsonNode childDefinition : childComponents) {
-                String key = childDefinition.get("key").asText();
-                JsonNode unwrappedData = unwrapGridData(data.get(index), childDefinition, key);
-                currentNode.set(key, unwrappedData);
+            for (FormPlan.Component child : childComponents) {
+                currentNode.set(child.getKey(), unwrapChildData(arrayElement, child));
             }
-            unwrappedArray.set(index, currentNode);
+            unwrappedArray.add(currentNode);
         }
         return unwrappedArray;
     }
 
-    private JsonNode unwrapGridData(JsonNode data, JsonNode childDefinition, String key) {
-        if (!data.has(key)) {
+    private JsonNode unwrapChildData(JsonNode data, FormPlan.Component child) {
+        if (!data.has(child.getKey())) {
             return data;
         }
-        data = unwrapGridData(data.get(key), childDefinition);
-        if (isArrayComponent(childDefinition)) {
-            data = unwrapGridData(childDefinition, (ArrayNode) data);
+        data = unwrapGridData(data.get(child.getKey()), child);
+        if (child.isArray()) {
+            data = unwrapGridRows(child, (ArrayNode) data);
         }
         return data;
     }
 
-    private JsonNode unwrapGridData(JsonNode gridDefinition, ArrayNode data) {
-        ArrayNode components = (ArrayNode) gridDefinition.get("components");
+    private JsonNode unwrapGridRows(FormPlan.Component grid, ArrayNode data) {
         ArrayNode unwrappedData = JsonNodeFactory.instance.arrayNode();
-        JsonNode noRowWrappingProperty = gridDefinition.at(String.format("/properties/%s", GRID_NO_ROW_WRAPPING_PROPERTY));
-        if (!noRowWrappingProperty.isMissingNode() && TRUE.equals(noRowWrappingProperty.asBoolean()) && (components.size() == 1)) {
+        if (grid.isSingleColumnUnwrapped()) {
             data.forEach(node -> unwrappedData.add(node.elements().next()));
         } else {
             unwrappedData.addAll(data);
@@ -511,18 +1290,6 @@ public class FormioClient implements FormClient {
         return unwrappedData;
     }
 
-    private boolean isContainerComponent(JsonNode componentDefinition) {
-        return hasTypeOf(componentDefinition, "form", "container", "survey");
-    }
-
-    private boolean isArrayComponent(JsonNode componentDefinition) {
-        return hasTypeOf(componentDefinition, "datagrid", "editgrid");
-    }
-
-    private boolean isLayoutComponent(JsonNode component) {
-        return hasTypeOf(component, "well", "columns", "fieldset", "panel", "table", "tabs");
-    }
-
     private boolean hasTypeOf(JsonNode component, String... types) {
         JsonNode typeField = component.get("type");
         String componentType = typeField != null ? typeField.asText() : "";
@@ -541,79 +1308,47 @@ public class FormioClient implements FormClient {
                 .spliteratorUnknownSize(node.fields(), Spliterator.ORDERED), false);
     }
 
-    private JsonNode getFormVariables(JsonNode formDefinition, ObjectNode submittedVariables,
-                                      ObjectNode currentVariables) {
-        return getFormVariables(listChildComponents(formDefinition), submittedVariables, currentVariables);
+    private JsonNode getFormVariables(FormPlan formPlan, JsonNode submittedVariables, JsonNode currentVariables) {
+        return getFormVariables(formPlan.getRoot().getFields(), submittedVariables, currentVariables);
     }
 
-    private JsonNode getFormVariables(List<JsonNode> formComponents, JsonNode submittedVariables,
+    private JsonNode getFormVariables(List<FormPlan.Component> fields, JsonNode submittedVariables,
                                       JsonNode currentVariables) {
-        return Optional.ofNullable(formComponents)
-                .map(Collection::stream)
-                .orElse(Stream.empty())
-                .filter(component -> StringUtils.isNotBlank(component.get("key").asText()))
-                .flatMap(this::extractChildrenIfLayoutComponent)
-                .map(component -> getFormVariable(component, submittedVariables, currentVariables))
-                .filter(Objects::nonNull)
-                .collect(
-                        JSON_MAPPER::createObjectNode,
-                        (resultData, cleanDataEntry) -> resultData.set(cleanDataEntry.getKey(), cleanDataEntry.getValue()),
-                        ObjectNode::setAll
-                );
-    }
-
-    private Stream<JsonNode> extractChildrenIfLayoutComponent(JsonNode component) {
-        if (isLayoutComponent(component)) {
-            return extractChildrenFromLayoutComponent(component);
-        } else {
-            return Stream.of(component);
-        }
-    }
-
-    private Stream<JsonNode> extractChildrenFromLayoutComponent(JsonNode component) {
-        if (hasTypeOf(component, "table")) {
-            return toStream(component.get("rows"))
-                    .flatMap(this::toStream)
-                    .flatMap(cell -> toStream(cell.get("components")))
-                    .flatMap(this::extractChildrenIfLayoutComponent);
-        }
-        if (hasTypeOf(component, "columns")) {
-            return toStream(component.get("columns"))
-                    .flatMap(column -> toStream(column.get("components")))
-                    .flatMap(this::extractChildrenIfLayoutComponent);
-        }
-        if (hasTypeOf(component, "tabs")) {
-            return toStream(component.get("components"))
-                    .flatMap(tab -> toStream(tab.get("components")))
-                    .flatMap(this::extractChildrenIfLayoutComponent);
+        ObjectNode formVariables = JSON_MAPPER.createObjectNode();
+        for (FormPlan.Component field : fields) {
+            Entry<String, ? extends JsonNode> formVariable = getFormVariable(field, submittedVariables, currentVariables);
+            if (formVariable != null) {
+                formVariables.set(formVariable.getKey(), formVariable.getValue());
+            }
         }
-        return toStream(component.get("components"))
-                .flatMap(this::extractChildrenIfLayoutComponent);
+        return formVariables;
     }
 
-    private Map.Entry<String, ? extends JsonNode> getFormVariable(JsonNode component, JsonNode submittedVariables,
-                                                                  JsonNode currentVariables) {
-        if (isContainerComponent(component)) {
+    private Map.Entry<String, ? extends JsonNode> getFormVariable(FormPlan.Component component,
+                                                                  JsonNode submittedVariables, JsonNode currentVariables) {
+        if (component.isContainer()) {
             return getContainerVariable(component, submittedVariables, currentVariables);
-        } else if (isArrayComponent(component)) {
+        } else if (component.isArray()) {
             return getArrayComponentVariable(component, submittedVariables, currentVariables);
         } else {
             return getSimpleComponentVariable(component, submittedVariables, currentVariables);
         }
     }
 
-    private Map.Entry<String, ? extends JsonNode> getContainerVariable(JsonNode component, JsonNode submittedVariables,
+    private Map.Entry<String, ? extends JsonNode> getContainerVariable(FormPlan.Component component,
+                                                                       JsonNode submittedVariables,
                                                                        JsonNode currentVariables) {
-        String componentKey = component.get("key").asText();
+        String componentKey = component.getKey();
         submittedVariables = submittedVariables.has(componentKey) ? submittedVariables.get(componentKey) : JSON_MAPPER.createObjectNode();
         currentVariables = currentVariables.has(componentKey) ? currentVariables.get(componentKey) : JSON_MAPPER.createObjectNode();
-        JsonNode containerValue = getFormVariables(listChildComponents(component), submittedVariables, currentVariables);
+        JsonNode containerValue = getFormVariables(component.getFields(), submittedVariables, currentVariables);
         return containerValue.size() == 0 ? null : new SimpleEntry<>(componentKey, containerValue);
     }
 
-    private Map.Entry<String, ArrayNode> getArrayComponentVariable(JsonNode component, JsonNode submittedVariables,
+    private Map.Entry<String, ArrayNode> getArrayComponentVariable(FormPlan.Component component,
+                                                                   JsonNode submittedVariables,
                                                                    JsonNode currentVariables) {
-        String componentKey = component.get("key").asText();
+        String componentKey = component.getKey();
         ArrayNode containerValue = JSON_MAPPER.createArrayNode();
         JsonNode editableArrayData = submittedVariables.has(componentKey) ? submittedVariables.get(componentKey) : JSON_MAPPER.createObjectNode();
         JsonNode readOnlyArrayData = currentVariables.has(componentKey) ? currentVariables.get(componentKey) : JSON_MAPPER.createArrayNode();
@@ -621,7 +1356,7 @@ public class FormioClient implements FormClient {
             for (int i = 0; i < editableArrayData.size(); i++) {
                 JsonNode editableArrayItemData = editableArrayData.get(i);
                 JsonNode readOnlyDataArrayItemData = readOnlyArrayData.has(i) ? readOnlyArrayData.get(i) : JSON_MAPPER.createObjectNode();
-                JsonNode containerItemValue = getFormVariables(listChildComponents(component), editableArrayItemData, readOnlyDataArrayItemData);
+                JsonNode containerItemValue = getFormVariables(component.getFields(), editableArrayItemData, readOnlyDataArrayItemData);
                 containerValue.add(containerItemValue);
             }
         }
@@ -630,30 +1365,26 @@ public class FormioClient implements FormClient {
                 : new SimpleEntry<>(componentKey, containerValue);
     }
 
-    private Map.Entry<String, ? extends JsonNode> getSimpleComponentVariable(JsonNode component, JsonNode editableData,
+    private Map.Entry<String, ? extends JsonNode> getSimpleComponentVariable(FormPlan.Component component,
+                                                                             JsonNode editableData,
                                                                              JsonNode readOnlyData) {
-        String componentKey = component.get("key").asText();
+        String componentKey = component.getKey();
         Entry<String, JsonNode> editableDataEntry = editableData != null && editableData.has(componentKey)
                 ? new SimpleEntry<>(componentKey, editableData.get(componentKey))
                 : null;
         Entry<String, JsonNode> readOnlyDataEntry = readOnlyData != null && readOnlyData.has(componentKey)
                 ? new SimpleEntry<>(componentKey, readOnlyData.get(componentKey))
                 : null;
-        return !component.path("disabled").asBoolean() ? editableDataEntry : readOnlyDataEntry;
+        return !component.isDisabled() ? editableDataEntry : readOnlyDataEntry;
     }
 
-    private boolean isFileVariable(String variableName, String formDefinition) {
-        Function<String, JSONArray> fileFieldSearch = key -> JsonPath.read(formDefinition, String.format("$..[?(@.type == 'file' && @.key == '%s')]", variableName));
-        JSONArray fileField = FILE_FIELDS_CACHE.computeIfAbsent(formDefinition + "-" + variableName, fileFieldSearch);
-        return !fileField.isEmpty();
-    }
-
-    private String getFormResourcesDirPath(String formDefinitionJson, ResourceLoader resourceLoader) {
+    private String getFormResourcesDirPath(String formDefinitionJson, ResourceLoader resourceLoader, String formKey) {
         String cacheKey = resourceLoader.getGroupId() != null ? 
                 resourceLoader.getGroupId()
                 : String.valueOf(formDefinitionJson.hashCode());
+        CacheMetrics cacheMetrics = FormioMetrics.cache(FORM_RESOURCES_DIR_CACHE_NAME, getGroupId(resourceLoader), formKey);
         
-        return FORM_RESOURCES_DIR_CACHE.computeIfAbsent(cacheKey, key -> {
+        return cacheMetrics.computeIfAbsent(FORM_RESOURCES_DIR_CACHE, cacheKey, key -> {
             try {
                 Path formResourcesDir = createFormResourcesDir(key);
                 populateFormResourcesDir(formResourcesDir, resourceLoader);
@@ -698,13 +1429,143 @@ public class FormioClient implements FormClient {
         Files.write(destination, bytes);
     }
 
+    /**
+     * An expanded form as it is cached: the definition together with its serialized form, the hash of it referencing
+     * the form in NodeJs and the plan the data transforms run off.
+     */
+    private static class LoadedForm {
+        private final JsonNode definition;
+        private final String json;
+        private final String fingerprint;
+        private final FormPlan plan;
+        private volatile FormioValidator validator;
+
+        private LoadedForm(JsonNode definition, String json, String fingerprint, FormPlan plan) {
+            this.definition = definition;
+            this.json = json;
+            this.fingerprint = fingerprint;
+            this.plan = plan;
+        }
+
+        /**
+         * The validator is created by the first validation in the JVM, so forms which are only rendered are not
+         * analysed. Two validations may create it at the same time, either validator is kept.
+         */
+        private FormioValidator getValidator() {
+            FormioValidator formValidator = validator;
+            if (formValidator == null) {
+                formValidator = new FormioValidator(definition);
+                validator = formValidator;
+            }
+            return formValidator;
+        }
+    }
+
+    /**
+     * A command prepared for a NodeJs process together with the function turning the output of the command into the
+     * result of a client call. The command references the form by its hash; the same command carrying the form
+     * definition is sent if the process reports that the form is not registered.
+     */
+    private static class NodeJsCall<T> {
+        private final OperationMetrics metrics;
+        private final RequestTimer timer;
+        private final NodeJsCommand command;
+        private final NodeJsCommand commandWithForm;
+        private final ScriptResultHandler<T> resultHandler;
+        private final Callable<T> jvmExecution;
+
+        private NodeJsCall(OperationMetrics metrics, RequestTimer timer, NodeJsCommand command,
+                           NodeJsCommand commandWithForm, ScriptResultHandler<T> resultHandler) {
+            this.metrics = metrics;
+            this.timer = timer;
+            this.command = timer.track(metrics.countBytes(command));
+            this.commandWithForm = timer.track(metrics.countBytes(commandWithForm));
+            this.resultHandler = resultHandler;
+            this.jvmExecution = null;
+        }
+
+        private NodeJsCall(Callable<T> jvmExecution) {
+            this.metrics = null;
+            this.timer = null;
+            this.command = null;
+            this.commandWithForm = null;
+            this.resultHandler = null;
+            this.jvmExecution = jvmExecution;
+        }
+
+        /**
+         * A call which does not need NodeJs and is answered by the JVM when it is executed.
+         */
+        private static <T> NodeJsCall<T> inJvm(Callable<T> jvmExecution) {
+            return new NodeJsCall<>(jvmExecution);
+        }
+
+        private T complete(String scriptOutput) throws Exception {
+            return resultHandler.handle(scriptOutput);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ScriptResultHandler<T> {
+        T handle(String scriptOutput) throws Exception;
+    }
+
+    /**
+     * Variables of one submission prepared for validation. Files given as data urls are cut out of the variables
+     * before they are sent to NodeJs and put back into the validated variables.
+     */
+    private class SubmissionValidation {
+        private final FormPlan formPlan;
+        private final FileOperationExecutor fileOperationExecutor;
+        private final ObjectNode dataInUrlBuffer = JSON_MAPPER.createObjectNode();
+        private final ObjectNode formVariables;
+        private final RequestTimer timer;
+
+        private SubmissionValidation(FormPlan formPlan, ObjectNode submittedVariables, ObjectNode currentVariables,
+                                     RequestTimer timer) {
+            this.formPlan = formPlan;
+            this.fileOperationExecutor = new FileOperationExecutor(formPlan);
+            this.timer = timer;
+            long conversionStartedAt = timer.now();
+            currentVariables = fileOperationExecutor
+                    .convertToFormioFile()
+                    .execute(currentVariables);
+            timer.record(RequestPhase.FILE_CONVERSION, conversionStartedAt);
+            long formVariablesStartedAt = timer.now();
+            ObjectNode formVariables = (ObjectNode) getFormVariables(formPlan, submittedVariables, currentVariables);
+            timer.record(RequestPhase.FORM_VARIABLES, formVariablesStartedAt);
+            long extractionStartedAt = timer.now();
+            this.formVariables = fileOperationExecutor
+                    .extractFormioDataInUrl(dataInUrlBuffer)
+                    .execute(formVariables);
+            timer.record(RequestPhase.FILE_CONVERSION, extractionStartedAt);
+        }
+
+        private String complete(JsonNode scriptExecutionResult, FileStorage fileStorage) {
+            long unwrappingStartedAt = timer.now();
+            JsonNode validationResult = getDataFromScriptExecutionResult(scriptExecutionResult, formPlan);
+            timer.record(RequestPhase.GRID_UNWRAPPING, unwrappingStartedAt);
+            long conversionStartedAt = timer.now();
+            ObjectNode validatedVariables = fileOperationExecutor
+                    .addFormioDataInUrl(dataInUrlBuffer)
+                    .convertFromFormioFile()
+                    .storeFile(fileStorage)
+                    .execute(validationResult);
+            timer.record(RequestPhase.FILE_CONVERSION, conversionStartedAt);
+            long serializationStartedAt = timer.now();
+            String result = validatedVariables.toString();
+            timer.record(RequestPhase.RESPONSE_SERIALIZATION, serializationStartedAt);
+            return result;
+        }
+    }
+
     private class FileOperationExecutor {
 
         private List<BiFunction<String, JsonNode, JsonNode>> operations = new ArrayList<>();
-        private String formDefinition;
+        private FormPlan formPlan;
 
-        public FileOperationExecutor(String formDefinition) {
-            this.formDefinition = formDefinition;
+        public FileOperationExecutor(FormPlan formPlan) {
+            this.formPlan = formPlan;
         }
 
         private FileOperationExecutor addDownloadUrlPrefix(FileStorage fileStorage) {
@@ -803,7 +1664,7 @@ public class FormioClient implements FormClient {
                         String fieldPath = !variablePath.isEmpty()
                                 ? variablePath + "." + fieldName
                                 : fieldName;
-                        if (isFileVariable(fieldName, formDefinition)) {
+                        if (formPlan.isFileField(fieldName)) {
                             fieldValue = executeOperations(fieldPath, fieldValue);
                         } else if (fieldValue.isObject()) {
                             fieldValue = execute(fieldPath, fieldValue);
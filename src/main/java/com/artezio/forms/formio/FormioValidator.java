@@ -0,0 +1,405 @@
+package com.artezio.forms.formio;
+
+import com.artezio.forms.formio.exceptions.SubmissionValidationException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Validates submissions of forms using only the declarative validation rules of Formio (required, minLength,
+ * maxLength, pattern, min, max and the email type) without a NodeJs process. The validator mirrors what the Formio
+ * engine does for these rules: missing values are set to the default value of the component, errors are reported
+ * in the order of the components and the messages are the default english messages of Formio.
+ * <p>
+ * Whether a form can be validated here at all is decided by {@link #isValidatable()}. Anything the engine would have
+ * to run JavaScript for, like custom validation, calculated values, conditions, logic or custom components, makes
+ * the form go to NodeJs.
+ * <p>
+ * A validator is created for one form definition, which must not be modified afterwards. The form is analysed and
+ * the patterns of its components are compiled when the validator is created.
+ */
+class FormioValidator {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private static final Set<String> INPUT_COMPONENT_TYPES = Set.of("textfield", "textarea", "email", "password",
+            "number", "checkbox", "button");
+    private static final Set<String> LAYOUT_COMPONENT_TYPES = Set.of("panel", "fieldset", "well", "columns", "table",
+            "tabs", "htmlelement", "content");
+    private static final Set<String> SUPPORTED_VALIDATION_RULES = Set.of("required", "minLength", "maxLength",
+            "pattern", "min", "max", "step", "customPrivate");
+    private static final Set<String> SCRIPT_PROPERTIES = Set.of("calculateValue", "customDefaultValue",
+            "customConditional", "inputMask", "displayMask", "allowMultipleMasks", "errors", "multiple", "hidden");
+    private static final Set<String> JS_INCOMPATIBLE_PATTERN_PARTS = Set.of("&&", "[[", "[^]", "[]", "\\Q", "\\E",
+            "\\A", "\\Z", "\\z", "\\G", "\\h", "\\H", "\\R", "\\X", "\\v", "\\V", "\\p", "\\P", "\\u{", "(?i", "(?m",
+            "(?s", "(?x", "(?u", "(?d", "++", "*+", "?+", "}+");
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^(([^<>()\\[\\]\\\\.,;:\\s@\"]+(\\.[^<>()\\[\\]\\\\.,;:\\s@\"]+)*)"
+            + "|(\".+\"))@((\\[[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}])|(([a-zA-Z\\-0-9]+\\.)+[a-zA-Z]{2,}))$");
+    private static final Pattern JS_FLOAT_PREFIX = Pattern.compile("^\\s*([+-]?(Infinity|\\d+\\.?\\d*([eE][+-]?\\d+)?|\\.\\d+([eE][+-]?\\d+)?))");
+    private static final Pattern JS_INT_PREFIX = Pattern.compile("^\\s*([+-]?\\d+)");
+    /** Characters JavaScript regular expressions treat differently than {@link Pattern} in \s, . and $ */
+    private static final Pattern JS_DIVERGENT_CHARACTERS = Pattern.compile("[\\n\\r\\u0085\\u2028\\u2029\\u00a0\\u1680"
+            + "\\u2000-\\u200a\\u202f\\u205f\\u3000\\ufeff]");
+
+    private final JsonNode formDefinition;
+    private final boolean validatable;
+    /** Compiled patterns of the components with a pattern rule, by the component */
+    private final Map<JsonNode, Pattern> patterns = new IdentityHashMap<>();
+
+    /**
+     * @param formDefinition Form definition with expanded subforms
+     */
+    FormioValidator(JsonNode formDefinition) {
+        this.formDefinition = formDefinition;
+        String display = formDefinition.path("display").asText("form");
+        validatable = ("form".equals(display) || display.isEmpty())
+                && getChildComponents(formDefinition).allMatch(this::isValidatableComponent);
+        if (validatable) {
+            compilePatterns(formDefinition);
+        }
+    }
+
+    /**
+     * Static analysis of the form definition.
+     *
+     * @return true if no component of the form needs the Formio engine
+     */
+    boolean isValidatable() {
+        return validatable;
+    }
+
+    /**
+     * Check that the values of a submission have the types the validator can handle the same way as the Formio
+     * engine, e.g. a number is given for a number component and strings contain no characters regular expressions
+     * of JavaScript and Java treat differently. It is assumed that {@link #isValidatable()} is true.
+     *
+     * @param data Submission data cleaned up of unknown keys
+     * @return true if the submission can be validated by {@link #validate(ObjectNode)}
+     */
+    boolean isValidatable(JsonNode data) {
+        return getChildComponents(formDefinition).allMatch(component -> isValidatableData(component, data));
+    }
+
+    /**
+     * Validate a submission.
+     *
+     * @param data Submission data cleaned up of unknown keys, missing values are added to it
+     * @return The submission in the form NodeJs returns it, i.e. an object with the validated data in "data"
+     * @throws SubmissionValidationException If the submission is invalid
+     */
+    ObjectNode validate(ObjectNode data) {
+        List<String> errors = new ArrayList<>();
+        getChildComponents(formDefinition).forEach(component -> validate(component, data, errors));
+        if (!errors.isEmpty()) {
+            throw new SubmissionValidationException(toJson(errors), errors);
+        }
+        ObjectNode submission = JSON_MAPPER.createObjectNode();
+        submission.set("data", data);
+        return submission;
+    }
+
+    private boolean isValidatableComponent(JsonNode component) {
+        String type = component.path("type").asText();
+        if (SCRIPT_PROPERTIES.stream().anyMatch(property -> isTruthy(component.get(property)))
+                || isTruthy(component.path("conditional").get("when"))
+                || isTruthy(component.path("conditional").get("json"))
+                || component.path("logic").size() > 0
+                || !hasSupportedValidationRules(component)) {
+            return false;
+        }
+        if (LAYOUT_COMPONENT_TYPES.contains(type)) {
+            return getChildComponents(component).allMatch(this::isValidatableComponent);
+        }
+        if (!component.path("key").isTextual() || component.path("key").asText().isEmpty()) {
+            return false;
+        }
+        switch (type) {
+            case "container":
+                return getChildComponents(component).allMatch(this::isValidatableComponent);
+            case "datagrid":
+                return !isTruthy(component.path("validate").get("required"))
+                        && !isTruthy(component.path("validate").get("minLength"))
+                        && !isTruthy(component.path("validate").get("maxLength"))
+                        && getChildComponents(component).allMatch(this::isValidatableComponent);
+            case "textarea":
+                return !isTruthy(component.get("editor")) && !isTruthy(component.get("wysiwyg"))
+                        && isValidatableInput(component);
+            case "checkbox":
+                return !"radio".equals(component.path("inputType").asText()) && isValidatableInput(component);
+            default:
+                return INPUT_COMPONENT_TYPES.contains(type) && isValidatableInput(component);
+        }
+    }
+
+    private boolean isValidatableInput(JsonNode component) {
+        String textCase = component.path("case").asText();
+        return (textCase.isEmpty() || "mixed".equals(textCase))
+                && !component.path("defaultValue").isContainerNode()
+                && isJsCompatiblePattern(component.path("validate").get("pattern"));
+    }
+
+    private boolean hasSupportedValidationRules(JsonNode component) {
+        JsonNode validate = component.path("validate");
+        List<String> rules = new ArrayList<>();
+        validate.fieldNames().forEachRemaining(rules::add);
+        return rules.stream()
+                .allMatch(rule -> SUPPORTED_VALIDATION_RULES.contains(rule) || !isTruthy(validate.get(rule)));
+    }
+
+    private boolean isJsCompatiblePattern(JsonNode pattern) {
+        if (!isTruthy(pattern)) {
+            return true;
+        }
+        String regex = pattern.asText();
+        if (JS_INCOMPATIBLE_PATTERN_PARTS.stream().anyMatch(regex::contains)) {
+            return false;
+        }
+        try {
+            Pattern.compile(String.format("^%s$", regex));
+            return true;
+        } catch (PatternSyntaxException e) {
+            return false;
+        }
+    }
+
+    private void compilePatterns(JsonNode component) {
+        JsonNode pattern = component.path("validate").get("pattern");
+        if (isTruthy(pattern)) {
+            patterns.put(component, Pattern.compile(String.format("^%s$", pattern.asText())));
+        }
+        getChildComponents(component).forEach(this::compilePatterns);
+    }
+
+    private boolean isValidatableData(JsonNode component, JsonNode data) {
+        String type = component.path("type").asText();
+        if (LAYOUT_COMPONENT_TYPES.contains(type)) {
+            return getChildComponents(component).allMatch(child -> isValidatableData(child, data));
+        }
+        JsonNode value = data.get(component.get("key").asText());
+        if (value == null) {
+            return true;
+        }
+        switch (type) {
+            case "container":
+                return value.isObject()
+                        && getChildComponents(component).allMatch(child -> isValidatableData(child, value));
+            case "datagrid":
+                return value.isArray() && StreamSupport.stream(value.spliterator(), false)
+                        .allMatch(row -> row.isObject()
+                                && getChildComponents(component).allMatch(child -> isValidatableData(child, row)));
+            case "number":
+                return value.isNumber() || value.isTextual() && value.asText().isEmpty();
+            case "checkbox":
+            case "button":
+                return value.isBoolean();
+            default:
+                return value.isTextual() && !JS_DIVERGENT_CHARACTERS.matcher(value.asText()).find();
+        }
+    }
+
+    private void validate(JsonNode component, ObjectNode data, List<String> errors) {
+        String type = component.path("type").asText();
+        if (LAYOUT_COMPONENT_TYPES.contains(type)) {
+            getChildComponents(component).forEach(child -> validate(child, data, errors));
+            return;
+        }
+        String key = component.get("key").asText();
+        if (!data.has(key)) {
+            data.set(key, getDefaultValue(component));
+        }
+        JsonNode value = data.get(key);
+        switch (type) {
+            case "container":
+                getChildComponents(component).forEach(child -> validate(child, (ObjectNode) value, errors));
+                break;
+            case "datagrid":
+                value.forEach(row -> getChildComponents(component).forEach(child -> validate(child, (ObjectNode) row, errors)));
+                break;
+            default:
+                validateInput(component, type, value, errors);
+        }
+    }
+
+    private void validateInput(JsonNode component, String type, JsonNode value, List<String> errors) {
+        JsonNode validate = component.path("validate");
+        String field = getErrorLabel(component);
+        boolean empty = isEmpty(type, value);
+        if (isTruthy(validate.get("required")) && empty) {
+            errors.add(String.format("%s is required", field));
+        }
+        int minLength = parseInt(validate.get("minLength"));
+        if (minLength != 0 && value.isTextual() && !empty && value.asText().length() < minLength) {
+            errors.add(String.format("%s must have at least %d characters.", field, minLength));
+        }
+        int maxLength = parseInt(validate.get("maxLength"));
+        if (maxLength != 0 && value.isTextual() && !empty && value.asText().length() > maxLength) {
+            errors.add(String.format("%s must have no more than %d characters.", field, maxLength));
+        }
+        JsonNode pattern = validate.get("pattern");
+        if (isTruthy(pattern) && !empty && !patterns.get(component).matcher(value.asText()).find()) {
+            errors.add(String.format("%s does not match the pattern %s", field, pattern.asText()));
+        }
+        if ("number".equals(type) && value.isNumber()) {
+            double min = parseFloat(validate.get("min"));
+            if (!Double.isNaN(min) && value.asDouble() < min) {
+                errors.add(String.format("%s cannot be less than %s.", field, toJsNumber(min)));
+            }
+            double max = parseFloat(validate.get("max"));
+            if (!Double.isNaN(max) && value.asDouble() > max) {
+                errors.add(String.format("%s cannot be greater than %s.", field, toJsNumber(max)));
+            }
+        }
+        if ("email".equals(type) && !empty && !EMAIL_PATTERN.matcher(value.asText()).matches()) {
+            errors.add(String.format("%s must be a valid email.", field));
+        }
+    }
+
+    private JsonNode getDefaultValue(JsonNode component) {
+        JsonNode defaultValue = component.get("defaultValue");
+        String type = component.path("type").asText();
+        switch (type) {
+            case "container":
+                return defaultValue != null && defaultValue.isObject() ? defaultValue.deepCopy() : JSON_MAPPER.createObjectNode();
+            case "datagrid":
+                return getDataGridDefaultValue(component, defaultValue);
+            default:
+                return isTruthy(defaultValue) ? defaultValue.deepCopy() : getEmptyValue(type);
+        }
+    }
+
+    private JsonNode getDataGridDefaultValue(JsonNode component, JsonNode defaultValue) {
+        ArrayNode rows = JSON_MAPPER.createArrayNode();
+        if (defaultValue != null && defaultValue.isArray()) {
+            defaultValue.forEach(row -> rows.add(row.isObject() ? row.deepCopy() : JSON_MAPPER.createObjectNode()));
+        } else if (defaultValue != null && defaultValue.isObject()) {
+            rows.add(defaultValue.deepCopy());
+        } else if (!isTruthy(component.get("initEmpty"))) {
+            rows.addObject();
+        }
+        return rows;
+    }
+
+    private JsonNode getEmptyValue(String type) {
+        return "checkbox".equals(type) || "button".equals(type)
+                ? BooleanNode.FALSE
+                : TextNode.valueOf("");
+    }
+
+    private boolean isEmpty(String type, JsonNode value) {
+        if (value.isNull() || value.isTextual() && value.asText().isEmpty()) {
+            return true;
+        }
+        return "checkbox".equals(type) && value.isBoolean() && !value.asBoolean();
+    }
+
+    private String getErrorLabel(JsonNode component) {
+        return Stream.of("errorLabel", "label", "placeholder", "key")
+                .map(component::get)
+                .filter(this::isTruthy)
+                .map(JsonNode::asText)
+                .findFirst()
+                .orElse("");
+    }
+
+    private Stream<JsonNode> getChildComponents(JsonNode component) {
+        switch (component.path("type").asText()) {
+            case "columns":
+                return toStream(component.path("columns"))
+                        .flatMap(column -> toStream(column.path("components")));
+            case "table":
+                return toStream(component.path("rows"))
+                        .flatMap(this::toStream)
+                        .flatMap(cell -> toStream(cell.path("components")));
+            case "tabs":
+                return toStream(component.path("components"))
+                        .flatMap(tab -> toStream(tab.path("components")));
+            default:
+                return toStream(component.path("components"));
+        }
+    }
+
+    private Stream<JsonNode> toStream(JsonNode node) {
+        return StreamSupport.stream(node.spliterator(), false);
+    }
+
+    private boolean isTruthy(JsonNode value) {
+        if (value == null || value.isNull() || value.isMissingNode()) {
+            return false;
+        }
+        if (value.isBoolean()) {
+            return value.asBoolean();
+        }
+        if (value.isNumber()) {
+            return value.asDouble() != 0 && !Double.isNaN(value.asDouble());
+        }
+        if (value.isTextual()) {
+            return !value.asText().isEmpty();
+        }
+        return true;
+    }
+
+    /**
+     * @return The number JavaScript parseInt reads from the value, 0 if it reads none
+     */
+    private int parseInt(JsonNode value) {
+        if (value == null || value.isNull() || value.isBoolean()) {
+            return 0;
+        }
+        if (value.isNumber()) {
+            return value.asInt();
+        }
+        Matcher matcher = JS_INT_PREFIX.matcher(value.asText());
+        if (!matcher.find()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return matcher.group(1).startsWith("-") ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @return The number JavaScript parseFloat reads from the value, NaN if it reads none
+     */
+    private double parseFloat(JsonNode value) {
+        if (value == null || value.isNull() || value.isBoolean()) {
+            return Double.NaN;
+        }
+        if (value.isNumber()) {
+            return value.asDouble();
+        }
+        Matcher matcher = JS_FLOAT_PREFIX.matcher(value.asText());
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+    }
+
+    private String toJsNumber(double number) {
+        return number == Math.rint(number) && Math.abs(number) < 1e21
+                ? String.valueOf((long) number)
+                : String.valueOf(number);
+    }
+
+    private String toJson(List<String> errors) {
+        try {
+            return JSON_MAPPER.writeValueAsString(errors);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.artezio.forms.formio;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of what is kept per resource group, e.g. the index of subforms of a group. Group ids come from the
+ * resource loaders of the callers, so when the cache is full the value of the least recently used group is dropped;
+ * it is created again the next time the group is used.
+ *
+ * @param <T> Type of the cached values, which must not need to be closed when they are dropped
+ */
+class GroupCache<T> {
+
+    private final int maxSize;
+    private final Map<String, CachedValue<T>> values = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * @param maxSize Maximum number of cached groups, nothing is cached if it is 0
+     */
+    GroupCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param factory Creates the value of a group which is not cached
+     * @return The cached value of the group
+     */
+    T get(String groupId, Function<String, T> factory) {
+        CachedValue<T> cachedValue = values.get(groupId);
+        if (cachedValue != null) {
+            cachedValue.lastUsed = clock.incrementAndGet();
+            return cachedValue.value;
+        }
+        cachedValue = values.computeIfAbsent(groupId, key -> new CachedValue<>(factory.apply(key)));
+        cachedValue.lastUsed = clock.incrementAndGet();
+        evictLeastRecentlyUsed();
+        return cachedValue.value;
+    }
+
+    void remove(String groupId) {
+        values.remove(groupId);
+    }
+
+    void clear() {
+        values.clear();
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    /**
+     * Evictions only follow the creation of a value, which is rare compared to lookups, so lookups merely stamp the
+     * value instead of keeping an ordered structure up to date.
+     */
+    private void evictLeastRecentlyUsed() {
+        while (values.size() > maxSize) {
+            values.entrySet().stream()
+                    .min((entry, otherEntry) -> Long.compare(entry.getValue().lastUsed, otherEntry.getValue().lastUsed))
+                    .ifPresent(entry -> values.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private static class CachedValue<T> {
+        private final T value;
+        private volatile long lastUsed;
+
+        private CachedValue(T value) {
+            this.value = value;
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.artezio.forms.formio;
+
+/**
+ * Phases of a client call reported in a {@link RequestTimeline}. A phase may occur more than once in a call, e.g. the
+ * file passes of a validation or the validations of a batch, and phases may be nested, e.g. {@link #FILE_STORAGE}
+ * is part of the {@link #FILE_CONVERSION} pass storing the files.
+ */
+public enum RequestPhase {
+
+    /**
+     * Reading and parsing the form definition from the resource loader. None of this phase,
+     * {@link #SUBFORM_EXPANSION}, {@link #FORM_HASHING} and {@link #FORM_COMPILATION} occurs if the expanded form is
+     * cached.
+     */
+    FORM_LOADING,
+
+    /**
+     * Replacing the referenced subforms by containers, loading the subforms included.
+     */
+    SUBFORM_EXPANSION,
+
+    /**
+     * Serializing the expanded form and hashing it, the hash references the form in NodeJs and identifies its plan.
+     */
+    FORM_HASHING,
+
+    /**
+     * Looking the plan of the form up by its hash and compiling it if no form with the same content has been loaded.
+     */
+    FORM_COMPILATION,
+
+    /**
+     * A pass over the file variables: converting files, cutting data urls out of them or putting them back.
+     */
+    FILE_CONVERSION,
+
+    /**
+     * Merging the submitted and the current variables by the form.
+     */
+    FORM_VARIABLES,
+
+    /**
+     * Deciding whether the submission is validated in the JVM and validating it there.
+     */
+    JVM_VALIDATION,
+
+    /**
+     * Looking up the directory of custom components and copying the resources of the group into it on first use.
+     */
+    FORM_RESOURCES,
+
+    /**
+     * Writing the command to the script executor.
+     */
+    COMMAND_SERIALIZATION,
+
+    /**
+     * Waiting for a free NodeJs process or script context. A command which is sent again after its process has
+     * failed waits again, the failed attempt included.
+     */
+    POOL_WAIT,
+
+    /**
+     * Executing the script, from the command having been written until its output has been received.
+     */
+    SCRIPT_EXECUTION,
+
+    /**
+     * Parsing the output of the script.
+     */
+    RESULT_PARSING,
+
+    /**
+     * Unwrapping the rows of data grids without row wrapping in the validated data.
+     */
+    GRID_UNWRAPPING,
+
+    /**
+     * Storing files in the {@link com.artezio.forms.storages.FileStorage}.
+     */
+    FILE_STORAGE,
+
+    /**
+     * Removing the data which does not match the fields of the form.
+     */
+    DATA_CLEANUP,
+
+    /**
+     * Wrapping the rows of data grids without row wrapping in the data passed to the form.
+     */
+    GRID_WRAPPING,
+
+    /**
+     * Serializing the result returned to the caller.
+     */
+    RESPONSE_SERIALIZATION
+
+}
@@ -0,0 +1,154 @@
+package com.artezio.forms.formio;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Timings of the phases of one call of {@link FormioClient} together with the form it was made for and the sizes of
+ * the payloads exchanged with the script executor.
+ */
+public class RequestTimeline {
+
+    private final String operation;
+    private final String groupId;
+    private final String formKey;
+    private final Instant startedAt;
+    private final long durationNanos;
+    private final List<PhaseTiming> phases;
+    private final long commandBytes;
+    private final long responseBytes;
+    private final Throwable error;
+
+    RequestTimeline(String operation, String groupId, String formKey, Instant startedAt, long durationNanos,
+                    List<PhaseTiming> phases, long commandBytes, long responseBytes, Throwable error) {
+        this.operation = operation;
+        this.groupId = groupId;
+        this.formKey = formKey;
+        this.startedAt = startedAt;
+        this.durationNanos = durationNanos;
+        this.phases = List.copyOf(phases);
+        this.commandBytes = commandBytes;
+        this.responseBytes = responseBytes;
+        this.error = error;
+    }
+
+    /**
+     * @return Name of the called method of {@link FormioClient}, e.g. "dryValidationAndCleanup"
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return Group of the resource loader of the call, empty for a loader without a group
+     */
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getFormKey() {
+        return formKey;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * @return Time from the start of the call until its result or error was ready
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return Phases in the order they have ended
+     */
+    public List<PhaseTiming> getPhases() {
+        return phases;
+    }
+
+    /**
+     * @return Total time of all occurrences of the phase, 0 if it has not occurred
+     */
+    public long getDurationNanos(RequestPhase phase) {
+        return phases.stream()
+                .filter(phaseTiming -> phaseTiming.getPhase() == phase)
+                .mapToLong(PhaseTiming::getDurationNanos)
+                .sum();
+    }
+
+    /**
+     * @return Bytes of the commands written to the script executor, 0 if the call has not needed it
+     */
+    public long getCommandBytes() {
+        return commandBytes;
+    }
+
+    /**
+     * @return Bytes of the outputs received from the script executor
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return Exception the call has failed with, null if it has succeeded
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+                .append(operation).append(" '").append(formKey).append("'");
+        if (!groupId.isEmpty()) {
+            builder.append(" of group '").append(groupId).append("'");
+        }
+        builder.append(String.format(" took %.3f ms", durationNanos / 1e6));
+        if (error != null) {
+            builder.append(" and failed");
+        }
+        builder.append(String.format(" (command %d bytes, response %d bytes):", commandBytes, responseBytes));
+        phases.forEach(phaseTiming -> builder.append(' ').append(phaseTiming));
+        return builder.toString();
+    }
+
+    /**
+     * One occurrence of a phase in a call.
+     */
+    public static class PhaseTiming {
+
+        private final RequestPhase phase;
+        private final long offsetNanos;
+        private final long durationNanos;
+
+        PhaseTiming(RequestPhase phase, long offsetNanos, long durationNanos) {
+            this.phase = phase;
+            this.offsetNanos = offsetNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        public RequestPhase getPhase() {
+            return phase;
+        }
+
+        /**
+         * @return Time from the start of the call until the start of the phase
+         */
+        public long getOffsetNanos() {
+            return offsetNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s=%.3fms", phase, durationNanos / 1e6);
+        }
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.artezio.forms.formio;
+
+/**
+ * Receives the timeline of every call of {@link FormioClient} it is registered in, e.g. to feed tracing or to log
+ * slow requests. Listeners are called in the thread completing the call, synchronous calls included, so they should
+ * return quickly. An exception thrown by a listener is logged and does not affect the call.
+ *
+ * @see FormioClient#addRequestTimelineListener(RequestTimelineListener)
+ */
+@FunctionalInterface
+public interface RequestTimelineListener {
+
+    /**
+     * @param timeline Phases of a call which has returned or failed
+     */
+    void onRequestCompleted(RequestTimeline timeline);
+
+}
@@ -0,0 +1,163 @@
+package com.artezio.forms.formio;
+
+import com.artezio.forms.formio.RequestTimeline.PhaseTiming;
+import com.artezio.forms.formio.metrics.CountingOutputStream;
+import com.artezio.forms.formio.metrics.OperationMetrics;
+import com.artezio.forms.formio.nodejs.NodeJsCommand;
+import com.artezio.forms.storages.FileStorage;
+import com.artezio.forms.storages.FileStorageEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects the {@link RequestTimeline} of one call and passes it to the listeners when the call completes. The phases
+ * of an asynchronous call are recorded by different threads, one after another. Calls of a client without listeners
+ * get {@link #DISABLED}, which records nothing.
+ */
+class RequestTimer {
+
+    private static final Logger LOGGER = Logger.getLogger(RequestTimer.class.getName());
+
+    static final RequestTimer DISABLED = new RequestTimer(null, null, null, List.of());
+
+    private final String operation;
+    private final String groupId;
+    private final String formKey;
+    private final List<RequestTimelineListener> listeners;
+    private final Instant startedAt = Instant.now();
+    private final long startedAtNanos = System.nanoTime();
+    private final List<PhaseTiming> phases = new ArrayList<>();
+    private final AtomicLong commandBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile long scriptExecutorCalledAt;
+
+    private RequestTimer(String operation, String groupId, String formKey, List<RequestTimelineListener> listeners) {
+        this.operation = operation;
+        this.groupId = groupId;
+        this.formKey = formKey;
+        this.listeners = listeners;
+    }
+
+    static RequestTimer start(String operation, String groupId, String formKey,
+                              List<RequestTimelineListener> listeners) {
+        return listeners.isEmpty()
+                ? DISABLED
+                : new RequestTimer(operation, groupId, formKey, listeners);
+    }
+
+    boolean isEnabled() {
+        return this != DISABLED;
+    }
+
+    long now() {
+        return isEnabled() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param startedAt Time of the start of the phase returned by {@link #now()}
+     */
+    void record(RequestPhase phase, long startedAt) {
+        if (isEnabled()) {
+            long endedAt = System.nanoTime();
+            synchronized (phases) {
+                phases.add(new PhaseTiming(phase, startedAt - startedAtNanos, endedAt - startedAt));
+            }
+        }
+    }
+
+    /**
+     * Mark a command as handed to the script executor. The time until the executor starts writing it is the wait for
+     * a process, the time after it has been written until {@link #scriptCompleted(String)} is the script execution.
+     */
+    void scriptExecutorCalled() {
+        scriptExecutorCalledAt = now();
+    }
+
+    void scriptCompleted(String scriptOutput) {
+        if (isEnabled()) {
+            record(RequestPhase.SCRIPT_EXECUTION, scriptExecutorCalledAt);
+            responseBytes.addAndGet(OperationMetrics.getUtf8Length(scriptOutput));
+        }
+    }
+
+    NodeJsCommand track(NodeJsCommand command) {
+        if (!isEnabled()) {
+            return command;
+        }
+        return new NodeJsCommand() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                record(RequestPhase.POOL_WAIT, scriptExecutorCalledAt);
+                long writingStartedAt = now();
+                CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+                command.writeTo(countingOutputStream);
+                record(RequestPhase.COMMAND_SERIALIZATION, writingStartedAt);
+                commandBytes.addAndGet(countingOutputStream.getCount());
+                scriptExecutorCalledAt = now();
+            }
+
+            @Override
+            public boolean isIdempotent() {
+                return command.isIdempotent();
+            }
+        };
+    }
+
+    FileStorage track(FileStorage fileStorage) {
+        if (!isEnabled()) {
+            return fileStorage;
+        }
+        return new FileStorage() {
+            @Override
+            public void store(FileStorageEntity fileStorageEntity) {
+                long storingStartedAt = now();
+                fileStorage.store(fileStorageEntity);
+                record(RequestPhase.FILE_STORAGE, storingStartedAt);
+            }
+
+            @Override
+            public FileStorageEntity retrieve(String id) {
+                return fileStorage.retrieve(id);
+            }
+
+            @Override
+            public String getDownloadUrlPrefix() {
+                return fileStorage.getDownloadUrlPrefix();
+            }
+        };
+    }
+
+    /**
+     * Pass the timeline to the listeners. Only the first completion of a call is reported.
+     *
+     * @param error Exception the call has failed with, null if it has succeeded
+     */
+    void complete(Throwable error) {
+        if (!isEnabled() || !completed.compareAndSet(false, true)) {
+            return;
+        }
+        long durationNanos = System.nanoTime() - startedAtNanos;
+        RequestTimeline timeline;
+        synchronized (phases) {
+            timeline = new RequestTimeline(operation, groupId, formKey, startedAt, durationNanos, phases,
+                    commandBytes.get(), responseBytes.get(), error);
+        }
+        for (RequestTimelineListener listener : listeners) {
+            try {
+                listener.onRequestCompleted(timeline);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, String.format("Request timeline listener %s has failed", listener), e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.artezio.forms.formio;
+
+import com.artezio.forms.resources.ResourceLoader;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Form keys of the forms of a resource group by form id, which references of subforms are resolved with. Resources
+ * are read in parallel, and only until the type and the id of a form are found. A resource which cannot be read is
+ * logged and left out of the index. Refreshing the index reads only the resources it has not read yet and the ones
+ * reported as changed, and forgets the resources which are not listed any more.
+ */
+class SubformIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(SubformIndex.class.getName());
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String NOT_A_FORM = "";
+
+    /** Form id of every read resource, {@link #NOT_A_FORM} for other and malformed resources */
+    private final Map<String, String> resourceFormIds = new ConcurrentHashMap<>();
+    private final Map<String, String> formKeys = new ConcurrentHashMap<>();
+    private final Set<String> malformedResourceNames = ConcurrentHashMap.newKeySet();
+    /** {@link System#nanoTime()} of the last refresh, null if the index has never been refreshed */
+    private Long refreshedAt;
+
+    /**
+     * @return Key of the form with the id, null if there is no such form in the index
+     */
+    String getFormKey(String formId) {
+        return formKeys.get(formId);
+    }
+
+    /**
+     * Look up a form which may have been added since the index was refreshed. The resources are listed and the new
+     * ones read only if the index has not been refreshed for the interval, otherwise the form is taken as missing at
+     * once, so a form referencing a missing subform does not make every call read the resources of the group.
+     *
+     * @param minRefreshIntervalMillis Time since the last refresh before a missing form makes the index refresh
+     * @return Key of the form with the id, null if there is no such form among the resources
+     */
+    synchronized String getFormKey(String formId, ResourceLoader resourceLoader, long minRefreshIntervalMillis) {
+        String formKey = formKeys.get(formId);
+        boolean refreshDue = refreshedAt == null
+                || System.nanoTime() - refreshedAt >= MILLISECONDS.toNanos(minRefreshIntervalMillis);
+        if (formKey == null && refreshDue) {
+            refresh(resourceLoader, Collections.emptySet());
+            formKey = formKeys.get(formId);
+        }
+        return formKey;
+    }
+
+    /**
+     * @return Names of the listed resources which could not be read, are not valid JSON or are forms without an id
+     */
+    Set<String> getMalformedResourceNames() {
+        return Set.copyOf(malformedResourceNames);
+    }
+
+    /**
+     * Bring the index up to date with the resources listed by the resource loader.
+     *
+     * @param changedResourceNames Resources which have changed since they were read, they are read again
+     * @return true if a form has been added, removed or moved to another resource
+     */
+    synchronized boolean refresh(ResourceLoader resourceLoader, Collection<String> changedResourceNames) {
+        List<String> jsonResourceNames = resourceLoader.listResourceNames().stream()
+                .filter(resourceName -> resourceName.endsWith(".json"))
+                .distinct()
+                .collect(Collectors.toList());
+        Set<String> listedResourceNames = new HashSet<>(jsonResourceNames);
+        boolean changed = resourceFormIds.keySet().removeIf(resourceName -> !listedResourceNames.contains(resourceName));
+        malformedResourceNames.removeIf(resourceName -> !listedResourceNames.contains(resourceName));
+        List<String> resourceNamesToRead = jsonResourceNames.stream()
+                .filter(resourceName -> !resourceFormIds.containsKey(resourceName)
+                        || changedResourceNames.contains(resourceName))
+                .collect(Collectors.toList());
+        List<String> formIds = resourceNamesToRead.parallelStream()
+                .map(resourceName -> readFormId(resourceLoader, resourceName))
+                .collect(Collectors.toList());
+        for (int index = 0; index < resourceNamesToRead.size(); index++) {
+            String previousFormId = resourceFormIds.put(resourceNamesToRead.get(index), formIds.get(index));
+            changed |= !formIds.get(index).equals(previousFormId);
+        }
+        if (changed) {
+            rebuildFormKeys(jsonResourceNames);
+        }
+        refreshedAt = System.nanoTime();
+        return changed;
+    }
+
+    /**
+     * Forms are mapped in the order the resources are listed, so of two forms with the same id the last one wins
+     * whichever resource has been read first.
+     */
+    private void rebuildFormKeys(List<String> jsonResourceNames) {
+        Map<String, String> currentFormKeys = new ConcurrentHashMap<>();
+        for (String resourceName : jsonResourceNames) {
+            String formId = resourceFormIds.get(resourceName);
+            if (formId != null && !formId.equals(NOT_A_FORM)) {
+                currentFormKeys.put(formId, resourceName);
+            }
+        }
+        formKeys.keySet().retainAll(currentFormKeys.keySet());
+        formKeys.putAll(currentFormKeys);
+    }
+
+    private String readFormId(ResourceLoader resourceLoader, String resourceName) {
+        try (InputStream resource = resourceLoader.getResource(resourceName)) {
+            if (resource == null) {
+                throw new IOException("Resource not found");
+            }
+            String formId = readFormId(resource);
+            malformedResourceNames.remove(resourceName);
+            return formId;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, String.format("Resource '%s' is left out of the subform index: %s",
+                    resourceName, e.getMessage()));
+            malformedResourceNames.add(resourceName);
+            return NOT_A_FORM;
+        }
+    }
+
+    /**
+     * Read the top level fields of a JSON object until its type and id are found, skipping the values of other
+     * fields without building them.
+     */
+    private String readFormId(InputStream resource) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(resource)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return NOT_A_FORM;
+            }
+            String type = null;
+            String formId = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("type".equals(fieldName) && type == null) {
+                    type = value == JsonToken.VALUE_STRING ? parser.getText() : NOT_A_FORM;
+                    if (!"form".equals(type)) {
+                        return NOT_A_FORM;
+                    }
+                } else if ("_id".equals(fieldName) && formId == null && value.isScalarValue()) {
+                    formId = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+                if (type != null && formId != null) {
+                    return formId;
+                }
+            }
+            if (type != null) {
+                throw new IOException("Form has no _id");
+            }
+            return NOT_A_FORM;
+        }
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.artezio.forms.formio.exceptions;
+
+/**
+ * A form or a subform referenced by a form is not among the resources of the resource group.
+ */
+public class FormNotFoundException extends RuntimeException {
+    public FormNotFoundException(String message) {
+        super(message);
+    }
+}
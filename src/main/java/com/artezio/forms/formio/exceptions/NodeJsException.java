@@ -1,6 +1,6 @@
 package com.artezio.forms.formio.exceptions;
 
-public class NodeJsException extends RuntimeException {
+public class NodeJsException extends ScriptExecutionException {
     public NodeJsException(String message, Throwable cause) {
         super(message, cause);
     }
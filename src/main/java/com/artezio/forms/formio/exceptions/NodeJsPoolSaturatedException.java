@@ -0,0 +1,11 @@
+package com.artezio.forms.formio.exceptions;
+
+/**
+ * All NodeJs processes are busy and the request could not be queued or has waited for a process too long. The
+ * request has not been sent to NodeJs, so the caller may shed it or try again later.
+ */
+public class NodeJsPoolSaturatedException extends NodeJsException {
+    public NodeJsPoolSaturatedException(String message) {
+        super(message);
+    }
+}
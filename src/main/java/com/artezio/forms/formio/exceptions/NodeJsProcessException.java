@@ -0,0 +1,14 @@
+package com.artezio.forms.formio.exceptions;
+
+/**
+ * A NodeJs process has not responded in time or has exited, so the command has failed regardless of what it does.
+ * The process is discarded and the command may succeed on another process.
+ */
+public class NodeJsProcessException extends NodeJsException {
+    public NodeJsProcessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public NodeJsProcessException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.artezio.forms.formio.exceptions;
+
+public class ScriptExecutionException extends RuntimeException {
+    public ScriptExecutionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public ScriptExecutionException(String message) {
+        super(message);
+    }
+}
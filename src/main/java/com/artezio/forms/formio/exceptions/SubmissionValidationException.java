@@ -0,0 +1,23 @@
+package com.artezio.forms.formio.exceptions;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Validation errors found in the JVM. The message is the JSON array of error messages, the same NodeJs reports for
+ * an invalid submission.
+ */
+public class SubmissionValidationException extends RuntimeException {
+
+    private final List<String> errors;
+
+    public SubmissionValidationException(String message, List<String> errors) {
+        super(message);
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.artezio.forms.formio.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class CacheMetrics implements CacheMetricsMXBean {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CacheMetrics() {
+    }
+
+    /**
+     * Look a value up like {@link Map#computeIfAbsent(Object, Function)} does, counting a hit if the value is cached
+     * and a miss if it has to be computed.
+     */
+    public <K, V> V computeIfAbsent(Map<K, V> cache, K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = cache.get(key);
+        if (value != null) {
+            recordHit();
+            return value;
+        }
+        recordMiss();
+        return cache.computeIfAbsent(key, mappingFunction);
+    }
+
+    /**
+     * Count a lookup of a cache which does not fit {@link #computeIfAbsent(Map, Object, Function)}.
+     */
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+}
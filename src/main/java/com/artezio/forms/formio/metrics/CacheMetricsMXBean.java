@@ -0,0 +1,17 @@
+package com.artezio.forms.formio.metrics;
+
+/**
+ * Lookups of one cache of {@link com.artezio.forms.formio.FormioClient} for one form of a resource group.
+ */
+public interface CacheMetricsMXBean {
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * @return Share of the lookups which have found a cached value, 0 if there were no lookups
+     */
+    double getHitRatio();
+
+}
@@ -0,0 +1,295 @@
+package com.artezio.forms.formio.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registry of the metrics of {@link com.artezio.forms.formio.FormioClient} and its script executors. Every metric is
+ * an MXBean registered in the platform MBean server under FORMIO_METRICS_JMX_DOMAIN, e.g.
+ * {@code com.artezio.forms.formio:type=Operation,name="validate",group="",formKey="forms/order.json"}, so it can be
+ * read with any JMX client. Set FORMIO_METRICS_JMX_ENABLED to false to collect metrics without registering them.
+ *
+ * Metrics of operations and caches are tagged by resource group and form key. The processes of a pool are shared by
+ * all groups, so pool metrics are tagged by the pool only and queue metrics by pool and group.
+ *
+ * Form keys come from the callers of the client, so metrics are kept for at most FORMIO_METRICS_MAX_FORMS forms. When
+ * metrics of another form are created, all metrics of the least recently used form are unregistered.
+ */
+public final class FormioMetrics {
+
+    private static final Logger LOGGER = Logger.getLogger(FormioMetrics.class.getName());
+
+    private static final boolean FORMIO_METRICS_JMX_ENABLED = Boolean
+            .parseBoolean(System.getProperty("FORMIO_METRICS_JMX_ENABLED", "true"));
+
+    private static final String FORMIO_METRICS_JMX_DOMAIN = System
+            .getProperty("FORMIO_METRICS_JMX_DOMAIN", "com.artezio.forms.formio");
+
+    private static final int FORMIO_METRICS_MAX_FORMS = Integer
+            .parseInt(System.getProperty("FORMIO_METRICS_MAX_FORMS", "1000"));
+
+    private static final String OPERATION_TYPE = "Operation";
+    private static final String CACHE_TYPE = "Cache";
+    private static final String POOL_TYPE = "Pool";
+    private static final String QUEUE_TYPE = "Queue";
+
+    private static final Map<Tags, Object> METRICS = new ConcurrentHashMap<>();
+    private static final Map<FormId, AtomicLong> FORMS_LAST_USED = new ConcurrentHashMap<>();
+    private static final AtomicLong CLOCK = new AtomicLong();
+
+    private FormioMetrics() {
+    }
+
+    /**
+     * @return Metrics of the round trips of an operation for a form, created on first use
+     */
+    public static OperationMetrics operation(String operation, String groupId, String formKey) {
+        return getFormMetrics(new Tags(OPERATION_TYPE, operation, groupId, formKey), OperationMetrics::new);
+    }
+
+    /**
+     * @param formKey The form the lookups are made for, null for caches which are not specific to a form
+     * @return Metrics of the lookups of a cache, created on first use
+     */
+    public static CacheMetrics cache(String cacheName, String groupId, String formKey) {
+        return getFormMetrics(new Tags(CACHE_TYPE, cacheName, groupId, formKey), CacheMetrics::new);
+    }
+
+    /**
+     * Register the metrics of a pool, replacing those of a pool of the same name.
+     */
+    public static void registerPool(String poolName, PoolMetrics metrics) {
+        register(new Tags(POOL_TYPE, poolName, null, null), metrics);
+    }
+
+    /**
+     * Register the metrics of the queue of a group waiting for a pool, replacing those registered for the group and
+     * a pool of the same name.
+     */
+    public static void registerQueue(String poolName, String groupId, QueueMetrics metrics) {
+        register(new Tags(QUEUE_TYPE, poolName, groupId, null), metrics);
+    }
+
+    /**
+     * Unregister metrics, e.g. those of a pool which has been closed. Metrics which have been replaced meanwhile are
+     * left alone.
+     */
+    public static void unregister(Object metrics) {
+        METRICS.entrySet().stream()
+                .filter(entry -> entry.getValue() == metrics)
+                .map(Map.Entry::getKey)
+                .forEach(tags -> {
+                    if (METRICS.remove(tags, metrics)) {
+                        unregisterMBean(tags);
+                    }
+                });
+    }
+
+    /**
+     * Unregister all metrics, so the MBean server does not keep the classes of the library loaded after the
+     * application has been undeployed. Metrics are collected from scratch afterwards.
+     */
+    public static void unregisterAll() {
+        FORMS_LAST_USED.clear();
+        METRICS.keySet().forEach(tags -> {
+            if (METRICS.remove(tags) != null) {
+                unregisterMBean(tags);
+            }
+        });
+    }
+
+    /**
+     * The form is marked as used after its metrics have been got, so metrics created meanwhile by another thread are
+     * not left behind by an eviction of the form.
+     */
+    private static <T> T getFormMetrics(Tags tags, Supplier<T> metricsFactory) {
+        T metrics = get(tags, metricsFactory);
+        if (tags.formKey != null) {
+            markFormUsed(new FormId(tags.groupId, tags.formKey));
+        }
+        return metrics;
+    }
+
+    private static void markFormUsed(FormId formId) {
+        long now = CLOCK.incrementAndGet();
+        AtomicLong lastUsed = FORMS_LAST_USED.get(formId);
+        if (lastUsed != null) {
+            lastUsed.set(now);
+            return;
+        }
+        if (FORMS_LAST_USED.putIfAbsent(formId, new AtomicLong(now)) == null) {
+            evictLeastRecentlyUsedForms();
+        }
+    }
+
+    /**
+     * Forms are only added when their metrics are created, which is rare compared to lookups, so lookups merely
+     * stamp the form instead of keeping an ordered structure up to date.
+     */
+    private static void evictLeastRecentlyUsedForms() {
+        while (FORMS_LAST_USED.size() > FORMIO_METRICS_MAX_FORMS) {
+            FORMS_LAST_USED.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().get()))
+                    .ifPresent(entry -> {
+                        if (FORMS_LAST_USED.remove(entry.getKey(), entry.getValue())) {
+                            unregisterForm(entry.getKey());
+                        }
+                    });
+        }
+    }
+
+    private static void unregisterForm(FormId formId) {
+        METRICS.keySet().stream()
+                .filter(formId::matches)
+                .forEach(tags -> {
+                    if (METRICS.remove(tags) != null) {
+                        unregisterMBean(tags);
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T get(Tags tags, Supplier<T> metricsFactory) {
+        Object metrics = METRICS.get(tags);
+        if (metrics == null) {
+            metrics = METRICS.computeIfAbsent(tags, key -> {
+                T newMetrics = metricsFactory.get();
+                registerMBean(key, newMetrics);
+                return newMetrics;
+            });
+        }
+        return (T) metrics;
+    }
+
+    private static void register(Tags tags, Object metrics) {
+        METRICS.compute(tags, (key, previousMetrics) -> {
+            if (previousMetrics != null) {
+                unregisterMBean(key);
+            }
+            registerMBean(key, metrics);
+            return metrics;
+        });
+    }
+
+    private static void registerMBean(Tags tags, Object metrics) {
+        if (!FORMIO_METRICS_JMX_ENABLED) {
+            return;
+        }
+        try {
+            getMBeanServer().registerMBean(metrics, tags.toObjectName());
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not register metrics %s", tags), e);
+        }
+    }
+
+    private static void unregisterMBean(Tags tags) {
+        if (!FORMIO_METRICS_JMX_ENABLED) {
+            return;
+        }
+        try {
+            MBeanServer mBeanServer = getMBeanServer();
+            ObjectName objectName = tags.toObjectName();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not unregister metrics %s", tags), e);
+        }
+    }
+
+    private static MBeanServer getMBeanServer() {
+        return ManagementFactory.getPlatformMBeanServer();
+    }
+
+    private static class FormId {
+        private final String groupId;
+        private final String formKey;
+
+        private FormId(String groupId, String formKey) {
+            this.groupId = groupId;
+            this.formKey = formKey;
+        }
+
+        private boolean matches(Tags tags) {
+            return formKey.equals(tags.formKey) && Objects.equals(groupId, tags.groupId);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof FormId)) {
+                return false;
+            }
+            FormId formId = (FormId) other;
+            return Objects.equals(groupId, formId.groupId) && formKey.equals(formId.formKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, formKey);
+        }
+    }
+
+    private static class Tags {
+        private final String type;
+        private final String name;
+        private final String groupId;
+        private final String formKey;
+
+        private Tags(String type, String name, String groupId, String formKey) {
+            this.type = type;
+            this.name = name;
+            this.groupId = groupId;
+            this.formKey = formKey;
+        }
+
+        private ObjectName toObjectName() throws JMException {
+            StringBuilder objectName = new StringBuilder(FORMIO_METRICS_JMX_DOMAIN)
+                    .append(":type=").append(type)
+                    .append(",name=").append(ObjectName.quote(name));
+            if (groupId != null) {
+                objectName.append(",group=").append(ObjectName.quote(groupId));
+            }
+            if (formKey != null) {
+                objectName.append(",formKey=").append(ObjectName.quote(formKey));
+            }
+            return new ObjectName(objectName.toString());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Tags)) {
+                return false;
+            }
+            Tags tags = (Tags) other;
+            return type.equals(tags.type) && name.equals(tags.name) && Objects.equals(groupId, tags.groupId)
+                    && Objects.equals(formKey, tags.formKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, name, groupId, formKey);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s (group '%s', form '%s')", type, name, groupId, formKey);
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.artezio.forms.formio.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative values, e.g. latencies or sizes, in buckets growing in powers of two. Bucket {@code i}
+ * holds the values from {@code 2^(i-1)} to {@code 2^i - 1}, so percentiles are reported with an error of at most a
+ * factor of two while recording takes neither locks nor allocations.
+ */
+public class Histogram {
+
+    private static final int BUCKETS = Long.SIZE;
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        value = Math.max(value, 0);
+        bucketCounts.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return Mean of the recorded values, 0 if no value has been recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getSum() / count;
+    }
+
+    /**
+     * @param percentile Share of the values, from 0 to 1
+     * @return Upper bound of the bucket holding the percentile, not above the largest recorded value; 0 if no value
+     * has been recorded
+     */
+    public long getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(percentile * count), 1);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += bucketCounts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(getUpperBound(bucket), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return Number of values in each non-empty bucket by the upper bound of the bucket
+     */
+    public Map<Long, Long> getBuckets() {
+        Map<Long, Long> buckets = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long bucketCount = bucketCounts.get(bucket);
+            if (bucketCount > 0) {
+                buckets.put(getUpperBound(bucket), bucketCount);
+            }
+        }
+        return buckets;
+    }
+
+    private static long getUpperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+}
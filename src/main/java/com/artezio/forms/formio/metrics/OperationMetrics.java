@@ -0,0 +1,163 @@
+package com.artezio.forms.formio.metrics;
+
+import com.artezio.forms.formio.nodejs.NodeJsCommand;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class OperationMetrics implements OperationMetricsMXBean {
+
+    private static final double MICROS_IN_MILLI = TimeUnit.MILLISECONDS.toMicros(1);
+
+    private final Histogram latencyMicros = new Histogram();
+    private final Histogram commandBytes = new Histogram();
+    private final Histogram responseBytes = new Histogram();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder formNotRegisteredResponses = new LongAdder();
+
+    OperationMetrics() {
+    }
+
+    /**
+     * @param startedAt {@link System#nanoTime()} at which the command has been handed to the executor
+     * @param response Data the script has responded with
+     */
+    public void recordSuccess(long startedAt, String response) {
+        latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt));
+        responseBytes.record(getUtf8Length(response));
+    }
+
+    /**
+     * @param startedAt {@link System#nanoTime()} at which the command has been handed to the executor
+     */
+    public void recordFailure(long startedAt) {
+        latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt));
+        failures.increment();
+    }
+
+    /**
+     * Record a round trip answered with FORM_NOT_REGISTERED, which is not a failure: the command is sent again with
+     * the form definition.
+     *
+     * @param startedAt {@link System#nanoTime()} at which the command has been handed to the executor
+     */
+    public void recordFormNotRegistered(long startedAt) {
+        latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt));
+        formNotRegisteredResponses.increment();
+    }
+
+    /**
+     * @return The command, recording the number of bytes it writes every time it is written
+     */
+    public NodeJsCommand countBytes(NodeJsCommand command) {
+        return new NodeJsCommand() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+                command.writeTo(countingOutputStream);
+                commandBytes.record(countingOutputStream.getCount());
+            }
+
+            @Override
+            public boolean isIdempotent() {
+                return command.isIdempotent();
+            }
+        };
+    }
+
+    @Override
+    public long getRequests() {
+        return latencyMicros.getCount();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getFormNotRegisteredResponses() {
+        return formNotRegisteredResponses.sum();
+    }
+
+    @Override
+    public double getMeanLatencyMillis() {
+        return latencyMicros.getMean() / MICROS_IN_MILLI;
+    }
+
+    @Override
+    public double getLatencyMillis50thPercentile() {
+        return latencyMicros.getPercentile(0.5) / MICROS_IN_MILLI;
+    }
+
+    @Override
+    public double getLatencyMillis99thPercentile() {
+        return latencyMicros.getPercentile(0.99) / MICROS_IN_MILLI;
+    }
+
+    @Override
+    public double getLatencyMillis999thPercentile() {
+        return latencyMicros.getPercentile(0.999) / MICROS_IN_MILLI;
+    }
+
+    @Override
+    public double getMaxLatencyMillis() {
+        return latencyMicros.getMax() / MICROS_IN_MILLI;
+    }
+
+    @Override
+    public Map<Long, Long> getLatencyMicrosHistogram() {
+        return latencyMicros.getBuckets();
+    }
+
+    @Override
+    public double getMeanCommandBytes() {
+        return commandBytes.getMean();
+    }
+
+    @Override
+    public long getMaxCommandBytes() {
+        return commandBytes.getMax();
+    }
+
+    @Override
+    public long getTotalCommandBytes() {
+        return commandBytes.getSum();
+    }
+
+    @Override
+    public double getMeanResponseBytes() {
+        return responseBytes.getMean();
+    }
+
+    @Override
+    public long getMaxResponseBytes() {
+        return responseBytes.getMax();
+    }
+
+    @Override
+    public long getTotalResponseBytes() {
+        return responseBytes.getSum();
+    }
+
+    /**
+     * Size of a response as it has been sent by the script, without encoding it again.
+     */
+    public static long getUtf8Length(String text) {
+        long length = text.length();
+        for (int index = 0; index < text.length(); index++) {
+            char character = text.charAt(index);
+            if (character >= 0x800 && !Character.isSurrogate(character)) {
+                length += 2;
+            } else if (character >= 0x80) {
+                // Two bytes for U+0080..U+07FF, a surrogate pair takes four bytes for two characters
+                length += 1;
+            }
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.artezio.forms.formio.metrics;
+
+import java.util.Map;
+
+/**
+ * Round trips of the commands of one operation sent to the script executor for one form of a resource group.
+ * Latencies are measured from handing the command to the executor to receiving the response, so they include the
+ * time spent waiting for a free NodeJs process.
+ */
+public interface OperationMetricsMXBean {
+
+    long getRequests();
+
+    long getFailures();
+
+    /**
+     * @return Number of round trips answered with FORM_NOT_REGISTERED because the process had not registered the form
+     * yet, each followed by a round trip carrying the form definition
+     */
+    long getFormNotRegisteredResponses();
+
+    double getMeanLatencyMillis();
+
+    double getLatencyMillis50thPercentile();
+
+    double getLatencyMillis99thPercentile();
+
+    double getLatencyMillis999thPercentile();
+
+    double getMaxLatencyMillis();
+
+    /**
+     * @return Number of round trips by the upper bound of their latency in microseconds
+     */
+    Map<Long, Long> getLatencyMicrosHistogram();
+
+    double getMeanCommandBytes();
+
+    long getMaxCommandBytes();
+
+    long getTotalCommandBytes();
+
+    double getMeanResponseBytes();
+
+    long getMaxResponseBytes();
+
+    long getTotalResponseBytes();
+
+}
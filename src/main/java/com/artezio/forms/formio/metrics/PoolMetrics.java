@@ -0,0 +1,77 @@
+package com.artezio.forms.formio.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+public class PoolMetrics implements PoolMetricsMXBean {
+
+    private final IntSupplier activeProcesses;
+    private final IntSupplier idleProcesses;
+    private final IntSupplier maxProcesses;
+    private final IntSupplier waitingRequests;
+    private final LongAdder spawnedProcesses = new LongAdder();
+    private final LongAdder spawnFailures = new LongAdder();
+    private final LongAdder destroyedProcesses = new LongAdder();
+
+    /**
+     * @param activeProcesses Number of processes serving requests
+     * @param idleProcesses Number of processes ready to serve requests
+     * @param maxProcesses Maximum number of processes of the pool
+     * @param waitingRequests Number of requests waiting for a process
+     */
+    public PoolMetrics(IntSupplier activeProcesses, IntSupplier idleProcesses, IntSupplier maxProcesses,
+                       IntSupplier waitingRequests) {
+        this.activeProcesses = activeProcesses;
+        this.idleProcesses = idleProcesses;
+        this.maxProcesses = maxProcesses;
+        this.waitingRequests = waitingRequests;
+    }
+
+    public void recordSpawn() {
+        spawnedProcesses.increment();
+    }
+
+    public void recordSpawnFailure() {
+        spawnFailures.increment();
+    }
+
+    public void recordDestroy() {
+        destroyedProcesses.increment();
+    }
+
+    @Override
+    public int getActiveProcesses() {
+        return activeProcesses.getAsInt();
+    }
+
+    @Override
+    public int getIdleProcesses() {
+        return idleProcesses.getAsInt();
+    }
+
+    @Override
+    public int getMaxProcesses() {
+        return maxProcesses.getAsInt();
+    }
+
+    @Override
+    public int getWaitingRequests() {
+        return waitingRequests.getAsInt();
+    }
+
+    @Override
+    public long getSpawnedProcesses() {
+        return spawnedProcesses.sum();
+    }
+
+    @Override
+    public long getSpawnFailures() {
+        return spawnFailures.sum();
+    }
+
+    @Override
+    public long getDestroyedProcesses() {
+        return destroyedProcesses.sum();
+    }
+
+}
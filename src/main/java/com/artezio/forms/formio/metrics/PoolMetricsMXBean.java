@@ -0,0 +1,22 @@
+package com.artezio.forms.formio.metrics;
+
+/**
+ * Processes of a pool of a script executor, shared by all resource groups.
+ */
+public interface PoolMetricsMXBean {
+
+    int getActiveProcesses();
+
+    int getIdleProcesses();
+
+    int getMaxProcesses();
+
+    int getWaitingRequests();
+
+    long getSpawnedProcesses();
+
+    long getSpawnFailures();
+
+    long getDestroyedProcesses();
+
+}
@@ -0,0 +1,63 @@
+package com.artezio.forms.formio.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+public class QueueMetrics implements QueueMetricsMXBean {
+
+    private static final double MICROS_IN_MILLI = TimeUnit.MILLISECONDS.toMicros(1);
+
+    private final IntSupplier waitingRequests;
+    private final Histogram borrowWaitMicros = new Histogram();
+    private final LongAdder rejectedRequests = new LongAdder();
+
+    /**
+     * @param waitingRequests Number of requests of the group waiting for a process
+     */
+    public QueueMetrics(IntSupplier waitingRequests) {
+        this.waitingRequests = waitingRequests;
+    }
+
+    /**
+     * @param enqueuedAt {@link System#nanoTime()} at which the request has started waiting
+     */
+    public void recordBorrow(long enqueuedAt) {
+        borrowWaitMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - enqueuedAt));
+    }
+
+    public void recordRejection() {
+        rejectedRequests.increment();
+    }
+
+    @Override
+    public int getWaitingRequests() {
+        return waitingRequests.getAsInt();
+    }
+
+    @Override
+    public long getServedRequests() {
+        return borrowWaitMicros.getCount();
+    }
+
+    @Override
+    public long getRejectedRequests() {
+        return rejectedRequests.sum();
+    }
+
+    @Override
+    public double getMeanBorrowWaitMillis() {
+        return borrowWaitMicros.getMean() / MICROS_IN_MILLI;
+    }
+
+    @Override
+    public double getBorrowWaitMillis99thPercentile() {
+        return borrowWaitMicros.getPercentile(0.99) / MICROS_IN_MILLI;
+    }
+
+    @Override
+    public double getMaxBorrowWaitMillis() {
+        return borrowWaitMicros.getMax() / MICROS_IN_MILLI;
+    }
+
+}
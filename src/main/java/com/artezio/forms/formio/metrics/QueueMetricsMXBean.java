@@ -0,0 +1,26 @@
+package com.artezio.forms.formio.metrics;
+
+/**
+ * Requests of one resource group waiting for a process of a script executor.
+ */
+public interface QueueMetricsMXBean {
+
+    int getWaitingRequests();
+
+    /**
+     * @return Number of requests which have got a process
+     */
+    long getServedRequests();
+
+    /**
+     * @return Number of requests rejected because the queue was full or no process has become free in time
+     */
+    long getRejectedRequests();
+
+    double getMeanBorrowWaitMillis();
+
+    double getBorrowWaitMillis99thPercentile();
+
+    double getMaxBorrowWaitMillis();
+
+}
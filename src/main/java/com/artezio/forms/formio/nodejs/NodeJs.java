@@ -1,90 +1,291 @@
 package com.artezio.forms.formio.nodejs;
 
 import com.artezio.forms.formio.exceptions.NodeJsException;
+import com.artezio.forms.formio.exceptions.NodeJsProcessException;
 
 import java.io.*;
-import java.nio.CharBuffer;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
 
 public class NodeJs {
 
+    private static final Logger LOGGER = Logger.getLogger(NodeJs.class.getName());
+    private static final int FRAME_HEADER_LENGTH = 8;
+    private static final int MAX_FRAME_PAYLOAD_LENGTH = 65536;
+    private static final String PING_COMMAND = "{\"operation\":\"ping\"}";
+    private static final String PING_MESSAGE = "OK";
+
+    static final long NODEJS_REQUEST_TIMEOUT_SECS = Long
+            .parseLong(System.getProperty("NODEJS_REQUEST_TIMEOUT_SECS", "30"));
+
+    static final ScheduledThreadPoolExecutor TIMEOUT_SCHEDULER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "nodejs-request-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        TIMEOUT_SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
     private Process nodeJs;
+    private final AtomicInteger requestIdSequence = new AtomicInteger();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger servedRequests = new AtomicInteger();
+    private final long startedAt = System.nanoTime();
+    private final Map<Integer, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+    private volatile boolean standardStreamsClosed;
+    private volatile boolean killed;
+    private volatile boolean retirementRequested;
+    private final Queue<CompletableFuture<Void>> idleWaiters = new ConcurrentLinkedQueue<>();
 
-    NodeJs(String script) {
+    /**
+     * @param script The script to run
+     * @param workerThreads Number of worker threads the script runs commands in, 0 to run them in the main thread
+     * @param nodeOptions Command line options of node, e.g. {@code --max-old-space-size=256}
+     */
+    NodeJs(String script, int workerThreads, List<String> nodeOptions) {
         try {
-            nodeJs = new ProcessBuilder("node", "-e", script).start();
+            List<String> command = new ArrayList<>();
+            command.add("node");
+            command.addAll(nodeOptions);
+            command.add("-e");
+            command.add(script);
+            ProcessBuilder processBuilder = new ProcessBuilder(command);
+            processBuilder.environment().put("NODEJS_WORKER_THREADS", Integer.toString(workerThreads));
+            nodeJs = processBuilder.start();
         } catch (IOException e) {
             throw new NodeJsException("Could not start NodeJs process", e);
         }
+        startStandardStreamReader(nodeJs.getInputStream(), "stdout", request -> request.outData);
+        startStandardStreamReader(nodeJs.getErrorStream(), "stderr", request -> request.errorData);
     }
 
     public String execute(String arguments) throws IOException {
+        return execute(outputStream -> outputStream.write(arguments.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public String execute(NodeJsCommand command) throws IOException {
         try {
-            writeToStandardStream(arguments);
-            StandardStreamsData standardStreamsData = readStandardStreams();
-            checkErrors(standardStreamsData);
-            return standardStreamsData.outData;
-        } catch (InterruptedException | ExecutionException e) {
-            throw new NodeJsException("Error while reading standard streams", e);
-        }
-    }
-
-    private StandardStreamsData readStandardStreams() throws InterruptedException, ExecutionException {
-        ExecutorService executor = Executors.newFixedThreadPool(2);
-        Future<String> stdoutData = executor.submit(() -> read(nodeJs.getInputStream()));
-        Future<String> stderrData = executor.submit(() -> read(nodeJs.getErrorStream()));
-        executor.shutdown();
-        boolean taskExecutionCompleted = executor.awaitTermination(30, TimeUnit.SECONDS);
-        if (!taskExecutionCompleted) {
-            throw new NodeJsException("Reading from standard streams has timed out");
-        }
-        return new StandardStreamsData(stdoutData.get(), stderrData.get());
-    }
-
-    private String read(InputStream inputStream) throws IOException {
-        final char EOT = '\u0004';
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-        StringBuilder stringBuilder = new StringBuilder();
-        int bufferSize = 16348;
-        CharBuffer buffer = CharBuffer.allocate(bufferSize);
-        char lastChar = 0;
-        while (lastChar != EOT) {
-            reader.read(buffer);
-            lastChar = getLastChar(buffer);
-            if (!buffer.hasRemaining() || lastChar == EOT) {
-                stringBuilder.append(readData(buffer));
+            return executeAsync(command).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NodeJsException("Interrupted while waiting for a response from NodeJs process", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
+            throw new NodeJsException("Error while reading standard streams", cause);
         }
-        return stringBuilder.substring(0, stringBuilder.length() - 1);
     }
 
-    private String readData(CharBuffer buffer) {
-        buffer.flip();
-        String result = buffer.toString();
-        buffer.clear();
+    /**
+     * Send a command to the process without waiting for the response, see {@link #executeAsync(NodeJsCommand, long)}.
+     * The command times out after NODEJS_REQUEST_TIMEOUT_SECS.
+     */
+    public CompletableFuture<String> executeAsync(NodeJsCommand command) {
+        return executeAsync(command, TimeUnit.SECONDS.toMillis(NODEJS_REQUEST_TIMEOUT_SECS));
+    }
+
+    /**
+     * Send a command to the process without waiting for the response. The returned future is completed by the
+     * standard stream readers and may be cancelled by the caller, in which case the response is dropped when it
+     * arrives. The command keeps running in the process all the same, so its deadline stays in force until the process
+     * has finished it. If the response does not arrive in time the process is in an unknown state, possibly in the
+     * middle of writing the response, so it is killed: the command and all other commands running in the process fail
+     * with {@link NodeJsProcessException}.
+     *
+     * @param command The command to execute
+     * @param timeoutMillis Time the process has to respond in
+     * @return Future of the data the command has written to the standard output
+     */
+    public CompletableFuture<String> executeAsync(NodeJsCommand command, long timeoutMillis) {
+        int requestId = requestIdSequence.incrementAndGet();
+        PendingRequest request = new PendingRequest();
+        pendingRequests.put(requestId, request);
+        CompletableFuture<String> response = request.response;
+        ScheduledFuture<?> timeout = TIMEOUT_SCHEDULER.schedule(() -> {
+            if (response.isDone()) {
+                return;
+            }
+            // Marked as killed before the request fails, so the process is not reused by the request's callbacks
+            killed = true;
+            response.completeExceptionally(new NodeJsProcessException(
+                    String.format("NodeJs process %d has not responded in %d ms", nodeJs.pid(), timeoutMillis)));
+            LOGGER.warning(String.format("Killing NodeJs process %d", nodeJs.pid()));
+            nodeJs.destroyForcibly();
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        // The caller gets its own future, so cancelling it neither cancels the timeout nor forgets the running request
+        CompletableFuture<String> result = new CompletableFuture<>();
+        response.whenComplete((data, error) -> {
+            timeout.cancel(false);
+            pendingRequests.remove(requestId);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(data);
+            }
+        });
+        try {
+            if (!isAlive()) {
+                throw new NodeJsProcessException("NodeJs process has exited");
+            }
+            writeToStandardStream(requestId, command);
+        } catch (IOException e) {
+            response.completeExceptionally(isAlive() ? e : new NodeJsProcessException("NodeJs process has exited", e));
+        } catch (RuntimeException e) {
+            response.completeExceptionally(e);
+        }
         return result;
     }
 
-    private char getLastChar(CharBuffer buffer) {
-        int bufferPosition = buffer.position();
-        int bufferLimit = buffer.limit();
-        char lastChar = buffer.flip().get(bufferPosition - 1);
-        buffer.position(bufferPosition);
-        buffer.limit(bufferLimit);
-        return lastChar;
+    /**
+     * Check that the process is able to handle commands using the ping command.
+     *
+     * @return true if the process has answered the ping command in time
+     */
+    public boolean ping() {
+        try {
+            return isAlive() && PING_MESSAGE.equals(execute(PING_COMMAND));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warning(String.format("NodeJs process %d has not answered the ping command: %s", nodeJs.pid(), e.getMessage()));
+            return false;
+        }
     }
 
-    private void writeToStandardStream(String data) throws IOException {
-        BufferedOutputStream outputStream = (BufferedOutputStream) nodeJs.getOutputStream();
-        outputStream.write(data.getBytes());
-        outputStream.flush();
+    public boolean isAlive() {
+        return !killed && nodeJs.isAlive() && !standardStreamsClosed;
     }
 
-    private void checkErrors(StandardStreamsData standardStreamsData) {
-        String errorData = standardStreamsData.errorData;
-        if (!errorData.isEmpty()) {
-            throw new NodeJsException(errorData);
+    int startRequest() {
+        servedRequests.incrementAndGet();
+        return activeRequests.incrementAndGet();
+    }
+
+    void finishRequest() {
+        if (activeRequests.decrementAndGet() == 0) {
+            completeIdleWaiters();
+        }
+    }
+
+    /**
+     * @return Future completed once no request is running in the process. Unless the process is held by the caller,
+     * new requests may have been started by then.
+     */
+    CompletableFuture<Void> whenIdle() {
+        CompletableFuture<Void> idle = new CompletableFuture<>();
+        idleWaiters.add(idle);
+        if (activeRequests.get() == 0) {
+            completeIdleWaiters();
+        }
+        return idle;
+    }
+
+    private void completeIdleWaiters() {
+        CompletableFuture<Void> idle;
+        while ((idle = idleWaiters.poll()) != null) {
+            idle.complete(null);
+        }
+    }
+
+    /**
+     * Ask for the process to be retired the next time it is released, e.g. because it uses too much memory while its
+     * requests are still running.
+     */
+    void requestRetirement() {
+        retirementRequested = true;
+    }
+
+    boolean isRetirementRequested() {
+        return retirementRequested;
+    }
+
+    int getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    /**
+     * @return Number of requests the process has been given since it was started, including the running ones
+     */
+    int getServedRequests() {
+        return servedRequests.get();
+    }
+
+    long getAgeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    }
+
+    long pid() {
+        return nodeJs.pid();
+    }
+
+    private void startStandardStreamReader(InputStream inputStream, String streamName,
+                                           Function<PendingRequest, StreamData> responseSelector) {
+        Thread reader = new Thread(() -> readStandardStream(inputStream, responseSelector),
+                String.format("nodejs-%d-%s-reader", nodeJs.pid(), streamName));
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Reads frames of the form {@code <int32 requestId><int32 payloadLength><payload>} from a standard stream until
+     * the stream is closed. The payloads of a request are collected until a frame with an empty payload completes the
+     * data of the request. A payload length out of bounds means that the stream is corrupt, so the process is killed
+     * and all its pending requests fail.
+     */
+    private void readStandardStream(InputStream inputStream, Function<PendingRequest, StreamData> responseSelector) {
+        byte[] payload = new byte[MAX_FRAME_PAYLOAD_LENGTH];
+        try (DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(inputStream))) {
+            while (true) {
+                int requestId = dataInputStream.readInt();
+                int payloadLength = dataInputStream.readInt();
+                if (payloadLength < 0 || payloadLength > MAX_FRAME_PAYLOAD_LENGTH) {
+                    kill(new NodeJsProcessException(String.format(
+                            "NodeJs process %d has sent a frame with a payload of %d bytes, at most %d bytes are allowed",
+                            nodeJs.pid(), payloadLength, MAX_FRAME_PAYLOAD_LENGTH)));
+                    return;
+                }
+                dataInputStream.readFully(payload, 0, payloadLength);
+                PendingRequest request = pendingRequests.get(requestId);
+                if (request != null) {
+                    responseSelector.apply(request).append(payload, payloadLength);
+                }
+            }
+        } catch (IOException e) {
+            standardStreamsClosed = true;
+            NodeJsException closedStreamException = new NodeJsProcessException("NodeJs process has closed the standard stream", e);
+            pendingRequests.values()
+                    .forEach(request -> responseSelector.apply(request).completion.completeExceptionally(closedStreamException));
+            LOGGER.fine(String.format("Stopped reading a standard stream of NodeJs process %d", nodeJs.pid()));
+        }
+    }
+
+    /**
+     * Kill the process after it has broken the protocol. It is marked as killed before the requests fail, so it is
+     * not reused by their callbacks.
+     */
+    private void kill(NodeJsException error) {
+        killed = true;
+        pendingRequests.values().forEach(request -> request.response.completeExceptionally(error));
+        LOGGER.warning(String.format("Killing NodeJs process %d: %s", nodeJs.pid(), error.getMessage()));
+        nodeJs.destroyForcibly();
+    }
+
+    private void writeToStandardStream(int requestId, NodeJsCommand command) throws IOException {
+        try (FrameOutputStream outputStream = new FrameOutputStream(requestId)) {
+            command.writeTo(outputStream);
         }
     }
 
@@ -96,7 +297,107 @@ public class NodeJs {
         }
     }
 
-    private class StandardStreamsData {
+    /**
+     * Splits a command into frames of the form {@code <int32 requestId><int32 payloadLength><payload>} while it is
+     * being written, so the command is never held in memory as a whole. A frame with an empty payload terminates the
+     * command. Every frame is written to the standard input atomically, so commands of concurrent requests can
+     * interleave frame by frame.
+     */
+    private class FrameOutputStream extends OutputStream {
+        private final int requestId;
+        private final byte[] buffer = new byte[MAX_FRAME_PAYLOAD_LENGTH];
+        private int bufferedLength;
+        private boolean closed;
+
+        private FrameOutputStream(int requestId) {
+            this.requestId = requestId;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (bufferedLength == buffer.length) {
+                writeFrame();
+            }
+            buffer[bufferedLength++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (bufferedLength == buffer.length) {
+                    writeFrame();
+                }
+                int chunkLength = Math.min(length, buffer.length - bufferedLength);
+                System.arraycopy(bytes, offset, buffer, bufferedLength, chunkLength);
+                bufferedLength += chunkLength;
+                offset += chunkLength;
+                length -= chunkLength;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (bufferedLength > 0) {
+                writeFrame();
+            }
+            writeFrame();
+        }
+
+        private void writeFrame() throws IOException {
+            OutputStream standardInput = nodeJs.getOutputStream();
+            byte[] header = ByteBuffer.allocate(FRAME_HEADER_LENGTH)
+                    .putInt(requestId)
+                    .putInt(bufferedLength)
+                    .array();
+            synchronized (standardInput) {
+                standardInput.write(header);
+                standardInput.write(buffer, 0, bufferedLength);
+                standardInput.flush();
+            }
+            bufferedLength = 0;
+        }
+    }
+
+    private static class PendingRequest {
+        private final StreamData outData = new StreamData();
+        private final StreamData errorData = new StreamData();
+        private final CompletableFuture<String> response = new CompletableFuture<>();
+
+        private PendingRequest() {
+            outData.completion.thenCombine(errorData.completion, StandardStreamsData::new)
+                    .whenComplete((standardStreamsData, error) -> {
+                        if (error != null) {
+                            response.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                        } else if (!standardStreamsData.errorData.isEmpty()) {
+                            response.completeExceptionally(new NodeJsException(standardStreamsData.errorData));
+                        } else {
+                            response.complete(standardStreamsData.outData);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Data a request writes to one of the standard streams, collected frame by frame by the reader of the stream.
+     */
+    private static class StreamData {
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        private final CompletableFuture<String> completion = new CompletableFuture<>();
+
+        private void append(byte[] payload, int payloadLength) {
+            if (payloadLength == 0) {
+                completion.complete(data.toString(StandardCharsets.UTF_8));
+            } else {
+                data.write(payload, 0, payloadLength);
+            }
+        }
+    }
+
+    private static class StandardStreamsData {
         private final String outData;
         private final String errorData;
 
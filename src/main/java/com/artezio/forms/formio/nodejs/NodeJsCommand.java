@@ -0,0 +1,39 @@
+package com.artezio.forms.formio.nodejs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@FunctionalInterface
+public interface NodeJsCommand {
+
+    /**
+     * Write the command to the standard input of a NodeJs process.
+     *
+     * @param outputStream The stream the command is written to. It is closed by the caller after the command is written
+     * @throws IOException If the command could not be written
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+
+    /**
+     * @return true if executing the command more than once has the same effect as executing it once, so it may be
+     * retried on another process when its process fails
+     */
+    default boolean isIdempotent() {
+        return false;
+    }
+
+    static NodeJsCommand idempotent(NodeJsCommand command) {
+        return new NodeJsCommand() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                command.writeTo(outputStream);
+            }
+
+            @Override
+            public boolean isIdempotent() {
+                return true;
+            }
+        };
+    }
+
+}
@@ -1,5 +1,15 @@
 package com.artezio.forms.formio.nodejs;
 
+import com.artezio.forms.formio.exceptions.NodeJsException;
+import com.artezio.forms.formio.exceptions.NodeJsPoolSaturatedException;
+import com.artezio.forms.formio.exceptions.NodeJsProcessException;
+import com.artezio.forms.formio.metrics.FormioMetrics;
+import com.artezio.forms.formio.metrics.PoolMetrics;
+import com.artezio.forms.formio.metrics.QueueMetrics;
+import com.artezio.forms.formio.scripts.QueueStats;
+import com.artezio.forms.formio.scripts.ScriptExecutor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.pool2.BasePooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.PooledObjectFactory;
@@ -7,45 +17,272 @@ import org.apache.commons.pool2.impl.DefaultPooledObject;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
-public class NodeJsExecutor {
+public class NodeJsExecutor implements ScriptExecutor {
 
     private static final Logger LOGGER = Logger.getLogger(NodeJsExecutor.class.getName());
     private static final int AVAILABLE_PROCESSORS_NUMBER = Runtime.getRuntime().availableProcessors();
     
+    private static final int NODEJS_WORKER_THREADS = Integer
+            .parseInt(System.getProperty("NODEJS_WORKER_THREADS", "0"));
+
     private static final int NODEJS_POOL_MAX_TOTAL = Integer
-            .parseInt(System.getProperty("NODEJS_POOL_MAX_TOTAL", "" + AVAILABLE_PROCESSORS_NUMBER));
+            .parseInt(System.getProperty("NODEJS_POOL_MAX_TOTAL", "" + defaultProcessesNumber()));
     
     private static final int NODEJS_POOL_MAX_IDLE = Integer
-            .parseInt(System.getProperty("NODEJS_POOL_MAX_IDLE", "" + AVAILABLE_PROCESSORS_NUMBER));
+            .parseInt(System.getProperty("NODEJS_POOL_MAX_IDLE", "" + defaultProcessesNumber()));
     
     private static final long NODEJS_POOL_MIN_EVICTABLE_IDLE_TIME_MINS = Long
             .parseLong(System.getProperty("NODEJS_POOL_MIN_EVICTABLE_IDLE_TIME_MINS", "30"));
     
     private static final long NODEJS_POOL_TIME_BETWEEN_EVICTION_RUNS_MINS = Long
             .parseLong(System.getProperty("NODEJS_POOL_TIME_BETWEEN_EVICTION_RUNS_MINS", "5"));
-    
+
+    private static final int NODEJS_PROCESS_MAX_CONCURRENT_REQUESTS = Integer
+            .parseInt(System.getProperty("NODEJS_PROCESS_MAX_CONCURRENT_REQUESTS", "" + Math.max(NODEJS_WORKER_THREADS, 1)));
+
+    private static final int NODEJS_POOL_MIN_IDLE = Integer
+            .parseInt(System.getProperty("NODEJS_POOL_MIN_IDLE", "1"));
+
+    private static final int NODEJS_POOL_MAX_CONCURRENT_SPAWNS = Integer
+            .parseInt(System.getProperty("NODEJS_POOL_MAX_CONCURRENT_SPAWNS", "2"));
+
+    private static final boolean NODEJS_POOL_TEST_ON_BORROW = Boolean
+            .parseBoolean(System.getProperty("NODEJS_POOL_TEST_ON_BORROW", "false"));
+
+    private static final boolean NODEJS_POOL_TEST_WHILE_IDLE = Boolean
+            .parseBoolean(System.getProperty("NODEJS_POOL_TEST_WHILE_IDLE", "true"));
+
+    private static final long NODEJS_POOL_DRAIN_TIMEOUT_SECS = Long
+            .parseLong(System.getProperty("NODEJS_POOL_DRAIN_TIMEOUT_SECS", "30"));
+
+    private static final long NODEJS_POOL_BORROW_TIMEOUT_MILLIS = Long
+            .parseLong(System.getProperty("NODEJS_POOL_BORROW_TIMEOUT_MILLIS", "30000"));
+
+    private static final int NODEJS_POOL_MAX_WAITING_REQUESTS = Integer
+            .parseInt(System.getProperty("NODEJS_POOL_MAX_WAITING_REQUESTS", "1000"));
+
+    private static final boolean NODEJS_RETRY_IDEMPOTENT_REQUESTS = Boolean
+            .parseBoolean(System.getProperty("NODEJS_RETRY_IDEMPOTENT_REQUESTS", "false"));
+
+    private static final int NODEJS_PROCESS_MAX_REQUESTS = Integer
+            .parseInt(System.getProperty("NODEJS_PROCESS_MAX_REQUESTS", "0"));
+
+    private static final long NODEJS_PROCESS_MAX_AGE_MINS = Long
+            .parseLong(System.getProperty("NODEJS_PROCESS_MAX_AGE_MINS", "0"));
+
+    private static final long NODEJS_PROCESS_MAX_RSS_MB = Long
+            .parseLong(System.getProperty("NODEJS_PROCESS_MAX_RSS_MB", "0"));
+
+    private static final long NODEJS_PROCESS_MAX_HEAP_USED_MB = Long
+            .parseLong(System.getProperty("NODEJS_PROCESS_MAX_HEAP_USED_MB", "0"));
+
+    private static final String NODEJS_PROCESS_OPTIONS = System.getProperty("NODEJS_PROCESS_OPTIONS", "");
+
+    private static final String STATS_COMMAND = "{\"operation\":\"stats\"}";
+    private static final long BYTES_IN_MB = 1024 * 1024;
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(NodeJs.NODEJS_REQUEST_TIMEOUT_SECS);
+
+    private static final Semaphore SPAWN_PERMITS = new Semaphore(NODEJS_POOL_MAX_CONCURRENT_SPAWNS, true);
+    private static final ExecutorService REPLENISHMENT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "nodejs-pool-replenishment");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final ExecutorService DISPATCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "nodejs-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final String DEFAULT_GROUP_ID = "";
+
     private GenericObjectPool<NodeJs> pool;
+    private final Map<String, GroupWaiters> waitersByGroup = new ConcurrentHashMap<>();
+    private final Deque<GroupWaiters> waitingGroups = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger waitersCount = new AtomicInteger();
+    private final AtomicLong servedWaiters = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong rejectedWaiters = new AtomicLong();
+    private final AtomicInteger dispatchRequests = new AtomicInteger();
+    private final AtomicInteger pendingSpawns = new AtomicInteger();
+    private final AtomicBoolean replenishmentScheduled = new AtomicBoolean();
+    private final Set<NodeJs> processes = ConcurrentHashMap.newKeySet();
+    private final PoolMetrics poolMetrics = new PoolMetrics(() -> pool.getNumActive(), () -> pool.getNumIdle(),
+            () -> pool.getMaxTotal(), () -> Math.max(waitersCount.get(), 0));
+    private final AtomicInteger acceptedRequests = new AtomicInteger();
+    private final CompletableFuture<Void> drained = new CompletableFuture<>();
+    private ScheduledFuture<?> idleGroupsRemoval;
+    private volatile boolean closed;
 
     public NodeJsExecutor(String script) {
+        this(script, parseNodeOptions(NODEJS_PROCESS_OPTIONS));
+    }
+
+    /**
+     * @param script The script to run in the processes
+     * @param nodeOptions Command line options of node for the processes of this pool, e.g. heap limits like
+     *                    {@code --max-old-space-size=256}. NODEJS_PROCESS_OPTIONS is used by the other constructor.
+     */
+    public NodeJsExecutor(String script, List<String> nodeOptions) {
         LOGGER.config(String.format("Initializing factory for nodeJs pool objects (%s)",
                 BasePooledObjectFactory.class.getName()));
-        PooledObjectFactory<NodeJs> pooledObjectFactory = initPooledObjectFactory(script);
+        PooledObjectFactory<NodeJs> pooledObjectFactory = initPooledObjectFactory(script, new ArrayList<>(nodeOptions));
         LOGGER.config(
                 String.format("Initializing config for nodeJs pool (%s)", GenericObjectPoolConfig.class.getName()));
         GenericObjectPoolConfig<NodeJs> poolConfig = initPoolConfig();
         LOGGER.config("Creating nodeJs pool");
         pool = new GenericObjectPool<>(pooledObjectFactory, poolConfig);
+        FormioMetrics.registerPool(NodeJsExecutorProvider.NAME, poolMetrics);
+        if (NODEJS_POOL_TIME_BETWEEN_EVICTION_RUNS_MINS > 0) {
+            idleGroupsRemoval = NodeJs.TIMEOUT_SCHEDULER.scheduleWithFixedDelay(
+                    () -> removeIdleGroups(Duration.ofMinutes(NODEJS_POOL_MIN_EVICTABLE_IDLE_TIME_MINS)),
+                    NODEJS_POOL_TIME_BETWEEN_EVICTION_RUNS_MINS, NODEJS_POOL_TIME_BETWEEN_EVICTION_RUNS_MINS,
+                    TimeUnit.MINUTES);
+        }
+        REPLENISHMENT_EXECUTOR.execute(this::replenish);
+    }
+
+    private static List<String> parseNodeOptions(String options) {
+        return Arrays.stream(options.trim().split("\\s+"))
+                .filter(option -> !option.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * With NODEJS_WORKER_THREADS set every process runs commands in that many worker threads, so one process gives
+     * the parallelism of one process per CPU while NodeJs itself is loaded only once.
+     */
+    private static int defaultProcessesNumber() {
+        return NODEJS_WORKER_THREADS > 0 ? 1 : AVAILABLE_PROCESSORS_NUMBER;
+    }
+
+    /**
+     * Check whether as many NodeJs processes as NODEJS_POOL_MIN_IDLE requests are running. Processes which have
+     * exited do not count. While the pool is not ready every call makes it discard the exited idle processes and
+     * start new ones, so a pool whose warm-up has failed becomes ready once processes can be started again.
+     *
+     * @return true if the pool is able to serve requests without starting new processes
+     */
+    @Override
+    public boolean isReady() {
+        if (closed) {
+            return false;
+        }
+        long liveProcesses = processes.stream()
+                .filter(NodeJs::isAlive)
+                .count();
+        if (liveProcesses >= Math.min(NODEJS_POOL_MIN_IDLE, pool.getMaxTotal())) {
+            return true;
+        }
+        scheduleWarmUp();
+        return false;
+    }
+
+    private void scheduleWarmUp() {
+        if (replenishmentScheduled.compareAndSet(false, true)) {
+            REPLENISHMENT_EXECUTOR.execute(() -> {
+                replenishmentScheduled.set(false);
+                // Processes which are busy are discarded when they are released
+                processes.stream()
+                        .filter(nodeJs -> !nodeJs.isAlive() && nodeJs.getActiveRequests() == 0)
+                        .forEach(this::discard);
+                replenish();
+            });
+        }
+    }
+
+    private void scheduleReplenishment() {
+        if (!closed && pool.getNumIdle() < NODEJS_POOL_MIN_IDLE && replenishmentScheduled.compareAndSet(false, true)) {
+            REPLENISHMENT_EXECUTOR.execute(() -> {
+                replenishmentScheduled.set(false);
+                replenish();
+            });
+        }
     }
 
-    private BasePooledObjectFactory<NodeJs> initPooledObjectFactory(String script) {
+    private void replenish() {
+        try {
+            pool.preparePool();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not start spare nodeJs processes", e);
+        } finally {
+            // Requests may have been queued while the spare processes were starting
+            dispatch();
+        }
+    }
+
+    private BasePooledObjectFactory<NodeJs> initPooledObjectFactory(String script, List<String> nodeOptions) {
         return new BasePooledObjectFactory<>() {
 
             @Override
-            public NodeJs create() {
-                return new NodeJs(script);
+            public NodeJs create() throws InterruptedException {
+                SPAWN_PERMITS.acquire();
+                try {
+                    NodeJs nodeJs = new NodeJs(script, NODEJS_WORKER_THREADS, nodeOptions);
+                    if (!nodeJs.ping()) {
+                        nodeJs.shutdown();
+                        throw new NodeJsException("Started NodeJs process does not answer the ping command");
+                    }
+                    processes.add(nodeJs);
+                    poolMetrics.recordSpawn();
+                    return nodeJs;
+                } catch (RuntimeException e) {
+                    poolMetrics.recordSpawnFailure();
+                    throw e;
+                } finally {
+                    SPAWN_PERMITS.release();
+                }
+            }
+
+            @Override
+            public void activateObject(PooledObject<NodeJs> pooledObject) {
+                // A process shared by several requests may have been killed after it was returned to the pool
+                if (!pooledObject.getObject().isAlive()) {
+                    throw new NodeJsException("NodeJs process is not alive");
+                }
+            }
+
+            /**
+             * Called by the evictor for idle processes. A process which is due for retirement is destroyed here
+             * unless requests pipelined into it are still running; then it is retired when it is released next.
+             */
+            @Override
+            public boolean validateObject(PooledObject<NodeJs> pooledObject) {
+                NodeJs nodeJs = pooledObject.getObject();
+                String retirementReason = getRetirementReason(nodeJs);
+                if (retirementReason == null && isMemoryLimited()) {
+                    retirementReason = getMemoryLimitExcess(nodeJs);
+                    if (retirementReason != null) {
+                        nodeJs.requestRetirement();
+                    }
+                }
+                if (retirementReason == null || nodeJs.getActiveRequests() > 0) {
+                    return nodeJs.ping();
+                }
+                LOGGER.info(String.format("Retiring idle NodeJs process %d: %s", nodeJs.pid(), retirementReason));
+                return false;
             }
 
             @Override
@@ -55,6 +292,8 @@ public class NodeJsExecutor {
 
             @Override
             public void destroyObject(PooledObject<NodeJs> pooledObject) throws InterruptedException {
+                processes.remove(pooledObject.getObject());
+                poolMetrics.recordDestroy();
                 pooledObject.getObject().shutdown();
             }
 
@@ -66,19 +305,603 @@ public class NodeJsExecutor {
             {
                 setMaxTotal(NODEJS_POOL_MAX_TOTAL);
                 setMaxIdle(NODEJS_POOL_MAX_IDLE);
-                setMinEvictableIdleTimeMillis(Duration.ofMinutes(NODEJS_POOL_MIN_EVICTABLE_IDLE_TIME_MINS).toMillis());
+                setMinIdle(NODEJS_POOL_MIN_IDLE);
+                setTestOnBorrow(NODEJS_POOL_TEST_ON_BORROW);
+                setTestWhileIdle(NODEJS_POOL_TEST_WHILE_IDLE);
+                setMinEvictableIdleTimeMillis(-1);
+                setSoftMinEvictableIdleTimeMillis(Duration.ofMinutes(NODEJS_POOL_MIN_EVICTABLE_IDLE_TIME_MINS).toMillis());
                 setTimeBetweenEvictionRunsMillis(Duration.ofMinutes(NODEJS_POOL_TIME_BETWEEN_EVICTION_RUNS_MINS).toMillis());
+                // Every idle process is checked, so none of them outlives the retirement limits by more than a run
+                setNumTestsPerEvictionRun(-1);
             }
         };
     }
 
-    public String execute(String arguments) throws Exception {
-        NodeJs nodeJs = null;
+    /**
+     * Execute a command in one of the pooled NodeJs processes and wait for the result.
+     *
+     * @param command The command to execute
+     * @return Data written by the command to the standard output
+     */
+    @Override
+    public String execute(NodeJsCommand command) throws Exception {
+        CompletableFuture<String> result = executeAsync(command);
         try {
-            nodeJs = pool.borrowObject();
-            return nodeJs.execute(arguments);
-        } finally {
-            pool.returnObject(nodeJs);
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * Execute a command in one of the pooled NodeJs processes without blocking the calling thread. If all processes
+     * are busy the request waits in a queue until a process is released or started. Cancelling the returned future
+     * removes a waiting request from the queue or drops the response of a running one. A running request keeps its
+     * process until NodeJs has finished it or it has been killed at the deadline of the request.
+     *
+     * The request is executed on behalf of the default group, see {@link #forGroup(String)}.
+     *
+     * A process serves up to NODEJS_PROCESS_MAX_CONCURRENT_REQUESTS requests at a time: while it has free capacity it
+     * is returned to the pool right after the request is started so that other requests can be pipelined into the same
+     * process. The request which occupies the last free slot keeps the process until it is completed.
+     *
+     * The request fails if it has not completed in NODEJS_REQUEST_TIMEOUT_SECS, see
+     * {@link #executeAsync(NodeJsCommand, Duration)}.
+     *
+     * @param command The command to execute
+     * @return Future of the data written by the command to the standard output
+     */
+    @Override
+    public CompletableFuture<String> executeAsync(NodeJsCommand command) {
+        return executeAsync(DEFAULT_GROUP_ID, command, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Execute a command like {@link #executeAsync(NodeJsCommand)} within a deadline. The time spent waiting for a
+     * process counts towards the deadline, and the wait itself is also limited by NODEJS_POOL_BORROW_TIMEOUT_MILLIS.
+     * A process which does not respond by the deadline is killed and replaced, since it is in an unknown state.
+     *
+     * With NODEJS_RETRY_IDEMPOTENT_REQUESTS set an idempotent command whose process has been killed or has exited is
+     * retried once on another process within the time left to the deadline. Commands which fail in the script are
+     * never retried.
+     *
+     * @param command The command to execute
+     * @param timeout Time the command has to complete in
+     * @return Future of the data written by the command to the standard output
+     */
+    @Override
+    public CompletableFuture<String> executeAsync(NodeJsCommand command, Duration timeout) {
+        return executeAsync(DEFAULT_GROUP_ID, command, timeout);
+    }
+
+    /**
+     * All groups share the processes of the pool. While the processes are busy the waiting requests of the groups
+     * are served in turns, one request of a group at a time, so a group sending many requests does not hold up the
+     * others.
+     *
+     * @param groupId The group the requests of the returned executor are scheduled for
+     * @return Executor which runs commands in the processes of this pool on behalf of the group
+     */
+    @Override
+    public ScriptExecutor forGroup(String groupId) {
+        return new GroupExecutor(groupId);
+    }
+
+    private CompletableFuture<String> executeAsync(String groupId, NodeJsCommand command, Duration timeout) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (!acceptRequest()) {
+            result.completeExceptionally(new NodeJsException("NodeJs executor is closed"));
+            return result;
+        }
+        result.whenComplete((value, error) -> completeRequest());
+        long deadline = System.nanoTime() + timeout.toNanos();
+        CompletableFuture<String> attempt = executeOnce(groupId, command, deadline);
+        result.whenComplete((value, error) -> attempt.cancel(false));
+        attempt.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else if (NODEJS_RETRY_IDEMPOTENT_REQUESTS && command.isIdempotent()
+                    && error instanceof NodeJsProcessException && !closed && deadline - System.nanoTime() > 0) {
+                LOGGER.fine(String.format("Retrying an idempotent request after a failure of its process: %s",
+                        error.getMessage()));
+                CompletableFuture<String> retry = executeOnce(groupId, command, deadline);
+                result.whenComplete((retryValue, retryError) -> retry.cancel(false));
+                retry.whenComplete((retryValue, retryError) -> {
+                    if (retryError != null) {
+                        result.completeExceptionally(retryError);
+                    } else {
+                        result.complete(retryValue);
+                    }
+                });
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<String> executeOnce(String groupId, NodeJsCommand command, long deadline) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        long remainingMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 1);
+        CompletableFuture<NodeJs> process = acquire(groupId, Math.min(remainingMillis, NODEJS_POOL_BORROW_TIMEOUT_MILLIS));
+        process.whenComplete((nodeJs, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            }
+        });
+        process.thenAcceptAsync(nodeJs -> execute(nodeJs, command, result, deadline), DISPATCH_EXECUTOR);
+        result.whenComplete((value, error) -> process.cancel(false));
+        return result;
+    }
+
+    private void execute(NodeJs nodeJs, NodeJsCommand command, CompletableFuture<String> result, long deadline) {
+        if (result.isDone()) {
+            release(nodeJs);
+            return;
+        }
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+            release(nodeJs);
+            result.completeExceptionally(new NodeJsException("Request has timed out waiting for a NodeJs process"));
+            return;
+        }
+        boolean shared = nodeJs.startRequest() < NODEJS_PROCESS_MAX_CONCURRENT_REQUESTS;
+        if (shared) {
+            release(nodeJs);
+        }
+        CompletableFuture<String> response = nodeJs.executeAsync(command, remainingMillis);
+        response.whenComplete((value, error) -> {
+            nodeJs.finishRequest();
+            if (!shared) {
+                release(nodeJs);
+            }
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    /**
+     * Execute a command in every running NodeJs process of the pool, whether the process is busy or idle, e.g. to
+     * collect per-process statistics. Processes which fail to execute the command are skipped.
+     *
+     * @param command The command to execute
+     * @return Data written by the command to the standard output of each process
+     */
+    @Override
+    public List<String> executeInEachContext(NodeJsCommand command) {
+        List<CompletableFuture<String>> responses = processes.stream()
+                .map(nodeJs -> nodeJs.executeAsync(command))
+                .collect(Collectors.toList());
+        List<String> results = new ArrayList<>(responses.size());
+        for (CompletableFuture<String> response : responses) {
+            try {
+                results.add(response.get());
+            } catch (ExecutionException e) {
+                LOGGER.log(Level.WARNING, "NodeJs process has failed to execute the command", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NodeJsException("Interrupted while waiting for responses from NodeJs processes", e);
+            }
+        }
+        return results;
+    }
+
+    private boolean acceptRequest() {
+        acceptedRequests.incrementAndGet();
+        if (closed) {
+            completeRequest();
+            return false;
+        }
+        return true;
+    }
+
+    private void completeRequest() {
+        if (acceptedRequests.decrementAndGet() == 0 && closed) {
+            drained.complete(null);
+        }
+    }
+
+    /**
+     * Stop accepting requests, wait up to NODEJS_POOL_DRAIN_TIMEOUT_SECS for the accepted ones, both waiting and
+     * running, and then close the pool and shut all its processes down. Requests still waiting for a process at that
+     * point fail, running ones fail once their process is gone.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (idleGroupsRemoval != null) {
+            idleGroupsRemoval.cancel(false);
+        }
+        if (acceptedRequests.get() == 0) {
+            drained.complete(null);
+        }
+        try {
+            drained.get(NODEJS_POOL_DRAIN_TIMEOUT_SECS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warning(String.format("%d requests have not completed in %d seconds and will fail",
+                    acceptedRequests.get(), NODEJS_POOL_DRAIN_TIMEOUT_SECS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+        NodeJsException closedException = new NodeJsException("NodeJs executor is closed");
+        CompletableFuture<NodeJs> waiter;
+        while ((waiter = pollWaiter()) != null) {
+            waiter.completeExceptionally(closedException);
+        }
+        pool.close();
+        FormioMetrics.unregister(poolMetrics);
+        waitersByGroup.values().forEach(groupWaiters -> FormioMetrics.unregister(groupWaiters.queueMetrics));
+        for (NodeJs nodeJs : processes) {
+            try {
+                nodeJs.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        processes.clear();
+        LOGGER.fine("NodeJs executor is closed");
+    }
+
+    /**
+     * Queue a request for a process. At most NODEJS_POOL_MAX_WAITING_REQUESTS requests wait at a time; a request
+     * beyond that, or one which has not got a process in time, fails with {@link NodeJsPoolSaturatedException}
+     * without reaching NodeJs.
+     */
+    private CompletableFuture<NodeJs> acquire(String groupId, long timeoutMillis) {
+        GroupWaiters groupWaiters = waitersByGroup.computeIfAbsent(groupId, GroupWaiters::new);
+        groupWaiters.lastUsed = System.nanoTime();
+        Waiter waiter = new Waiter(groupWaiters.queueMetrics);
+        if (waitersCount.incrementAndGet() > NODEJS_POOL_MAX_WAITING_REQUESTS && pool.getNumIdle() == 0) {
+            waitersCount.decrementAndGet();
+            rejectedWaiters.incrementAndGet();
+            groupWaiters.queueMetrics.recordRejection();
+            waiter.completeExceptionally(new NodeJsPoolSaturatedException(String.format(
+                    "%d requests are already waiting for a NodeJs process", NODEJS_POOL_MAX_WAITING_REQUESTS)));
+            return waiter;
+        }
+        ScheduledFuture<?> timeout = NodeJs.TIMEOUT_SCHEDULER.schedule(() -> {
+            if (waiter.completeExceptionally(new NodeJsPoolSaturatedException(
+                    String.format("No NodeJs process has become available in %d ms", timeoutMillis)))) {
+                rejectedWaiters.incrementAndGet();
+                groupWaiters.queueMetrics.recordRejection();
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        waiter.whenComplete((nodeJs, error) -> {
+            timeout.cancel(false);
+            // A request which has failed or has been cancelled while waiting leaves the queue at once
+            if (error != null && groupWaiters.waiters.remove(waiter)) {
+                waitersCount.decrementAndGet();
+            }
+        });
+        groupWaiters.waiters.add(waiter);
+        scheduleGroup(groupWaiters);
+        dispatch();
+        return waiter;
+    }
+
+    /**
+     * @return Statistics of the requests waiting for a process
+     */
+    @Override
+    public QueueStats getQueueStats() {
+        long now = System.nanoTime();
+        long oldestWaitNanos = waitersByGroup.values().stream()
+                .map(groupWaiters -> groupWaiters.waiters.peek())
+                .filter(Objects::nonNull)
+                .mapToLong(waiter -> now - waiter.enqueuedAt)
+                .max()
+                .orElse(0);
+        return new QueueStats(Math.max(waitersCount.get(), 0), NODEJS_POOL_MAX_WAITING_REQUESTS,
+                TimeUnit.NANOSECONDS.toMillis(oldestWaitNanos), servedWaiters.get(),
+                TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()), rejectedWaiters.get());
+    }
+
+    /**
+     * Forget the groups which have not queued a request for the given time, unregistering their queue metrics, so
+     * groups which are not used any more are not kept for the life of the executor. A removed group may still be in
+     * the line of waiting groups, which drops it once it is found empty, and a request queued meanwhile for it is
+     * still served; the next request of the group creates it again.
+     */
+    void removeIdleGroups(Duration idleTime) {
+        long now = System.nanoTime();
+        waitersByGroup.values().forEach(groupWaiters -> {
+            if (groupWaiters.waiters.isEmpty() && now - groupWaiters.lastUsed >= idleTime.toNanos()
+                    && waitersByGroup.remove(groupWaiters.groupId, groupWaiters)) {
+                FormioMetrics.unregister(groupWaiters.queueMetrics);
+            }
+        });
+    }
+
+    private void scheduleGroup(GroupWaiters groupWaiters) {
+        if (!groupWaiters.waiters.isEmpty() && groupWaiters.scheduled.compareAndSet(false, true)) {
+            waitingGroups.addLast(groupWaiters);
+        }
+    }
+
+    /**
+     * @return The first waiting request of the group whose turn it is, null if no request is waiting. The group is
+     * moved to the end of the line.
+     */
+    private Waiter pollWaiter() {
+        GroupWaiters groupWaiters;
+        while ((groupWaiters = waitingGroups.pollFirst()) != null) {
+            Waiter waiter = groupWaiters.pollWaiter();
+            if (waiter != null) {
+                waitingGroups.addLast(groupWaiters);
+                return waiter;
+            }
+            groupWaiters.scheduled.set(false);
+            scheduleGroup(groupWaiters);
+        }
+        return null;
+    }
+
+    /**
+     * Return a process to the pool, or replace it if it has been killed or has exited while serving the request.
+     * A process which is due for retirement is not returned: it is replaced once the requests pipelined into it have
+     * completed. A busy process is neither returned while the pool holds NODEJS_POOL_MAX_IDLE idle processes, since
+     * the pool would destroy it together with its running requests; it is returned once it is idle.
+     */
+    private void release(NodeJs nodeJs) {
+        if (!nodeJs.isAlive()) {
+            // Destroying waits for the process to exit, so it is not done on the thread which has completed the request
+            REPLENISHMENT_EXECUTOR.execute(() -> discard(nodeJs));
+            return;
+        }
+        String retirementReason = getRetirementReason(nodeJs);
+        if (retirementReason != null) {
+            LOGGER.info(String.format("Retiring NodeJs process %d: %s", nodeJs.pid(), retirementReason));
+            nodeJs.whenIdle().thenRunAsync(() -> discard(nodeJs), REPLENISHMENT_EXECUTOR);
+            return;
+        }
+        if (nodeJs.getActiveRequests() > 0 && pool.getNumIdle() >= pool.getMaxIdle()) {
+            nodeJs.whenIdle().thenRunAsync(() -> release(nodeJs), REPLENISHMENT_EXECUTOR);
+            return;
+        }
+        pool.returnObject(nodeJs);
+        dispatch();
+    }
+
+    private void discard(NodeJs nodeJs) {
+        try {
+            pool.invalidateObject(nodeJs);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not discard a nodeJs process", e);
+        }
+        scheduleReplenishment();
+        dispatch();
+    }
+
+    /**
+     * @return Why the process has to be replaced by a new one, null if it may serve further requests. Memory limits
+     * are not checked here, since it takes a request to the process.
+     */
+    private String getRetirementReason(NodeJs nodeJs) {
+        if (nodeJs.isRetirementRequested()) {
+            return "memory limit exceeded";
+        }
+        if (NODEJS_PROCESS_MAX_REQUESTS > 0 && nodeJs.getServedRequests() >= NODEJS_PROCESS_MAX_REQUESTS) {
+            return String.format("%d requests served", nodeJs.getServedRequests());
+        }
+        if (NODEJS_PROCESS_MAX_AGE_MINS > 0
+                && nodeJs.getAgeMillis() >= TimeUnit.MINUTES.toMillis(NODEJS_PROCESS_MAX_AGE_MINS)) {
+            return String.format("running for %d minutes", TimeUnit.MILLISECONDS.toMinutes(nodeJs.getAgeMillis()));
+        }
+        return null;
+    }
+
+    private static boolean isMemoryLimited() {
+        return NODEJS_PROCESS_MAX_RSS_MB > 0 || NODEJS_PROCESS_MAX_HEAP_USED_MB > 0;
+    }
+
+    /**
+     * Ask the process for its memory usage with the stats command.
+     *
+     * @return Which memory limit the process has exceeded, null if none or if the process has not answered
+     */
+    private String getMemoryLimitExcess(NodeJs nodeJs) {
+        JsonNode memory;
+        try {
+            String stats = nodeJs.executeAsync(outputStream -> outputStream.write(STATS_COMMAND.getBytes(StandardCharsets.UTF_8)))
+                    .get();
+            memory = JSON_MAPPER.readTree(stats).path("memory");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            LOGGER.warning(String.format("Could not get memory usage of NodeJs process %d: %s", nodeJs.pid(), e.getMessage()));
+            return null;
+        }
+        long rssMb = memory.path("rss").asLong() / BYTES_IN_MB;
+        long heapUsedMb = memory.path("heapUsed").asLong() / BYTES_IN_MB;
+        if (NODEJS_PROCESS_MAX_RSS_MB > 0 && rssMb >= NODEJS_PROCESS_MAX_RSS_MB) {
+            return String.format("resident set of %d MB", rssMb);
+        }
+        if (NODEJS_PROCESS_MAX_HEAP_USED_MB > 0 && heapUsedMb >= NODEJS_PROCESS_MAX_HEAP_USED_MB) {
+            return String.format("%d MB of heap used", heapUsedMb);
+        }
+        return null;
+    }
+
+    /**
+     * Hand idle processes over to the waiting requests, taking turns between the groups. Only one thread dispatches at a time;
+     * a dispatch requested meanwhile makes it run one more round, so neither a released process nor a new request is
+     * missed.
+     */
+    private void dispatch() {
+        if (dispatchRequests.getAndIncrement() > 0) {
+            return;
+        }
+        int missedRequests = 1;
+        do {
+            handOverIdleProcesses();
+            missedRequests = dispatchRequests.addAndGet(-missedRequests);
+        } while (missedRequests > 0);
+    }
+
+    private void handOverIdleProcesses() {
+        while (waitersCount.get() > 0) {
+            NodeJs nodeJs = pollIdleProcess();
+            if (nodeJs == null) {
+                spawnProcessesForWaiters();
+                return;
+            }
+            Waiter waiter = pollWaiter();
+            if (waiter == null) {
+                // The remaining requests are being queued, their threads will dispatch again
+                pool.returnObject(nodeJs);
+                return;
+            }
+            if (waiter.complete(nodeJs)) {
+                servedWaiters.incrementAndGet();
+                totalWaitNanos.addAndGet(System.nanoTime() - waiter.enqueuedAt);
+                waiter.queueMetrics.recordBorrow(waiter.enqueuedAt);
+            } else {
+                pool.returnObject(nodeJs);
+            }
+        }
+    }
+
+    private NodeJs pollIdleProcess() {
+        if (pool.getNumIdle() == 0) {
+            return null;
+        }
+        try {
+            NodeJs nodeJs = pool.borrowObject(0);
+            scheduleReplenishment();
+            return nodeJs;
+        } catch (NoSuchElementException e) {
+            return null;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not borrow a nodeJs process", e);
+            return null;
+        }
+    }
+
+    private void spawnProcessesForWaiters() {
+        int missingProcesses = waitersCount.get() - pendingSpawns.get();
+        while (missingProcesses-- > 0
+                && pool.getNumActive() + pool.getNumIdle() + pendingSpawns.get() < pool.getMaxTotal()) {
+            pendingSpawns.incrementAndGet();
+            REPLENISHMENT_EXECUTOR.execute(() -> {
+                try {
+                    pool.addObject();
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Could not start a nodeJs process", e);
+                    CompletableFuture<NodeJs> waiter = pollWaiter();
+                    if (waiter != null) {
+                        waiter.completeExceptionally(e);
+                    }
+                } finally {
+                    pendingSpawns.decrementAndGet();
+                    dispatch();
+                }
+            });
+        }
+    }
+
+    /**
+     * Requests of a group waiting for a process. The group is in the line of waiting groups while it is scheduled.
+     */
+    private class GroupWaiters {
+        private final String groupId;
+        private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final QueueMetrics queueMetrics = new QueueMetrics(waiters::size);
+        private volatile long lastUsed = System.nanoTime();
+
+        private GroupWaiters(String groupId) {
+            this.groupId = groupId;
+            FormioMetrics.registerQueue(NodeJsExecutorProvider.NAME, groupId, queueMetrics);
+        }
+
+        private Waiter pollWaiter() {
+            Waiter waiter;
+            while ((waiter = waiters.poll()) != null) {
+                waitersCount.decrementAndGet();
+                if (!waiter.isDone()) {
+                    return waiter;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class Waiter extends CompletableFuture<NodeJs> {
+        private final long enqueuedAt = System.nanoTime();
+        private final QueueMetrics queueMetrics;
+
+        private Waiter(QueueMetrics queueMetrics) {
+            this.queueMetrics = queueMetrics;
+        }
+    }
+
+    private class GroupExecutor implements ScriptExecutor {
+        private final String groupId;
+
+        private GroupExecutor(String groupId) {
+            this.groupId = groupId;
+        }
+
+        @Override
+        public String execute(NodeJsCommand command) throws Exception {
+            CompletableFuture<String> result = executeAsync(command);
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                result.cancel(false);
+                throw e;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+
+        @Override
+        public CompletableFuture<String> executeAsync(NodeJsCommand command) {
+            return NodeJsExecutor.this.executeAsync(groupId, command, DEFAULT_REQUEST_TIMEOUT);
+        }
+
+        @Override
+        public CompletableFuture<String> executeAsync(NodeJsCommand command, Duration timeout) {
+            return NodeJsExecutor.this.executeAsync(groupId, command, timeout);
+        }
+
+        @Override
+        public List<String> executeInEachContext(NodeJsCommand command) {
+            return NodeJsExecutor.this.executeInEachContext(command);
+        }
+
+        @Override
+        public boolean isReady() {
+            return NodeJsExecutor.this.isReady();
+        }
+
+        @Override
+        public ScriptExecutor forGroup(String groupId) {
+            return NodeJsExecutor.this.forGroup(groupId);
+        }
+
+        @Override
+        public QueueStats getQueueStats() {
+            return NodeJsExecutor.this.getQueueStats();
+        }
+
+        @Override
+        public void close() {
+            NodeJsExecutor.this.close();
         }
     }
 
@@ -0,0 +1,23 @@
+package com.artezio.forms.formio.nodejs;
+
+import com.artezio.forms.formio.scripts.ScriptExecutor;
+import com.artezio.forms.formio.scripts.ScriptExecutorProvider;
+
+/**
+ * Runs the script in a pool of external NodeJs processes.
+ */
+public class NodeJsExecutorProvider implements ScriptExecutorProvider {
+
+    public static final String NAME = "nodejs";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ScriptExecutor create(String script) {
+        return new NodeJsExecutor(script);
+    }
+
+}
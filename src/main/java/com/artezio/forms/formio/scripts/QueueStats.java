@@ -0,0 +1,76 @@
+package com.artezio.forms.formio.scripts;
+
+/**
+ * Statistics of the queue of requests waiting for a free context of a script executor.
+ */
+public class QueueStats {
+
+    static final QueueStats EMPTY = new QueueStats(0, 0, 0, 0, 0, 0);
+
+    private final int waitingRequests;
+    private final int maxWaitingRequests;
+    private final long oldestWaitMillis;
+    private final long servedRequests;
+    private final long totalWaitMillis;
+    private final long rejectedRequests;
+
+    public QueueStats(int waitingRequests, int maxWaitingRequests, long oldestWaitMillis, long servedRequests,
+                      long totalWaitMillis, long rejectedRequests) {
+        this.waitingRequests = waitingRequests;
+        this.maxWaitingRequests = maxWaitingRequests;
+        this.oldestWaitMillis = oldestWaitMillis;
+        this.servedRequests = servedRequests;
+        this.totalWaitMillis = totalWaitMillis;
+        this.rejectedRequests = rejectedRequests;
+    }
+
+    /**
+     * @return Number of requests waiting for a context
+     */
+    public int getWaitingRequests() {
+        return waitingRequests;
+    }
+
+    /**
+     * @return Number of waiting requests above which new requests are rejected
+     */
+    public int getMaxWaitingRequests() {
+        return maxWaitingRequests;
+    }
+
+    /**
+     * @return Time the longest waiting request has been waiting for, 0 if no request is waiting
+     */
+    public long getOldestWaitMillis() {
+        return oldestWaitMillis;
+    }
+
+    /**
+     * @return Number of requests which have got a context since the executor was started
+     */
+    public long getServedRequests() {
+        return servedRequests;
+    }
+
+    /**
+     * @return Time the served requests have waited for a context in total
+     */
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    /**
+     * @return Number of requests rejected because the queue was full or a context has not become free in time
+     */
+    public long getRejectedRequests() {
+        return rejectedRequests;
+    }
+
+    /**
+     * @return Mean time the served requests have waited for a context, 0 if no request has been served
+     */
+    public double getMeanWaitMillis() {
+        return servedRequests == 0 ? 0 : (double) totalWaitMillis / servedRequests;
+    }
+
+}
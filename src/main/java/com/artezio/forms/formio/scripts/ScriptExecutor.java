@@ -0,0 +1,86 @@
+package com.artezio.forms.formio.scripts;
+
+import com.artezio.forms.formio.nodejs.NodeJsCommand;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes commands of the bundled Formio script. Implementations keep a pool of contexts the script is running in,
+ * e.g. NodeJs processes, and are created by a {@link ScriptExecutorProvider}.
+ * A command fails with {@link com.artezio.forms.formio.exceptions.ScriptExecutionException} if the script reports
+ * an error.
+ */
+public interface ScriptExecutor extends AutoCloseable {
+
+    /**
+     * @param command The command to execute
+     * @return Data the script has responded with
+     */
+    String execute(NodeJsCommand command) throws Exception;
+
+    /**
+     * Execute a command without blocking the calling thread. Cancelling the returned future drops the response.
+     *
+     * @param command The command to execute
+     * @return Future of the data the script has responded with
+     */
+    CompletableFuture<String> executeAsync(NodeJsCommand command);
+
+    /**
+     * Execute a command like {@link #executeAsync(NodeJsCommand)}, failing it if it has not completed in the given
+     * time. Implementations count the time spent waiting for a context and discard a context which has not responded
+     * in time; by default only the returned future fails.
+     *
+     * @param command The command to execute
+     * @param timeout Time the command has to complete in
+     * @return Future of the data the script has responded with
+     */
+    default CompletableFuture<String> executeAsync(NodeJsCommand command, Duration timeout) {
+        return executeAsync(command).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Execute a command in every running context of the pool, e.g. to collect per-context statistics. Contexts
+     * which fail to execute the command are skipped.
+     *
+     * @param command The command to execute
+     * @return Data the script has responded with in each context
+     */
+    List<String> executeInEachContext(NodeJsCommand command);
+
+    /**
+     * @return true if the pool is able to serve requests without starting new contexts
+     */
+    boolean isReady();
+
+    /**
+     * Executors are shared by all resource groups. The executor returned for a group may schedule the commands of
+     * the group fairly against the commands of other groups; by default commands are executed in the order of
+     * arrival whatever group they come from.
+     *
+     * @param groupId The resource group the commands are executed for
+     * @return Executor running the commands of the group in the contexts of this executor
+     */
+    default ScriptExecutor forGroup(String groupId) {
+        return this;
+    }
+
+    /**
+     * @return Statistics of the requests waiting for a free context, empty if the executor does not queue requests
+     */
+    default QueueStats getQueueStats() {
+        return QueueStats.EMPTY;
+    }
+
+    /**
+     * Stop accepting commands, let the commands already accepted complete and then stop all contexts. Commands
+     * which have not completed within the drain timeout of the implementation fail. Closing an executor returned by
+     * {@link #forGroup(String)} closes the executor it belongs to.
+     */
+    @Override
+    void close();
+
+}
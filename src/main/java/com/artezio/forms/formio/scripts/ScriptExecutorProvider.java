@@ -0,0 +1,40 @@
+package com.artezio.forms.formio.scripts;
+
+import com.artezio.forms.formio.exceptions.ScriptExecutionException;
+
+import java.util.ServiceLoader;
+import java.util.stream.StreamSupport;
+
+/**
+ * Service provider interface for {@link ScriptExecutor} implementations. Providers are looked up by
+ * {@link ServiceLoader}, so an implementation is plugged in by listing its provider in
+ * {@code META-INF/services/com.artezio.forms.formio.scripts.ScriptExecutorProvider}.
+ */
+public interface ScriptExecutorProvider {
+
+    /**
+     * @return The name the provider is selected by, e.g. with the SCRIPT_EXECUTOR system property
+     */
+    String getName();
+
+    /**
+     * @param script The script commands are executed by
+     * @return A new executor running the script
+     */
+    ScriptExecutor create(String script);
+
+    /**
+     * @param name The name of the provider
+     * @return The provider with the given name
+     * @throws ScriptExecutionException If there is no provider with the name
+     */
+    static ScriptExecutorProvider getProvider(String name) {
+        ServiceLoader<ScriptExecutorProvider> providers = ServiceLoader
+                .load(ScriptExecutorProvider.class, ScriptExecutorProvider.class.getClassLoader());
+        return StreamSupport.stream(providers.spliterator(), false)
+                .filter(provider -> provider.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new ScriptExecutionException("No script executor provider named '" + name + "'"));
+    }
+
+}
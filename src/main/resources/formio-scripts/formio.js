@@ -1 +1,26 @@
-!function(t){var e={};function n(r){if(e[r])return e[r].exports;var o=e[r]={i:r,l:!1,exports:{}};return t[r].call(o.exports,o,o.exports,n),o.l=!0,o.exports}n.m=t,n.c=e,n.d=function(t,e,r){n.o(t,e)||Object.defineProperty(t,e,{enumerable:!0,get:r})},n.r=function(t){'undefined'!=typeof Symbol&&Symbol.toStringTag&&Object.defineProperty(t,Symbol.toStringTag,{value:'Module'}),Object.defineProperty(t,'__esModule',{value:!0})},n.t=function(t,e){if(1&e&&(t=n(t)),8&e)return t;if(4&e&&'object'==typeof t&&t&&t.__esModule)return t;var r=Object.create(null);if(n.r(r),Object.defineProperty(r,'default',{enumerable:!0,value:t}),2&e&&'string'!=typeof t)for(var o in t)n.d(r,o,function(e){return t[e]}.bind(null,o));return r},n.n=function(t){var e=t&&t.__esModule?function(){return t.default}:function(){return t};return n.d(e,'a',e),e},n.o=function(t,e){return Object.prototype.hasOwnProperty.call(t,e)},n.p='',n(n.s=6)}([function(t,e){e.OPERATIONS={CLEANUP:'cleanup',VALIDATE:'validate',PING:'ping'},e.PING_MESSAGE='OK',e.CUSTOM_COMPONENTS_FOLDER_NAME='custom-components',e.EOT=''},function(t,e,n){const{EOT:r}=n(0),o=n(2);let s;class c{constructor(){if(s)return s;s=this}static getInstance(){return s||new c}send(t){o.stdout.write(t)}sendError(t){o.stderr.write(t)}finally(){o.stdout.write(r),o.stderr.write(r)}}t.exports=c},function(t,e){t.exports=require('process')},function(t,e){t.exports=class{execute(){return Promise.resolve()}}},function(t,e){const n=['datagrid'];function r(t,e){if(Array.isArray(t))t.forEach(t=>r(t,e));else if(null!==t&&'object'==typeof t)if(t.tree&&Array.isArray(t.components)){const o=function(t,e,r){return n.includes(t)?(r[e]=[{}],r[e][0]):(r[e]={},r[e])}(t.type,t.key,e);Array.isArray(o)?(o.push({}),t.components.forEach((t,e)=>{r(t,o[0])})):t.components.forEach(t=>r(t,o))}else if(t.input)!function(t,e){Array.isArray(e)?e.push({[t]:!0}):'object'==typeof e&&(e[t]=!0)}(t.key,e);else for(let n in t)'object'==typeof t[n]&&r(t[n],e)}function o(t,e){if('object'==typeof t&&null!==t&&'object'==typeof e&&null!==e)if(Array.isArray(t))Array.isArray(e)||t.splice(0,t.length),function(t){const e=t.filter(t=>'object'==typeof t&&null!==t);t.splice(0,t.length,...e)}(t),function(t,e){const n=t.filter(t=>{const n=Object.keys(t);return e.some(t=>{return e=Object.keys(t),n.every(t=>e.includes(t));var e})});n.forEach((t,n)=>{'object'==typeof t&&o(t,e[n])}),t.splice(0,t.length,...n)}(t,e);else for(let n in t)n in e||delete t[n],null!==e[n]&&'object'==typeof e[n]&&('object'!=typeof t[n]||null===t[n]?delete t[n]:o(t[n],e[n]))}t.exports=function(t,e={}){const n=e.data,s={};return r(t,s),o(n,s),{...e,data:n}}},function(t,e){t.exports=require('formiojs')},function(t,e,n){n(7);const r=n(11),o=n(2),s=n(1),{EOT:c}=n(0),i=s.getInstance();var u='';function a(){const t=JSON.parse(u);u='',r(t.operation,t).execute().then(()=>{i.finally()})}o.stdin.on('data',(function(t){const e=t.indexOf(c);-1!==e?(u+=t.substring(0,e),a()):u+=t})).on('end',()=>{a()})},function(t,e,n){n(8),n(2).stdin.setEncoding('utf8')},function(t,e,n){(function(t){n(10)(void 0,{url:'http://localhost'}),t.Option=t.window.Option,t.window.matchMedia=function(t){return{matches:!1,media:t}}}).call(this,n(9))},function(t,e){var n;n=function(){return this}();try{n=n||new Function('return this')()}catch(t){'object'==typeof window&&(n=window)}t.exports=n},function(t,e){t.exports=require('jsdom-global')},function(t,e,n){const{OPERATIONS:r}=n(0),o=n(12),s=n(13),c=n(14);t.exports=function(t,e){switch(t){case r.CLEANUP:return new o(e);case r.VALIDATE:return new c(e);case r.PING:default:return new s(e)}}},function(t,e,n){const r=n(4),o=n(1),s=n(3),c=o.getInstance();t.exports=class extends s{constructor(t={}){const{form:e,data:n}=t;super({form:e,data:n}),this.data=n,this.form=e}execute(){const t={data:this.data};let e=r(this.form,t).data;try{e=JSON.stringify(e),c.send(e)}catch(t){c.sendError(t.toString())}finally{return Promise.resolve()}}}},function(t,e,n){const r=n(1),{PING_MESSAGE:o}=n(0),s=n(3),c=r.getInstance();t.exports=class extends s{execute(){return c.send(o),Promise.resolve()}}},function(t,e,n){const r=n(4),o=n(1),s=n(15),c=n(3),i=n(16),u=o.getInstance();t.exports=class extends c{constructor(t={}){const{form:e,data:n,resourcePath:r}=t;super({form:e,data:n}),this.data=n,this.form=e,this.resourcePath=r}execute(){const t={data:this.data},e=r(this.form,t);return i(this.resourcePath),s(this.form,e).then(t=>{try{t=JSON.stringify(t),u.send(t)}catch(t){u.sendError(t.toString())}}).catch(t=>{try{t=JSON.stringify(t),u.sendError(t)}catch(t){u.sendError(t.toString())}})}}},function(t,e,n){const{Formio:r}=n(5),o=document.body;t.exports=function(t,e){return new Promise((n,s)=>{r.createForm(o,t).then(t=>{t.once('error',t=>{t=t&&t.map(t=>t.message),s(t)}),t.once('submit',t=>{n(t)}),t.once('change',()=>{t.submit().then(()=>{}).catch(()=>{})}),t.submission=e}).catch(t=>{s(t)})})}},function(t,e,n){const r=n(17);let o='';t.exports=function(t){t!==o&&(r(t),o=t)}},function(t,e,n){const{Formio:r}=n(5),o=n(18),s=n(19),{CUSTOM_COMPONENTS_FOLDER_NAME:c}=n(0);function i(t={}){const{name:e,path:n}=t,o=require(n);r.registerComponent(e,o)}t.exports=function(t){if(!t)return;const e=o.existsSync(s.resolve(t,c))?s.resolve(t,c):void 0;e&&o.readdirSync(e).filter(t=>'.js'===s.extname(t)).map(t=>({name:t.slice(0,-s.extname(t).length),path:s.resolve(e,t)})).forEach(i)}},function(t,e){t.exports=require('fs')},function(t,e){t.exports=require('path')}]);
\ No newline at end of file
+'use strict';!function(e){function b(f){if(a[f])return a[f].exports;var g=a[f]={i:f,l:!1,exports:{}};return e[f].call(g.exports,g,g.exports,b),g.l=!0,g.exports}var a={};b.m=e;b.c=a;b.p='';b(b.s=0)}([function(e,b,a){b=a(1);const {isMainThread:f}=a(2);e=parseInt(b.env.NODEJS_WORKER_THREADS,10)||0;f&&0<e?(b=b.execArgv[b.execArgv.indexOf('-e')+1],a(4).start(b,e)):a(7)},function(e,b,a){e.exports=require('process')},function(e,b,a){e.exports=a(3)},function(e,
+b,a){e.exports=require('worker_threads')},function(e,b,a){function f(a,c){const l=c.find(a=>a.error);if(l)return{requestId:a,data:'',error:l.error};c=c.map(a=>JSON.parse(a.data)).reduce((a,l)=>g(a,l),{});c.memory&&(c.memory.rss=d.memoryUsage().rss);return{requestId:a,data:JSON.stringify(c),error:''}}function r(a){return(a=/^\{"formHash":"([^"]+)"/.exec(a.slice(0,128)))?a[1]:void 0}function u(a){let c=0;for(let b=0;b<a.length;b++)c=31*c+a.charCodeAt(b)|0;return Math.abs(c)}function g(a,c){Object.keys(c).forEach(l=>{'number'===typeof c[l]?a[l]=(a[l]||0)+c[l]:null!==c[l]&&'object'===typeof c[l]&&(a[l]=g(a[l]||{},c[l]))});return a}const d=a(1),{Worker:k}=a(3),{FrameDecoder:h,
+MessageAssembler:n,encodeFrames:c}=a(5),{OPERATIONS:m}=a(6);class p{constructor(a,c,d){this.pendingRequests=new Set;this.worker=new k(a,{eval:!0});this.worker.on('message',a=>{this.pendingRequests.delete(a.requestId);c(a)});this.worker.on('error',a=>this.fail(a,c));this.worker.on('exit',a=>{this.fail(`Worker thread has exited with code ${a}`,c);d(this)})}post(a,c){this.pendingRequests.add(a);this.worker.postMessage({requestId:a,message:c})}fail(a,c){const l=a instanceof Error?a.toString():String(a);
+this.pendingRequests.forEach(a=>c({requestId:a,data:'',error:l}));this.pendingRequests.clear()}}class q{constructor(a,c){this.script=a;this.broadcasts=new Map;this.workers=[];for(a=0;a<c;a++)this.workers.push(this.startWorker())}startWorker(){return new p(this.script,a=>this.respond(a),a=>this.replace(a))}replace(a){a=this.workers.indexOf(a);-1!==a&&(this.workers[a]=this.startWorker())}dispatch(a,c){if(this.isStatsCommand(c))this.broadcast(a,c);else{var b=r(c);(void 0!==b?this.preferredWorker(b):this.leastBusyWorker()).post(a,c)}}preferredWorker(a){a=this.workers[u(a)%this.workers.length];return 0===a.pendingRequests.size?a:this.leastBusyWorker()}leastBusyWorker(){return this.workers.reduce((a,
+c)=>c.pendingRequests.size<a.pendingRequests.size?c:a)}isStatsCommand(a){if(64<a.length)return!1;try{return JSON.parse(a).operation===m.STATS}catch(t){return!1}}broadcast(a,c){this.broadcasts.set(a,{remaining:this.workers.length,responses:[]});this.workers.forEach(d=>d.post(a,c))}respond(a){const c=this.broadcasts.get(a.requestId);c?(c.responses.push(a),0<--c.remaining||(this.broadcasts.delete(a.requestId),this.write(f(a.requestId,c.responses)))):this.write(a)}write({requestId:a,data:p,error:b}){d.stdout.write(c(a,p));d.stderr.write(c(a,
+b))}}b.WorkerDispatcher=q;b.start=function(a,c){const p=new q(a,c),b=new n((a,c)=>p.dispatch(a,c)),m=new h((a,c)=>b.push(a,c));d.stdin.on('data',a=>m.push(a))}},function(e,b,a){class f{constructor(a){this.onFrame=a;this.chunks=[];this.bufferedLength=0;this.header=null}push(a){this.chunks.push(a);for(this.bufferedLength+=a.length;this.decodeFrame(););}decodeFrame(){if(!this.header){if(8>this.bufferedLength)return!1;const a=this.take(8);this.header={requestId:a.readInt32BE(0),length:a.readInt32BE(4)}}if(this.bufferedLength<
+this.header.length)return!1;const {requestId:a,length:b}=this.header;this.header=null;this.onFrame(a,this.take(b));return!0}take(a){const b=1===this.chunks.length?this.chunks[0]:Buffer.concat(this.chunks,this.bufferedLength),d=b.slice(0,a);a=b.slice(a);this.chunks=0<a.length?[a]:[];this.bufferedLength=a.length;return d}}class g{constructor(a){this.onMessage=a;this.chunks=new Map}push(a,b){0<b.length?(this.chunks.has(a)||this.chunks.set(a,[]),this.chunks.get(a).push(b)):(b=this.chunks.get(a)||[],this.chunks.delete(a),
+this.onMessage(a,Buffer.concat(b).toString('utf8')))}}function d(a,b){const d=Buffer.alloc(8);d.writeInt32BE(a,0);d.writeInt32BE(b.length,4);return Buffer.concat([d,b],8+b.length)}const k=Buffer.alloc(0);b.HEADER_LENGTH=8;b.MAX_FRAME_PAYLOAD_LENGTH=65536;b.encodeFrames=function(a,b){b=Buffer.from(b,'utf8');const f=[];for(let g=0;g<b.length;g+=65536)f.push(d(a,b.slice(g,g+65536)));f.push(d(a,k));return Buffer.concat(f)};b.FrameDecoder=f;b.MessageAssembler=g},function(e,b,a){b.OPERATIONS={CLEANUP:'cleanup',VALIDATE:'validate',PING:'ping',REGISTER_FORM:'registerForm',STATS:'stats'};b.PING_MESSAGE='OK';b.FORM_NOT_REGISTERED_ERROR='FORM_NOT_REGISTERED';b.DEFAULT_FORM_REGISTRY_SIZE=100;
+b.DEFAULT_FORM_INSTANCE_CACHE_SIZE=10;b.CUSTOM_COMPONENTS_FOLDER_NAME='custom-components'},function(e,b,a){function f(a){return void 0===a.formHash||a.operation===q.REGISTER_FORM?a.form:void 0!==a.form?m.register(a.formHash,a.form):m.get(a.formHash)}function g(a,c){let b;try{const m=JSON.parse(c),e=f(m);if(void 0===e&&void 0!==m.formHash){l.sendError(a,p);l.finally(a);return}b=d(m.operation,{...m,form:e,requestId:a})}catch(r){l.sendError(a,r.toString());l.finally(a);return}b.execute().then(()=>{l.finally(a)})}
+a(8);const d=a(11);e=a(1);b=a(14);const {FrameDecoder:k,MessageAssembler:h}=a(5),{isMainThread:n,parentPort:c}=a(2),m=a(18),{FORM_NOT_REGISTERED_ERROR:p,OPERATIONS:q}=a(6),l=b.getInstance();if(n){const a=new h(g),c=new k((c,b)=>a.push(c,b));e.stdin.on('data',a=>c.push(a))}else c.on('message',({requestId:a,message:c})=>g(a,c))},function(e,b,a){a(9)},function(e,b,a){a(10)(void 0,{url:'http://localhost'});global.Option=global.window.Option;global.window.matchMedia=
+function(a){return{matches:!1,media:a}}},function(e,b,a){e.exports=require('jsdom-global')},function(e,b,a){const {OPERATIONS:f}=a(6),g=a(12),d=a(16),k=a(17),h=a(19),n=a(22);e.exports=function(a,b){switch(a){case f.CLEANUP:return new g(b);case f.VALIDATE:return new n(b);case f.REGISTER_FORM:return new k(b);case f.STATS:return new h(b);case f.PING:return new d(b);default:return new d(b)}}},function(e,b,a){const f=a(13);b=a(14);a=a(15);const g=b.getInstance();class d extends a{constructor(a={}){const {form:b,
+data:d,requestId:c}=a;super({form:b,data:d,requestId:c});this.data=d;this.form=b}execute(){let a=f(this.form,{data:this.data}).data;try{a=JSON.stringify(a),g.send(this.requestId,a)}catch(h){g.sendError(this.requestId,h.toString())}finally{return Promise.resolve()}}}e.exports=d},function(e,b,a){function f(a,c){Array.isArray(c)?c.push({[a]:!0}):'object'===typeof c&&(c[a]=!0)}function g(a,c,b){if(m.includes(a))return b[c]=[{}],b[c][0];b[c]={};return b[c]}function d(a,c){if(Array.isArray(a))a.forEach(a=>
+d(a,c));else if(null!==a&&'object'===typeof a)if(a.tree&&Array.isArray(a.components)){const b=g(a.type,a.key,c);Array.isArray(b)?(b.push({}),a.components.forEach((a,c)=>{d(a,b[0])})):a.components.forEach(a=>d(a,b))}else if(a.input)f(a.key,c);else for(let b in a)'object'===typeof a[b]&&d(a[b],c)}function k(a,c){return c.every(c=>a.includes(c))}function h(a){const c=a.filter(a=>'object'===typeof a&&null!==a);a.splice(0,a.length,...c)}function n(a,b){const d=a.filter(a=>{const c=Object.keys(a);return b.some(a=>
+k(Object.keys(a),c))});d.forEach((a,d)=>{'object'===typeof a&&c(a,b[d])});a.splice(0,a.length,...d)}function c(a,b){if('object'===typeof a&&null!==a&&'object'===typeof b&&null!==b)if(Array.isArray(a))Array.isArray(b)||a.splice(0,a.length),h(a),n(a,b);else for(let d in a)d in b||delete a[d],null!==b[d]&&'object'===typeof b[d]&&('object'!==typeof a[d]||null===a[d]?delete a[d]:c(a[d],b[d]))}const m=['datagrid'];e.exports=function(a,b={}){const m=b.data,e={};d(a,e);c(m,e);return{...b,data:m}}},function(e,
+b,a){const {encodeFrames:f}=a(5),g=a(1),{parentPort:d}=a(2);let k;class h{constructor(){if(k)return k;this.responses=new Map;k=this}static getInstance(){return k?k:new h}send(a,c){this.getResponse(a).data+=c}sendError(a,c){this.getResponse(a).error+=c}finally(a){const c=this.getResponse(a);this.responses.delete(a);d?d.postMessage({requestId:a,data:c.data,error:c.error}):(g.stdout.write(f(a,c.data)),g.stderr.write(f(a,c.error)))}getResponse(a){this.responses.has(a)||
+this.responses.set(a,{data:'',error:''});return this.responses.get(a)}}e.exports=h},function(e,b,a){class f{constructor(a={}){this.requestId=a.requestId}execute(){return Promise.resolve()}}e.exports=f},function(e,b,a){b=a(14);const {PING_MESSAGE:f}=a(6);a=a(15);const g=b.getInstance();class d extends a{execute(){g.send(this.requestId,f);return Promise.resolve()}}e.exports=d},function(e,b,a){b=a(14);const f=a(18);a=a(15);const g=b.getInstance();class d extends a{constructor(a={}){const {form:b,formHash:d,
+requestId:c}=a;super({form:b,requestId:c});this.form=b;this.formHash=d}execute(){f.register(this.formHash,this.form);g.send(this.requestId,this.formHash);return Promise.resolve()}}e.exports=d},function(e,b,a){b=a(1);({DEFAULT_FORM_REGISTRY_SIZE:a}=a(6));class f{constructor(a){this.size=a;this.forms=new Map}register(a,b){this.forms.delete(a);this.forms.set(a,b);this.forms.size>this.size&&this.forms.delete(this.forms.keys().next().value);return b}get(a){const b=this.forms.get(a);void 0!==b&&(this.forms.delete(a),
+this.forms.set(a,b));return b}}e.exports=new f(Number(b.env.FORM_REGISTRY_SIZE)||a)},function(e,b,a){b=a(14);const f=a(20),g=a(15),d=a(1),k=b.getInstance();class h extends g{execute(){const {rss:a,heapTotal:c,heapUsed:b,external:e}=d.memoryUsage();k.send(this.requestId,JSON.stringify({formInstanceCache:f.getStats(),memory:{rss:a,heapTotal:c,heapUsed:b,external:e}}));return Promise.resolve()}}e.exports=h},function(e,b,a){function f(a){const c=document.createElement('div');h.appendChild(c);return k.createForm(c,
+a).then(a=>({element:c,instance:a})).catch(a=>{h.removeChild(c);throw a;})}function g({instance:a}){a.resetValue();a.setPristine(!0);a.submitted=!1}function d({element:a,instance:b}){b.destroy();h.removeChild(a)}const {Formio:k}=a(21);b=a(1);({DEFAULT_FORM_INSTANCE_CACHE_SIZE:a}=a(6));const h=document.body;class n{constructor(a){this.size=a;this.idleInstances=new Map;this.misses=this.hits=this.idleInstancesCount=0}acquire(a,b){if(void 0===a)return f(b);const c=this.idleInstances.get(a);if(!c)return this.misses++,
+f(b);this.hits++;b=c.pop();this.idleInstancesCount--;c.length||this.idleInstances.delete(a);g(b);return Promise.resolve(b)}release(a,b){if(void 0===a||0>=this.size)d(b);else{var c=this.idleInstances.get(a)||[];this.idleInstances.delete(a);c.push(b);this.idleInstances.set(a,c);for(this.idleInstancesCount++;this.idleInstancesCount>this.size;)this.evictLeastRecentlyUsed()}}evictLeastRecentlyUsed(){const [a,b]=this.idleInstances.entries().next().value;d(b.shift());this.idleInstancesCount--;b.length||
+this.idleInstances.delete(a)}getStats(){return{hits:this.hits,misses:this.misses,size:this.idleInstancesCount}}}b=parseInt(b.env.FORM_INSTANCE_CACHE_SIZE,10);e.exports=new n(Number.isNaN(b)?a:b)},function(e,b,a){e.exports=require('formiojs')},function(e,b,a){const f=a(13);b=a(14);const g=a(23),d=a(15),k=a(24),h=b.getInstance();class n extends d{constructor(a={}){const {form:b,formHash:c,data:d,batch:e,resourcePath:f,requestId:g}=a;super({form:b,data:d,requestId:g});this.data=d;this.batch=e;this.form=
+b;this.resourcePath=f;this.instanceCacheKey=void 0!==c?`${c}:${f}`:void 0}execute(){if(this.batch)return this.executeBatch();const a=f(this.form,{data:this.data});return k(this.resourcePath,()=>g(this.form,a,this.instanceCacheKey)).then(a=>{try{a=JSON.stringify(a),h.send(this.requestId,a)}catch(p){h.sendError(this.requestId,p.toString())}}).catch(a=>{try{a=a instanceof Error?a.toString():JSON.stringify(a),h.sendError(this.requestId,a)}catch(p){h.sendError(this.requestId,p.toString())}})}executeBatch(){const a=[];
+return k(this.resourcePath,()=>this.batch.reduce((b,c)=>b.then(()=>g(this.form,f(this.form,{data:c}),this.instanceCacheKey)).then(b=>a.push({result:b}),b=>a.push({error:b instanceof Error?b.toString():b})),Promise.resolve())).then(()=>{h.send(this.requestId,JSON.stringify(a))}).catch(a=>{h.sendError(this.requestId,a.toString())})}}e.exports=n},function(e,b,a){function f(a,b){return(new Promise((d,e)=>{a.once('error',a=>{a=a&&a.map(a=>a.message);e(a)});a.once('submit',a=>{d(a)});a.once('change',()=>{a.submit().then(()=>{}).catch(()=>
+{})});a.submission=b})).finally(()=>{a.off('submit');a.off('error');a.off('change')})}const g=a(20);e.exports=function(a,b,e){return g.acquire(e,a).then(a=>f(a.instance,b).then(b=>{g.release(e,a);return b},b=>{g.release(e,a);throw b;}))}},function(e,b,a){function f(){return d.Components&&d.Components.components?d.Components.components:{}}function g(){const a=f();n.forEach((b,c)=>{void 0===b?delete a[c]:a[c]=b});n=new Map}function m(a){g();h='';const b={...f()};try{k(a),h=a}finally{const c=f();Object.keys(c).filter(a=>c[a]!==b[a]).forEach(a=>n.set(a,b[a]));
+h!==a&&g()}}function p(){for(;0<q.length;){const a=q[0];if(a.resourcePath!==h){if(0<l)return;try{m(a.resourcePath)}catch(b){q.shift();a.reject(b);continue}}q.shift();l++;Promise.resolve().then(a.task).then(a.resolve,a.reject).finally(()=>{l--;p()})}}const {Formio:d}=a(21),k=a(25);let h='',n=new Map,l=0;const q=[];e.exports=function(a,b){return new Promise((c,d)=>{q.push({resourcePath:a||'',task:b,resolve:c,reject:d});p()})}},function(e,b,a){function f(a={}){const {name:b,path:d}=a;a=require(d);g.registerComponent(b,a)}const {Formio:g}=a(21),d=a(26),k=a(27),{CUSTOM_COMPONENTS_FOLDER_NAME:h}=a(6);e.exports=function(a){if(a){var b=d.existsSync(k.resolve(a,h))?k.resolve(a,h):void 0;b&&d.readdirSync(b).filter(a=>'.js'===k.extname(a)).map(a=>({name:a.slice(0,-k.extname(a).length),path:k.resolve(b,a)})).forEach(f)}}},function(e,b,
+a){e.exports=require('fs')},function(e,b,a){e.exports=require('path')}]);
@@ -6,8 +6,8 @@ const stdout = Stdout.getInstance();
 
 class CleanupCommand extends Command {
     constructor(args = {}) {
-        const { form, data } = args;
-        super({ form, data });
+        const { form, data, requestId } = args;
+        super({ form, data, requestId });
         this.data = data;
         this.form = form;
     }
@@ -18,9 +18,9 @@ class CleanupCommand extends Command {
         let result = cleanSubmission.data;
         try {
             result = JSON.stringify(result);
-            stdout.send(result);
+            stdout.send(this.requestId, result);
         } catch (err) {
-            stdout.sendError(err.toString());
+            stdout.sendError(this.requestId, err.toString());
         } finally {
             return Promise.resolve();
         }
@@ -1,7 +1,11 @@
 class Command {
+    constructor(args = {}) {
+        this.requestId = args.requestId;
+    }
+
     execute() {
         return Promise.resolve();
     }
 }
 
-module.exports = Command;
\ No newline at end of file
+module.exports = Command;
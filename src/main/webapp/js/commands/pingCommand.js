@@ -6,9 +6,9 @@ const stdout = Stdout.getInstance();
 
 class PingCommand extends Command {
     execute() {
-        stdout.send(PING_MESSAGE);
+        stdout.send(this.requestId, PING_MESSAGE);
         return Promise.resolve();
     }
 }
 
-module.exports = PingCommand;
\ No newline at end of file
+module.exports = PingCommand;
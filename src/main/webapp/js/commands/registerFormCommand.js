@@ -0,0 +1,22 @@
+const Stdout = require('../stdout');
+const formRegistry = require('../formRegistry');
+const Command = require('./command');
+
+const stdout = Stdout.getInstance();
+
+class RegisterFormCommand extends Command {
+    constructor(args = {}) {
+        const { form, formHash, requestId } = args;
+        super({ form, requestId });
+        this.form = form;
+        this.formHash = formHash;
+    }
+
+    execute() {
+        formRegistry.register(this.formHash, this.form);
+        stdout.send(this.requestId, this.formHash);
+        return Promise.resolve();
+    }
+}
+
+module.exports = RegisterFormCommand;
@@ -0,0 +1,19 @@
+const Stdout = require('../stdout');
+const formInstanceCache = require('../formInstanceCache');
+const Command = require('./command');
+const process = require('process');
+
+const stdout = Stdout.getInstance();
+
+class StatsCommand extends Command {
+    execute() {
+        const { rss, heapTotal, heapUsed, external } = process.memoryUsage();
+        stdout.send(this.requestId, JSON.stringify({
+            formInstanceCache: formInstanceCache.getStats(),
+            memory: { rss, heapTotal, heapUsed, external }
+        }));
+        return Promise.resolve();
+    }
+}
+
+module.exports = StatsCommand;
@@ -2,41 +2,67 @@ const cleanUpSubmission = require('../cleanUpSubmission');
 const Stdout = require('../stdout');
 const validateSubmission = require('../validateSubmission');
 const Command = require('./command');
-const registerCustomComponents = require('../registerCustomComponentsProxy');
+const runWithCustomComponents = require('../registerCustomComponentsProxy');
 
 const stdout = Stdout.getInstance();
 
 class ValidateCommand extends Command {
     constructor(args = {}) {
-        const { form, data, resourcePath } = args;
-        super({ form, data });
+        const { form, formHash, data, batch, resourcePath, requestId } = args;
+        super({ form, data, requestId });
         this.data = data;
+        this.batch = batch;
         this.form = form;
         this.resourcePath = resourcePath;
+        this.instanceCacheKey = formHash !== undefined ? `${formHash}:${resourcePath}` : undefined;
     }
 
     execute() {
+        if (this.batch) {
+            return this.executeBatch();
+        }
         const submission = { data: this.data };
         const cleanSubmission = cleanUpSubmission(this.form, submission);
-        registerCustomComponents(this.resourcePath);
-        return validateSubmission(this.form, cleanSubmission)
+        return runWithCustomComponents(this.resourcePath,
+            () => validateSubmission(this.form, cleanSubmission, this.instanceCacheKey))
             .then(result => {
                 try {
                     result = JSON.stringify(result);
-                    stdout.send(result);
+                    stdout.send(this.requestId, result);
                 } catch (err) {
-                    stdout.sendError(err.toString());
+                    stdout.sendError(this.requestId, err.toString());
                 }
             })
             .catch(error => {
                 try {
-                    error = JSON.stringify(error);
-                    stdout.sendError(error);
+                    error = error instanceof Error ? error.toString() : JSON.stringify(error);
+                    stdout.sendError(this.requestId, error);
                 } catch (err) {
-                    stdout.sendError(err.toString());
+                    stdout.sendError(this.requestId, err.toString());
                 }
             })
     }
+
+    /**
+     * Validates the batch items one by one against the same form and sends a single array with
+     * either { result } or { error } for every item, so an invalid item does not fail the batch.
+     */
+    executeBatch() {
+        const results = [];
+        return runWithCustomComponents(this.resourcePath, () => this.batch
+            .reduce((previous, data) => previous
+                .then(() => validateSubmission(this.form, cleanUpSubmission(this.form, { data }), this.instanceCacheKey))
+                .then(
+                    result => results.push({ result }),
+                    error => results.push({ error: error instanceof Error ? error.toString() : error })
+                ), Promise.resolve()))
+            .then(() => {
+                stdout.send(this.requestId, JSON.stringify(results));
+            })
+            .catch(err => {
+                stdout.sendError(this.requestId, err.toString());
+            })
+    }
 }
 
-module.exports = ValidateCommand;
\ No newline at end of file
+module.exports = ValidateCommand;
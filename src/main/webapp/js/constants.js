@@ -1,11 +1,17 @@
 exports.OPERATIONS = {
     CLEANUP: 'cleanup',
     VALIDATE: 'validate',
-    PING: 'ping'
+    PING: 'ping',
+    REGISTER_FORM: 'registerForm',
+    STATS: 'stats'
 }
 
 exports.PING_MESSAGE = 'OK';
 
-exports.CUSTOM_COMPONENTS_FOLDER_NAME = 'custom-components';
+exports.FORM_NOT_REGISTERED_ERROR = 'FORM_NOT_REGISTERED';
 
-exports.EOT = "\u0004";
\ No newline at end of file
+exports.DEFAULT_FORM_REGISTRY_SIZE = 100;
+
+exports.DEFAULT_FORM_INSTANCE_CACHE_SIZE = 10;
+
+exports.CUSTOM_COMPONENTS_FOLDER_NAME = 'custom-components';
\ No newline at end of file
@@ -0,0 +1,97 @@
+const { Formio } = require('formiojs');
+const process = require('process');
+const { DEFAULT_FORM_INSTANCE_CACHE_SIZE } = require('./constants');
+
+const body = document.body;
+
+function createInstance(form) {
+    const element = document.createElement('div');
+    body.appendChild(element);
+    return Formio.createForm(element, form)
+        .then(instance => ({ element, instance }))
+        .catch(err => {
+            body.removeChild(element);
+            throw err;
+        });
+}
+
+function resetInstance({ instance }) {
+    instance.resetValue();
+    instance.setPristine(true);
+    instance.submitted = false;
+}
+
+function destroyInstance({ element, instance }) {
+    instance.destroy();
+    body.removeChild(element);
+}
+
+/**
+ * Bounded LRU cache of built form instances. An instance serves one validation at a time, so every
+ * key holds a list of idle instances; a validation of a form whose instances are all busy builds a
+ * new one, which is kept when it is released. Instances acquired without a key are never cached.
+ */
+class FormInstanceCache {
+    constructor(size) {
+        this.size = size;
+        this.idleInstances = new Map();
+        this.idleInstancesCount = 0;
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    acquire(key, form) {
+        if (key === undefined) {
+            return createInstance(form);
+        }
+        const entries = this.idleInstances.get(key);
+        if (!entries) {
+            this.misses++;
+            return createInstance(form);
+        }
+        this.hits++;
+        const entry = entries.pop();
+        this.idleInstancesCount--;
+        if (!entries.length) {
+            this.idleInstances.delete(key);
+        }
+        resetInstance(entry);
+        return Promise.resolve(entry);
+    }
+
+    release(key, entry) {
+        if (key === undefined || this.size <= 0) {
+            destroyInstance(entry);
+            return;
+        }
+        const entries = this.idleInstances.get(key) || [];
+        this.idleInstances.delete(key);
+        entries.push(entry);
+        this.idleInstances.set(key, entries);
+        this.idleInstancesCount++;
+        while (this.idleInstancesCount > this.size) {
+            this.evictLeastRecentlyUsed();
+        }
+    }
+
+    evictLeastRecentlyUsed() {
+        const [key, entries] = this.idleInstances.entries().next().value;
+        destroyInstance(entries.shift());
+        this.idleInstancesCount--;
+        if (!entries.length) {
+            this.idleInstances.delete(key);
+        }
+    }
+
+    getStats() {
+        return {
+            hits: this.hits,
+            misses: this.misses,
+            size: this.idleInstancesCount
+        };
+    }
+}
+
+const configuredSize = parseInt(process.env.FORM_INSTANCE_CACHE_SIZE, 10);
+
+module.exports = new FormInstanceCache(Number.isNaN(configuredSize) ? DEFAULT_FORM_INSTANCE_CACHE_SIZE : configuredSize);
@@ -0,0 +1,33 @@
+const process = require('process');
+const { DEFAULT_FORM_REGISTRY_SIZE } = require('./constants');
+
+/**
+ * LRU store of form definitions keyed by the hash of their content, so a form is sent
+ * to the process once and referenced by the hash afterwards.
+ */
+class FormRegistry {
+    constructor(size) {
+        this.size = size;
+        this.forms = new Map();
+    }
+
+    register(formHash, form) {
+        this.forms.delete(formHash);
+        this.forms.set(formHash, form);
+        if (this.forms.size > this.size) {
+            this.forms.delete(this.forms.keys().next().value);
+        }
+        return form;
+    }
+
+    get(formHash) {
+        const form = this.forms.get(formHash);
+        if (form !== undefined) {
+            this.forms.delete(formHash);
+            this.forms.set(formHash, form);
+        }
+        return form;
+    }
+}
+
+module.exports = new FormRegistry(Number(process.env.FORM_REGISTRY_SIZE) || DEFAULT_FORM_REGISTRY_SIZE);
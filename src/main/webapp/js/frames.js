@@ -0,0 +1,89 @@
+const HEADER_LENGTH = 8;
+// The JVM rejects longer frames, so longer data is split into several frames
+const MAX_FRAME_PAYLOAD_LENGTH = 65536;
+const EMPTY_PAYLOAD = Buffer.alloc(0);
+
+function encodeFrame(requestId, payload) {
+    const header = Buffer.alloc(HEADER_LENGTH);
+    header.writeInt32BE(requestId, 0);
+    header.writeInt32BE(payload.length, 4);
+    return Buffer.concat([header, payload], HEADER_LENGTH + payload.length);
+}
+
+/**
+ * Encodes data as frames of at most MAX_FRAME_PAYLOAD_LENGTH bytes followed by a frame with an empty payload, which
+ * tells the reader that the data of the request is complete.
+ */
+function encodeFrames(requestId, data) {
+    const payload = Buffer.from(data, 'utf8');
+    const frames = [];
+    for (let offset = 0; offset < payload.length; offset += MAX_FRAME_PAYLOAD_LENGTH) {
+        frames.push(encodeFrame(requestId, payload.slice(offset, offset + MAX_FRAME_PAYLOAD_LENGTH)));
+    }
+    frames.push(encodeFrame(requestId, EMPTY_PAYLOAD));
+    return Buffer.concat(frames);
+}
+
+class FrameDecoder {
+    constructor(onFrame) {
+        this.onFrame = onFrame;
+        this.chunks = [];
+        this.bufferedLength = 0;
+        this.header = null;
+    }
+
+    push(chunk) {
+        this.chunks.push(chunk);
+        this.bufferedLength += chunk.length;
+        while (this.decodeFrame()) {
+        }
+    }
+
+    decodeFrame() {
+        if (!this.header) {
+            if (this.bufferedLength < HEADER_LENGTH) return false;
+            const header = this.take(HEADER_LENGTH);
+            this.header = { requestId: header.readInt32BE(0), length: header.readInt32BE(4) };
+        }
+        if (this.bufferedLength < this.header.length) return false;
+        const { requestId, length } = this.header;
+        this.header = null;
+        this.onFrame(requestId, this.take(length));
+        return true;
+    }
+
+    take(length) {
+        const buffer = this.chunks.length === 1 ? this.chunks[0] : Buffer.concat(this.chunks, this.bufferedLength);
+        const result = buffer.slice(0, length);
+        const rest = buffer.slice(length);
+        this.chunks = rest.length > 0 ? [rest] : [];
+        this.bufferedLength = rest.length;
+        return result;
+    }
+}
+
+class MessageAssembler {
+    constructor(onMessage) {
+        this.onMessage = onMessage;
+        this.chunks = new Map();
+    }
+
+    push(requestId, payload) {
+        if (payload.length > 0) {
+            if (!this.chunks.has(requestId)) {
+                this.chunks.set(requestId, []);
+            }
+            this.chunks.get(requestId).push(payload);
+            return;
+        }
+        const chunks = this.chunks.get(requestId) || [];
+        this.chunks.delete(requestId);
+        this.onMessage(requestId, Buffer.concat(chunks).toString('utf8'));
+    }
+}
+
+exports.HEADER_LENGTH = HEADER_LENGTH;
+exports.MAX_FRAME_PAYLOAD_LENGTH = MAX_FRAME_PAYLOAD_LENGTH;
+exports.encodeFrames = encodeFrames;
+exports.FrameDecoder = FrameDecoder;
+exports.MessageAssembler = MessageAssembler;
@@ -1,6 +1,8 @@
 const { OPERATIONS } = require('./constants');
 const CleanupCommand = require('./commands/cleanupCommand');
 const PingCommand = require('./commands/pingCommand');
+const RegisterFormCommand = require('./commands/registerFormCommand');
+const StatsCommand = require('./commands/statsCommand');
 const ValidateCommand = require('./commands/validateCommand');
 
 module.exports = function getCommand(operation, data) {
@@ -11,6 +13,12 @@ module.exports = function getCommand(operation, data) {
         case OPERATIONS.VALIDATE: {
             return new ValidateCommand(data);
         }
+        case OPERATIONS.REGISTER_FORM: {
+            return new RegisterFormCommand(data);
+        }
+        case OPERATIONS.STATS: {
+            return new StatsCommand(data);
+        }
         case OPERATIONS.PING: {
             return new PingCommand(data);
         }
@@ -1,31 +1,12 @@
-require('./prepareEnvironment');
-const getCommand = require('./getCommand');
 const process = require('process');
-const Stdout = require('./stdout');
-const { EOT } = require('./constants');
+const { isMainThread } = require('worker_threads');
 
-const stdout = Stdout.getInstance();
+const workerThreads = parseInt(process.env.NODEJS_WORKER_THREADS, 10) || 0;
 
-var data = '';
-
-function onInData(_data) {
-    const eotIndex = _data.indexOf(EOT)
-    if(eotIndex !== -1){
-        data += _data.substring(0, eotIndex);
-        runProcess();
-    }else {
-        data += _data;
-    }
-}
-function runProcess(){
-    const obj = JSON.parse(data);
-    data = '';
-    const command = getCommand(obj.operation, obj);
-    command.execute()
-        .then(() => {
-            stdout.finally();
-        })
+if (isMainThread && workerThreads > 0) {
+    // The main thread only dispatches commands, so it does not load Formio
+    const script = process.execArgv[process.execArgv.indexOf('-e') + 1];
+    require('./workerDispatcher').start(script, workerThreads);
+} else {
+    require('./server');
 }
-process.stdin.on('data', onInData).on('end', () => {
-    runProcess()
-});
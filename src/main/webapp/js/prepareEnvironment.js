@@ -1,4 +1 @@
 require('./initJsDomGlobal');
-const process = require('process');
-
-process.stdin.setEncoding('utf8');
\ No newline at end of file
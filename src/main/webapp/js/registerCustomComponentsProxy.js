@@ -1,11 +1,86 @@
+const { Formio } = require('formiojs');
 const registerCustomComponents = require('./registerCustomComponents');
 
-let previousPath = '';
+let activePath = '';
+// Components which the custom components of the active path have replaced, undefined for the added ones
+let replacedComponents = new Map();
+let runningTasks = 0;
+const waitingTasks = [];
 
-module.exports = function registerCustomComponentsProxy(resourcePath) {
-    if (resourcePath === previousPath) {
-        return;
+function getRegisteredComponents() {
+    return Formio.Components && Formio.Components.components ? Formio.Components.components : {};
+}
+
+function restoreReplacedComponents() {
+    const components = getRegisteredComponents();
+    replacedComponents.forEach((component, name) => {
+        if (component === undefined) {
+            delete components[name];
+        } else {
+            components[name] = component;
+        }
+    });
+    replacedComponents = new Map();
+}
+
+function switchCustomComponents(resourcePath) {
+    restoreReplacedComponents();
+    activePath = '';
+    const componentsBefore = { ...getRegisteredComponents() };
+    try {
+        registerCustomComponents(resourcePath);
+        activePath = resourcePath;
+    } finally {
+        const componentsAfter = getRegisteredComponents();
+        Object.keys(componentsAfter)
+            .filter(name => componentsAfter[name] !== componentsBefore[name])
+            .forEach(name => replacedComponents.set(name, componentsBefore[name]));
+        if (activePath !== resourcePath) {
+            // Components of a path which has failed to register are not left behind
+            restoreReplacedComponents();
+        }
     }
-    registerCustomComponents(resourcePath);
-    previousPath = resourcePath;
-}
\ No newline at end of file
+}
+
+function runWaitingTasks() {
+    while (waitingTasks.length > 0) {
+        const next = waitingTasks[0];
+        if (next.resourcePath !== activePath) {
+            if (runningTasks > 0) {
+                return;
+            }
+            try {
+                switchCustomComponents(next.resourcePath);
+            } catch (err) {
+                waitingTasks.shift();
+                next.reject(err);
+                continue;
+            }
+        }
+        waitingTasks.shift();
+        runningTasks++;
+        Promise.resolve()
+            .then(next.task)
+            .then(next.resolve, next.reject)
+            .finally(() => {
+                runningTasks--;
+                runWaitingTasks();
+            });
+    }
+}
+
+/**
+ * Runs a task with the custom components of the resource path registered in place of the ones of other paths.
+ * Processes and worker threads are shared by all resource groups, while Formio keeps the components in one global
+ * registry, so the components are only switched while no task is running. Tasks of the active path run side by
+ * side; a task of another path waits until the running ones have completed, and the tasks arriving after it wait
+ * behind it whatever their path is, so no path is starved.
+ *
+ * @returns Promise of the result of the task
+ */
+module.exports = function runWithCustomComponents(resourcePath, task) {
+    return new Promise((resolve, reject) => {
+        waitingTasks.push({ resourcePath: resourcePath || '', task, resolve, reject });
+        runWaitingTasks();
+    });
+}
@@ -0,0 +1,51 @@
+require('./prepareEnvironment');
+const getCommand = require('./getCommand');
+const process = require('process');
+const Stdout = require('./stdout');
+const { FrameDecoder, MessageAssembler } = require('./frames');
+const { isMainThread, parentPort } = require('worker_threads');
+const formRegistry = require('./formRegistry');
+const { FORM_NOT_REGISTERED_ERROR, OPERATIONS } = require('./constants');
+
+const stdout = Stdout.getInstance();
+
+function resolveForm(obj) {
+    if (obj.formHash === undefined || obj.operation === OPERATIONS.REGISTER_FORM) {
+        return obj.form;
+    }
+    return obj.form !== undefined
+        ? formRegistry.register(obj.formHash, obj.form)
+        : formRegistry.get(obj.formHash);
+}
+
+function runProcess(requestId, message){
+    let command;
+    try {
+        const obj = JSON.parse(message);
+        const form = resolveForm(obj);
+        if (form === undefined && obj.formHash !== undefined) {
+            stdout.sendError(requestId, FORM_NOT_REGISTERED_ERROR);
+            stdout.finally(requestId);
+            return;
+        }
+        command = getCommand(obj.operation, { ...obj, form, requestId });
+    } catch (err) {
+        stdout.sendError(requestId, err.toString());
+        stdout.finally(requestId);
+        return;
+    }
+    command.execute()
+        .then(() => {
+            stdout.finally(requestId);
+        })
+}
+
+if (!isMainThread) {
+    // Running in a worker thread, the main thread passes every command in one message
+    parentPort.on('message', ({ requestId, message }) => runProcess(requestId, message));
+} else {
+    const messageAssembler = new MessageAssembler(runProcess);
+    const frameDecoder = new FrameDecoder((requestId, payload) => messageAssembler.push(requestId, payload));
+
+    process.stdin.on('data', chunk => frameDecoder.push(chunk));
+}
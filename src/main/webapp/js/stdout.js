@@ -1,5 +1,6 @@
-const { EOT } = require('./constants');
+const { encodeFrames } = require('./frames');
 const process = require('process');
+const { parentPort } = require('worker_threads');
 
 let instance;
 
@@ -8,6 +9,7 @@ class Stdout {
         if (instance) {
             return instance;
         }
+        this.responses = new Map();
         instance = this;
     }
 
@@ -18,18 +20,31 @@ class Stdout {
         return new Stdout();
     }
 
-    send(data) {
-        process.stdout.write(data);
+    send(requestId, data) {
+        this.getResponse(requestId).data += data;
     }
 
-    sendError(err) {
-        process.stderr.write(err);
+    sendError(requestId, err) {
+        this.getResponse(requestId).error += err;
     }
 
-    finally() {
-        process.stdout.write(EOT);
-        process.stderr.write(EOT);
+    finally(requestId) {
+        const response = this.getResponse(requestId);
+        this.responses.delete(requestId);
+        if (parentPort) {
+            parentPort.postMessage({ requestId, data: response.data, error: response.error });
+            return;
+        }
+        process.stdout.write(encodeFrames(requestId, response.data));
+        process.stderr.write(encodeFrames(requestId, response.error));
+    }
+
+    getResponse(requestId) {
+        if (!this.responses.has(requestId)) {
+            this.responses.set(requestId, { data: '', error: '' });
+        }
+        return this.responses.get(requestId);
     }
 }
 
-module.exports = Stdout;
\ No newline at end of file
+module.exports = Stdout;
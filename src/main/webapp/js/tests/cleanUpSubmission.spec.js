@@ -0,0 +1,26 @@
+const assert = require('assert');
+const fs = require('fs');
+const path = require('path');
+
+const cleanUpSubmission = require('../cleanUpSubmission');
+
+// The same cases are run against the Java port of the cleanup in FormioClientTest
+const testResources = path.join(__dirname, '../../../../test/resources');
+const cases = require(path.join(testResources, 'cleanup/compatibility-cases.json'));
+
+function readForm(formKey) {
+    return JSON.parse(fs.readFileSync(path.join(testResources, formKey), 'utf8'));
+}
+
+describe('cleanUpSubmission', () => {
+    cases.forEach(testCase => {
+        it(testCase.description, () => {
+            const form = testCase.formKey ? readForm(testCase.formKey) : testCase.form;
+            const data = JSON.parse(JSON.stringify(testCase.data));
+
+            const result = cleanUpSubmission(form, { data });
+
+            assert.deepStrictEqual(JSON.parse(JSON.stringify(result.data)), testCase.expected);
+        })
+    })
+})
@@ -2,6 +2,8 @@ const assert = require('assert');
 
 const CleanupCommand = require('../commands/cleanupCommand');
 const PingCommand = require('../commands/pingCommand');
+const RegisterFormCommand = require('../commands/registerFormCommand');
+const StatsCommand = require('../commands/statsCommand');
 const ValidateCommand = require('../commands/validateCommand');
 
 const { OPERATION } = require('../constants');
@@ -13,6 +15,8 @@ describe('test', () => {
         assert(getCommand(OPERATION.CLEANUP) instanceof CleanupCommand);
         assert(getCommand(OPERATION.VALIDATE) instanceof ValidateCommand);
         assert(getCommand(OPERATION.PING) instanceof PingCommand);
+        assert(getCommand(OPERATION.REGISTER_FORM) instanceof RegisterFormCommand);
+        assert(getCommand(OPERATION.STATS) instanceof StatsCommand);
         assert(getCommand('text') instanceof PingCommand);
     })
 })
\ No newline at end of file
@@ -0,0 +1,70 @@
+const assert = require('assert');
+const path = require('path');
+
+require('../initJsDomGlobal');
+const cleanUpSubmission = require('../cleanUpSubmission');
+const validateSubmission = require('../validateSubmission');
+
+// The same cases are run against the Java validator in FormioClientTest
+const testResources = path.join(__dirname, '../../../../test/resources');
+const cases = require(path.join(testResources, 'validation/compatibility-cases.json'));
+
+const REQUIRED_TEXT_FORM = {
+    components: [{ type: 'textfield', key: 'text', input: true, validate: { required: true } }]
+};
+
+// Outcome of a validation which can be compared whether it has succeeded or failed
+function validate(form, data, cacheKey) {
+    const submission = cleanUpSubmission(form, { data: JSON.parse(JSON.stringify(data)) });
+    return validateSubmission(form, submission, cacheKey)
+        .then(result => ({ data: JSON.parse(JSON.stringify(result.data)) }), errors => ({ errors }));
+}
+
+describe('validateSubmission', () => {
+    cases.forEach(testCase => {
+        it(testCase.description, () => {
+            const data = JSON.parse(JSON.stringify(testCase.data));
+            const submission = cleanUpSubmission(testCase.form, { data });
+
+            return validateSubmission(testCase.form, submission)
+                .then(result => {
+                    assert(!testCase.errors, `Expected errors ${JSON.stringify(testCase.errors)}`);
+                    assert.deepStrictEqual(JSON.parse(JSON.stringify(result.data)), testCase.expected);
+                }, errors => {
+                    assert.deepStrictEqual(errors, testCase.errors);
+                });
+        })
+    })
+})
+
+describe('validateSubmission with a cached form instance', () => {
+    cases.forEach((testCase, index) => {
+        it(`${testCase.description} when the instance is reused`, async () => {
+            const cacheKey = `compatibility-case-${index}`;
+            const fresh = await validate(testCase.form, testCase.data);
+
+            const first = await validate(testCase.form, testCase.data, cacheKey);
+            const reused = await validate(testCase.form, testCase.data, cacheKey);
+
+            assert.deepStrictEqual(first, fresh);
+            assert.deepStrictEqual(reused, fresh);
+        })
+    })
+
+    it('gives the results of a fresh instance after a failed validation', async () => {
+        const cacheKey = 'required-text';
+        const invalidData = { text: '' };
+        const validData = { text: 'value' };
+        const freshInvalid = await validate(REQUIRED_TEXT_FORM, invalidData);
+        const freshValid = await validate(REQUIRED_TEXT_FORM, validData);
+
+        const failed = await validate(REQUIRED_TEXT_FORM, invalidData, cacheKey);
+        const validAfterFailure = await validate(REQUIRED_TEXT_FORM, validData, cacheKey);
+        const failedAgain = await validate(REQUIRED_TEXT_FORM, invalidData, cacheKey);
+
+        assert(freshInvalid.errors, 'Expected the empty text to be invalid');
+        assert.deepStrictEqual(failed, freshInvalid);
+        assert.deepStrictEqual(validAfterFailure, freshValid);
+        assert.deepStrictEqual(failedAgain, freshInvalid);
+    })
+})
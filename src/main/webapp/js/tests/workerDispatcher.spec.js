@@ -0,0 +1,55 @@
+const assert = require('assert');
+
+const { WorkerDispatcher } = require('../workerDispatcher');
+
+// Answers every command with the id of its worker thread after a while, so commands sent together overlap
+const WORKER_SCRIPT = `
+const { parentPort, threadId } = require('worker_threads');
+parentPort.on('message', ({ requestId }) =>
+    setTimeout(() => parentPort.postMessage({ requestId, data: String(threadId), error: '' }), 100));
+`;
+const FORM_COMMAND = '{"formHash":"5d41402abc4b2a76b9719d911017c592","operation":"validate"}';
+
+function startDispatcher(size) {
+    const dispatcher = new WorkerDispatcher(WORKER_SCRIPT, size);
+    const responses = new Map();
+    dispatcher.write = response => responses.get(response.requestId)(response);
+    dispatcher.execute = (requestId, message) => new Promise(resolve => {
+        responses.set(requestId, resolve);
+        dispatcher.dispatch(requestId, message);
+    });
+    return dispatcher;
+}
+
+function stopDispatcher(dispatcher) {
+    // Workers which exit are replaced, so they are only kept from holding the test process
+    dispatcher.workers.forEach(slot => slot.worker.unref());
+}
+
+describe('workerDispatcher', () => {
+    let dispatcher;
+
+    beforeEach(() => {
+        dispatcher = startDispatcher(2);
+    })
+
+    afterEach(() => {
+        stopDispatcher(dispatcher);
+    })
+
+    it('runs concurrent commands of a form in different workers', async () => {
+        const responses = await Promise.all([
+            dispatcher.execute(1, FORM_COMMAND),
+            dispatcher.execute(2, FORM_COMMAND)
+        ]);
+
+        assert.notStrictEqual(responses[0].data, responses[1].data);
+    })
+
+    it('runs successive commands of a form in the same worker', async () => {
+        const first = await dispatcher.execute(1, FORM_COMMAND);
+        const second = await dispatcher.execute(2, FORM_COMMAND);
+
+        assert.strictEqual(second.data, first.data);
+    })
+})
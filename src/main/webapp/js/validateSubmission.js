@@ -1,30 +1,40 @@
-const { Formio } = require('formiojs');
+const formInstanceCache = require('./formInstanceCache');
 
-const body = document.body;
-
-module.exports = function validateSubmission(form, submission) {
+function validate(instance, submission) {
     return new Promise((resolve, reject) => {
-        Formio.createForm(body, form)
-            .then(instance => {
-                instance.once('error', errors => {
-                    errors = errors && errors.map(error => error.message);
-                    reject(errors);
-                });
-                instance.once('submit', submit => {
-                    resolve(submit)
-                });
-                instance.once('change', () => {
-                    instance.submit()
-                        .then(() => {
+        instance.once('error', errors => {
+            errors = errors && errors.map(error => error.message);
+            reject(errors);
+        });
+        instance.once('submit', submit => {
+            resolve(submit)
+        });
+        instance.once('change', () => {
+            instance.submit()
+                .then(() => {
 
-                        }).catch(() => {
+                }).catch(() => {
 
-                        });
                 });
-                instance.submission = submission;
-            })
-            .catch(err => {
-                reject(err);
-            })
+        });
+        instance.submission = submission;
+    }).finally(() => {
+        // Only one of the 'submit' and 'error' listeners has fired and the 'change' listener may not
+        // have fired at all, so none of them must outlive the validation on a cached instance.
+        instance.off('submit');
+        instance.off('error');
+        instance.off('change');
     })
-}
\ No newline at end of file
+}
+
+module.exports = function validateSubmission(form, submission, cacheKey) {
+    return formInstanceCache.acquire(cacheKey, form)
+        .then(entry => validate(entry.instance, submission)
+            .then(result => {
+                formInstanceCache.release(cacheKey, entry);
+                return result;
+            }, errors => {
+                formInstanceCache.release(cacheKey, entry);
+                throw errors;
+            }));
+}
@@ -1,6 +1,6 @@
 const path = require('path');
 
-const externalLibs = ['jsdom-global', 'formiojs', 'fs', 'path', 'process', 'readline'];
+const externalLibs = ['jsdom-global', 'formiojs', 'fs', 'path', 'process', 'readline', 'worker_threads'];
 
 module.exports = {
   entry: './index.js',
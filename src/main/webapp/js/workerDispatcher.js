@@ -0,0 +1,171 @@
+const process = require('process');
+const { Worker } = require('worker_threads');
+const { FrameDecoder, MessageAssembler, encodeFrames } = require('./frames');
+const { OPERATIONS } = require('./constants');
+
+// Commands longer than this carry a form or data and are never broadcast, so they are not parsed here
+const MAX_BROADCAST_COMMAND_LENGTH = 64;
+// Commands start with the hash of their form, so only their beginning is searched for it
+const FORM_HASH_PATTERN = /^\{"formHash":"([^"]+)"/;
+const FORM_HASH_PREFIX_LENGTH = 128;
+
+class WorkerSlot {
+    constructor(script, onResponse, onExit) {
+        this.pendingRequests = new Set();
+        this.worker = new Worker(script, { eval: true });
+        this.worker.on('message', response => {
+            this.pendingRequests.delete(response.requestId);
+            onResponse(response);
+        });
+        this.worker.on('error', err => this.fail(err, onResponse));
+        this.worker.on('exit', code => {
+            this.fail(`Worker thread has exited with code ${code}`, onResponse);
+            onExit(this);
+        });
+    }
+
+    post(requestId, message) {
+        this.pendingRequests.add(requestId);
+        this.worker.postMessage({ requestId, message });
+    }
+
+    fail(err, onResponse) {
+        const error = err instanceof Error ? err.toString() : String(err);
+        this.pendingRequests.forEach(requestId => onResponse({ requestId, data: '', error }));
+        this.pendingRequests.clear();
+    }
+}
+
+/**
+ * Runs the commands read from the standard input in worker threads, each with its own copy of Formio, and writes
+ * their responses to the standard streams. Workers register forms and cache form instances on their own, so the
+ * commands of a form prefer the worker chosen by the form hash. While that worker has pending commands they go to the
+ * worker with the fewest pending commands instead, so a busy form is not run one command at a time; a worker which
+ * has not registered the form answers FORM_NOT_REGISTERED and gets the command again with the form. Commands without
+ * a form go to the worker with the fewest pending commands; the stats command goes to every worker and the counters
+ * of the workers are summed up.
+ */
+class WorkerDispatcher {
+    constructor(script, size) {
+        this.script = script;
+        this.broadcasts = new Map();
+        this.workers = [];
+        for (let i = 0; i < size; i++) {
+            this.workers.push(this.startWorker());
+        }
+    }
+
+    startWorker() {
+        return new WorkerSlot(this.script, response => this.respond(response), worker => this.replace(worker));
+    }
+
+    replace(worker) {
+        const index = this.workers.indexOf(worker);
+        if (index !== -1) {
+            this.workers[index] = this.startWorker();
+        }
+    }
+
+    dispatch(requestId, message) {
+        if (this.isStatsCommand(message)) {
+            this.broadcast(requestId, message);
+            return;
+        }
+        const formHash = getFormHash(message);
+        const worker = formHash !== undefined ? this.preferredWorker(formHash) : this.leastBusyWorker();
+        worker.post(requestId, message);
+    }
+
+    preferredWorker(formHash) {
+        const worker = this.workers[hashCode(formHash) % this.workers.length];
+        return worker.pendingRequests.size === 0 ? worker : this.leastBusyWorker();
+    }
+
+    leastBusyWorker() {
+        return this.workers.reduce((leastBusy, candidate) =>
+            candidate.pendingRequests.size < leastBusy.pendingRequests.size ? candidate : leastBusy);
+    }
+
+    isStatsCommand(message) {
+        if (message.length > MAX_BROADCAST_COMMAND_LENGTH) {
+            return false;
+        }
+        try {
+            return JSON.parse(message).operation === OPERATIONS.STATS;
+        } catch (err) {
+            return false;
+        }
+    }
+
+    broadcast(requestId, message) {
+        this.broadcasts.set(requestId, { remaining: this.workers.length, responses: [] });
+        this.workers.forEach(worker => worker.post(requestId, message));
+    }
+
+    respond(response) {
+        const broadcast = this.broadcasts.get(response.requestId);
+        if (!broadcast) {
+            this.write(response);
+            return;
+        }
+        broadcast.responses.push(response);
+        if (--broadcast.remaining > 0) {
+            return;
+        }
+        this.broadcasts.delete(response.requestId);
+        this.write(mergeStats(response.requestId, broadcast.responses));
+    }
+
+    write({ requestId, data, error }) {
+        process.stdout.write(encodeFrames(requestId, data));
+        process.stderr.write(encodeFrames(requestId, error));
+    }
+}
+
+function getFormHash(message) {
+    const match = FORM_HASH_PATTERN.exec(message.slice(0, FORM_HASH_PREFIX_LENGTH));
+    return match ? match[1] : undefined;
+}
+
+function hashCode(text) {
+    let hash = 0;
+    for (let i = 0; i < text.length; i++) {
+        hash = (hash * 31 + text.charCodeAt(i)) | 0;
+    }
+    return Math.abs(hash);
+}
+
+function mergeStats(requestId, responses) {
+    const failed = responses.find(response => response.error);
+    if (failed) {
+        return { requestId, data: '', error: failed.error };
+    }
+    const merged = responses
+        .map(response => JSON.parse(response.data))
+        .reduce((total, stats) => sum(total, stats), {});
+    if (merged.memory) {
+        // Heaps belong to the workers and add up, the resident set is the one of the whole process
+        merged.memory.rss = process.memoryUsage().rss;
+    }
+    return { requestId, data: JSON.stringify(merged), error: '' };
+}
+
+function sum(total, stats) {
+    Object.keys(stats).forEach(key => {
+        if (typeof stats[key] === 'number') {
+            total[key] = (total[key] || 0) + stats[key];
+        } else if (stats[key] !== null && typeof stats[key] === 'object') {
+            total[key] = sum(total[key] || {}, stats[key]);
+        }
+    });
+    return total;
+}
+
+exports.WorkerDispatcher = WorkerDispatcher;
+
+exports.start = function (script, size) {
+    const dispatcher = new WorkerDispatcher(script, size);
+    const messageAssembler = new MessageAssembler((requestId, message) => dispatcher.dispatch(requestId, message));
+    const frameDecoder = new FrameDecoder((requestId, payload) => messageAssembler.push(requestId, payload));
+    process.stdin.on('data', chunk => frameDecoder.push(chunk));
+};
@@ -0,0 +1,44 @@
+package com.artezio.forms;
+
+import com.artezio.forms.formio.exceptions.FormValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class FormClientTest {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    @Test
+    public void testDryValidationAndCleanupBatch_DefaultValidatesOneByOne() {
+        FormClient formClient = mock(FormClient.class, Mockito.CALLS_REAL_METHODS);
+        ObjectNode validSubmission = jsonMapper.createObjectNode().put("text", "valid");
+        ObjectNode invalidSubmission = jsonMapper.createObjectNode().put("text", "invalid");
+        ObjectNode currentVariables = jsonMapper.createObjectNode();
+        FormValidationException error = new FormValidationException(new RuntimeException("Invalid text"));
+        doReturn("{\"text\":\"valid\"}").when(formClient)
+                .dryValidationAndCleanup(eq("form"), eq(validSubmission), any(ObjectNode.class));
+        doThrow(error).when(formClient)
+                .dryValidationAndCleanup(eq("form"), eq(invalidSubmission), any(ObjectNode.class));
+
+        List<ValidationResult> actual = formClient.dryValidationAndCleanupBatch("form", asList(
+                new SubmissionVariables(validSubmission, currentVariables),
+                new SubmissionVariables(invalidSubmission, currentVariables)));
+
+        assertEquals(2, actual.size());
+        assertTrue(actual.get(0).isValid());
+        assertEquals("{\"text\":\"valid\"}", actual.get(0).getValidatedVariables());
+        assertFalse(actual.get(1).isValid());
+        assertSame(error, actual.get(1).getError());
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.artezio.forms.formio;
+
+import com.artezio.forms.formio.metrics.CacheMetrics;
+import com.artezio.forms.formio.metrics.FormioMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FormDefinitionCacheTest {
+
+    private final CacheMetrics cacheMetrics = FormioMetrics.cache("formDefinitions", "group", "forms/test.json");
+
+    @After
+    public void tearDown() {
+        FormioMetrics.unregisterAll();
+    }
+
+    @Test
+    public void testGet_LeastRecentlyUsedFormEvicted() {
+        FormDefinitionCache<JsonNode> cache = new FormDefinitionCache<>(2);
+        cache.get("group", "forms/first.json", () -> createForm("first"), cacheMetrics);
+        cache.get("group", "forms/second.json", () -> createForm("second"), cacheMetrics);
+        cache.get("group", "forms/first.json", () -> createForm("reloaded first"), cacheMetrics);
+
+        cache.get("group", "forms/third.json", () -> createForm("third"), cacheMetrics);
+        JsonNode first = cache.get("group", "forms/first.json", () -> createForm("reloaded first"), cacheMetrics);
+        JsonNode second = cache.get("group", "forms/second.json", () -> createForm("reloaded second"), cacheMetrics);
+
+        assertEquals("first", first.get("title").asText());
+        assertEquals("reloaded second", second.get("title").asText());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testGet_InvalidatedWhileLoading() {
+        FormDefinitionCache<JsonNode> cache = new FormDefinitionCache<>(10);
+
+        JsonNode loadedForm = cache.get("group", "forms/test.json", () -> {
+            cache.invalidate("group");
+            return createForm("stale");
+        }, cacheMetrics);
+        JsonNode actual = cache.get("group", "forms/test.json", () -> createForm("current"), cacheMetrics);
+
+        assertEquals("stale", loadedForm.get("title").asText());
+        assertEquals("current", actual.get("title").asText());
+        assertEquals(0, cacheMetrics.getHits());
+        assertEquals(2, cacheMetrics.getMisses());
+    }
+
+    private JsonNode createForm(String title) {
+        return JsonNodeFactory.instance.objectNode().put("title", title);
+    }
+
+}
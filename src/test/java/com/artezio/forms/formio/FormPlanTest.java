@@ -0,0 +1,99 @@
+package com.artezio.forms.formio;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class FormPlanTest {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    @Test
+    public void testCompile_LayoutComponentsFlattened() throws IOException {
+        JsonNode form = readForm("{'type': 'form', 'components': ["
+                + "{'type': 'textfield', 'key': 'text', 'input': true, 'disabled': true},"
+                + "{'type': 'panel', 'key': 'panel', 'components': ["
+                + "  {'type': 'container', 'key': 'container', 'input': true, 'components': ["
+                + "    {'type': 'textfield', 'key': 'containerText', 'input': true}]},"
+                + "  {'type': 'fieldset', 'key': 'fieldset', 'components': ["
+                + "    {'type': 'textfield', 'key': 'fieldsetText', 'input': true}]}]},"
+                + "{'type': 'columns', 'key': 'columns', 'columns': [{'components': ["
+                + "  {'type': 'datagrid', 'key': 'grid', 'input': true, 'components': ["
+                + "    {'type': 'number', 'key': 'number', 'input': true}]}]}]}]}");
+
+        FormPlan formPlan = FormPlan.compile(form);
+
+        List<FormPlan.Component> fields = formPlan.getRoot().getFields();
+        assertEquals(asList("text", "container", "fieldsetText", "grid"), getKeys(fields));
+        assertTrue(fields.get(0).isDisabled());
+        assertTrue(fields.get(1).isContainer());
+        assertTrue(fields.get(3).isArray());
+        assertEquals(asList("text", "container", "grid"), formPlan.getRootFieldNames());
+        assertEquals(asList("text", "container", "container.containerText", "grid", "grid.number"),
+                formPlan.getFieldPaths());
+    }
+
+    @Test
+    public void testCompile_FileFieldsAndSaveStateButtonsFound() throws IOException {
+        JsonNode form = readForm("{'type': 'form', 'components': ["
+                + "{'type': 'columns', 'key': 'columns', 'columns': [{'components': ["
+                + "  {'type': 'container', 'key': 'container', 'components': ["
+                + "    {'type': 'file', 'key': 'attachment', 'input': true}]}]}]},"
+                + "{'type': 'button', 'key': 'cancel', 'action': 'saveState', 'state': 'canceled',"
+                + "  'properties': {'isSubmissionProcessed': false}},"
+                + "{'type': 'button', 'key': 'cancelAgain', 'action': 'saveState', 'state': 'canceled',"
+                + "  'properties': {'isSubmissionProcessed': true}},"
+                + "{'type': 'button', 'key': 'submit', 'action': 'saveState', 'state': 'submitted'}]}");
+
+        FormPlan formPlan = FormPlan.compile(form);
+
+        assertTrue(formPlan.isFileField("attachment"));
+        assertFalse(formPlan.isFileField("container"));
+        assertFalse(formPlan.shouldProcessSubmission("canceled"));
+        assertTrue(formPlan.shouldProcessSubmission("submitted"));
+        assertTrue(formPlan.shouldProcessSubmission("unknown"));
+    }
+
+    @Test
+    public void testCompile_GridRowWrappingRules() throws IOException {
+        JsonNode form = readForm("{'type': 'form', 'components': ["
+                + "{'type': 'datagrid', 'key': 'values', 'properties': {'noRowWrapping': true}, 'components': ["
+                + "  {'type': 'textfield', 'key': 'value', 'input': true}]},"
+                + "{'type': 'editgrid', 'key': 'pairs', 'properties': {'noRowWrapping': 'true'}, 'components': ["
+                + "  {'type': 'textfield', 'key': 'first', 'input': true},"
+                + "  {'type': 'textfield', 'key': 'second', 'input': true}]},"
+                + "{'type': 'datagrid', 'key': 'rows', 'components': ["
+                + "  {'type': 'textfield', 'key': 'text', 'input': true}]}]}");
+
+        FormPlan.Component root = FormPlan.compile(form).getRoot();
+
+        FormPlan.Component values = root.getChild("values");
+        assertTrue(values.isGridUnwrapped());
+        assertTrue(values.isSingleColumnUnwrapped());
+        assertEquals("value", values.getRowWrapperKey());
+        FormPlan.Component pairs = root.getChild("pairs");
+        assertTrue(pairs.isGridUnwrapped());
+        assertFalse(pairs.isSingleColumnUnwrapped());
+        FormPlan.Component rows = root.getChild("rows");
+        assertFalse(rows.isGridUnwrapped());
+        assertFalse(rows.isSingleColumnUnwrapped());
+    }
+
+    private JsonNode readForm(String json) throws IOException {
+        return jsonMapper.readTree(json.replace('\'', '"'));
+    }
+
+    private List<String> getKeys(List<FormPlan.Component> components) {
+        return components.stream()
+                .map(FormPlan.Component::getKey)
+                .collect(Collectors.toList());
+    }
+
+}
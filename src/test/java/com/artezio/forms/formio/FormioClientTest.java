@@ -1,8 +1,16 @@
 package com.artezio.forms.formio;
 
+import com.artezio.forms.SubmissionVariables;
+import com.artezio.forms.ValidationResult;
 import com.artezio.forms.converters.FileConverter;
+import com.artezio.forms.formio.exceptions.FormNotFoundException;
 import com.artezio.forms.formio.exceptions.FormValidationException;
-import com.artezio.forms.formio.nodejs.NodeJsExecutor;
+import com.artezio.forms.formio.exceptions.NodeJsException;
+import com.artezio.forms.formio.exceptions.SubmissionValidationException;
+import com.artezio.forms.formio.metrics.FormioMetrics;
+import com.artezio.forms.formio.metrics.OperationMetrics;
+import com.artezio.forms.formio.nodejs.NodeJsCommand;
+import com.artezio.forms.formio.scripts.ScriptExecutor;
 import com.artezio.forms.resources.ResourceLoader;
 import com.artezio.forms.storages.FileStorage;
 import com.artezio.forms.storages.FileStorageEntity;
@@ -14,6 +22,7 @@ import junitx.framework.ListAssert;
 import org.apache.commons.io.FileUtils;
 import org.junit.*;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatcher;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -23,17 +32,22 @@ import org.powermock.reflect.Whitebox;
 import java.io.*;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.math.BigInteger;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.*;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.mockito.internal.util.reflection.FieldSetter.setField;
 
@@ -43,8 +57,8 @@ public class FormioClientTest {
     private static final String VALIDATION_OPERATION_NAME = "validate";
     private static final String CLEANUP_OPERATION_NAME = "cleanup";
     private static final Path TEST_FORMIO_TMP_DIR = Paths.get(System.getProperty("java.io.tmpdir"), ".test-formio");
-    private static final NodeJsExecutor NODEJS_EXECUTOR = mock(NodeJsExecutor.class);
-    private static final Map<String, NodeJsExecutor> NODEJS_EXECUTORS = mock(Map.class);
+    private static final ScriptExecutor NODEJS_EXECUTOR = mock(ScriptExecutor.class);
+    private static final GroupCache<ScriptExecutor> NODEJS_EXECUTORS = mock(GroupCache.class);
     private static final String PUBLIC_RESOURCES_DIRECTORY = "public";
 
     @Mock
@@ -60,25 +74,24 @@ public class FormioClientTest {
     @BeforeClass
     public static void prepareStaticFinalFields() throws NoSuchFieldException, IllegalAccessException {
         setFinalField(FormioClient.class,"FORMIO_TEMP_DIR", TEST_FORMIO_TMP_DIR);
-        setFinalField(FormioClient.class,"NODEJS_EXECUTORS", NODEJS_EXECUTORS);
-        when(NODEJS_EXECUTORS.computeIfAbsent(any(), any())).thenReturn(NODEJS_EXECUTOR);
+        setFinalField(FormioClient.class,"SCRIPT_EXECUTORS", NODEJS_EXECUTORS);
+        when(NODEJS_EXECUTORS.get(any(), any())).thenReturn(NODEJS_EXECUTOR);
     }
 
     @Before
     public void setUp() throws Exception {
         formioClient = new FormioClient(fileConverter, resourceLoader);
-        setFinalField(FormioClient.class,"RESOURCE_GROUP_FORM_KEYS", new ConcurrentHashMap<>());
+        setFinalField(FormioClient.class,"SUBFORM_INDEXES", new GroupCache<>(100));
+        FormioClient.invalidateForms();
+        setFinalField(FormioClient.class, "JVM_VALIDATION_ENABLED", false);
         FileConverter fileConverter = new DefaultFileConverter();
         setField(formioClient, FormioClient.class.getDeclaredField("fileConverter"), fileConverter);
     }
     
     @After
     public void tearDown() throws NoSuchFieldException, IllegalAccessException {
-        Field submitButtonsCacheField = FormioClient.class.getDeclaredField("SUBMISSION_PROCESSING_DECISIONS_CACHE");
         Field formResourcesDirCacheField = FormioClient.class.getDeclaredField("FORM_RESOURCES_DIR_CACHE");
-        submitButtonsCacheField.setAccessible(true);
         formResourcesDirCacheField.setAccessible(true);
-        ((Map<String, JsonNode>) submitButtonsCacheField.get(FormioClient.class)).clear();
         ((Map<String, JsonNode>) formResourcesDirCacheField.get(FormioClient.class)).clear();
     }
 
@@ -95,38 +108,74 @@ public class FormioClientTest {
         InputStream is = getClass().getClassLoader().getResourceAsStream(formKey);
         InputStream form = getClass().getClassLoader().getResourceAsStream(formKey);
         JsonNode formDefinition = jsonMapper.readTree(is);
-        String formDefinitionJson = formDefinition.toString();
         JsonNode cleanupResult = jsonMapper.createObjectNode();
         JsonNode expected = formDefinition.deepCopy();
         ((ObjectNode) expected).set("data", cleanupResult);
-        String customComponent1Name = "component.js";
-        String customComponent2Name = "texteditor.js";
-        String customComponent1RelativePath = Paths.get("custom-components", customComponent1Name).toString();
-        String customComponent1FullPath = Paths.get(PUBLIC_RESOURCES_DIRECTORY, customComponent1RelativePath).toString();
-        String customComponent2RelativePath = Paths.get("custom-components", customComponent2Name).toString();
-        String customComponent2FullPath = Paths.get(PUBLIC_RESOURCES_DIRECTORY, customComponent2RelativePath).toString();
-        String formResourcesDirPath = Paths.get(TEST_FORMIO_TMP_DIR.toString(), String.valueOf(formDefinitionJson.hashCode())).toString();
-        String formIoBundle = toFormIoBundle(CLEANUP_OPERATION_NAME, formDefinitionJson, currentVariables.toString(), formResourcesDirPath);
 
         when(resourceLoader.getResource(formKey)).thenReturn(form);
-        when(resourceLoader.listResourceNames()).thenReturn(asList(customComponent1RelativePath, customComponent2RelativePath));
-        when(resourceLoader.getResource(customComponent1RelativePath)).thenReturn(new FileInputStream(getFile(customComponent1FullPath)));
-        when(resourceLoader.getResource(customComponent2RelativePath)).thenReturn(new FileInputStream(getFile(customComponent2FullPath)));
-        when(NODEJS_EXECUTOR.execute(formIoBundle)).thenReturn(cleanupResult.toString());
 
         String actual = formioClient.getFormWithData(formKey, currentVariables, resourceLoader, fileStorage);
 
         assertEquals(expected.toString(), actual);
-        File formResourcesDir = new File(formResourcesDirPath);
-        assertTrue(formResourcesDir.exists());
-        File customComponentsDir = formResourcesDir.listFiles()[0];
-        assertEquals("custom-components", customComponentsDir.getName());
-        assertEquals(2, customComponentsDir.listFiles().length);
-        FileUtils.deleteDirectory(formResourcesDir);
     }
 
     @Test
-    //TODO //Replace anyString() with formioBundle
+    public void testGetFormWithData_FormCached() throws Exception {
+        String formKey = "forms/formWithFile.json";
+        ObjectNode currentVariables = jsonMapper.createObjectNode();
+        currentVariables.put("unknown", "value");
+        JsonNode formDefinition = jsonMapper.readTree(getClass().getClassLoader().getResourceAsStream(formKey));
+        ObjectNode expected = formDefinition.deepCopy();
+        expected.putObject("data");
+
+        when(resourceLoader.getGroupId()).thenReturn("group");
+        when(resourceLoader.getResource(formKey))
+                .thenAnswer(invocation -> getClass().getClassLoader().getResourceAsStream(formKey));
+
+        formioClient.getFormWithData(formKey, currentVariables, resourceLoader, fileStorage);
+        String actual = formioClient.getFormWithData(formKey, jsonMapper.createObjectNode(), resourceLoader, fileStorage);
+        formioClient.getRootFormFieldNames(formKey, resourceLoader);
+
+        assertEquals(expected.toString(), actual);
+        verify(resourceLoader, times(1)).getResource(formKey);
+    }
+
+    @Test
+    public void testGetFormWithData_FormInvalidated() throws Exception {
+        String formKey = "forms/formWithFile.json";
+
+        when(resourceLoader.getGroupId()).thenReturn("group");
+        when(resourceLoader.getResource(formKey))
+                .thenAnswer(invocation -> getClass().getClassLoader().getResourceAsStream(formKey));
+
+        formioClient.getFormWithData(formKey, jsonMapper.createObjectNode(), resourceLoader, fileStorage);
+        FormioClient.invalidateForms("other group");
+        formioClient.getFormWithData(formKey, jsonMapper.createObjectNode(), resourceLoader, fileStorage);
+        FormioClient.invalidateForms("group");
+        formioClient.getFormWithData(formKey, jsonMapper.createObjectNode(), resourceLoader, fileStorage);
+
+        verify(resourceLoader, times(2)).getResource(formKey);
+    }
+
+    @Test
+    public void testGetFormByKey_ReturnedFormModified() throws Exception {
+        String formKey = "forms/formWithFile.json";
+        JsonNode expected = jsonMapper.readTree(getClass().getClassLoader().getResourceAsStream(formKey));
+
+        when(resourceLoader.getGroupId()).thenReturn("group");
+        when(resourceLoader.getResource(formKey))
+                .thenAnswer(invocation -> getClass().getClassLoader().getResourceAsStream(formKey));
+
+        ObjectNode modified = Whitebox.invokeMethod(formioClient, "getFormByKey", formKey, resourceLoader);
+        modified.put("display", "wizard");
+        ((ArrayNode) modified.get("components")).removeAll();
+        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormByKey", formKey, resourceLoader);
+
+        assertEquals(expected, actual);
+        verify(resourceLoader, times(1)).getResource(formKey);
+    }
+
+    @Test
     public void testGetFormWithData_DataWithFilePassed() throws Exception {
         String formKey = "forms/formWithFile.json";
         ObjectNode currentVariables = jsonMapper.createObjectNode();
@@ -140,45 +189,25 @@ public class FormioClientTest {
         formioFile.put("storage", "base64");
         ObjectNode file = fileVariable.addObject();
         file.setAll(formioFile);
-        ObjectNode currentVariablesWithFormioFiles = currentVariables.deepCopy();
-        ((ArrayNode) currentVariablesWithFormioFiles.get("testFile")).set(0, formioFile);
-        ((ObjectNode) currentVariablesWithFormioFiles.get("testFile").get(0)).remove("url");
         InputStream is = getClass().getClassLoader().getResourceAsStream(formKey);
         InputStream form = getClass().getClassLoader().getResourceAsStream(formKey);
         JsonNode formDefinition = jsonMapper.readTree(is);
-        String formDefinitionJson = formDefinition.toString();
         ObjectNode cleanupResult = jsonMapper.createObjectNode();
-        cleanupResult.putArray("testFile").addObject().setAll(formioFile);
+        ObjectNode expectedFile = cleanupResult.putArray("testFile").addObject();
+        expectedFile.setAll(formioFile);
+        expectedFile.put("url", "http://localhost/files/data:text/plain;base64,ZGF0YQ==");
         JsonNode expected = formDefinition.deepCopy();
-        ((ObjectNode) expected).set("data", cleanupResult.deepCopy());
-        String customComponent1Name = "component.js";
-        String customComponent2Name = "texteditor.js";
-        String customComponent1RelativePath = Paths.get("custom-components", customComponent1Name).toString();
-        String customComponent1FullPath = Paths.get(PUBLIC_RESOURCES_DIRECTORY, customComponent1RelativePath).toString();
-        String customComponent2RelativePath = Paths.get("custom-components", customComponent2Name).toString();
-        String customComponent2FullPath = Paths.get(PUBLIC_RESOURCES_DIRECTORY, customComponent2RelativePath).toString();
-        String formResourcesDirPath = Paths.get(TEST_FORMIO_TMP_DIR.toString(), String.valueOf(formDefinitionJson.hashCode())).toString();
-        String formIoBundle = toFormIoBundle(CLEANUP_OPERATION_NAME, formDefinitionJson, currentVariablesWithFormioFiles.toString(), formResourcesDirPath);
+        ((ObjectNode) expected).set("data", cleanupResult);
 
         when(resourceLoader.getResource(formKey)).thenReturn(form);
-        when(resourceLoader.listResourceNames()).thenReturn(asList(customComponent1RelativePath, customComponent2RelativePath));
-        when(resourceLoader.getResource(customComponent1RelativePath)).thenReturn(new FileInputStream(getFile(customComponent1FullPath)));
-        when(resourceLoader.getResource(customComponent2RelativePath)).thenReturn(new FileInputStream(getFile(customComponent2FullPath)));
-        when(NODEJS_EXECUTOR.execute(anyString())).thenReturn(cleanupResult.toString());
+        when(fileStorage.getDownloadUrlPrefix()).thenReturn("http://localhost/files");
 
         String actual = formioClient.getFormWithData(formKey, currentVariables, resourceLoader, fileStorage);
 
-        assertEquals(expected.toString(), actual);
-        File formResourcesDir = new File(formResourcesDirPath);
-        assertTrue(formResourcesDir.exists());
-        File customComponentsDir = formResourcesDir.listFiles()[0];
-        assertEquals("custom-components", customComponentsDir.getName());
-        assertEquals(2, customComponentsDir.listFiles().length);
-        FileUtils.deleteDirectory(formResourcesDir);
+        assertEquals(expected, jsonMapper.readTree(actual));
     }
 
     @Test
-    //TODO Replace anyString() with formioBundle
     public void testGetFormWithData_ExistentDataPassed() throws Exception {
         String formKey = "forms/formWithFile.json";
         ObjectNode currentVariables = jsonMapper.createObjectNode();
@@ -196,79 +225,178 @@ public class FormioClientTest {
         InputStream form = getClass().getClassLoader().getResourceAsStream(formKey);
         JsonNode formDefinition = jsonMapper.readTree(is);
         JsonNode expected = formDefinition.deepCopy();
-        String formDefinitionJson = formDefinition.toString();
         ((ObjectNode) expected).set("data", cleanupResult);
-        String customComponent1Name = "component.js";
-        String customComponent2Name = "texteditor.js";
-        String customComponent1RelativePath = Paths.get("custom-components", customComponent1Name).toString();
-        String customComponent1FullPath = Paths.get(PUBLIC_RESOURCES_DIRECTORY, customComponent1RelativePath).toString();
-        String customComponent2RelativePath = Paths.get("custom-components", customComponent2Name).toString();
-        String customComponent2FullPath = Paths.get(PUBLIC_RESOURCES_DIRECTORY, customComponent2RelativePath).toString();
-        String formResourcesDirPath = Paths.get(TEST_FORMIO_TMP_DIR.toString(), String.valueOf(formDefinitionJson.hashCode())).toString();
-        String formIoBundle = toFormIoBundle(CLEANUP_OPERATION_NAME, formDefinition.toString(), currentVariables.toString(), formResourcesDirPath);
 
         when(resourceLoader.getResource(formKey)).thenReturn(form);
-        when(resourceLoader.listResourceNames()).thenReturn(asList(customComponent1RelativePath, customComponent2RelativePath));
-        when(resourceLoader.getResource(customComponent1RelativePath)).thenReturn(new FileInputStream(getFile(customComponent1FullPath)));
-        when(resourceLoader.getResource(customComponent2RelativePath)).thenReturn(new FileInputStream(getFile(customComponent2FullPath)));
-//        when(fileConverter.toFormioFile(file)).thenReturn(file);
-        when(NODEJS_EXECUTOR.execute(anyString())).thenReturn(cleanupResult.toString());
 
         String actual = formioClient.getFormWithData(formKey, currentVariables, resourceLoader, fileStorage);
         JsonNode actualJson = jsonMapper.readTree(actual);
 
         assertTrue(actualJson.has("data"));
         JsonNode actualData = actualJson.get("data");
-        assertTrue(actualData.has("container"));
+        assertFalse(actualData.has("container"));
         assertTrue(actualData.has("testFile"));
         assertFalse(actualData.at("/testFile/0/name").isMissingNode());
         assertEquals(formKey, actualData.at("/testFile/0/name").asText());
-        File formResourcesDir = new File(formResourcesDirPath);
-        assertTrue(formResourcesDir.exists());
-        File customComponentsDir = formResourcesDir.listFiles()[0];
-        assertEquals("custom-components", customComponentsDir.getName());
-        assertEquals(2, customComponentsDir.listFiles().length);
-        FileUtils.deleteDirectory(formResourcesDir);
     }
 
     @Test
-    //TODO Replace anyString() with formioBundle
     public void testGetFormWithData_NonexistentDataPassed() throws Exception {
         String formKey = "forms/formWithFile.json";
         ObjectNode currentVariables = jsonMapper.createObjectNode();
-        currentVariables.set("testFile", getFormioFileData(formKey, "application/json"));
-        ((ObjectNode) currentVariables.get("testFile").get(0)).remove("url");
+        currentVariables.put("nonexistentField", "value");
+        currentVariables.putObject("nonexistentContainer").put("testFile", "value");
         InputStream is = getClass().getClassLoader().getResourceAsStream(formKey);
         InputStream form = getClass().getClassLoader().getResourceAsStream(formKey);
         JsonNode formDefinition = jsonMapper.readTree(is);
-        String formDefinitionJson = formDefinition.toString();
         JsonNode cleanupResult = jsonMapper.createObjectNode();
         JsonNode expected = formDefinition.deepCopy();
         ((ObjectNode) expected).set("data", cleanupResult);
-        String customComponent1Name = "component.js";
-        String customComponent2Name = "texteditor.js";
-        String customComponent1RelativePath = Paths.get("custom-components", customComponent1Name).toString();
-        String customComponent1FullPath = Paths.get(PUBLIC_RESOURCES_DIRECTORY, customComponent1RelativePath).toString();
-        String customComponent2RelativePath = Paths.get("custom-components", customComponent2Name).toString();
-        String customComponent2FullPath = Paths.get(PUBLIC_RESOURCES_DIRECTORY, customComponent2RelativePath).toString();
-        String formResourcesDirPath = Paths.get(TEST_FORMIO_TMP_DIR.toString(), String.valueOf(formDefinitionJson.hashCode())).toString();
-        String formIoBundle = toFormIoBundle(CLEANUP_OPERATION_NAME, formDefinition.toString(), currentVariables.toString(), formResourcesDirPath);
 
         when(resourceLoader.getResource(formKey)).thenReturn(form);
-        when(resourceLoader.listResourceNames()).thenReturn(asList(customComponent1RelativePath, customComponent2RelativePath));
-        when(resourceLoader.getResource(customComponent1RelativePath)).thenReturn(new FileInputStream(getFile(customComponent1FullPath)));
-        when(resourceLoader.getResource(customComponent2RelativePath)).thenReturn(new FileInputStream(getFile(customComponent2FullPath)));
-        when(NODEJS_EXECUTOR.execute(anyString())).thenReturn(cleanupResult.toString());
 
         String actual = formioClient.getFormWithData(formKey, currentVariables, resourceLoader, fileStorage);
 
         assertEquals(expected.toString(), actual);
-        File formResourcesDir = new File(formResourcesDirPath);
-        assertTrue(formResourcesDir.exists());
-        File customComponentsDir = formResourcesDir.listFiles()[0];
-        assertEquals("custom-components", customComponentsDir.getName());
-        assertEquals(2, customComponentsDir.listFiles().length);
-        FileUtils.deleteDirectory(formResourcesDir);
+    }
+
+    @Test
+    public void testDryValidationAndCleanup_ValidDataValidatedInJvm() throws Exception {
+        String formKey = "forms/formWithDeclarativeValidation.json";
+        ObjectNode submittedVariables = jsonMapper.createObjectNode();
+        submittedVariables.put("name", "John");
+        submittedVariables.put("email", "john@example.com");
+        submittedVariables.put("age", 30);
+        submittedVariables.put("agreed", true);
+        submittedVariables.putArray("phones").addObject().put("phone", "123");
+        submittedVariables.put("unknown", "value");
+        ObjectNode currentVariables = jsonMapper.createObjectNode();
+        ObjectNode expected = submittedVariables.deepCopy();
+        expected.remove("unknown");
+        expected.putObject("address").put("city", "Minsk");
+        expected.put("submit", false);
+        setFinalField(FormioClient.class, "JVM_VALIDATION_ENABLED", true);
+        clearInvocations(NODEJS_EXECUTOR);
+
+        when(resourceLoader.getResource(formKey)).thenReturn(getClass().getClassLoader().getResourceAsStream(formKey));
+
+        String actual = formioClient.dryValidationAndCleanup(formKey, submittedVariables, currentVariables, resourceLoader, fileStorage);
+
+        assertEquals(expected, jsonMapper.readTree(actual));
+        verifyZeroInteractions(NODEJS_EXECUTOR);
+    }
+
+    @Test
+    public void testDryValidationAndCleanup_InvalidDataValidatedInJvm() throws Exception {
+        String formKey = "forms/formWithDeclarativeValidation.json";
+        ObjectNode submittedVariables = jsonMapper.createObjectNode();
+        submittedVariables.put("name", "j");
+        submittedVariables.put("email", "john@");
+        submittedVariables.put("age", 12);
+        submittedVariables.put("agreed", false);
+        submittedVariables.putArray("phones").addObject();
+        ObjectNode currentVariables = jsonMapper.createObjectNode();
+        List<String> expected = asList(
+                "Name must have at least 2 characters.",
+                "Name does not match the pattern [A-Z][a-z]*",
+                "E-mail must be a valid email.",
+                "Age cannot be less than 18.",
+                "I agree is required",
+                "Phone number is required");
+        setFinalField(FormioClient.class, "JVM_VALIDATION_ENABLED", true);
+        clearInvocations(NODEJS_EXECUTOR);
+
+        when(resourceLoader.getResource(formKey)).thenReturn(getClass().getClassLoader().getResourceAsStream(formKey));
+
+        try {
+            formioClient.dryValidationAndCleanup(formKey, submittedVariables, currentVariables, resourceLoader, fileStorage);
+            fail("Validation should fail");
+        } catch (FormValidationException ex) {
+            SubmissionValidationException cause = (SubmissionValidationException) ex.getCause();
+            assertEquals(expected, cause.getErrors());
+            assertEquals(jsonMapper.writeValueAsString(expected), cause.getMessage());
+        }
+        verifyZeroInteractions(NODEJS_EXECUTOR);
+    }
+
+    @Test
+    public void testDryValidationAndCleanup_DataNotValidatableInJvm() throws Exception {
+        String formKey = "forms/formWithDeclarativeValidation.json";
+        ObjectNode submittedVariables = jsonMapper.createObjectNode();
+        submittedVariables.put("name", "John");
+        submittedVariables.put("age", "30");
+        ObjectNode currentVariables = jsonMapper.createObjectNode();
+        ObjectNode validationResult = jsonMapper.createObjectNode();
+        validationResult.putObject("data").setAll(submittedVariables);
+        setFinalField(FormioClient.class, "JVM_VALIDATION_ENABLED", true);
+
+        when(resourceLoader.getResource(formKey)).thenReturn(getClass().getClassLoader().getResourceAsStream(formKey));
+        when(NODEJS_EXECUTOR.execute(any(NodeJsCommand.class))).thenReturn(validationResult.toString());
+
+        String actual = formioClient.dryValidationAndCleanup(formKey, submittedVariables, currentVariables, resourceLoader, fileStorage);
+
+        assertEquals(submittedVariables, jsonMapper.readTree(actual));
+    }
+
+    @Test
+    public void testIsValidatable_FormWithScripts() throws Exception {
+        JsonNode formDefinition = jsonMapper.readTree(getFile("forms/formWithDeclarativeValidation.json"));
+        ObjectNode name = (ObjectNode) formDefinition.at("/components/0/components/0");
+
+        assertTrue(new FormioValidator(formDefinition).isValidatable());
+        name.with("validate").put("custom", "valid = input === 'John';");
+        assertFalse(new FormioValidator(formDefinition).isValidatable());
+        name.with("validate").put("custom", "");
+        name.put("calculateValue", "value = data.email;");
+        assertFalse(new FormioValidator(formDefinition).isValidatable());
+        name.remove("calculateValue");
+        name.with("conditional").put("when", "email");
+        assertFalse(new FormioValidator(formDefinition).isValidatable());
+        name.with("conditional").putNull("when");
+        name.putArray("logic").addObject().put("name", "logic");
+        assertFalse(new FormioValidator(formDefinition).isValidatable());
+        name.remove("logic");
+        name.put("type", "customComponent");
+        assertFalse(new FormioValidator(formDefinition).isValidatable());
+    }
+
+    @Test
+    public void testValidate_CompatibleWithValidateSubmissionScript() throws Exception {
+        JsonNode cases = jsonMapper.readTree(getFile("validation/compatibility-cases.json"));
+
+        for (JsonNode testCase : cases) {
+            String description = testCase.get("description").asText();
+            JsonNode formDefinition = testCase.get("form");
+            ObjectNode data = testCase.get("data").deepCopy();
+            Whitebox.invokeMethod(formioClient, "stripUnknown", data, FormPlan.compile(formDefinition).getCleanupSchema());
+            FormioValidator validator = new FormioValidator(formDefinition);
+
+            assertTrue(description, validator.isValidatable() && validator.isValidatable(data));
+            try {
+                ObjectNode submission = validator.validate(data);
+                assertFalse(description, testCase.has("errors"));
+                assertEquals(description, testCase.get("expected"), submission.get("data"));
+            } catch (SubmissionValidationException ex) {
+                assertEquals(description, testCase.get("errors"), jsonMapper.valueToTree(ex.getErrors()));
+            }
+        }
+    }
+
+    @Test
+    public void testStripUnknown_CompatibleWithCleanUpSubmissionScript() throws Exception {
+        JsonNode cases = jsonMapper.readTree(getFile("cleanup/compatibility-cases.json"));
+
+        for (JsonNode testCase : cases) {
+            JsonNode formDefinition = testCase.has("formKey")
+                    ? jsonMapper.readTree(getFile(testCase.get("formKey").asText()))
+                    : testCase.get("form");
+            JsonNode data = testCase.get("data").deepCopy();
+
+            ObjectNode schema = FormPlan.compile(formDefinition).getCleanupSchema();
+            Whitebox.invokeMethod(formioClient, "stripUnknown", data, schema);
+
+            assertEquals(testCase.get("description").asText(), testCase.get("expected"), data);
+        }
     }
 
     @Test
@@ -297,7 +425,7 @@ public class FormioClientTest {
         when(resourceLoader.listResourceNames()).thenReturn(asList(customComponent1RelativePath, customComponent2RelativePath));
         when(resourceLoader.getResource(customComponent1RelativePath)).thenReturn(new FileInputStream(getFile(customComponent1FullPath)));
         when(resourceLoader.getResource(customComponent2RelativePath)).thenReturn(new FileInputStream(getFile(customComponent2FullPath)));
-        when(NODEJS_EXECUTOR.execute(formIoBundle)).thenReturn(validationResult.toString());
+        when(NODEJS_EXECUTOR.execute(argThat(writes(formIoBundle)))).thenReturn(validationResult.toString());
 
         String actual = formioClient.dryValidationAndCleanup(formKey, submittedVariables, currentVariables, resourceLoader, fileStorage);
 
@@ -340,7 +468,7 @@ public class FormioClientTest {
         when(resourceLoader.listResourceNames()).thenReturn(asList(customComponent1RelativePath, customComponent2RelativePath));
         when(resourceLoader.getResource(customComponent1RelativePath)).thenReturn(new FileInputStream(getFile(customComponent1FullPath)));
         when(resourceLoader.getResource(customComponent2RelativePath)).thenReturn(new FileInputStream(getFile(customComponent2FullPath)));
-        when(NODEJS_EXECUTOR.execute(formIoBundle)).thenReturn(validationResult.toString());
+        when(NODEJS_EXECUTOR.execute(argThat(writes(formIoBundle)))).thenReturn(validationResult.toString());
 
         String actual = formioClient.dryValidationAndCleanup(formKey, submittedVariables, currentVariables, resourceLoader, fileStorage);
 
@@ -389,7 +517,7 @@ public class FormioClientTest {
         when(resourceLoader.listResourceNames()).thenReturn(asList(customComponent1RelativePath, customComponent2RelativePath));
         when(resourceLoader.getResource(customComponent1RelativePath)).thenReturn(new FileInputStream(getFile(customComponent1FullPath)));
         when(resourceLoader.getResource(customComponent2RelativePath)).thenReturn(new FileInputStream(getFile(customComponent2FullPath)));
-        when(NODEJS_EXECUTOR.execute(formIoBundle)).thenReturn(validationResult.toString());
+        when(NODEJS_EXECUTOR.execute(argThat(writes(formIoBundle)))).thenReturn(validationResult.toString());
 
         String actual = formioClient.dryValidationAndCleanup(formKey, submittedVariables, currentVariables, resourceLoader, fileStorage);
 
@@ -450,7 +578,7 @@ public class FormioClientTest {
             storage.put(((FileStorageEntity)answer.getArgument(0)).getId(), answer.getArgument(0));
             return null;
         }).when(fileStorage).store(any(FileStorageEntity.class));
-        when(NODEJS_EXECUTOR.execute(formIoBundle)).thenReturn(validationResult.toString());
+        when(NODEJS_EXECUTOR.execute(argThat(writes(formIoBundle)))).thenReturn(validationResult.toString());
 
         String actual = formioClient.dryValidationAndCleanup(formKey, submittedVariables, currentVariables, resourceLoader, fileStorage);
 
@@ -491,7 +619,7 @@ public class FormioClientTest {
         when(resourceLoader.listResourceNames()).thenReturn(asList(customComponent1RelativePath, customComponent2RelativePath));
         when(resourceLoader.getResource(customComponent1RelativePath)).thenReturn(new FileInputStream(getFile(customComponent1FullPath)));
         when(resourceLoader.getResource(customComponent2RelativePath)).thenReturn(new FileInputStream(getFile(customComponent2FullPath)));
-        when(NODEJS_EXECUTOR.execute(formIoBundle)).thenThrow(FormValidationException.class);
+        when(NODEJS_EXECUTOR.execute(argThat(writes(formIoBundle)))).thenThrow(FormValidationException.class);
 
         String actual = formioClient.dryValidationAndCleanup(formKey, submittedVariables, currentVariables, resourceLoader, fileStorage);
 
@@ -505,7 +633,206 @@ public class FormioClientTest {
     }
 
     @Test
-    public void testGetRootFormVariableNames() throws URISyntaxException, FileNotFoundException {
+    public void testDryValidationAndCleanupBatch_ValidAndInvalidDataPassed() throws Exception {
+        String formKey = "forms/test.json";
+        ObjectNode currentVariables = jsonMapper.createObjectNode();
+        ObjectNode validVariables = jsonMapper.createObjectNode();
+        validVariables.put("text", "123");
+        ObjectNode invalidVariables = jsonMapper.createObjectNode();
+        invalidVariables.put("text", "");
+        InputStream is = getClass().getClassLoader().getResourceAsStream(formKey);
+        InputStream form = getClass().getClassLoader().getResourceAsStream(formKey);
+        JsonNode formDefinition = jsonMapper.readTree(is);
+        String formDefinitionJson = formDefinition.toString();
+        String formResourcesDirPath = Paths.get(TEST_FORMIO_TMP_DIR.toString(), String.valueOf(formDefinitionJson.hashCode())).toString();
+        String formIoBatchBundle = toFormIoBatchBundle(VALIDATION_OPERATION_NAME, formDefinitionJson,
+                asList(validVariables.toString(), invalidVariables.toString()), formResourcesDirPath);
+        ArrayNode batchResult = jsonMapper.createArrayNode();
+        batchResult.addObject().putObject("result").putObject("data").setAll(validVariables);
+        batchResult.addObject().putArray("error").add("Text is required");
+        List<SubmissionVariables> submissions = asList(
+                new SubmissionVariables(validVariables, currentVariables),
+                new SubmissionVariables(invalidVariables, currentVariables));
+
+        when(resourceLoader.getResource(formKey)).thenReturn(form);
+        when(resourceLoader.listResourceNames()).thenReturn(Collections.emptyList());
+        when(NODEJS_EXECUTOR.execute(argThat(writes(formIoBatchBundle)))).thenReturn(batchResult.toString());
+
+        List<ValidationResult> actual = formioClient.dryValidationAndCleanupBatch(formKey, submissions, resourceLoader, fileStorage);
+
+        assertEquals(2, actual.size());
+        assertTrue(actual.get(0).isValid());
+        assertEquals(validVariables.toString(), actual.get(0).getValidatedVariables());
+        assertFalse(actual.get(1).isValid());
+        assertTrue(actual.get(1).getError() instanceof FormValidationException);
+        assertEquals("[\"Text is required\"]", actual.get(1).getError().getCause().getMessage());
+        FileUtils.deleteDirectory(new File(formResourcesDirPath));
+    }
+
+    @Test
+    public void testDryValidationAndCleanupBatch_BatchLargerThanChunk() throws Exception {
+        String formKey = "forms/test.json";
+        ObjectNode currentVariables = jsonMapper.createObjectNode();
+        ObjectNode firstVariables = jsonMapper.createObjectNode();
+        firstVariables.put("text", "123");
+        ObjectNode secondVariables = jsonMapper.createObjectNode();
+        secondVariables.put("text", "456");
+        InputStream form = getClass().getClassLoader().getResourceAsStream(formKey);
+        String formResourcesDirPath = prepareBatchChunks(formKey, firstVariables, secondVariables);
+        List<SubmissionVariables> submissions = asList(
+                new SubmissionVariables(firstVariables, currentVariables),
+                new SubmissionVariables(secondVariables, currentVariables));
+
+        when(resourceLoader.getResource(formKey)).thenReturn(form);
+        when(resourceLoader.listResourceNames()).thenReturn(Collections.emptyList());
+
+        try {
+            setFinalField(FormioClient.class, "VALIDATION_BATCH_CHUNK_SIZE", 1);
+            List<ValidationResult> actual = formioClient.dryValidationAndCleanupBatch(formKey, submissions, resourceLoader, fileStorage);
+
+            assertEquals(2, actual.size());
+            assertEquals(firstVariables.toString(), actual.get(0).getValidatedVariables());
+            assertEquals(secondVariables.toString(), actual.get(1).getValidatedVariables());
+        } finally {
+            setFinalField(FormioClient.class, "VALIDATION_BATCH_CHUNK_SIZE", 100);
+            FileUtils.deleteDirectory(new File(formResourcesDirPath));
+        }
+    }
+
+    @Test
+    public void testDryValidationAndCleanupBatchAsync_BatchLargerThanChunk() throws Exception {
+        String formKey = "forms/test.json";
+        ObjectNode currentVariables = jsonMapper.createObjectNode();
+        ObjectNode firstVariables = jsonMapper.createObjectNode();
+        firstVariables.put("text", "123");
+        ObjectNode secondVariables = jsonMapper.createObjectNode();
+        secondVariables.put("text", "456");
+        InputStream form = getClass().getClassLoader().getResourceAsStream(formKey);
+        String formResourcesDirPath = prepareBatchChunks(formKey, firstVariables, secondVariables);
+        List<SubmissionVariables> submissions = asList(
+                new SubmissionVariables(firstVariables, currentVariables),
+                new SubmissionVariables(secondVariables, currentVariables));
+
+        when(resourceLoader.getResource(formKey)).thenReturn(form);
+        when(resourceLoader.listResourceNames()).thenReturn(Collections.emptyList());
+
+        try {
+            setFinalField(FormioClient.class, "VALIDATION_BATCH_CHUNK_SIZE", 1);
+            List<ValidationResult> actual = formioClient.dryValidationAndCleanupBatchAsync(formKey, submissions,
+                    resourceLoader, fileStorage).get(10, TimeUnit.SECONDS);
+
+            assertEquals(2, actual.size());
+            assertEquals(firstVariables.toString(), actual.get(0).getValidatedVariables());
+            assertEquals(secondVariables.toString(), actual.get(1).getValidatedVariables());
+        } finally {
+            setFinalField(FormioClient.class, "VALIDATION_BATCH_CHUNK_SIZE", 100);
+            FileUtils.deleteDirectory(new File(formResourcesDirPath));
+        }
+    }
+
+    /**
+     * Let the script executor answer a batch command of one submission for each of the given variables
+     *
+     * @return The directory of the form resources the commands refer to
+     */
+    private String prepareBatchChunks(String formKey, ObjectNode... chunkVariables) throws Exception {
+        InputStream is = getClass().getClassLoader().getResourceAsStream(formKey);
+        String formDefinitionJson = jsonMapper.readTree(is).toString();
+        String formResourcesDirPath = Paths.get(TEST_FORMIO_TMP_DIR.toString(), String.valueOf(formDefinitionJson.hashCode())).toString();
+        for (ObjectNode variables : chunkVariables) {
+            String formIoBatchBundle = toFormIoBatchBundle(VALIDATION_OPERATION_NAME, formDefinitionJson,
+                    List.of(variables.toString()), formResourcesDirPath);
+            ArrayNode batchResult = jsonMapper.createArrayNode();
+            batchResult.addObject().putObject("result").putObject("data").setAll(variables);
+            lenient().when(NODEJS_EXECUTOR.execute(argThat(writes(formIoBatchBundle)))).thenReturn(batchResult.toString());
+            lenient().when(NODEJS_EXECUTOR.executeAsync(argThat(writes(formIoBatchBundle))))
+                    .thenReturn(CompletableFuture.completedFuture(batchResult.toString()));
+        }
+        return formResourcesDirPath;
+    }
+
+    @Test
+    public void testDryValidationAndCleanup_FormNotRegisteredInNodeJs() throws Exception {
+        String formKey = "forms/test.json";
+        ObjectNode currentVariables = jsonMapper.createObjectNode();
+        ObjectNode submittedVariables = jsonMapper.createObjectNode();
+        submittedVariables.put("text", "123");
+        InputStream is = getClass().getClassLoader().getResourceAsStream(formKey);
+        InputStream form = getClass().getClassLoader().getResourceAsStream(formKey);
+        JsonNode formDefinition = jsonMapper.readTree(is);
+        String formDefinitionJson = formDefinition.toString();
+        ObjectNode validationResult = jsonMapper.createObjectNode();
+        validationResult.putObject("data").setAll(submittedVariables);
+        String formResourcesDirPath = Paths.get(TEST_FORMIO_TMP_DIR.toString(), String.valueOf(formDefinitionJson.hashCode())).toString();
+        String formIoBundle = toFormIoBundle(VALIDATION_OPERATION_NAME, formDefinitionJson, submittedVariables.toString(), formResourcesDirPath);
+        ObjectNode formIoBundleWithForm = (ObjectNode) jsonMapper.readTree(formIoBundle);
+        ObjectNode expectedBundleWithForm = jsonMapper.createObjectNode();
+        expectedBundleWithForm.set("formHash", formIoBundleWithForm.get("formHash"));
+        expectedBundleWithForm.set("form", formDefinition);
+        expectedBundleWithForm.setAll(formIoBundleWithForm);
+
+        when(resourceLoader.getResource(formKey)).thenReturn(form);
+        when(resourceLoader.listResourceNames()).thenReturn(Collections.emptyList());
+        when(NODEJS_EXECUTOR.execute(argThat(writes(formIoBundle)))).thenThrow(new NodeJsException("FORM_NOT_REGISTERED"));
+        when(NODEJS_EXECUTOR.execute(argThat(writes(expectedBundleWithForm.toString())))).thenReturn(validationResult.toString());
+        OperationMetrics metrics = FormioMetrics.operation(VALIDATION_OPERATION_NAME, "", formKey);
+        long failures = metrics.getFailures();
+        long formNotRegisteredResponses = metrics.getFormNotRegisteredResponses();
+
+        String actual = formioClient.dryValidationAndCleanup(formKey, submittedVariables, currentVariables, resourceLoader, fileStorage);
+
+        assertEquals(submittedVariables.toString(), actual);
+        assertEquals(failures, metrics.getFailures());
+        assertEquals(formNotRegisteredResponses + 1, metrics.getFormNotRegisteredResponses());
+        FileUtils.deleteDirectory(new File(formResourcesDirPath));
+    }
+
+    @Test
+    public void testDryValidationAndCleanup_RequestTimelineListenerAdded() throws Exception {
+        String formKey = "forms/test.json";
+        ObjectNode currentVariables = jsonMapper.createObjectNode();
+        ObjectNode submittedVariables = jsonMapper.createObjectNode();
+        submittedVariables.put("text", "123");
+        JsonNode formDefinition = jsonMapper.readTree(getClass().getClassLoader().getResourceAsStream(formKey));
+        String formResourcesDirPath = Paths.get(TEST_FORMIO_TMP_DIR.toString(),
+                String.valueOf(formDefinition.toString().hashCode())).toString();
+        ObjectNode validationResult = jsonMapper.createObjectNode();
+        validationResult.putObject("data").setAll(submittedVariables);
+        ByteArrayOutputStream command = new ByteArrayOutputStream();
+        List<RequestTimeline> timelines = new ArrayList<>();
+        formioClient.addRequestTimelineListener(timelines::add);
+
+        when(resourceLoader.getResource(formKey)).thenReturn(getClass().getClassLoader().getResourceAsStream(formKey));
+        when(NODEJS_EXECUTOR.execute(any(NodeJsCommand.class))).thenAnswer(invocation -> {
+            invocation.<NodeJsCommand>getArgument(0).writeTo(command);
+            return validationResult.toString();
+        });
+
+        formioClient.dryValidationAndCleanup(formKey, submittedVariables, currentVariables, resourceLoader, fileStorage);
+
+        assertEquals(1, timelines.size());
+        RequestTimeline timeline = timelines.get(0);
+        assertEquals("dryValidationAndCleanup", timeline.getOperation());
+        assertEquals(formKey, timeline.getFormKey());
+        assertEquals("", timeline.getGroupId());
+        assertNull(timeline.getError());
+        assertEquals(command.size(), timeline.getCommandBytes());
+        assertEquals(validationResult.toString().length(), timeline.getResponseBytes());
+        List<RequestPhase> phases = timeline.getPhases().stream()
+                .map(RequestTimeline.PhaseTiming::getPhase)
+                .collect(Collectors.toList());
+        ListAssert.assertEquals(asList(RequestPhase.FORM_LOADING, RequestPhase.SUBFORM_EXPANSION,
+                RequestPhase.FORM_HASHING, RequestPhase.FORM_COMPILATION, RequestPhase.FILE_CONVERSION,
+                RequestPhase.FORM_VARIABLES,
+                RequestPhase.FILE_CONVERSION, RequestPhase.FORM_RESOURCES, RequestPhase.POOL_WAIT,
+                RequestPhase.COMMAND_SERIALIZATION, RequestPhase.SCRIPT_EXECUTION, RequestPhase.RESULT_PARSING,
+                RequestPhase.GRID_UNWRAPPING, RequestPhase.FILE_CONVERSION, RequestPhase.RESPONSE_SERIALIZATION), phases);
+        assertTrue(timeline.getDurationNanos() >= timeline.getDurationNanos(RequestPhase.FILE_CONVERSION));
+        FileUtils.deleteDirectory(new File(formResourcesDirPath));
+    }
+
+    @Test
+    public void testGetRootFormVariableNames()throws URISyntaxException, FileNotFoundException {
         String formKey = "forms/formWithMultilevelVariable.json";
         FileInputStream form = new FileInputStream(getFile(PUBLIC_RESOURCES_DIRECTORY + "/" + formKey));
         List<String> expected = asList("variable1", "variable2", "submit");
@@ -595,6 +922,28 @@ public class FormioClientTest {
         assertEquals(sortArray(expected.get("components")), sortArray(actual.get("components")));
     }
 
+    @Test
+    public void testExpandSubforms_SubformNotFound() throws IOException, URISyntaxException {
+        JsonNode formDefinition = jsonMapper.readTree(getFile("forms/formWithSubform.json"));
+
+        when(resourceLoader.listResourceNames()).thenReturn(asList("forms/formWithSubform.json"));
+        when(resourceLoader.getResource("forms/formWithSubform.json"))
+                .thenAnswer(invocation -> new FileInputStream(getFile("forms/formWithSubform.json")));
+
+        try {
+            formioClient.expandSubforms(formDefinition, resourceLoader);
+            fail("Expected FormNotFoundException");
+        } catch (FormNotFoundException e) {
+            assertEquals("Subform '5dfcb9eefaf27d001be08f11' not found", e.getMessage());
+        }
+        try {
+            formioClient.expandSubforms(formDefinition, resourceLoader);
+            fail("Expected FormNotFoundException");
+        } catch (FormNotFoundException e) {
+            verify(resourceLoader, times(1)).listResourceNames();
+        }
+    }
+
     @Test
     public void testExpandSubforms_FormHasSubformInContainer() throws IOException, URISyntaxException {
         String formKey = "forms/formWithSubformInContainer.json";
@@ -661,9 +1010,11 @@ public class FormioClientTest {
         String data = "{\"text\":\"123\"}";
         String customComponentsDir = "C:\\\\Temp";
         
-        String actual = formioClient.getFormIoCommand(operation, formDefinition, data, customComponentsDir);
+        NodeJsCommand actual = formioClient.getFormIoCommand(operation, "formHash", jsonMapper.readTree(formDefinition),
+                jsonMapper.readTree(data), customComponentsDir);
         
-        JsonNode actualJson = jsonMapper.readTree(actual);
+        JsonNode actualJson = jsonMapper.readTree(toString(actual));
+        assertEquals("formHash", actualJson.get("formHash").asText());
         assertTrue(actualJson.hasNonNull("form"));
         assertEquals(formDefinition, actualJson.get("form").toString());
         assertTrue(actualJson.hasNonNull("data"));
@@ -674,19 +1025,63 @@ public class FormioClientTest {
         assertEquals("C:\\\\\\\\Temp", actualJson.get("resourcePath").asText());
     }
 
+    @Test
+    public void testGetFormIoCommand_FormDefinitionNotPassed() throws Exception {
+        String data = "{\"text\":\"123\"}";
+
+        NodeJsCommand actual = formioClient.getFormIoCommand("operationName", "formHash", null, jsonMapper.readTree(data), "dir");
+
+        JsonNode actualJson = jsonMapper.readTree(toString(actual));
+        assertEquals("formHash", actualJson.get("formHash").asText());
+        assertFalse(actualJson.has("form"));
+        assertEquals(data, actualJson.get("data").toString());
+    }
+
+    @Test
+    public void testGetFormIoBatchCommand() throws Exception {
+        String operation = "operationName";
+        String formDefinition = "{\"_id\":\"1234\",\"type\":\"form\",\"machineName\":\"testForm\"}";
+        List<JsonNode> batch = asList(jsonMapper.readTree("{\"text\":\"123\"}"), jsonMapper.readTree("{\"text\":\"456\"}"));
+        String customComponentsDir = "C:\\\\Temp";
+
+        NodeJsCommand actual = formioClient.getFormIoBatchCommand(operation, "formHash", jsonMapper.readTree(formDefinition),
+                batch, customComponentsDir);
+
+        JsonNode actualJson = jsonMapper.readTree(toString(actual));
+        assertEquals(formDefinition, actualJson.get("form").toString());
+        assertFalse(actualJson.has("data"));
+        assertEquals(jsonMapper.valueToTree(batch), actualJson.get("batch"));
+        assertEquals(operation, actualJson.get("operation").asText());
+        assertEquals("C:\\\\\\\\Temp", actualJson.get("resourcePath").asText());
+    }
+
+    @Test
+    public void testGetFormInstanceCacheStats() {
+        when(NODEJS_EXECUTOR.executeInEachContext(argThat(writes("{\"operation\":\"stats\"}")))).thenReturn(asList(
+                "{\"formInstanceCache\":{\"hits\":3,\"misses\":1,\"size\":1}}",
+                "{\"formInstanceCache\":{\"hits\":0,\"misses\":0,\"size\":0}}"));
+
+        List<FormInstanceCacheStats> actual = formioClient.getFormInstanceCacheStats(resourceLoader);
+
+        assertEquals(2, actual.size());
+        assertEquals(3, actual.get(0).getHits());
+        assertEquals(1, actual.get(0).getMisses());
+        assertEquals(1, actual.get(0).getSize());
+        assertEquals(0.75, actual.get(0).getHitRate(), 0);
+        assertEquals(0, actual.get(1).getHitRate(), 0);
+    }
+
     @Test
     public void testGetFormFields_FormWithSimpleFields() throws Exception {
         JsonNode form = jsonMapper.readTree(getFile("forms/form-with-components.json"));
-        JsonNode components = form.get("components");
-        List<JsonNode> componentList = new ArrayList<>();
-        components.forEach(componentList::add);
+        FormPlan formPlan = FormPlan.compile(form);
         JsonNode submittedVariables = jsonMapper.createObjectNode();
         ((ObjectNode) submittedVariables).put("textField1", "value1");
         ((ObjectNode) submittedVariables).put("textField2", "value2");
         JsonNode currentVariables = jsonMapper.createObjectNode();
         JsonNode expected = submittedVariables.deepCopy().deepCopy();
 
-        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", componentList, submittedVariables, currentVariables);
+        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", formPlan, submittedVariables, currentVariables);
 
         assertEquals(sortObject(expected), sortObject(actual));
     }
@@ -696,8 +1091,7 @@ public class FormioClientTest {
         JsonNode form = jsonMapper.readTree(getFile("forms/form-with-components.json"));
         JsonNode components = form.get("components");
         ((ObjectNode) components.get(0)).put("disabled", true);
-        List<JsonNode> componentList = new ArrayList<>();
-        components.forEach(componentList::add);
+        FormPlan formPlan = FormPlan.compile(form);
         JsonNode submittedVariables = jsonMapper.createObjectNode();
         ((ObjectNode) submittedVariables).put("textField1", "value1");
         ((ObjectNode) submittedVariables).put("textField2", "value2");
@@ -706,7 +1100,7 @@ public class FormioClientTest {
         JsonNode expected = submittedVariables.deepCopy();
         ((ObjectNode) expected).put("textField1", "readonlyValue");
 
-        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", componentList, submittedVariables, currentVariables);
+        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", formPlan, submittedVariables, currentVariables);
 
         assertEquals(sortObject(expected), sortObject(actual));
     }
@@ -714,16 +1108,14 @@ public class FormioClientTest {
     @Test
     public void testGetFormFields_FormWithContainerComponents() throws Exception {
         JsonNode form = jsonMapper.readTree(getFile("forms/form-with-container-components.json"));
-        JsonNode components = form.get("components");
-        List<JsonNode> componentList = new ArrayList<>();
-        components.forEach(componentList::add);
+        FormPlan formPlan = FormPlan.compile(form);
         JsonNode submittedVariables = jsonMapper.createObjectNode();
         ((ObjectNode) submittedVariables).putObject("container1").putObject("container11").put("textField1", "value1");
         ((ObjectNode) submittedVariables).putObject("container2").putObject("container21").put("textField2", "value2");
         JsonNode currentVariables = jsonMapper.createObjectNode();
         JsonNode expected = submittedVariables.deepCopy();
 
-        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", componentList, submittedVariables, currentVariables);
+        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", formPlan, submittedVariables, currentVariables);
 
         assertEquals(sortObject(expected), sortObject(actual));
     }
@@ -733,8 +1125,7 @@ public class FormioClientTest {
         JsonNode form = jsonMapper.readTree(getFile("forms/form-with-container-components.json"));
         JsonNode components = form.get("components");
         ((ObjectNode) components.get(0).get("components").get(0).get("components").get(0)).put("disabled", true);
-        List<JsonNode> componentList = new ArrayList<>();
-        components.forEach(componentList::add);
+        FormPlan formPlan = FormPlan.compile(form);
         JsonNode submittedVariables = jsonMapper.createObjectNode();
         ((ObjectNode) submittedVariables).putObject("container1").putObject("container11").put("textField1", "value1");
         ((ObjectNode) submittedVariables).putObject("container2").putObject("container21").put("textField2", "value2");
@@ -743,7 +1134,7 @@ public class FormioClientTest {
         JsonNode expected = submittedVariables.deepCopy();
         ((ObjectNode) expected).replace("container1", currentVariables.get("container1"));
 
-        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", componentList, submittedVariables, currentVariables);
+        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", formPlan, submittedVariables, currentVariables);
 
         assertEquals(sortObject(expected), sortObject(actual));
     }
@@ -751,16 +1142,14 @@ public class FormioClientTest {
     @Test
     public void testGetFormFields_FormWithArrayComponents() throws Exception {
         JsonNode form = jsonMapper.readTree(getFile("forms/form-with-array-components.json"));
-        JsonNode components = form.get("components");
-        List<JsonNode> componentList = new ArrayList<>();
-        components.forEach(componentList::add);
+        FormPlan formPlan = FormPlan.compile(form);
         JsonNode submittedVariables = jsonMapper.createObjectNode();
         ((ObjectNode) submittedVariables).putArray("dataGrid1").addObject().putArray("dataGrid11").addObject().put("textField1", "value1");
         ((ObjectNode) submittedVariables).putArray("editGrid1").addObject().putArray("editGrid11").addObject().put("textField2", "value2");
         JsonNode currentVariables = jsonMapper.createObjectNode();
         JsonNode expected = submittedVariables.deepCopy();
 
-        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", componentList, submittedVariables, currentVariables);
+        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", formPlan, submittedVariables, currentVariables);
 
         assertEquals(sortObject(expected), sortObject(actual));
     }
@@ -770,8 +1159,7 @@ public class FormioClientTest {
         JsonNode form = jsonMapper.readTree(getFile("forms/form-with-array-components.json"));
         JsonNode components = form.get("components");
         ((ObjectNode) components.get(0).get("components").get(0).get("components").get(0)).put("disabled", true);
-        List<JsonNode> componentList = new ArrayList<>();
-        components.forEach(componentList::add);
+        FormPlan formPlan = FormPlan.compile(form);
         JsonNode submittedVariables = jsonMapper.createObjectNode();
         ((ObjectNode) submittedVariables).putArray("dataGrid1").addObject().putArray("dataGrid11").addObject().put("textField1", "value1");
         ((ObjectNode) submittedVariables).putArray("editGrid1").addObject().putArray("editGrid11").addObject().put("textField2", "value2");
@@ -780,7 +1168,7 @@ public class FormioClientTest {
         JsonNode expected = submittedVariables.deepCopy();
         ((ObjectNode) expected).replace("dataGrid1", currentVariables.get("dataGrid1"));
 
-        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", componentList, submittedVariables, currentVariables);
+        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", formPlan, submittedVariables, currentVariables);
 
         assertEquals(sortObject(expected), sortObject(actual));
     }
@@ -788,9 +1176,7 @@ public class FormioClientTest {
     @Test
     public void testGetFormFields_FormWithLayoutComponents() throws Exception {
         JsonNode form = jsonMapper.readTree(getFile("forms/form-with-layout-components.json"));
-        JsonNode components = form.get("components");
-        List<JsonNode> componentList = new ArrayList<>();
-        components.forEach(componentList::add);
+        FormPlan formPlan = FormPlan.compile(form);
         JsonNode submittedVariables = jsonMapper.createObjectNode();
         ((ObjectNode) submittedVariables).put("textField1", "value1");
         ((ObjectNode) submittedVariables).put("textField2", "value2");
@@ -799,7 +1185,7 @@ public class FormioClientTest {
         JsonNode currentVariables = jsonMapper.createObjectNode();
         JsonNode expected = submittedVariables.deepCopy();
 
-        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", componentList, submittedVariables, currentVariables);
+        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", formPlan, submittedVariables, currentVariables);
 
         assertEquals(sortObject(expected), sortObject(actual));
     }
@@ -809,8 +1195,7 @@ public class FormioClientTest {
         JsonNode form = jsonMapper.readTree(getFile("forms/form-with-layout-components.json"));
         JsonNode components = form.get("components");
         ((ObjectNode) components.get(1).get("components").get(0).get("components").get(0)).put("disabled", true);
-        List<JsonNode> componentList = new ArrayList<>();
-        components.forEach(componentList::add);
+        FormPlan formPlan = FormPlan.compile(form);
         JsonNode submittedVariables = jsonMapper.createObjectNode();
         ((ObjectNode) submittedVariables).put("textField1", "value1");
         ((ObjectNode) submittedVariables).put("textField2", "value2");
@@ -821,7 +1206,7 @@ public class FormioClientTest {
         JsonNode expected = submittedVariables.deepCopy();
         ((ObjectNode) expected).replace("textField2", currentVariables.get("textField2"));
 
-        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", componentList, submittedVariables, currentVariables);
+        JsonNode actual = Whitebox.invokeMethod(formioClient, "getFormVariables", formPlan, submittedVariables, currentVariables);
 
         assertEquals(sortObject(expected), sortObject(actual));
     }
@@ -907,15 +1292,47 @@ public class FormioClientTest {
     }
 
     private String toFormIoBundle(String operation, String formDefinition, String data, String customComponentsDir)
-            throws IOException {
+            throws Exception {
         ObjectNode command = jsonMapper.createObjectNode();
-        command.set("form", jsonMapper.readTree(formDefinition));
+        command.put("formHash", sha256(formDefinition));
         command.set("data", jsonMapper.readTree(data));
         command.put("operation", operation);
         command.put("resourcePath", toSafePath(customComponentsDir));
         return command.toString();
     }
 
+    private String toFormIoBatchBundle(String operation, String formDefinition, List<String> batch, String customComponentsDir)
+            throws Exception {
+        ObjectNode command = jsonMapper.createObjectNode();
+        command.put("formHash", sha256(formDefinition));
+        ArrayNode batchNode = command.putArray("batch");
+        for (String data : batch) {
+            batchNode.add(jsonMapper.readTree(data));
+        }
+        command.put("operation", operation);
+        command.put("resourcePath", toSafePath(customComponentsDir));
+        return command.toString();
+    }
+
+    private String sha256(String value) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        return String.format("%064x", new BigInteger(1, digest));
+    }
+
+    private ArgumentMatcher<NodeJsCommand> writes(String expectedCommand) {
+        return command -> command != null && expectedCommand.equals(toString(command));
+    }
+
+    private String toString(NodeJsCommand command) {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            command.writeTo(outputStream);
+            return outputStream.toString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private String toSafePath(String customComponentsDir) {
         return customComponentsDir.replaceAll("\\\\", "\\\\\\\\");
     }
@@ -0,0 +1,46 @@
+package com.artezio.forms.formio;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GroupCacheTest {
+
+    @Test
+    public void testGet_LeastRecentlyUsedGroupEvicted() {
+        GroupCache<String> cache = new GroupCache<>(2);
+        cache.get("first", groupId -> "first");
+        cache.get("second", groupId -> "second");
+        cache.get("first", groupId -> "recreated first");
+
+        cache.get("third", groupId -> "third");
+        String first = cache.get("first", groupId -> "recreated first");
+        String second = cache.get("second", groupId -> "recreated second");
+
+        assertEquals("first", first);
+        assertEquals("recreated second", second);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testGet_NothingCached() {
+        GroupCache<String> cache = new GroupCache<>(0);
+
+        String actual = cache.get("group", groupId -> "value");
+
+        assertEquals("value", actual);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRemove() {
+        GroupCache<String> cache = new GroupCache<>(2);
+        cache.get("group", groupId -> "value");
+
+        cache.remove("group");
+        String actual = cache.get("group", groupId -> "recreated value");
+
+        assertEquals("recreated value", actual);
+    }
+
+}
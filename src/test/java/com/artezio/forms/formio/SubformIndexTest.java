@@ -0,0 +1,105 @@
+package com.artezio.forms.formio;
+
+import com.artezio.forms.resources.ResourceLoader;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SubformIndexTest {
+
+    @Mock
+    private ResourceLoader resourceLoader;
+    private Map<String, String> resources = new HashMap<>();
+    private SubformIndex subformIndex = new SubformIndex();
+
+    @Before
+    public void setUp() {
+        when(resourceLoader.listResourceNames()).thenAnswer(invocation -> new ArrayList<>(resources.keySet()));
+        lenient().when(resourceLoader.getResource(anyString())).thenAnswer(invocation -> {
+            String resource = resources.get(invocation.<String>getArgument(0));
+            return resource != null ? new ByteArrayInputStream(resource.getBytes(StandardCharsets.UTF_8)) : null;
+        });
+    }
+
+    @Test
+    public void testRefresh_MalformedResourcesSkipped() {
+        resources.put("forms/subform.json", "{\"title\": \"Subform\", \"components\": [{\"type\": \"textfield\"}], "
+                + "\"type\": \"form\", \"_id\": \"subform\"}");
+        resources.put("forms/broken.json", "{\"type\": \"form\", \"components\": [");
+        resources.put("forms/withoutId.json", "{\"type\": \"form\", \"components\": []}");
+        resources.put("forms/resource.json", "{\"type\": \"resource\", \"_id\": \"resource\"}");
+        resources.put("forms/list.json", "[{\"type\": \"form\", \"_id\": \"list\"}]");
+        resources.put("readme.txt", "{\"type\": \"form\", \"_id\": \"text\"}");
+
+        subformIndex.refresh(resourceLoader, Collections.emptySet());
+
+        assertEquals("forms/subform.json", subformIndex.getFormKey("subform"));
+        assertNull(subformIndex.getFormKey("resource"));
+        assertNull(subformIndex.getFormKey("list"));
+        assertNull(subformIndex.getFormKey("text"));
+        assertEquals(Set.of("forms/broken.json", "forms/withoutId.json"), subformIndex.getMalformedResourceNames());
+    }
+
+    @Test
+    public void testRefresh_FormWithIdFoundBeforeEndOfResource() {
+        resources.put("forms/subform.json", "{\"_id\": \"subform\", \"type\": \"form\", \"components\": [ not json");
+
+        subformIndex.refresh(resourceLoader, Collections.emptySet());
+
+        assertEquals("forms/subform.json", subformIndex.getFormKey("subform"));
+        assertTrue(subformIndex.getMalformedResourceNames().isEmpty());
+    }
+
+    @Test
+    public void testRefresh_ResourcesChanged() {
+        resources.put("forms/first.json", "{\"type\": \"form\", \"_id\": \"first\"}");
+        resources.put("forms/second.json", "{\"type\": \"form\", \"_id\": \"second\"}");
+        subformIndex.refresh(resourceLoader, Collections.emptySet());
+        resources.remove("forms/first.json");
+        resources.put("forms/second.json", "{\"type\": \"form\", \"_id\": \"renamed\"}");
+        resources.put("forms/third.json", "{\"type\": \"form\", \"_id\": \"third\"}");
+
+        boolean changed = subformIndex.refresh(resourceLoader, Set.of("forms/second.json"));
+        boolean changedAgain = subformIndex.refresh(resourceLoader, Collections.emptySet());
+
+        assertTrue(changed);
+        assertFalse(changedAgain);
+        assertNull(subformIndex.getFormKey("first"));
+        assertNull(subformIndex.getFormKey("second"));
+        assertEquals("forms/second.json", subformIndex.getFormKey("renamed"));
+        assertEquals("forms/third.json", subformIndex.getFormKey("third"));
+        verify(resourceLoader, times(1)).getResource("forms/third.json");
+        verify(resourceLoader, times(2)).getResource("forms/second.json");
+    }
+
+    @Test
+    public void testGetFormKey_MissingFormLookedUpOncePerInterval() {
+        resources.put("forms/first.json", "{\"type\": \"form\", \"_id\": \"first\"}");
+
+        String firstFormKey = subformIndex.getFormKey("first", resourceLoader, 60_000);
+        resources.put("forms/second.json", "{\"type\": \"form\", \"_id\": \"second\"}");
+        String missingFormKey = subformIndex.getFormKey("second", resourceLoader, 60_000);
+        String addedFormKey = subformIndex.getFormKey("second", resourceLoader, 0);
+
+        assertEquals("forms/first.json", firstFormKey);
+        assertNull(missingFormKey);
+        assertEquals("forms/second.json", addedFormKey);
+        verify(resourceLoader, times(2)).listResourceNames();
+    }
+
+}
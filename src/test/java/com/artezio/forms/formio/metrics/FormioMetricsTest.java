@@ -0,0 +1,167 @@
+package com.artezio.forms.formio.metrics;
+
+import com.artezio.forms.formio.nodejs.NodeJsCommand;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FormioMetricsTest {
+
+    private static final String FORM_KEY = "forms/testForm.json";
+
+    @After
+    public void tearDown() {
+        FormioMetrics.unregisterAll();
+    }
+
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram();
+
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0);
+        assertEquals(63, histogram.getPercentile(0.5));
+        assertEquals(100, histogram.getPercentile(0.99));
+        assertEquals(Long.valueOf(37), histogram.getBuckets().get(127L));
+    }
+
+    @Test
+    public void testHistogram_NoValuesRecorded() {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0, histogram.getPercentile(0.99));
+        assertEquals(0, histogram.getMean(), 0);
+        assertTrue(histogram.getBuckets().isEmpty());
+    }
+
+    @Test
+    public void testCacheMetrics() {
+        CacheMetrics cacheMetrics = FormioMetrics.cache("test", "", FORM_KEY);
+        Map<String, String> cache = new HashMap<>();
+
+        cacheMetrics.computeIfAbsent(cache, "key", key -> "value");
+        cacheMetrics.computeIfAbsent(cache, "key", key -> "other value");
+        String actual = cacheMetrics.computeIfAbsent(cache, "key", key -> "other value");
+
+        assertEquals("value", actual);
+        assertEquals(2, cacheMetrics.getHits());
+        assertEquals(1, cacheMetrics.getMisses());
+        assertEquals(2.0 / 3, cacheMetrics.getHitRatio(), 1e-9);
+        assertSame(cacheMetrics, FormioMetrics.cache("test", "", FORM_KEY));
+    }
+
+    @Test
+    public void testOperationMetrics() throws Exception {
+        OperationMetrics operationMetrics = FormioMetrics.operation("validate", "group", FORM_KEY);
+        NodeJsCommand command = operationMetrics.countBytes(NodeJsCommand.idempotent(
+                outputStream -> outputStream.write("{\"operation\":\"validate\"}".getBytes(StandardCharsets.UTF_8))));
+
+        command.writeTo(new ByteArrayOutputStream());
+        operationMetrics.recordSuccess(System.nanoTime(), "{\"data\":\"é€\"}");
+        operationMetrics.recordFailure(System.nanoTime());
+
+        assertTrue(command.isIdempotent());
+        assertEquals(2, operationMetrics.getRequests());
+        assertEquals(1, operationMetrics.getFailures());
+        assertEquals(24, operationMetrics.getTotalCommandBytes());
+        assertEquals(16, operationMetrics.getTotalResponseBytes());
+    }
+
+    @Test
+    public void testOperationMetrics_FormNotRegistered() {
+        OperationMetrics operationMetrics = FormioMetrics.operation("validate", "group", FORM_KEY);
+
+        operationMetrics.recordFormNotRegistered(System.nanoTime());
+        operationMetrics.recordSuccess(System.nanoTime(), "{}");
+
+        assertEquals(2, operationMetrics.getRequests());
+        assertEquals(0, operationMetrics.getFailures());
+        assertEquals(1, operationMetrics.getFormNotRegisteredResponses());
+    }
+
+    @Test
+    public void testFormMetrics_LeastRecentlyUsedFormUnregistered() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        Field maxFormsField = getSettingField("FORMIO_METRICS_MAX_FORMS");
+        int maxForms = maxFormsField.getInt(null);
+        try {
+            maxFormsField.setInt(null, 2);
+            OperationMetrics firstFormMetrics = FormioMetrics.operation("validate", "group", "forms/first.json");
+            FormioMetrics.cache("test", "group", "forms/first.json");
+            FormioMetrics.operation("validate", "group", "forms/second.json");
+            FormioMetrics.operation("validate", "group", "forms/first.json");
+
+            FormioMetrics.operation("validate", "group", "forms/third.json");
+
+            assertTrue(mBeanServer.isRegistered(getOperationObjectName("forms/first.json")));
+            assertFalse(mBeanServer.isRegistered(getOperationObjectName("forms/second.json")));
+            assertTrue(mBeanServer.isRegistered(getOperationObjectName("forms/third.json")));
+            assertSame(firstFormMetrics, FormioMetrics.operation("validate", "group", "forms/first.json"));
+        } finally {
+            maxFormsField.setInt(null, maxForms);
+        }
+    }
+
+    @Test
+    public void testRegisteredInJmx() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(String.format(
+                "com.artezio.forms.formio:type=Operation,name=\"validate\",group=\"group\",formKey=\"%s\"", FORM_KEY));
+
+        FormioMetrics.operation("validate", "group", FORM_KEY).recordFailure(System.nanoTime());
+
+        assertEquals(1L, mBeanServer.getAttribute(objectName, "Failures"));
+        FormioMetrics.unregisterAll();
+        assertFalse(mBeanServer.isRegistered(objectName));
+    }
+
+    @Test
+    public void testRegisterPool_ReplacesPoolOfSameName() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("com.artezio.forms.formio:type=Pool,name=\"test\"");
+        PoolMetrics closedPoolMetrics = new PoolMetrics(() -> 1, () -> 0, () -> 1, () -> 0);
+        PoolMetrics poolMetrics = new PoolMetrics(() -> 2, () -> 0, () -> 2, () -> 0);
+
+        FormioMetrics.registerPool("test", closedPoolMetrics);
+        FormioMetrics.registerPool("test", poolMetrics);
+        FormioMetrics.unregister(closedPoolMetrics);
+
+        assertEquals(2, mBeanServer.getAttribute(objectName, "ActiveProcesses"));
+    }
+
+    private static ObjectName getOperationObjectName(String formKey) throws JMException {
+        return new ObjectName(String.format(
+                "com.artezio.forms.formio:type=Operation,name=\"validate\",group=\"group\",formKey=\"%s\"", formKey));
+    }
+
+    /**
+     * The final modifier is removed before the field is read, since reading it caches a read-only accessor
+     */
+    private static Field getSettingField(String name) throws NoSuchFieldException, IllegalAccessException {
+        Field field = FormioMetrics.class.getDeclaredField(name);
+        field.setAccessible(true);
+        Field modifiersField = Field.class.getDeclaredField("modifiers");
+        modifiersField.setAccessible(true);
+        modifiersField.setInt(field, field.getModifiers() & ~Modifier.FINAL);
+        return field;
+    }
+
+}
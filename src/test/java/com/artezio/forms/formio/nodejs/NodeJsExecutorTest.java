@@ -0,0 +1,218 @@
+package com.artezio.forms.formio.nodejs;
+
+import com.artezio.forms.formio.exceptions.NodeJsPoolSaturatedException;
+import com.artezio.forms.formio.exceptions.NodeJsProcessException;
+import com.artezio.forms.formio.scripts.ScriptExecutor;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.artezio.forms.formio.nodejs.NodeJsTest.*;
+import static org.junit.Assert.*;
+
+public class NodeJsExecutorTest {
+
+    private static final NodeJsCommand PID_COMMAND = toCommand(command("pid").toString());
+    private static String script;
+
+    private final Map<String, Object> overriddenSettings = new HashMap<>();
+    private NodeJsExecutor executor;
+
+    @BeforeClass
+    public static void loadScript() throws IOException {
+        try (InputStream resource = NodeJsExecutorTest.class.getClassLoader().getResourceAsStream("nodejs/test-node.js")) {
+            script = new String(resource.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (executor != null) {
+            executor.close();
+        }
+        for (Map.Entry<String, Object> setting : overriddenSettings.entrySet()) {
+            setFinalField(setting.getKey(), setting.getValue());
+        }
+    }
+
+    @Test
+    public void testExecuteAsync_IdempotentCommandRetriedOnce() throws Exception {
+        overrideSetting("NODEJS_POOL_MAX_TOTAL", 2);
+        overrideSetting("NODEJS_RETRY_IDEMPOTENT_REQUESTS", true);
+        startExecutor();
+        Path marker = Files.createTempFile("exit-times", ".txt");
+        Path otherMarker = Files.createTempFile("exit-times", ".txt");
+        try {
+            String actual = executor.executeAsync(NodeJsCommand.idempotent(exitTimes(marker, 1))).get(10, TimeUnit.SECONDS);
+            CompletableFuture<String> failedTwice = executor.executeAsync(NodeJsCommand.idempotent(exitTimes(otherMarker, 2)));
+
+            assertEquals("2", actual);
+            assertFailsWith(NodeJsProcessException.class, failedTwice);
+            assertEquals(2, Files.readAllLines(otherMarker).size());
+        } finally {
+            Files.delete(marker);
+            Files.delete(otherMarker);
+        }
+    }
+
+    @Test
+    public void testExecuteAsync_CommandNotIdempotent() throws Exception {
+        overrideSetting("NODEJS_POOL_MAX_TOTAL", 2);
+        overrideSetting("NODEJS_RETRY_IDEMPOTENT_REQUESTS", true);
+        startExecutor();
+        Path marker = Files.createTempFile("exit-times", ".txt");
+        try {
+            CompletableFuture<String> response = executor.executeAsync(exitTimes(marker, 1));
+
+            assertFailsWith(NodeJsProcessException.class, response);
+            assertEquals(1, Files.readAllLines(marker).size());
+        } finally {
+            Files.delete(marker);
+        }
+    }
+
+    @Test
+    public void testExecuteAsync_ProcessKilledOnTimeout() throws Exception {
+        overrideSetting("NODEJS_POOL_MAX_TOTAL", 1);
+        startExecutor();
+        String pid = executor.execute(PID_COMMAND);
+
+        CompletableFuture<String> hangingRequest = executor.executeAsync(toCommand(command("hang").toString()),
+                Duration.ofMillis(200));
+
+        assertFailsWith(NodeJsProcessException.class, hangingRequest);
+        assertNotEquals(pid, executor.executeAsync(PID_COMMAND).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testExecuteAsync_CancelledRequestKeepsProcess() throws Exception {
+        overrideSetting("NODEJS_POOL_MAX_TOTAL", 1);
+        startExecutor();
+        String pid = executor.execute(PID_COMMAND);
+        CompletableFuture<String> cancelledRequest = executor.executeAsync(echo("cancelled", 500));
+        Thread.sleep(100);
+
+        long cancelledAt = System.nanoTime();
+        cancelledRequest.cancel(false);
+        String nextPid = executor.executeAsync(PID_COMMAND).get(10, TimeUnit.SECONDS);
+
+        assertEquals(pid, nextPid);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cancelledAt) >= 300);
+    }
+
+    @Test
+    public void testExecuteAsync_ProcessRecycledAfterMaxRequests() throws Exception {
+        overrideSetting("NODEJS_POOL_MAX_TOTAL", 1);
+        overrideSetting("NODEJS_PROCESS_MAX_REQUESTS", 2);
+        startExecutor();
+
+        String first = executor.executeAsync(PID_COMMAND).get(10, TimeUnit.SECONDS);
+        String second = executor.executeAsync(PID_COMMAND).get(10, TimeUnit.SECONDS);
+        String third = executor.executeAsync(PID_COMMAND).get(10, TimeUnit.SECONDS);
+
+        assertEquals(first, second);
+        assertNotEquals(first, third);
+    }
+
+    @Test
+    public void testExecuteAsync_BorrowTimedOut() throws Exception {
+        overrideSetting("NODEJS_POOL_MAX_TOTAL", 1);
+        overrideSetting("NODEJS_POOL_BORROW_TIMEOUT_MILLIS", 100L);
+        startExecutor();
+        CompletableFuture<String> runningRequest = executor.executeAsync(echo("running", 1000));
+
+        long startedAt = System.nanoTime();
+        CompletableFuture<String> waitingRequest = executor.executeAsync(echo("waiting", 0));
+
+        assertFailsWith(NodeJsPoolSaturatedException.class, waitingRequest);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 1000);
+        assertEquals("running", runningRequest.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testExecuteAsync_MaxWaitingRequestsExceeded() throws Exception {
+        overrideSetting("NODEJS_POOL_MAX_TOTAL", 1);
+        overrideSetting("NODEJS_POOL_MAX_WAITING_REQUESTS", 1);
+        startExecutor();
+        CompletableFuture<String> runningRequest = executor.executeAsync(echo("running", 300));
+        CompletableFuture<String> waitingRequest = executor.executeAsync(echo("waiting", 0));
+
+        CompletableFuture<String> rejectedRequest = executor.executeAsync(echo("rejected", 0));
+
+        assertTrue(rejectedRequest.isCompletedExceptionally());
+        assertFailsWith(NodeJsPoolSaturatedException.class, rejectedRequest);
+        assertEquals("running", runningRequest.get(10, TimeUnit.SECONDS));
+        assertEquals("waiting", waitingRequest.get(10, TimeUnit.SECONDS));
+        assertEquals(1, executor.getQueueStats().getRejectedRequests());
+    }
+
+    @Test
+    public void testRemoveIdleGroups() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName queueObjectName = new ObjectName("com.artezio.forms.formio:type=Queue,name=\"nodejs\",group=\"idle\"");
+        startExecutor();
+        ScriptExecutor groupExecutor = executor.forGroup("idle");
+        groupExecutor.executeAsync(PID_COMMAND).get(10, TimeUnit.SECONDS);
+
+        executor.removeIdleGroups(Duration.ofHours(1));
+        assertTrue(mBeanServer.isRegistered(queueObjectName));
+        executor.removeIdleGroups(Duration.ZERO);
+        assertFalse(mBeanServer.isRegistered(queueObjectName));
+
+        groupExecutor.executeAsync(PID_COMMAND).get(10, TimeUnit.SECONDS);
+        assertTrue(mBeanServer.isRegistered(queueObjectName));
+    }
+
+    private void startExecutor() throws InterruptedException {
+        executor = new NodeJsExecutor(script, List.of());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!executor.isReady() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(executor.isReady());
+    }
+
+    private NodeJsCommand exitTimes(Path marker, int times) {
+        return toCommand(command("exitTimes").put("marker", marker.toString()).put("times", times).toString());
+    }
+
+    private void overrideSetting(String name, Object value) throws Exception {
+        Field field = getSettingField(name);
+        overriddenSettings.putIfAbsent(name, field.get(null));
+        field.set(null, value);
+    }
+
+    private static void setFinalField(String name, Object value) throws NoSuchFieldException, IllegalAccessException {
+        getSettingField(name).set(null, value);
+    }
+
+    /**
+     * The final modifier is removed before the field is read, since reading it caches a read-only accessor
+     */
+    private static Field getSettingField(String name) throws NoSuchFieldException, IllegalAccessException {
+        Field field = NodeJsExecutor.class.getDeclaredField(name);
+        field.setAccessible(true);
+        Field modifiersField = Field.class.getDeclaredField("modifiers");
+        modifiersField.setAccessible(true);
+        modifiersField.setInt(field, field.getModifiers() & ~Modifier.FINAL);
+        return field;
+    }
+
+}
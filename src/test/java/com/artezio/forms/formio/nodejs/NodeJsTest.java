@@ -0,0 +1,161 @@
+package com.artezio.forms.formio.nodejs;
+
+import com.artezio.forms.formio.exceptions.NodeJsException;
+import com.artezio.forms.formio.exceptions.NodeJsProcessException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class NodeJsTest {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static String script;
+
+    private NodeJs nodeJs;
+
+    @BeforeClass
+    public static void loadScript() throws IOException {
+        try (InputStream resource = NodeJsTest.class.getClassLoader().getResourceAsStream("nodejs/test-node.js")) {
+            script = new String(resource.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        nodeJs = new NodeJs(script, 0, Collections.emptyList());
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        nodeJs.shutdown();
+    }
+
+    @Test
+    public void testPing() {
+        assertTrue(nodeJs.ping());
+    }
+
+    @Test
+    public void testExecuteAsync_ResponsesInterleaved() throws Exception {
+        String firstData = "1".repeat(200_000);
+        String secondData = "2".repeat(200_000);
+        String thirdData = "3";
+
+        CompletableFuture<String> first = nodeJs.executeAsync(echo(firstData, 200));
+        CompletableFuture<String> second = nodeJs.executeAsync(echo(secondData, 200));
+        CompletableFuture<String> third = nodeJs.executeAsync(echo(thirdData, 0));
+
+        assertEquals(thirdData, third.get(5, TimeUnit.SECONDS));
+        assertFalse(first.isDone());
+        assertEquals(firstData, first.get(5, TimeUnit.SECONDS));
+        assertEquals(secondData, second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testExecute_MultiFramePayloads() throws Exception {
+        // Two-byte characters after an odd prefix, so the frames split characters in the middle
+        String data = "a" + "ж".repeat(100_000);
+
+        String actual = nodeJs.execute(echo(data, 0));
+
+        assertEquals(data, actual);
+    }
+
+    @Test
+    public void testExecute_EmptyResponse() throws Exception {
+        assertEquals("", nodeJs.execute(echo("", 0)));
+    }
+
+    @Test
+    public void testExecute_ErrorWritten() throws IOException {
+        try {
+            nodeJs.execute(command("fail").put("error", "Invalid data").toString());
+            fail("Expected NodeJsException");
+        } catch (NodeJsException e) {
+            assertEquals("Invalid data", e.getMessage());
+            assertTrue(nodeJs.isAlive());
+        }
+    }
+
+    @Test
+    public void testExecuteAsync_ProcessKilledOnTimeout() throws Exception {
+        CompletableFuture<String> otherRequest = nodeJs.executeAsync(echo("late", 5000));
+
+        CompletableFuture<String> hangingRequest = nodeJs.executeAsync(
+                toCommand(command("hang").toString()), 200);
+
+        assertFailsWith(NodeJsProcessException.class, hangingRequest);
+        assertFailsWith(NodeJsProcessException.class, otherRequest);
+        assertFalse(nodeJs.isAlive());
+    }
+
+    @Test
+    public void testExecuteAsync_CancelledRequestKilledOnTimeout() throws Exception {
+        CompletableFuture<String> hangingRequest = nodeJs.executeAsync(
+                toCommand(command("hang").toString()), 200);
+
+        hangingRequest.cancel(false);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (nodeJs.isAlive() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertFalse(nodeJs.isAlive());
+    }
+
+    @Test
+    public void testExecuteAsync_NegativeFrameLength() throws Exception {
+        assertProcessKilledByBadFrame(-1);
+    }
+
+    @Test
+    public void testExecuteAsync_FrameLengthTooLong() throws Exception {
+        assertProcessKilledByBadFrame(Integer.MAX_VALUE);
+    }
+
+    private void assertProcessKilledByBadFrame(int length) throws Exception {
+        CompletableFuture<String> otherRequest = nodeJs.executeAsync(echo("late", 5000));
+
+        CompletableFuture<String> badRequest = nodeJs.executeAsync(
+                toCommand(command("badFrame").put("length", length).toString()));
+
+        assertFailsWith(NodeJsProcessException.class, badRequest);
+        assertFailsWith(NodeJsProcessException.class, otherRequest);
+        assertFalse(nodeJs.isAlive());
+    }
+
+    static void assertFailsWith(Class<? extends Exception> expected, CompletableFuture<?> response) throws Exception {
+        try {
+            response.get(5, TimeUnit.SECONDS);
+            fail("Expected " + expected.getSimpleName());
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().toString(), expected.isInstance(e.getCause()));
+        }
+    }
+
+    static ObjectNode command(String operation) {
+        return JSON_MAPPER.createObjectNode().put("operation", operation);
+    }
+
+    static NodeJsCommand echo(String data, long delayMillis) {
+        return toCommand(command("echo").put("data", data).put("delayMillis", delayMillis).toString());
+    }
+
+    static NodeJsCommand toCommand(String command) {
+        return outputStream -> outputStream.write(command.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.artezio.forms.formio.scripts;
+
+import com.artezio.forms.formio.exceptions.ScriptExecutionException;
+import com.artezio.forms.formio.nodejs.NodeJsExecutorProvider;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class ScriptExecutorProviderTest {
+
+    @Test
+    public void testGetProvider_NodeJs() {
+        assertTrue(ScriptExecutorProvider.getProvider(NodeJsExecutorProvider.NAME) instanceof NodeJsExecutorProvider);
+    }
+
+    @Test(expected = ScriptExecutionException.class)
+    public void testGetProvider_Unknown() {
+        ScriptExecutorProvider.getProvider("script-engine");
+    }
+
+}
@@ -0,0 +1,107 @@
+// Stand-in for the Formio script in the tests of NodeJs and NodeJsExecutor. It speaks the frame protocol and answers:
+//   ping                      OK
+//   echo {data, delayMillis}  the data after the delay
+//   pid                       the process id
+//   fail {error}              the error, written to the standard error stream
+//   hang                      nothing, ever
+//   exitTimes {marker, times} adds a line to the marker file and exits if the file has at most that many lines,
+//                             otherwise answers with the number of lines
+//   badFrame {length}         a frame header with the length and no payload
+const fs = require('fs');
+const process = require('process');
+
+const HEADER_LENGTH = 8;
+const MAX_FRAME_PAYLOAD_LENGTH = 65536;
+
+const messageChunks = new Map();
+let buffered = Buffer.alloc(0);
+
+function encodeFrame(requestId, payload, length = payload.length) {
+    const header = Buffer.alloc(HEADER_LENGTH);
+    header.writeInt32BE(requestId, 0);
+    header.writeInt32BE(length, 4);
+    return Buffer.concat([header, payload]);
+}
+
+// One frame is written per turn of the event loop, so the frames of responses completed together interleave
+function writeFrames(stream, requestId, data) {
+    const payload = Buffer.from(data, 'utf8');
+    const frames = [];
+    for (let offset = 0; offset < payload.length; offset += MAX_FRAME_PAYLOAD_LENGTH) {
+        frames.push(payload.slice(offset, offset + MAX_FRAME_PAYLOAD_LENGTH));
+    }
+    frames.push(Buffer.alloc(0));
+    let index = 0;
+    const writeNext = () => {
+        stream.write(encodeFrame(requestId, frames[index++]));
+        if (index < frames.length) {
+            setImmediate(writeNext);
+        }
+    };
+    writeNext();
+}
+
+function respond(requestId, data, error) {
+    writeFrames(process.stdout, requestId, data);
+    writeFrames(process.stderr, requestId, error);
+}
+
+function execute(requestId, command) {
+    switch (command.operation) {
+        case 'ping':
+            respond(requestId, 'OK', '');
+            return;
+        case 'echo':
+            setTimeout(() => respond(requestId, command.data, ''), command.delayMillis || 0);
+            return;
+        case 'pid':
+            respond(requestId, String(process.pid), '');
+            return;
+        case 'fail':
+            respond(requestId, '', command.error);
+            return;
+        case 'hang':
+            return;
+        case 'exitTimes': {
+            fs.appendFileSync(command.marker, 'x\n');
+            const executions = fs.readFileSync(command.marker, 'utf8').split('\n').length - 1;
+            if (executions <= command.times) {
+                process.exit(1);
+            }
+            respond(requestId, String(executions), '');
+            return;
+        }
+        case 'badFrame':
+            process.stdout.write(encodeFrame(requestId, Buffer.alloc(0), command.length));
+            return;
+        default:
+            respond(requestId, '', `Unknown operation ${command.operation}`);
+    }
+}
+
+function onFrame(requestId, payload) {
+    if (payload.length > 0) {
+        if (!messageChunks.has(requestId)) {
+            messageChunks.set(requestId, []);
+        }
+        messageChunks.get(requestId).push(payload);
+        return;
+    }
+    const chunks = messageChunks.get(requestId) || [];
+    messageChunks.delete(requestId);
+    execute(requestId, JSON.parse(Buffer.concat(chunks).toString('utf8')));
+}
+
+process.stdin.on('data', chunk => {
+    buffered = buffered.length > 0 ? Buffer.concat([buffered, chunk]) : chunk;
+    while (buffered.length >= HEADER_LENGTH) {
+        const requestId = buffered.readInt32BE(0);
+        const length = buffered.readInt32BE(4);
+        if (buffered.length < HEADER_LENGTH + length) {
+            break;
+        }
+        const payload = buffered.slice(HEADER_LENGTH, HEADER_LENGTH + length);
+        buffered = buffered.slice(HEADER_LENGTH + length);
+        onFrame(requestId, payload);
+    }
+});